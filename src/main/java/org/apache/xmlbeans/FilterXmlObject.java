@@ -87,6 +87,14 @@ public abstract class FilterXmlObject implements XmlObject, SimpleValue, Delegat
         return underlyingXmlObject().isImmutable();
     }
 
+    public void freeze() {
+        underlyingXmlObject().freeze();
+    }
+
+    public boolean isFrozen() {
+        return underlyingXmlObject().isFrozen();
+    }
+
     public XmlObject set(XmlObject srcObj) {
         return underlyingXmlObject().set(srcObj);
     }
@@ -16,46 +16,79 @@
 package org.apache.xmlbeans;
 
 import javax.xml.namespace.QName;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * A cache that can be used to pool QName instances.  Each thread has one.
- */ 
+ * A thread-safe cache that can be used to pool QName instances.
+ * <p>
+ * The cache is split into lock striped segments. Lookups of cached names don't lock,
+ * only adding a name locks its segment. Each segment is bounded: when the youngest
+ * generation of a segment is full, it becomes the old generation and the previous
+ * old generation is dropped. Names found in the old generation are promoted back
+ * into the young one, so frequently used names survive documents with an unbounded
+ * number of distinct (e.g. generated) names.
+ */
 public final class QNameCache
 {
     private static final float DEFAULT_LOAD = 0.70f;
+    private static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+    private static final QName[] EMPTY = new QName[0];
+
+    // number of segments, needs to be a power of 2
+    private static final int SEGMENTS = 16;
+    private static final int SEGMENT_SHIFT = 28;
+
     private final float loadFactor;
-    private int numEntries = 0;
-    private int threshold;
-    private int hashmask;
-    private QName[] table;
+    private final int segmentCapacity;
+    private final int maxSegmentEntries;
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     /**
-     * Creates a QNameCache with the given initialCapacity and loadFactor.
-     * 
+     * Creates a QNameCache with the given initialCapacity, loadFactor and size bound.
+     *
      * @param initialCapacity the number of entries to initially make space for
      * @param loadFactor a number to control the density of the hashtable
-     */ 
-    public QNameCache(int initialCapacity, float loadFactor)
+     * @param maxEntries the number of entries after which names get evicted
+     */
+    public QNameCache(int initialCapacity, float loadFactor, int maxEntries)
     {
         assert initialCapacity > 0;
         assert loadFactor > 0 && loadFactor < 1;
+        assert maxEntries > 0;
 
-        // Find a power of 2 >= initialCapacity
-        int capacity = 16;
-        while (capacity < initialCapacity) 
+        // Find a power of 2 >= initialCapacity / SEGMENTS
+        int capacity = 8;
+        while (capacity * SEGMENTS < initialCapacity)
             capacity <<= 1;
-    
+
         this.loadFactor = loadFactor;
-        this.hashmask = capacity - 1;
-        threshold = (int)(capacity * loadFactor);
-        table = new QName[capacity];
+        this.segmentCapacity = capacity;
+        this.maxSegmentEntries = Math.max(maxEntries / SEGMENTS, 1);
+
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment();
+    }
+
+    /**
+     * Creates a QNameCache with the given initialCapacity and loadFactor.
+     *
+     * @param initialCapacity the number of entries to initially make space for
+     * @param loadFactor a number to control the density of the hashtable
+     */
+    public QNameCache(int initialCapacity, float loadFactor)
+    {
+        this(initialCapacity, loadFactor, DEFAULT_MAX_ENTRIES);
     }
 
     /**
      * Creates a QNameCache with the given initialCapacity.
-     * 
+     *
      * @param initialCapacity the number of entries to initially make space for
-     */ 
+     */
     public QNameCache(int initialCapacity)
     {
         this(initialCapacity, DEFAULT_LOAD);
@@ -65,70 +98,249 @@ public final class QNameCache
     {
         return getName( uri, localName, "" );
     }
-    
+
     /**
      * Fetches a QName with the given namespace and localname.
      * Creates one if one is not found in the cache.
-     * 
+     *
      * @param uri the namespace
      * @param localName the localname
      * @param prefix the prefix
      * @return the cached QName
-     */ 
+     */
     public QName getName(String uri, String localName, String prefix)
     {
-        /*
-        return new QName(uri, localName, prefix);
-        */
         assert localName != null;
-        
+
         if (uri == null) uri = "";
         if (prefix == null) prefix = "";
 
-        int index = hash(uri, localName, prefix) & hashmask;
-        while (true) {
-            QName q = table[index];
-            if (q == null)
+        int h = hash(uri, localName, prefix);
+
+        return lookup(h,
+            uri, 0, uri.length(),
+            localName, 0, localName.length(),
+            prefix, 0, prefix.length());
+    }
+
+    /**
+     * Fetches a QName with the given namespace and qualified name, i.e. a name which
+     * might contain a prefix separated by a colon.
+     * The prefix and localname are only extracted when the name is not found in the cache.
+     *
+     * @param uri the namespace
+     * @param qualifiedName the localname, optionally preceded by a prefix and a colon
+     * @return the cached QName
+     */
+    public QName getQualifiedName(String uri, String qualifiedName)
+    {
+        assert qualifiedName != null;
+
+        if (uri == null) uri = "";
+
+        int colon = qualifiedName.indexOf(':');
+        int localPos = colon + 1;
+        int localCch = qualifiedName.length() - localPos;
+        int prefixCch = colon < 0 ? 0 : colon;
+
+        int h = (hash(qualifiedName, 0, prefixCch) << 10) + (uri.hashCode() << 5) + hash(qualifiedName, localPos, localCch);
+
+        return lookup(h,
+            uri, 0, uri.length(),
+            qualifiedName, localPos, localCch,
+            qualifiedName, 0, prefixCch);
+    }
+
+    /**
+     * Fetches a QName with the namespace, localname and prefix given as char array ranges.
+     * Strings are only created when the name is not found in the cache.
+     *
+     * @return the cached QName
+     */
+    public QName getName(char[] uriSrc, int uriPos, int uriCch,
+                         char[] localSrc, int localPos, int localCch,
+                         char[] prefixSrc, int prefixPos, int prefixCch)
+    {
+        assert localSrc != null;
+
+        int h = (hash(prefixSrc, prefixPos, prefixCch) << 10) +
+                (hash(uriSrc, uriPos, uriCch) << 5) +
+                hash(localSrc, localPos, localCch);
+
+        return lookup(h,
+            uriSrc, uriPos, uriCch,
+            localSrc, localPos, localCch,
+            prefixSrc, prefixPos, prefixCch);
+    }
+
+    /**
+     * @return the number of lookups which found a cached name
+     */
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups which needed to create a new name
+     */
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * @return the approximate number of cached names, names which were promoted
+     *   from the old generation are counted twice
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Segment s : segments)
+            size += s.size();
+        return size;
+    }
+
+    // The name parts are given as String or char[] ranges, so all lookup variants share
+    // the same probing code
+    private QName lookup(int h,
+                         Object uriSrc, int uriPos, int uriCch,
+                         Object localSrc, int localPos, int localCch,
+                         Object prefixSrc, int prefixPos, int prefixCch)
+    {
+        // multiplicative hashing spreads the low bits of short names over the segments
+        Segment s = segments[(h * 0x9E3779B9) >>> SEGMENT_SHIFT];
+
+        QName q = probe(s.young, h, uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch);
+        if (q != null)
+        {
+            hits.increment();
+            return q;
+        }
+
+        synchronized (s)
+        {
+            // check again, the name might have been added or promoted in the meantime
+            q = probe(s.young, h, uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch);
+            if (q != null)
             {
-                numEntries++;
-                if (numEntries >= threshold)
-                    rehash();
+                hits.increment();
+                return q;
+            }
 
-                return table[index] = new QName(uri, localName, prefix);
+            q = probe(s.old, h, uriSrc, uriPos, uriCch, localSrc, localPos, localCch, prefixSrc, prefixPos, prefixCch);
+            if (q != null)
+            {
+                hits.increment();
+            }
+            else
+            {
+                misses.increment();
+                q = new QName(
+                    toString(uriSrc, uriPos, uriCch),
+                    toString(localSrc, localPos, localCch),
+                    toString(prefixSrc, prefixPos, prefixCch));
             }
-            else if (equals(q, uri, localName, prefix))
+
+            s.add(h, q);
+            return q;
+        }
+    }
+
+    private static QName probe(QName[] table, int h,
+                               Object uriSrc, int uriPos, int uriCch,
+                               Object localSrc, int localPos, int localCch,
+                               Object prefixSrc, int prefixPos, int prefixCch)
+    {
+        if (table.length == 0)
+            return null;
+
+        int hashmask = table.length - 1;
+        int index = h & hashmask;
+        while (true) {
+            QName q = table[index];
+            if (q == null)
+                return null;
+            else if (equals(q.getLocalPart(), localSrc, localPos, localCch) &&
+                     equals(q.getNamespaceURI(), uriSrc, uriPos, uriCch) &&
+                     equals(q.getPrefix(), prefixSrc, prefixPos, prefixCch))
                 return q;
-            else 
+            else
                 index = (index-1) & hashmask;
         }
     }
 
-    private void rehash()
+    /**
+     * A segment of the cache. The tables are only ever added to or replaced, so they can be
+     * probed without locking. Modifications need to hold the segment monitor.
+     */
+    private final class Segment
     {
-        int newLength = table.length * 2;
-        QName[] newTable = new QName[newLength];
-        int newHashmask = newLength - 1;
+        private volatile QName[] young;
+        private volatile QName[] old = EMPTY;
+        private int youngEntries;
+        private int oldEntries;
+        private int threshold;
 
-        for (int i = 0 ; i < table.length ; i++)
+        Segment()
         {
-            QName q = table[i];
-            if (q != null)
+            young = newTable(segmentCapacity);
+        }
+
+        private QName[] newTable(int capacity)
+        {
+            threshold = (int) (capacity * loadFactor);
+            return new QName[capacity];
+        }
+
+        int size()
+        {
+            return youngEntries + oldEntries;
+        }
+
+        void add(int h, QName q)
+        {
+            if (youngEntries >= maxSegmentEntries)
             {
-                int newIndex =
-                    hash( q.getNamespaceURI(), q.getLocalPart(), q.getPrefix() ) & newHashmask;
-                
-                while (newTable[newIndex] != null)
-                    newIndex = (newIndex - 1) & newHashmask;
-                
-                newTable[newIndex] = q;
+                // evict the old generation
+                old = young;
+                oldEntries = youngEntries;
+                young = newTable(segmentCapacity);
+                youngEntries = 0;
             }
+
+            insert(young, h, q);
+
+            if (++youngEntries >= threshold)
+                rehash();
         }
 
-        table = newTable;
-        hashmask = newHashmask;
-        threshold = (int) (newLength * loadFactor);
+        private void rehash()
+        {
+            QName[] table = young;
+            QName[] newTable = newTable(table.length * 2);
+
+            for (QName q : table)
+            {
+                if (q != null)
+                    insert(newTable, hash(q.getNamespaceURI(), q.getLocalPart(), q.getPrefix()), q);
+            }
+
+            young = newTable;
+        }
+
+        private void insert(QName[] table, int h, QName q)
+        {
+            int hashmask = table.length - 1;
+            int index = h & hashmask;
+
+            while (table[index] != null)
+                index = (index - 1) & hashmask;
+
+            table[index] = q;
+        }
     }
-    
+
     private static int hash(String uri, String localName, String prefix)
     {
         int h = 0;
@@ -140,11 +352,49 @@ public final class QNameCache
         return h;
     }
 
-    private static boolean equals(QName q, String uri, String localName, String prefix)
+    // same as String.hashCode() of the given range
+    private static int hash(String src, int pos, int cch)
     {
-        return
-            q.getLocalPart().equals(localName) &&
-                q.getNamespaceURI().equals(uri) &&
-                    q.getPrefix().equals(prefix);
+        int h = 0;
+        for (int i = pos, end = pos + cch; i < end; i++)
+            h = 31 * h + src.charAt(i);
+        return h;
+    }
+
+    // same as String.hashCode() of the given range
+    private static int hash(char[] src, int pos, int cch)
+    {
+        int h = 0;
+        for (int i = pos, end = pos + cch; i < end; i++)
+            h = 31 * h + src[i];
+        return h;
+    }
+
+    private static String toString(Object src, int pos, int cch)
+    {
+        if (cch == 0)
+            return "";
+        if (src instanceof String)
+        {
+            String s = (String) src;
+            return (pos == 0 && cch == s.length()) ? s : s.substring(pos, pos + cch);
+        }
+        return new String((char[]) src, pos, cch);
+    }
+
+    private static boolean equals(String s, Object src, int pos, int cch)
+    {
+        if (s.length() != cch)
+            return false;
+        if (src instanceof String)
+            return s.regionMatches(0, (String) src, pos, cch);
+
+        char[] chars = (char[]) src;
+        for (int i = 0; i < cch; i++)
+        {
+            if (s.charAt(i) != chars[pos + i])
+                return false;
+        }
+        return true;
     }
 }
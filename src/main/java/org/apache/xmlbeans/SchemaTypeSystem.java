@@ -16,6 +16,8 @@
 package org.apache.xmlbeans;
 
 import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A finite set of XML Schema component definitions.
@@ -181,6 +183,22 @@ public interface SchemaTypeSystem extends SchemaTypeLoader
      */
     void resolve();
 
+    /**
+     * Resolves all components of this type system up front, instead of lazily on first use.
+     * The work is spread over the given executor and this method returns when all components
+     * are resolved, e.g. to warm up an application before it takes requests.
+     * <p>
+     * The default implementation simply calls {@link #resolve()} on the calling thread.
+     *
+     * @param executor the executor used for resolving the components
+     * @return the number of components which were loaded and the time it took
+     */
+    default PreloadResult preload(Executor executor) {
+        long start = System.nanoTime();
+        resolve();
+        return new PreloadResult(0, System.nanoTime() - start);
+    }
+
     /**
      * Locates a type, element, or attribute using the handle.
      */
@@ -205,4 +223,35 @@ public interface SchemaTypeSystem extends SchemaTypeLoader
      * Saves this type system using a Filer
      */
     void save(Filer filer);
+
+    /**
+     * The outcome of {@link #preload(Executor)}
+     */
+    final class PreloadResult {
+        private final int componentCount;
+        private final long nanos;
+
+        public PreloadResult(int componentCount, long nanos) {
+            this.componentCount = componentCount;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return the number of components which were loaded, i.e. which weren't resolved before
+         */
+        public int getComponentCount() {
+            return componentCount;
+        }
+
+        /**
+         * @return the elapsed time in milliseconds
+         */
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        public String toString() {
+            return "loaded " + componentCount + " components in " + getMillis() + " ms";
+        }
+    }
 }
@@ -15,18 +15,26 @@
 
 package org.apache.xmlbeans;
 
+import org.apache.xmlbeans.impl.common.StaxHelper;
 import org.apache.xmlbeans.impl.schema.BuiltinSchemaTypeSystem;
 import org.apache.xmlbeans.impl.schema.PathResourceLoader;
 import org.apache.xmlbeans.impl.schema.SchemaTypeLoaderImpl;
 import org.apache.xmlbeans.impl.schema.SchemaTypeSystemCompiler;
 import org.apache.xmlbeans.impl.store.Locale;
+import org.apache.xmlbeans.impl.store.RecordLoader;
+import org.apache.xmlbeans.impl.xpath.XPath;
 import org.w3c.dom.Node;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import java.io.File;
-import java.lang.ref.SoftReference;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides an assortment of utilities
@@ -78,42 +86,30 @@ public final class XmlBeans {
     }
 
     /**
-     * Thread local QName cache for general use
+     * Shared QName cache for general use
      */
-    private static final ThreadLocal _threadLocalLoaderQNameCache =
-        new ThreadLocal() {
-            protected Object initialValue() {
-                return new SoftReference(new QNameCache(32));
-            }
-        };
+    private static final QNameCache _qnameCache = new QNameCache(1024);
 
     public static void clearThreadLocals() {
-        // clear thread local here
-        _threadLocalLoaderQNameCache.remove();
+        // the QName cache is shared between threads and bounded, so there's nothing to clear
     }
 
     /**
-     * Returns a thread local QNameCache
+     * Returns the shared, thread-safe QNameCache
      */
     public static QNameCache getQNameCache() {
-        SoftReference softRef = (SoftReference) _threadLocalLoaderQNameCache.get();
-        QNameCache qnameCache = (QNameCache) (softRef).get();
-        if (qnameCache == null) {
-            qnameCache = new QNameCache(32);
-            _threadLocalLoaderQNameCache.set(new SoftReference(qnameCache));
-        }
-        return qnameCache;
+        return _qnameCache;
     }
 
     /**
-     * Obtains a name from the thread local QNameCache
+     * Obtains a name from the shared QNameCache
      */
     public static QName getQName(String localPart) {
         return getQNameCache().getName("", localPart);
     }
 
     /**
-     * Obtains a name from the thread local QNameCache
+     * Obtains a name from the shared QNameCache
      */
 
     public static QName getQName(String namespaceUri, String localPart) {
@@ -175,6 +171,63 @@ public final class XmlBeans {
         return getContextTypeLoader().compileQuery(queryExpr, options);
     }
 
+    /**
+     * Splits a document into records, i.e. the repeated elements with the given name,
+     * and loads each record into its own store, so that documents of any size can be
+     * processed. The namespaces, which are in scope for a record, are declared on it.
+     * <p>
+     * The stream should be closed, to close the reader. The source of the reader isn't closed.
+     *
+     * @param xsr        the reader, which is positioned on the start of the document
+     * @param recordName the name of the record elements, records aren't nested
+     * @param type       the type of the records or null, to find the type by the record name.
+     *                   A record with a type, which isn't a document type, is loaded as a
+     *                   fragment of that type, i.e. without the record element.
+     * @param options    the load options
+     */
+    public static Stream<XmlObject> parseRecords(XMLStreamReader xsr, QName recordName, SchemaType type, XmlOptions options)
+        throws XmlException {
+        return parseRecords(xsr, RecordLoader.recordPath(recordName), type, options);
+    }
+
+    /**
+     * Splits a document into records, i.e. the repeated elements with the given name,
+     * and loads each record into its own store.
+     * <p>
+     * The stream should be closed, to release the parser. The input stream isn't closed.
+     *
+     * @see #parseRecords(XMLStreamReader, QName, SchemaType, XmlOptions)
+     */
+    public static Stream<XmlObject> parseRecords(InputStream is, QName recordName, SchemaType type, XmlOptions options)
+        throws XmlException {
+        XMLStreamReader xsr;
+        try {
+            xsr = StaxHelper.newXMLInputFactory(XmlOptions.maskNull(options)).createXMLStreamReader(is);
+        } catch (XMLStreamException e) {
+            throw new XmlException(e.getMessage(), e);
+        }
+        return parseRecords(xsr, recordName, type, options);
+    }
+
+    /**
+     * Splits a document into records, i.e. the elements selected by a path, and loads each
+     * record into its own store.
+     *
+     * @param recordPath a path, which is limited to child and descendant steps, e.g.
+     *                   <code>$this/feed/record</code>
+     * @see #parseRecords(XMLStreamReader, QName, SchemaType, XmlOptions)
+     */
+    public static Stream<XmlObject> parseRecords(XMLStreamReader xsr, String recordPath, SchemaType type, XmlOptions options)
+        throws XmlException {
+        return parseRecords(xsr, XPath.compileXPath(recordPath, "this"), type, options);
+    }
+
+    private static Stream<XmlObject> parseRecords(XMLStreamReader xsr, XPath recordPath, SchemaType type, XmlOptions options) {
+        RecordLoader loader = new RecordLoader(getContextTypeLoader(), xsr, recordPath, type, options);
+        Spliterator<XmlObject> split = Spliterators.spliteratorUnknownSize(loader, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(split, false).onClose(loader::close);
+    }
+
     /**
      * Gets the SchemaTypeLoader based on the current thread's context
      * ClassLoader. This is the SchemaTypeLoader that is used to assign
@@ -417,6 +417,30 @@ public interface XmlObject extends XmlTokenSource {
      */
     boolean isImmutable();
 
+    /**
+     * Makes the whole document of this object read-only, so that it can be read by
+     * several threads at the same time without locking.
+     * <p>
+     * All values of the document are parsed by this call. Afterwards every change of the
+     * document, e.g. a setter or an insert with a cursor, throws an {@link IllegalStateException}.
+     * The freeze applies to all documents, which share the synchronization domain of this object,
+     * and it can't be undone. Use {@link #copy()} to get a modifiable document again.
+     * <p>
+     * A cursor of a frozen document must be used and closed by the thread, which has created it.
+     * The DOM of a frozen document is still synchronized, because its text nodes are created on demand.
+     * <p>
+     * The default implementation does nothing, for objects which can't be frozen.
+     */
+    default void freeze() {
+    }
+
+    /**
+     * @return true if the document of this object is frozen, see {@link #freeze()}
+     */
+    default boolean isFrozen() {
+        return false;
+    }
+
     /**
      * Set the value/type of this XmlObject to be a copy of the source
      * XmlObject.  Because the type of the source may be different than this
@@ -22,6 +22,7 @@ import org.xml.sax.XMLReader;
 import javax.xml.namespace.QName;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * Used to supply options for loading, saving, and compiling, and validating.
@@ -135,11 +136,14 @@ public class XmlOptions implements java.io.Serializable {
         COMPILE_MDEF_NAMESPACES,
         COMPILE_PARTIAL_TYPESYSTEM,
         COMPILE_PARTIAL_METHODS,
+        COMPILE_PACKED_TYPESYSTEM,
         COMPILE_ANNOTATION_JAVADOC,
+        COMPILE_EXECUTOR,
         VALIDATE_ON_SET,
         VALIDATE_TREAT_LAX_AS_SKIP,
         VALIDATE_STRICT,
         VALIDATE_TEXT_ONLY,
+        VALIDATE_EXECUTOR,
         UNSYNCHRONIZED,
         ENTITY_RESOLVER,
         BASE_URI,
@@ -1102,6 +1106,26 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set, the compiled type system is saved as a single
+     * packed .xsb resource containing all components, instead of one resource
+     * per component. This speeds up loading large type systems, especially
+     * from nested jars.
+     *
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompilePackedTypesystem() {
+        return setCompilePackedTypesystem(true);
+    }
+
+    public XmlOptions setCompilePackedTypesystem(boolean b) {
+        return set(XmlOptionsKeys.COMPILE_PACKED_TYPESYSTEM, b);
+    }
+
+    public boolean isCompilePackedTypesystem() {
+        return hasOption(XmlOptionsKeys.COMPILE_PACKED_TYPESYSTEM);
+    }
+
     /**
      * If this option is set when an instance is created, then value
      * facets will be checked on each call to a setter or getter
@@ -1171,6 +1195,26 @@ public class XmlOptions implements java.io.Serializable {
         return hasOption(XmlOptionsKeys.VALIDATE_TEXT_ONLY);
     }
 
+    /**
+     * Validates the children of the document element, or of the validated element,
+     * in parallel on the given executor. The content model of the parent is still
+     * checked in document order, and the errors are reported in document order, too.
+     * Identity constraints and IDs, which span several children, are checked after
+     * the children have been validated.
+     * <p>
+     * The document must not be modified while it is validated.
+     *
+     * @param executor the executor or null, to validate on the calling thread
+     * @see XmlObject#validate(XmlOptions)
+     */
+    public XmlOptions setValidateExecutor(Executor executor) {
+        return set(XmlOptionsKeys.VALIDATE_EXECUTOR, executor);
+    }
+
+    public Executor getValidateExecutor() {
+        return (Executor) get(XmlOptionsKeys.VALIDATE_EXECUTOR);
+    }
+
 
     /**
      * This option controls whether or not operations on XmlBeans are
@@ -1370,6 +1414,16 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * If this option is set, the document is saved by a faster saver, which ignores all other
+     * save options, e.g. there is no XML declaration and no pretty printing. The fast saver is
+     * used by save(Writer) and save(OutputStream). An OutputStream is written as UTF-8, which is
+     * encoded straight into a reused byte buffer, so save(OutputStream) only takes the fast path
+     * if no character encoding or UTF-8 is set; for other encodings the regular saver is used
+     * and all save options apply.
+     *
+     * @param saveOptimizeForSpeed {@code true} for the faster saver
+     */
     public XmlOptions setSaveOptimizeForSpeed(boolean saveOptimizeForSpeed) {
         return set(XmlOptionsKeys.SAVE_OPTIMIZE_FOR_SPEED, saveOptimizeForSpeed);
     }
@@ -1444,6 +1498,24 @@ public class XmlOptions implements java.io.Serializable {
         return flag != null && flag;
     }
 
+    /**
+     * Generates the sources of the schema types in parallel on the given executor.
+     * The option is only used with the built-in code printer, a custom
+     * {@link #setSchemaCodePrinter(SchemaCodePrinter) SchemaCodePrinter} always prints
+     * the types one after the other on the calling thread. A {@link Filer} given to the
+     * compiler needs to create the source files concurrently.
+     *
+     * @param executor the executor or null, to generate the sources on the calling thread
+     * @see XmlBeans#compileXmlBeans
+     */
+    public XmlOptions setCompileExecutor(Executor executor) {
+        return set(XmlOptionsKeys.COMPILE_EXECUTOR, executor);
+    }
+
+    public Executor getCompileExecutor() {
+        return (Executor) get(XmlOptionsKeys.COMPILE_EXECUTOR);
+    }
+
     public XmlOptions setAttributeValidationCompatMode(boolean attributeValidationCompatMode) {
         return set(XmlOptionsKeys.ATTRIBUTE_VALIDATION_COMPAT_MODE, attributeValidationCompatMode);
     }
@@ -34,10 +34,20 @@ public class IdentityConstraint {
     private ElementState _elementStack;
     private final Collection<XmlError> _errorListener;
     private boolean _invalid;
+    private final boolean _trackIds;
     private final boolean _trackIdrefs; // We only track idrefs if validating from the root element
 
     public IdentityConstraint(Collection<XmlError> errorListener, boolean trackIdrefs) {
+        this(errorListener, true, trackIdrefs);
+    }
+
+    /**
+     * @param trackIds false, if the IDs are tracked elsewhere, e.g. if a part of a document is
+     *                 validated on its own
+     */
+    public IdentityConstraint(Collection<XmlError> errorListener, boolean trackIds, boolean trackIdrefs) {
         _errorListener = errorListener;
+        _trackIds = trackIds;
         _trackIdrefs = trackIdrefs;
     }
 
@@ -93,6 +103,27 @@ public class IdentityConstraint {
         return !_invalid;
     }
 
+    /**
+     * @return true, if a key, keyref or unique constraint of the current element or its ancestors is in scope
+     */
+    public boolean hasOpenConstraints() {
+        for (ConstraintState cs = _constraintStack; cs != null; cs = cs._next) {
+            if (!(cs instanceof IdState) && !(cs instanceof IdRefState)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true, if values of the type are checked as ID or IDREF
+     */
+    public static boolean isIdType(SchemaType st) {
+        return st != null && !st.isNoType() &&
+               (XmlID.type.isAssignableFrom(st) || XmlIDREF.type.isAssignableFrom(st) ||
+                XmlIDREFS.type.isAssignableFrom(st));
+    }
+
     private void newConstraintState(SchemaIdentityConstraint ic, Event e, SchemaType st) {
         if (ic.getConstraintCategory() == SchemaIdentityConstraint.CC_KEYREF) {
             new KeyrefState(ic, e, st);
@@ -116,7 +147,7 @@ public class IdentityConstraint {
         st._next = _elementStack;
         _elementStack = st;
 
-        if (firstTime) {
+        if (firstTime && _trackIds) {
             buildIdStates();
         }
     }
@@ -33,13 +33,13 @@ import java.lang.reflect.InvocationTargetException;
  * at any time, so use of static variables is discouraged to ensure proper cleanup.
  */
 public class SystemCache {
-    private static SystemCache INSTANCE = initCache();
+    private static volatile SystemCache INSTANCE = initCache();
 
-    public static synchronized void set(SystemCache instance) {
+    public static void set(SystemCache instance) {
         INSTANCE = instance;
     }
 
-    public static synchronized SystemCache get() {
+    public static SystemCache get() {
         return INSTANCE;
     }
 
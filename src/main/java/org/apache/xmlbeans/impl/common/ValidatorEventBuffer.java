@@ -0,0 +1,324 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.common;
+
+import org.apache.xmlbeans.XmlCursor;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import java.util.Arrays;
+
+/**
+ * A copy of the validation events of an element, which can be validated on another thread.
+ * <p>
+ * The events are recorded by the source of the events, e.g. the store, on its thread. Afterwards
+ * the buffer is read-only and can be replayed to a {@link ValidatorListener} on any thread.
+ * The replayed events don't have a location, but the recording thread can resolve the location
+ * of an event by its index, see {@link #getLocationAsCursor(int)}.
+ */
+public final class ValidatorEventBuffer implements ValidatorListener {
+    /**
+     * Resolves the recorded elements of the source. It is only used on the recording thread.
+     */
+    public interface Locator {
+        /**
+         * @param element the recorded element
+         * @param attr    the name of an attribute of the element or null
+         * @param end     true for the end of the element
+         * @return a cursor at the element, its attribute or its end
+         */
+        XmlCursor getCursor(Object element, QName attr, boolean end);
+
+        /**
+         * Sends the events of the element to the listener, as if the element was validated on its own.
+         * Unlike a validation of the element, the BEGIN event has the name of the element.
+         */
+        void validate(Object element, ValidatorListener listener);
+    }
+
+    private static final String[] NO_NAMESPACES = new String[0];
+
+    private final Locator _locator;
+
+    private byte[] _kinds = new byte[16];
+    // the name of BEGIN and ATTR
+    private QName[] _names = new QName[16];
+    // the text of TEXT and ATTR, the element of BEGIN
+    private Object[] _values = new Object[16];
+    private int _size;
+
+    // the last recorded element
+    private Element _element;
+
+    // the index of the replayed event
+    private int _position = -1;
+
+    public ValidatorEventBuffer(Locator locator) {
+        _locator = locator;
+    }
+
+    /**
+     * Records an event.
+     */
+    public void nextEvent(int kind, Event event) {
+        switch (kind) {
+            case BEGIN:
+                _element = new Element();
+                add(kind, event.getName(), _element);
+                break;
+            case ATTR:
+                add(kind, event.getName(), event.getText());
+                break;
+            case TEXT:
+                add(kind, null, event.getText());
+                break;
+            default:
+                add(kind, null, null);
+                break;
+        }
+    }
+
+    /**
+     * Records the source location of the last element, see {@link Locator}.
+     */
+    public void location(Object element) {
+        _element._location = element;
+    }
+
+    /**
+     * Records a namespace declaration of the last element. The later declarations
+     * of a prefix win over the former ones.
+     */
+    public void namespace(String prefix, String uri) {
+        Element e = _element;
+        if (e._namespaces.length == e._namespaceCount) {
+            e._namespaces = Arrays.copyOf(e._namespaces, Math.max(4, e._namespaceCount * 2));
+        }
+        e._namespaces[e._namespaceCount++] = prefix;
+        e._namespaces[e._namespaceCount++] = uri;
+    }
+
+    /**
+     * Records an xsi attribute of the last element.
+     *
+     * @param local the local name of the attribute
+     */
+    public void xsi(String local, String value) {
+        switch (local) {
+            case "type":
+                _element._xsiType = value;
+                break;
+            case "nil":
+                _element._xsiNil = value;
+                break;
+            case "schemaLocation":
+                _element._xsiLoc = value;
+                break;
+            case "noNamespaceSchemaLocation":
+                _element._xsiNoLoc = value;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the number of recorded events
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return the recorded location of the first element
+     */
+    public Object getRootLocation() {
+        return _size == 0 ? null : ((Element) _values[0])._location;
+    }
+
+    /**
+     * @return while the events are replayed, the index of the current event
+     */
+    public int getPosition() {
+        return _position;
+    }
+
+    /**
+     * Sends the recorded events to the listener.
+     */
+    public void replay(ValidatorListener listener) {
+        Replay event = new Replay();
+        for (int i = 0; i < _size; i++) {
+            _position = i;
+            int kind = _kinds[i];
+            if (kind == BEGIN) {
+                event.push((Element) _values[i]);
+            }
+            event._index = i;
+            listener.nextEvent(kind, event);
+            if (kind == END) {
+                event.pop();
+            }
+        }
+        _position = -1;
+    }
+
+    /**
+     * Resolves the location of an event like the source would do. It must only be called
+     * on the thread, which has recorded the events.
+     *
+     * @param index the index of the event
+     */
+    public XmlCursor getLocationAsCursor(int index) {
+        // text is reported at the following event
+        while (index < _size - 1 && _kinds[index] == TEXT) {
+            index++;
+        }
+
+        // find the element of the event
+        Element[] stack = new Element[16];
+        int depth = 0;
+        for (int i = 0; i <= index; i++) {
+            if (_kinds[i] == BEGIN) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = (Element) _values[i];
+            } else if (_kinds[i] == END && i < index) {
+                depth--;
+            }
+        }
+
+        Object element = stack[depth - 1]._location;
+        switch (_kinds[index]) {
+            case ATTR:
+                return _locator.getCursor(element, _names[index], false);
+            case END:
+                return _locator.getCursor(element, null, true);
+            default:
+                return _locator.getCursor(element, null, false);
+        }
+    }
+
+    /**
+     * @see Locator#validate(Object, ValidatorListener)
+     */
+    public void validateSource(ValidatorListener listener) {
+        _locator.validate(getRootLocation(), listener);
+    }
+
+    private void add(int kind, QName name, Object value) {
+        if (_size == _kinds.length) {
+            int n = _size * 2;
+            _kinds = Arrays.copyOf(_kinds, n);
+            _names = Arrays.copyOf(_names, n);
+            _values = Arrays.copyOf(_values, n);
+        }
+        _kinds[_size] = (byte) kind;
+        _names[_size] = name;
+        _values[_size] = value;
+        _size++;
+    }
+
+    private static final class Element {
+        Object _location;
+        String _xsiType;
+        String _xsiNil;
+        String _xsiLoc;
+        String _xsiNoLoc;
+        // prefix and uri pairs
+        String[] _namespaces = NO_NAMESPACES;
+        int _namespaceCount;
+    }
+
+    private final class Replay implements Event {
+        private Element[] _stack = new Element[16];
+        private int _depth;
+        int _index;
+
+        void push(Element e) {
+            if (_depth == _stack.length) {
+                _stack = Arrays.copyOf(_stack, _depth * 2);
+            }
+            _stack[_depth++] = e;
+        }
+
+        void pop() {
+            _stack[--_depth] = null;
+        }
+
+        public XmlCursor getLocationAsCursor() {
+            return null;
+        }
+
+        public Location getLocation() {
+            return null;
+        }
+
+        public String getXsiType() {
+            return _stack[_depth - 1]._xsiType;
+        }
+
+        public String getXsiNil() {
+            return _stack[_depth - 1]._xsiNil;
+        }
+
+        public String getXsiLoc() {
+            return _stack[_depth - 1]._xsiLoc;
+        }
+
+        public String getXsiNoLoc() {
+            return _stack[_depth - 1]._xsiNoLoc;
+        }
+
+        public QName getName() {
+            return _names[_index];
+        }
+
+        public String getText() {
+            return (String) _values[_index];
+        }
+
+        public String getText(int wsr) {
+            return XmlWhitespace.collapse((String) _values[_index], wsr);
+        }
+
+        public boolean textIsWhitespace() {
+            return XmlWhitespace.isAllSpace((String) _values[_index]);
+        }
+
+        public String getNamespaceForPrefix(String prefix) {
+            if (prefix == null) {
+                prefix = "";
+            }
+            if (prefix.equals("xml")) {
+                return "http://www.w3.org/XML/1998/namespace";
+            }
+            if (prefix.equals("xmlns")) {
+                return "http://www.w3.org/2000/xmlns/";
+            }
+            for (int d = _depth - 1; d >= 0; d--) {
+                Element e = _stack[d];
+                for (int i = e._namespaceCount - 2; i >= 0; i -= 2) {
+                    if (e._namespaces[i].equals(prefix)) {
+                        return e._namespaces[i + 1];
+                    }
+                }
+            }
+            return prefix.isEmpty() ? "" : null;
+        }
+    }
+}
@@ -57,4 +57,23 @@ public interface ValidatorListener
 
         boolean textIsWhitespace ( );
     }
+
+    /**
+     * A listener, which validates some elements separately, e.g. on other threads.
+     */
+    public interface Partitioner extends ValidatorListener
+    {
+        /**
+         * Called before the first event by a source, which can record the events of an element.
+         */
+        void enablePartitions ( ValidatorEventBuffer.Locator locator );
+
+        /**
+         * Called after the BEGIN event of an element.
+         *
+         * @return the buffer, which gets the events of the element from its BEGIN to its END instead
+         * of this listener, or null. This listener gets the END of the element after the buffer.
+         */
+        ValidatorEventBuffer partition ( );
+    }
 }
\ No newline at end of file
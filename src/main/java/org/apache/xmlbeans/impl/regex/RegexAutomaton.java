@@ -0,0 +1,390 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A lazily determinized automaton for the regular expressions of the XML Schema mode.
+ * <p>
+ * The token tree is translated into a NFA, whose state sets become the states of a DFA,
+ * when they are reached for the first time. Schema patterns have neither back references
+ * nor look arounds, so they can be matched without backtracking and without any per-match
+ * state apart from the current DFA state.
+ * <p>
+ * The automaton is immutable apart from the transition caches, which are only filled with
+ * equal values, so it is used by several threads without locking. Patterns with tokens,
+ * which can't be translated, and inputs with surrogate pairs are left to the interpreter.
+ */
+final class RegexAutomaton {
+    static final int NO_MATCH = 0;
+    static final int MATCH = 1;
+    static final int UNDECIDED = -1;
+
+    // the limit of NFA states, e.g. for large counted repetitions
+    private static final int MAX_NFA_STATES = 10000;
+    // above this number of DFA states, new states aren't cached anymore
+    private static final int MAX_DFA_STATES = 10000;
+    private static final int ASCII = 128;
+
+    // NFA: per state a list of (predicate, target) edges and a list of epsilon targets
+    private final Object[][] _edgeTests;
+    private final int[][] _edgeTargets;
+    private final int[][] _epsilons;
+    private final int _accept;
+
+    private final ConcurrentHashMap<StateKey, DState> _states = new ConcurrentHashMap<>();
+    private final DState _start;
+
+    private RegexAutomaton(Builder b, int start, int accept) {
+        int n = b._edgeTests.size();
+        _edgeTests = new Object[n][];
+        _edgeTargets = new int[n][];
+        _epsilons = new int[n][];
+        for (int i = 0; i < n; i++) {
+            _edgeTests[i] = b._edgeTests.get(i).toArray();
+            _edgeTargets[i] = toArray(b._edgeTargets.get(i));
+            _epsilons[i] = toArray(b._epsilons.get(i));
+        }
+        _accept = accept;
+
+        BitSet set = new BitSet(n);
+        set.set(start);
+        _start = intern(closure(set));
+    }
+
+    /**
+     * @return the automaton for the token tree or null, if it contains tokens,
+     * which can't be matched without backtracking
+     */
+    static RegexAutomaton compile(Token tokentree) {
+        Builder b = new Builder();
+        try {
+            int start = b.newState();
+            int accept = b.build(tokentree, start);
+            return new RegexAutomaton(b, start, accept);
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * Matches the whole string.
+     *
+     * @return {@link #MATCH}, {@link #NO_MATCH} or {@link #UNDECIDED}, if the string
+     * contains characters, which the automaton doesn't handle
+     */
+    int match(String target) {
+        DState state = _start;
+        for (int i = 0, len = target.length(); i < len; i++) {
+            char ch = target.charAt(i);
+            if (Character.isSurrogate(ch)) {
+                return UNDECIDED;
+            }
+            state = state.next(ch);
+            if (state.dead) {
+                return NO_MATCH;
+            }
+        }
+        return state.accepting ? MATCH : NO_MATCH;
+    }
+
+    int stateCount() {
+        return _states.size();
+    }
+
+    private DState step(DState from, int ch) {
+        BitSet set = new BitSet(_epsilons.length);
+        for (int s : from.nfaStates) {
+            Object[] tests = _edgeTests[s];
+            for (int i = 0; i < tests.length; i++) {
+                if (test(tests[i], ch)) {
+                    set.set(_edgeTargets[s][i]);
+                }
+            }
+        }
+        return intern(closure(set));
+    }
+
+    private static boolean test(Object test, int ch) {
+        if (test instanceof Integer) {
+            return (Integer) test == ch;
+        }
+        if (test instanceof RangeToken) {
+            return ((RangeToken) test).match(ch);
+        }
+        // Token.DOT
+        return !(ch == RegularExpression.LINE_FEED || ch == RegularExpression.CARRIAGE_RETURN
+            || ch == RegularExpression.LINE_SEPARATOR || ch == RegularExpression.PARAGRAPH_SEPARATOR);
+    }
+
+    private int[] closure(BitSet set) {
+        int[] stack = new int[_epsilons.length];
+        int sp = 0;
+        for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+            stack[sp++] = s;
+        }
+        while (sp > 0) {
+            for (int t : _epsilons[stack[--sp]]) {
+                if (!set.get(t)) {
+                    set.set(t);
+                    stack[sp++] = t;
+                }
+            }
+        }
+        return set.stream().toArray();
+    }
+
+    private DState intern(int[] nfaStates) {
+        StateKey key = new StateKey(nfaStates);
+        DState state = _states.get(key);
+        if (state == null) {
+            boolean accepting = Arrays.binarySearch(nfaStates, _accept) >= 0;
+            state = new DState(nfaStates, accepting, _states.size() < MAX_DFA_STATES);
+            if (state.cacheable) {
+                DState old = _states.putIfAbsent(key, state);
+                if (old != null) {
+                    state = old;
+                }
+            }
+        }
+        return state;
+    }
+
+    private static int[] toArray(List<Integer> l) {
+        int[] a = new int[l.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = l.get(i);
+        }
+        return a;
+    }
+
+    /**
+     * A state of the DFA. The transitions are cached in plain fields: the targets are
+     * immutable and a thread, which doesn't see the cached target, just computes it again.
+     */
+    private final class DState {
+        final int[] nfaStates;
+        final boolean accepting;
+        final boolean dead;
+        final boolean cacheable;
+
+        private final DState[] _ascii;
+        private volatile Map<Character, DState> _other;
+
+        DState(int[] nfaStates, boolean accepting, boolean cacheable) {
+            this.nfaStates = nfaStates;
+            this.accepting = accepting;
+            this.dead = nfaStates.length == 0;
+            this.cacheable = cacheable;
+            _ascii = cacheable ? new DState[ASCII] : null;
+        }
+
+        DState next(char ch) {
+            if (!cacheable) {
+                return step(this, ch);
+            }
+            if (ch < ASCII) {
+                DState next = _ascii[ch];
+                if (next == null) {
+                    next = step(this, ch);
+                    if (next.cacheable) {
+                        _ascii[ch] = next;
+                    }
+                }
+                return next;
+            }
+
+            Map<Character, DState> other = _other;
+            if (other == null) {
+                other = new ConcurrentHashMap<>();
+                _other = other;
+            }
+            DState next = other.get(ch);
+            if (next == null) {
+                next = step(this, ch);
+                if (next.cacheable) {
+                    other.put(ch, next);
+                }
+            }
+            return next;
+        }
+    }
+
+    private static final class StateKey {
+        private final int[] _nfaStates;
+        private final int _hash;
+
+        StateKey(int[] nfaStates) {
+            _nfaStates = nfaStates;
+            _hash = Arrays.hashCode(nfaStates);
+        }
+
+        public int hashCode() {
+            return _hash;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof StateKey && Arrays.equals(_nfaStates, ((StateKey) o)._nfaStates);
+        }
+    }
+
+    private static final class Unsupported extends Exception {
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Translates the token tree into a NFA with Thompson's construction.
+     */
+    private static final class Builder {
+        private final List<List<Object>> _edgeTests = new ArrayList<>();
+        private final List<List<Integer>> _edgeTargets = new ArrayList<>();
+        private final List<List<Integer>> _epsilons = new ArrayList<>();
+
+        int newState() throws Unsupported {
+            if (_edgeTests.size() >= MAX_NFA_STATES) {
+                throw new Unsupported();
+            }
+            _edgeTests.add(new ArrayList<>(1));
+            _edgeTargets.add(new ArrayList<>(1));
+            _epsilons.add(new ArrayList<>(2));
+            return _edgeTests.size() - 1;
+        }
+
+        private int edge(int from, Object test) throws Unsupported {
+            int to = newState();
+            _edgeTests.get(from).add(test);
+            _edgeTargets.get(from).add(to);
+            return to;
+        }
+
+        private void epsilon(int from, int to) {
+            _epsilons.get(from).add(to);
+        }
+
+        /**
+         * Adds the states for the token, which start at the given state.
+         *
+         * @return the state after the token
+         */
+        int build(Token tok, int from) throws Unsupported {
+            switch (tok.type) {
+                case Token.CHAR:
+                    return edge(from, tok.getChar());
+
+                case Token.STRING: {
+                    String s = tok.getString();
+                    int state = from;
+                    for (int i = 0; i < s.length(); i = s.offsetByCodePoints(i, 1)) {
+                        state = edge(state, s.codePointAt(i));
+                    }
+                    return state;
+                }
+
+                case Token.DOT:
+                    return edge(from, Token.token_dot);
+
+                case Token.RANGE:
+                case Token.NRANGE:
+                    // build the lookup map before the token is shared by several threads
+                    ((RangeToken) tok).match(0);
+                    return edge(from, tok);
+
+                case Token.CONCAT: {
+                    int state = from;
+                    for (int i = 0; i < tok.size(); i++) {
+                        state = build(tok.getChild(i), state);
+                    }
+                    return state;
+                }
+
+                case Token.UNION: {
+                    int to = newState();
+                    for (int i = 0; i < tok.size(); i++) {
+                        int branch = newState();
+                        epsilon(from, branch);
+                        epsilon(build(tok.getChild(i), branch), to);
+                    }
+                    return to;
+                }
+
+                case Token.CLOSURE:
+                case Token.NONGREEDYCLOSURE:
+                    return buildClosure(tok, from);
+
+                case Token.PAREN:
+                    return build(tok.getChild(0), from);
+
+                case Token.EMPTY:
+                    return from;
+
+                default:
+                    // anchors, back references, look arounds, modifiers, conditions, independent groups
+                    throw new Unsupported();
+            }
+        }
+
+        /**
+         * Uses the same interpretation of min and max as {@link RegularExpression}
+         */
+        private int buildClosure(Token tok, int from) throws Unsupported {
+            Token child = tok.getChild(0);
+            int min = tok.getMin();
+            int max = tok.getMax();
+
+            int state = from;
+            if (min >= 0 && min == max) {
+                for (int i = 0; i < min; i++) {
+                    state = build(child, state);
+                }
+                return state;
+            }
+
+            for (int i = 0; i < min; i++) {
+                state = build(child, state);
+            }
+            if (min > 0 && max > 0) {
+                max -= min;
+            }
+
+            if (max > 0) {
+                // X{2,6} -> XX(X(X(XX?)?)?)?
+                int to = newState();
+                for (int i = 0; i < max; i++) {
+                    epsilon(state, to);
+                    state = build(child, state);
+                }
+                epsilon(state, to);
+                return to;
+            }
+
+            int loop = newState();
+            epsilon(state, loop);
+            int end = build(child, loop);
+            epsilon(end, loop);
+            int to = newState();
+            epsilon(loop, to);
+            return to;
+        }
+    }
+}
@@ -17,9 +17,13 @@
 
 package org.apache.xmlbeans.impl.regex;
 
+import org.apache.xmlbeans.SystemProperties;
+
 import java.text.CharacterIterator;
 import java.util.Locale;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A regular expression matching engine using Non-deterministic Finite Automaton (NFA).
@@ -684,17 +688,9 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(char[] target, int start, int end, Match match) {
 
-        synchronized (this) {
-            if (this.operations == null)
-                this.prepare();
-            if (this.context == null)
-                this.context = new Context();
-        }
-        Context con = null;
-        synchronized (this.context) {
-            con = this.context.inuse ? new Context() : this.context;
-            con.reset(target, start, end, this.numberOfClosures);
-        }
+        this.prepareIfNeeded();
+        Context con = this.acquireContext();
+        con.reset(target, start, end, this.numberOfClosures);
         if (match != null) {
             match.setNumberOfGroups(this.nofparen);
             match.setSource(target);
@@ -714,9 +710,10 @@ public class RegularExpression implements java.io.Serializable {
                     con.match.setBeginning(0, con.start);
                     con.match.setEnd(0, matchEnd);
                 }
-                con.setInUse(false);
+                this.releaseContext(con);
                 return true;
             }
+            this.releaseContext(con);
             return false;
         }
 
@@ -732,10 +729,10 @@ public class RegularExpression implements java.io.Serializable {
                     con.match.setBeginning(0, o);
                     con.match.setEnd(0, o+this.fixedString.length());
                 }
-                con.setInUse(false);
+                this.releaseContext(con);
                 return true;
             }
-            con.setInUse(false);
+            this.releaseContext(con);
             return false;
         }
 
@@ -748,7 +745,7 @@ public class RegularExpression implements java.io.Serializable {
             int o = this.fixedStringTable.matches(target, con.start, con.limit);
             if (o < 0) {
                 //System.err.println("Non-match in fixed-string search.");
-                con.setInUse(false);
+                this.releaseContext(con);
                 return false;
             }
         }
@@ -819,10 +816,10 @@ public class RegularExpression implements java.io.Serializable {
                 con.match.setBeginning(0, matchStart);
                 con.match.setEnd(0, matchEnd);
             }
-            con.setInUse(false);
+            this.releaseContext(con);
             return true;
         } else {
-            con.setInUse(false);
+            this.releaseContext(con);
             return false;
         }
     }
@@ -833,9 +830,31 @@ public class RegularExpression implements java.io.Serializable {
      * @return true if the target is matched to this regular expression.
      */
     public boolean matches(String  target) {
+        RegexAutomaton automaton = this.getAutomaton();
+        if (automaton != null) {
+            int ret = automaton.match(target);
+            if (ret != RegexAutomaton.UNDECIDED) {
+                return ret == RegexAutomaton.MATCH;
+            }
+        }
         return this.matches(target, 0,  target .length() , (Match)null);
     }
 
+    /**
+     * Returns the automaton for patterns in the plain XML Schema mode, which can be
+     * matched without backtracking and without locking, or null, if the interpreter
+     * has to be used.
+     */
+    RegexAutomaton getAutomaton() {
+        if (!this.automatonBuilt) {
+            // concurrent builds create equivalent automatons
+            this.automaton = USE_AUTOMATON && this.options == XMLSCHEMA_MODE && this.tokentree != null
+                ? RegexAutomaton.compile(this.tokentree) : null;
+            this.automatonBuilt = true;
+        }
+        return this.automaton;
+    }
+
     /**
      * Checks whether the <var>target</var> text <strong>contains</strong> this pattern
      * in specified range or not.
@@ -869,17 +888,9 @@ public class RegularExpression implements java.io.Serializable {
      */
     public boolean matches(String  target, int start, int end, Match match) {
 
-        synchronized (this) {
-            if (this.operations == null)
-                this.prepare();
-            if (this.context == null)
-                this.context = new Context();
-        }
-        Context con = null;
-        synchronized (this.context) {
-            con = this.context.inuse ? new Context() : this.context;
-            con.reset(target, start, end, this.numberOfClosures);
-        }
+        this.prepareIfNeeded();
+        Context con = this.acquireContext();
+        con.reset(target, start, end, this.numberOfClosures);
         if (match != null) {
             match.setNumberOfGroups(this.nofparen);
             match.setSource(target);
@@ -905,9 +916,10 @@ public class RegularExpression implements java.io.Serializable {
                     con.match.setBeginning(0, con.start);
                     con.match.setEnd(0, matchEnd);
                 }
-                con.setInUse(false);
+                this.releaseContext(con);
                 return true;
             }
+            this.releaseContext(con);
             return false;
         }
 
@@ -923,10 +935,10 @@ public class RegularExpression implements java.io.Serializable {
                     con.match.setBeginning(0, o);
                     con.match.setEnd(0, o+this.fixedString.length());
                 }
-                con.setInUse(false);
+                this.releaseContext(con);
                 return true;
             }
-            con.setInUse(false);
+            this.releaseContext(con);
             return false;
         }
 
@@ -939,7 +951,7 @@ public class RegularExpression implements java.io.Serializable {
             int o = this.fixedStringTable.matches(target, con.start, con.limit);
             if (o < 0) {
                 //System.err.println("Non-match in fixed-string search.");
-                con.setInUse(false);
+                this.releaseContext(con);
                 return false;
             }
         }
@@ -1010,10 +1022,10 @@ public class RegularExpression implements java.io.Serializable {
                 con.match.setBeginning(0, matchStart);
                 con.match.setEnd(0, matchEnd);
             }
-            con.setInUse(false);
+            this.releaseContext(con);
             return true;
         } else {
-            con.setInUse(false);
+            this.releaseContext(con);
             return false;
         }
     }
@@ -1550,17 +1562,9 @@ public class RegularExpression implements java.io.Serializable {
 
 
 
-        synchronized (this) {
-            if (this.operations == null)
-                this.prepare();
-            if (this.context == null)
-                this.context = new Context();
-        }
-        Context con = null;
-        synchronized (this.context) {
-            con = this.context.inuse ? new Context() : this.context;
-            con.reset(target, start, end, this.numberOfClosures);
-        }
+        this.prepareIfNeeded();
+        Context con = this.acquireContext();
+        con.reset(target, start, end, this.numberOfClosures);
         if (match != null) {
             match.setNumberOfGroups(this.nofparen);
             match.setSource(target);
@@ -1580,9 +1584,10 @@ public class RegularExpression implements java.io.Serializable {
                     con.match.setBeginning(0, con.start);
                     con.match.setEnd(0, matchEnd);
                 }
-                con.setInUse(false);
+                this.releaseContext(con);
                 return true;
             }
+            this.releaseContext(con);
             return false;
         }
 
@@ -1598,10 +1603,10 @@ public class RegularExpression implements java.io.Serializable {
                     con.match.setBeginning(0, o);
                     con.match.setEnd(0, o+this.fixedString.length());
                 }
-                con.setInUse(false);
+                this.releaseContext(con);
                 return true;
             }
-            con.setInUse(false);
+            this.releaseContext(con);
             return false;
         }
 
@@ -1614,7 +1619,7 @@ public class RegularExpression implements java.io.Serializable {
             int o = this.fixedStringTable.matches(target, con.start, con.limit);
             if (o < 0) {
                 //System.err.println("Non-match in fixed-string search.");
-                con.setInUse(false);
+                this.releaseContext(con);
                 return false;
             }
         }
@@ -1685,10 +1690,10 @@ public class RegularExpression implements java.io.Serializable {
                 con.match.setBeginning(0, matchStart);
                 con.match.setEnd(0, matchEnd);
             }
-            con.setInUse(false);
+            this.releaseContext(con);
             return true;
         } else {
-            con.setInUse(false);
+            this.releaseContext(con);
             return false;
         }
     }
@@ -1721,7 +1726,10 @@ public class RegularExpression implements java.io.Serializable {
     transient int minlength;
     transient Op operations = null;
     transient int numberOfClosures;
-    transient Context context = null;
+    // set after prepare(), so the compiled operations can be read without locking
+    transient volatile boolean prepared = false;
+    // pooled contexts, a thread takes a context out of a slot and puts it back after the match
+    transient AtomicReferenceArray<Context> contexts = null;
     transient RangeToken firstChar = null;
 
     transient String fixedString = null;
@@ -1729,6 +1737,9 @@ public class RegularExpression implements java.io.Serializable {
     transient BMPattern fixedStringTable = null;
     transient boolean fixedStringOnly = false;
 
+    transient volatile RegexAutomaton automaton = null;
+    transient volatile boolean automatonBuilt = false;
+
     static abstract class ExpressionTarget {
         abstract char charAt(int index);
         abstract boolean regionMatches(boolean ignoreCase, int offset, int limit, String part, int partlen);
@@ -2063,11 +2074,57 @@ public class RegularExpression implements java.io.Serializable {
             this.limit = limit;
             this.resetCommon(nofclosures);
         }
-        synchronized void setInUse(boolean inUse) {
+        void setInUse(boolean inUse) {
             this.inuse = inUse;
         }
     }
 
+    /**
+     * The number of pooled contexts, a power of two.
+     */
+    private static final int CONTEXT_SLOTS =
+        Integer.highestOneBit(Math.max(1, Math.min(32, Runtime.getRuntime().availableProcessors()))) << 1;
+
+    /**
+     * The slot of each thread, the threads get the slots round robin.
+     */
+    private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+    private static final ThreadLocal<Integer> SLOT =
+        ThreadLocal.withInitial(() -> NEXT_SLOT.getAndIncrement() & (CONTEXT_SLOTS - 1));
+
+    /**
+     * Compiles the operations once. Afterwards matches don't lock.
+     */
+    private void prepareIfNeeded() {
+        if (!this.prepared) {
+            synchronized (this) {
+                if (!this.prepared) {
+                    if (this.operations == null)
+                        this.prepare();
+                    this.contexts = new AtomicReferenceArray<>(CONTEXT_SLOTS);
+                    this.prepared = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a context out of the slot of the current thread or creates a new one,
+     * if another thread is using it. Never blocks.
+     */
+    private Context acquireContext() {
+        int slot = SLOT.get();
+        Context con = this.contexts.getAndSet(slot, null);
+        return con != null ? con : new Context();
+    }
+
+    private void releaseContext(Context con) {
+        con.setInUse(false);
+        con.match = null;
+        int slot = SLOT.get();
+        this.contexts.lazySet(slot, con);
+    }
+
     /**
      * Prepares for matching.  This method is called just before starting matching.
      */
@@ -2194,6 +2251,12 @@ public class RegularExpression implements java.io.Serializable {
      * "X". XML Schema mode.
      */
     static final int XMLSCHEMA_MODE = 1<<9;
+
+    /**
+     * Whether patterns in the XML Schema mode are matched with a {@link RegexAutomaton}.
+     */
+    private static final boolean USE_AUTOMATON =
+        !"false".equals(SystemProperties.getProperty("xmlbean.regex.automaton", "true"));
     /**
      * ",".
      */
@@ -2264,8 +2327,10 @@ public class RegularExpression implements java.io.Serializable {
         this.nofparen = rp.parennumber;
         this.hasBackReferences = rp.hasBackReferences;
 
+        this.prepared = false;
         this.operations = null;
-        this.context = null;
+        this.contexts = null;
+        this.automatonBuilt = false;
     }
     /**
      *
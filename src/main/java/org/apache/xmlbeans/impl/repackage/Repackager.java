@@ -107,7 +107,8 @@ public class Repackager {
         }
     }
 
-    public StringBuffer repackage(StringBuffer sb) {
+    // the matchers are reused, so the sources of parallel code generation are repackaged one at a time
+    public synchronized StringBuffer repackage(StringBuffer sb) {
         StringBuffer result = null;
 
         for (int i = 0; i < _fromMatchers.length; i++) {
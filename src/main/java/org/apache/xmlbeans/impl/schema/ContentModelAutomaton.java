@@ -0,0 +1,236 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.SchemaAttributeModel;
+import org.apache.xmlbeans.SchemaLocalAttribute;
+import org.apache.xmlbeans.SchemaParticle;
+import org.apache.xmlbeans.SchemaType;
+
+import javax.xml.namespace.QName;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The compiled content model of a complex type, which is shared by all validators of the type.
+ * <p>
+ * The element content is a deterministic state machine keyed by element names. Its states
+ * are the states of {@link SchemaTypeVisitorImpl}, which are computed by the visitor, when
+ * they are reached for the first time. So the automaton accepts exactly what the visitor
+ * accepts, but a validator only needs a lookup per child element. The number of states
+ * and transitions is limited, e.g. for large bounded occurrences. Beyond the limit, the
+ * validator continues with a visitor, see {@link #newVisitor(State)}.
+ * <p>
+ * The declared attributes are numbered, so that a validator can track the attributes it
+ * has seen in a bit set.
+ */
+public final class ContentModelAutomaton {
+    private static final int MAX_STATES = 4096;
+    private static final int MAX_TRANSITIONS_PER_STATE = 256;
+
+    private static final Transition INVALID = new Transition(null, null);
+
+    private final ConcurrentHashMap<Config, State> _states = new ConcurrentHashMap<>();
+    private final State _start;
+
+    private final SchemaLocalAttribute[] _attributes;
+    private final Map<QName, Integer> _attributeIndex;
+
+    ContentModelAutomaton(SchemaType type) {
+        SchemaParticle contentModel = type.getContentModel();
+        if (contentModel == null) {
+            _start = null;
+        } else {
+            SchemaTypeVisitorImpl visitor = new SchemaTypeVisitorImpl(contentModel);
+            _start = new State(visitor.saveState());
+            _states.put(_start._config, _start);
+        }
+
+        SchemaAttributeModel attrModel = type.getAttributeModel();
+        _attributes = attrModel == null ? new SchemaLocalAttribute[0] : attrModel.getAttributes();
+        _attributeIndex = new HashMap<>();
+        for (int i = 0; i < _attributes.length; i++) {
+            _attributeIndex.put(_attributes[i].getName(), i);
+        }
+    }
+
+    /**
+     * @return the state before the first child element or null, if the type has no content model
+     */
+    public State start() {
+        return _start;
+    }
+
+    /**
+     * @return the declared attributes, numbered like {@link #getAttributeIndex(QName)}
+     */
+    public SchemaLocalAttribute[] getAttributes() {
+        return _attributes;
+    }
+
+    /**
+     * @return the number of the declared attribute or -1, if the attribute isn't declared
+     */
+    public int getAttributeIndex(QName name) {
+        Integer i = _attributeIndex.get(name);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @return a visitor in the given state, which can continue the validation
+     */
+    public SchemaTypeVisitorImpl newVisitor(State state) {
+        SchemaTypeVisitorImpl visitor = new SchemaTypeVisitorImpl();
+        visitor.restoreState(state._config);
+        return visitor;
+    }
+
+    int stateCount() {
+        return _states.size();
+    }
+
+    private State intern(Config config) {
+        State state = _states.get(config);
+        if (state == null) {
+            if (_states.size() >= MAX_STATES) {
+                return null;
+            }
+            state = new State(config);
+            State old = _states.putIfAbsent(config, state);
+            if (old != null) {
+                state = old;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * A state of the element content. States are immutable apart from the transition cache,
+     * so they can be used by several validators at the same time.
+     */
+    public final class State {
+        private final Config _config;
+        private final Map<QName, Transition> _transitions = new ConcurrentHashMap<>();
+        // 0: not yet known, 1: the content can end here, 2: further elements are required
+        private volatile int _end;
+
+        State(Config config) {
+            _config = config;
+        }
+
+        /**
+         * @return the transition for the next child element or null, if the automaton
+         * has reached its size limit and a visitor has to be used
+         */
+        public Transition next(QName name) {
+            Transition t = _transitions.get(name);
+            if (t == null) {
+                SchemaTypeVisitorImpl visitor = newVisitor(this);
+                if (!visitor.visit(name)) {
+                    t = INVALID;
+                } else {
+                    State target = intern(visitor.saveState());
+                    if (target == null) {
+                        return null;
+                    }
+                    t = new Transition(target, visitor.currentParticle());
+                }
+                if (_transitions.size() < MAX_TRANSITIONS_PER_STATE) {
+                    _transitions.put(name, t);
+                }
+            }
+            return t;
+        }
+
+        /**
+         * @return true, if the content is complete in this state
+         */
+        public boolean canEnd() {
+            int end = _end;
+            if (end == 0) {
+                end = newVisitor(this).visit(null) ? 1 : 2;
+                _end = end;
+            }
+            return end == 1;
+        }
+    }
+
+    /**
+     * The result of a child element: the next state and the matched element or wildcard particle.
+     */
+    public static final class Transition {
+        private final State _target;
+        private final SchemaParticle _particle;
+
+        Transition(State target, SchemaParticle particle) {
+            _target = target;
+            _particle = particle;
+        }
+
+        public boolean isValid() {
+            return _target != null;
+        }
+
+        public State getTarget() {
+            return _target;
+        }
+
+        public SchemaParticle getParticle() {
+            return _particle;
+        }
+    }
+
+    /**
+     * A snapshot of the stack of {@link SchemaTypeVisitorImpl}: the particles are compared by identity.
+     */
+    static final class Config {
+        final SchemaParticle[] _parts;
+        final int[] _values;
+        private final int _hash;
+
+        Config(SchemaParticle[] parts, int[] values) {
+            _parts = parts;
+            _values = values;
+            int hash = Arrays.hashCode(values);
+            for (SchemaParticle p : parts) {
+                hash = 31 * hash + System.identityHashCode(p);
+            }
+            _hash = hash;
+        }
+
+        public int hashCode() {
+            return _hash;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Config)) {
+                return false;
+            }
+            Config c = (Config) o;
+            if (_hash != c._hash || _parts.length != c._parts.length || !Arrays.equals(_values, c._values)) {
+                return false;
+            }
+            for (int i = 0; i < _parts.length; i++) {
+                if (_parts[i] != c._parts[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
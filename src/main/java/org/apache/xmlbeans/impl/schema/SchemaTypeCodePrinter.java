@@ -19,6 +19,8 @@ import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.XmlOptions.BeanMethod;
 import org.apache.xmlbeans.impl.common.NameUtil;
 import org.apache.xmlbeans.impl.repackage.Repackager;
+import org.apache.xmlbeans.impl.values.XmlObjectBase;
+import org.apache.xmlbeans.impl.values.XmlObjectBaseFactory;
 
 import javax.xml.namespace.QName;
 import java.io.IOException;
@@ -1089,6 +1091,14 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             emit("super(sType, b);");
             endBlock();
         }
+
+        // the runtime creates the instances with the factory instead of the constructors
+        emit("");
+        emit("public static final org.apache.xmlbeans.impl.values.XmlObjectBaseFactory " +
+                XmlObjectBaseFactory.FIELD_NAME + " = " +
+                (sType.getSimpleVariety() == SchemaType.NOT_SIMPLE ?
+                        "(sType, b) -> new " + shortName + "(sType);" :
+                        shortName + "::new;"));
     }
 
     void startClass(SchemaType sType, boolean isInner) throws IOException {
@@ -1465,6 +1475,21 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         emit("}");
     }
 
+    /**
+     * Starts the body of a getter, which {@link XmlObjectBase} runs unsynchronized for a
+     * frozen document and synchronized otherwise. The body has to return.
+     */
+    void emitReadPreamble() throws IOException {
+        emit("return read(() -> {");
+        indent();
+        emit("check_orphaned();");
+    }
+
+    void emitReadPostamble() throws IOException {
+        outdent();
+        emit("});");
+    }
+
     void emitAddTarget(String identifier, boolean isAttr, String xtype)
             throws IOException {
         if (isAttr) {
@@ -1593,7 +1618,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         emit("public java.util.List<" + wrappedType + "> " + (xget ? "xget" : "get") + propertyName + "List() {");
         startBlock();
 
-        emitImplementationPreamble();
+        emitReadPreamble();
 
         emit("return new org.apache.xmlbeans.impl.values.JavaList" + ((xmltype || xget) ? "Xml" : "") + "Object<>(");
         indent();
@@ -1625,7 +1650,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
         outdent();
         emit(");");
 
-        emitImplementationPostamble();
+        emitReadPostamble();
         endBlock();
     }
 
@@ -1663,7 +1688,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public " + type + " get" + propertyName + "() {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
 
                 emitGetTarget(setIdentifier, identifier, isAttr, "0", NOTHING, jtargetType);
 
@@ -1678,7 +1703,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("return (target == null) ? " + makeMissingValue(javaType) +
                         " : " + printJGetValue(javaType, type, (SchemaTypeImpl) prop.getType()) + ";");
 
-                emitImplementationPostamble();
+                emitReadPostamble();
 
                 endBlock();
             }
@@ -1691,7 +1716,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public " + xtype + " xget" + propertyName + "() {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
                 emitGetTarget(setIdentifier, identifier, isAttr, "0", NOTHING, xtype);
 
                 if (isAttr && (prop.hasDefault() == SchemaProperty.CONSISTENTLY ||
@@ -1703,7 +1728,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
 
                 emit("return target;");
-                emitImplementationPostamble();
+                emitReadPostamble();
                 endBlock();
             }
 
@@ -1715,11 +1740,11 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public boolean isNil" + propertyName + "() {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
                 emitGetTarget(setIdentifier, identifier, isAttr, "0", NOTHING, xtype);
 
                 emit("return target != null && target.isNil();");
-                emitImplementationPostamble();
+                emitReadPostamble();
                 endBlock();
             }
         }
@@ -1733,7 +1758,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
             emit("public boolean isSet" + propertyName + "() {");
 
             startBlock();
-            emitImplementationPreamble();
+            emitReadPreamble();
 
             if (isAttr) {
                 emit("return get_store().find_attribute_user(" + identifier + ") != null;");
@@ -1741,7 +1766,7 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 emit("return get_store().count_elements(" + setIdentifier + ") != 0;");
             }
 
-            emitImplementationPostamble();
+            emitReadPostamble();
             endBlock();
         }
 
@@ -1779,12 +1804,12 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public " + type + " get" + arrayName + "(int i) {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
 
                 emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, jtargetType);
                 emit("return " + printJGetValue(javaType, type, (SchemaTypeImpl) prop.getType()) + ";");
 
-                emitImplementationPostamble();
+                emitReadPostamble();
                 endBlock();
             }
 
@@ -1812,10 +1837,10 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public " + xtype + " xget" + arrayName + "(int i) {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
                 emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
                 emit("return target;");
-                emitImplementationPostamble();
+                emitReadPostamble();
                 endBlock();
             }
 
@@ -1827,10 +1852,10 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public boolean isNil" + arrayName + "(int i) {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
                 emitGetTarget(setIdentifier, identifier, isAttr, "i", THROW_EXCEPTION, xtype);
                 emit("return target.isNil();");
-                emitImplementationPostamble();
+                emitReadPostamble();
                 endBlock();
             }
 
@@ -1842,9 +1867,9 @@ public final class SchemaTypeCodePrinter implements SchemaCodePrinter {
                 }
                 emit("public int sizeOf" + arrayName + "() {");
                 startBlock();
-                emitImplementationPreamble();
+                emitReadPreamble();
                 emit("return get_store().count_elements(" + setIdentifier + ");");
-                emitImplementationPostamble();
+                emitReadPostamble();
                 endBlock();
             }
         }
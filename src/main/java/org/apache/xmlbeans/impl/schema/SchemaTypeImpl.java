@@ -26,6 +26,7 @@ import org.apache.xmlbeans.impl.xb.xsdschema.Element;
 
 import javax.xml.namespace.QName;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
 import java.util.*;
@@ -74,6 +75,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile Class<? extends XmlObjectBase> _javaImplClass;
     private volatile Constructor<? extends XmlObjectBase> _javaImplConstructor;
     private volatile Constructor<? extends XmlObjectBase> _javaImplConstructor2;
+    private volatile XmlObjectBaseFactory _javaImplFactory;
     private volatile boolean _implNotAvailable;
 
     // user data objects not persisted
@@ -90,6 +92,7 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
     private volatile SchemaLocalElement[] _localElts; // lazily computed
     private volatile Map<SchemaLocalElement, Integer> _eltToIndexMap; // lazily computed
     private volatile Map<SchemaLocalAttribute, Integer> _attrToIndexMap; // lazily computed
+    private volatile ContentModelAutomaton _contentModelAutomaton; // lazily computed
     private Map<QName, SchemaProperty> _propertyModelByElementName;
     private Map<QName, SchemaProperty> _propertyModelByAttributeName;
     private boolean _hasAllContent;
@@ -728,6 +731,18 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
         return _attributeModel;
     }
 
+    /**
+     * @return the compiled content and attribute model, which the validator uses for complex types
+     */
+    public ContentModelAutomaton getContentModelAutomaton() {
+        ContentModelAutomaton automaton = _contentModelAutomaton;
+        if (automaton == null) {
+            automaton = new ContentModelAutomaton(this);
+            _contentModelAutomaton = automaton;
+        }
+        return automaton;
+    }
+
     public SchemaProperty[] getProperties() {
         if (_propertyModelByElementName == null) {
             return getAttributeProperties();
@@ -1799,6 +1814,30 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     }
 
+    /**
+     * @return the factory, which the schema compiler generated into the impl class, or
+     * {@link #NO_FACTORY} for impl classes of older compilers, or null if there's no impl class
+     */
+    private XmlObjectBaseFactory getJavaImplFactory() {
+        if (_javaImplFactory == null && !_implNotAvailable) {
+            final Class<? extends XmlObjectBase> impl = getJavaImplClass();
+            if (impl == null) {
+                return null;
+            }
+            try {
+                // declared, as the base type's impl is the superclass of an impl
+                Field f = impl.getDeclaredField(XmlObjectBaseFactory.FIELD_NAME);
+                _javaImplFactory = (XmlObjectBaseFactory) f.get(null);
+            } catch (NoSuchFieldException | IllegalAccessException | ClassCastException e) {
+                _javaImplFactory = NO_FACTORY;
+            }
+        }
+
+        return _javaImplFactory;
+    }
+
+    private static final XmlObjectBaseFactory NO_FACTORY = (sType, complex) -> null;
+
     @SuppressWarnings("unchecked")
     @Override
     public Class<? extends StringEnumAbstractBase> getEnumJavaClass() {
@@ -1887,6 +1926,10 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
         if (!isBuiltinType() && !isNoType()) {
             // System.out.println("Attempting to load impl class: " + getFullJavaImplName());
+            XmlObjectBaseFactory factory = getJavaImplFactory();
+            if (factory != null && factory != NO_FACTORY) {
+                return factory.newInstance(this, !isSimpleType());
+            }
             Constructor<? extends XmlObjectBase> ctr = getJavaImplConstructor();
             if (ctr != null) {
                 try {
@@ -1911,6 +1954,11 @@ public final class SchemaTypeImpl implements SchemaType, TypeStoreUserFactory {
 
     private XmlObject createUnattachedSubclass(SchemaType sType) {
         if (!isBuiltinType() && !isNoType()) {
+            XmlObjectBaseFactory factory = getJavaImplFactory();
+            if (factory != null && factory != NO_FACTORY) {
+                // only the impls of simple types can be instantiated for a restriction
+                return (getSimpleVariety() == NOT_SIMPLE) ? null : factory.newInstance(sType, !sType.isSimpleType());
+            }
             Constructor<? extends XmlObjectBase> ctr = getJavaImplConstructor2();
             try {
                 return (ctr == null) ? null : ctr.newInstance(sType, !sType.isSimpleType());
@@ -19,6 +19,7 @@ import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.common.NameUtil;
 
 import javax.xml.namespace.QName;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -196,6 +197,13 @@ class SchemaTypePool {
         return _handlesToRefs.get(handle);
     }
 
+    /**
+     * @return the handles of all components, e.g. as read from the index of a saved type system
+     */
+    Collection<String> getHandles() {
+        return _handlesToRefs.keySet();
+    }
+
     void startWriteMode() {
         _started = true;
         _componentsToHandles.clear();
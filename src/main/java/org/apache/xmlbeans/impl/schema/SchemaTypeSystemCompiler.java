@@ -27,6 +27,8 @@ import java.io.IOException;
 import java.io.Writer;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class SchemaTypeSystemCompiler {
     public static class Parameters {
@@ -265,6 +267,7 @@ public class SchemaTypeSystemCompiler {
 
             // construct the loader out of the state
             StscState.get().sts().loadFromStscState(state);
+            StscState.get().sts().setPacked(options != null && options.isCompilePackedTypesystem());
 
             // fill in the source-copy map
             if (sourcesToCopyMap != null) {
@@ -373,10 +376,8 @@ public class SchemaTypeSystemCompiler {
         types.addAll(Arrays.asList(system.attributeTypes()));
 
 
-        SchemaCodePrinter printer = (options == null) ? null : options.getSchemaCodePrinter();
-        if (printer == null) {
-            printer = new SchemaTypeCodePrinter();
-        }
+        SchemaCodePrinter customPrinter = (options == null) ? null : options.getSchemaCodePrinter();
+        SchemaCodePrinter printer = (customPrinter == null) ? new SchemaTypeCodePrinter() : customPrinter;
 
         String indexClassName = SchemaTypeCodePrinter.indexClassForSystem(system);
 
@@ -388,33 +389,44 @@ public class SchemaTypeSystemCompiler {
             success = false;
         }
 
-        for (SchemaType type : types) {
-            if (type.isBuiltinType()) {
-                continue;
+        types.removeIf(type -> type.isBuiltinType() || type.getFullJavaName() == null);
+
+        Executor executor = (options == null) ? null : options.getCompileExecutor();
+        if (executor == null || customPrinter != null) {
+            for (SchemaType type : types) {
+                success &= printType(printer, type, filer, options);
             }
-            if (type.getFullJavaName() == null) {
-                continue;
+        } else {
+            // the printer keeps the writer and the indent in fields, so each type gets its own printer
+            List<CompletableFuture<Boolean>> tasks = new ArrayList<>();
+            for (SchemaType type : types) {
+                tasks.add(CompletableFuture.supplyAsync(() -> printType(new SchemaTypeCodePrinter(), type, filer, options), executor));
             }
+            for (CompletableFuture<Boolean> task : tasks) {
+                success &= task.join();
+            }
+        }
 
-            String fjn = type.getFullJavaName();
+        return success;
+    }
 
-            try (Writer writer = filer.createSourceFile(fjn)) {
-                // Generate interface class
-                printer.printType(writer, type, options);
-            } catch (IOException e) {
-                System.err.println("IO Error " + e);
-                success = false;
-            }
+    private static boolean printType(SchemaCodePrinter printer, SchemaType type, Filer filer, XmlOptions options) {
+        boolean success = true;
 
-            fjn = type.getFullJavaImplName();
+        try (Writer writer = filer.createSourceFile(type.getFullJavaName())) {
+            // Generate interface class
+            printer.printType(writer, type, options);
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            success = false;
+        }
 
-            try (Writer writer = filer.createSourceFile(fjn)) {
-                // Generate Implementation class
-                printer.printTypeImpl(writer, type, options);
-            } catch (IOException e) {
-                System.err.println("IO Error " + e);
-                success = false;
-            }
+        try (Writer writer = filer.createSourceFile(type.getFullJavaImplName())) {
+            // Generate Implementation class
+            printer.printTypeImpl(writer, type, options);
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            success = false;
         }
 
         return success;
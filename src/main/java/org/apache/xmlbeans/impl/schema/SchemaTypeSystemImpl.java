@@ -28,6 +28,13 @@ import javax.xml.namespace.QName;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -49,6 +56,7 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     public static final int FILETYPE_SCHEMAMODELGROUP = 6;
     public static final int FILETYPE_SCHEMAATTRIBUTEGROUP = 7;
     public static final int FILETYPE_SCHEMAIDENTITYCONSTRAINT = 8;
+    public static final int FILETYPE_SCHEMAPACKED = 9;
 
     public static final int FLAG_PART_SKIPPABLE = 1;
     public static final int FLAG_PART_FIXED = 4;
@@ -139,6 +147,15 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     private SchemaTypePool _localHandles;
     private Filer _filer;
 
+    // save all components into a single resource
+    private boolean _packed;
+    // collects the components while a packed type system is saved
+    private XsbPack.Writer _packWriter;
+    // the components of a loaded packed type system
+    private XsbPack _pack;
+    // strings shared by all resources read by this type system
+    private final StringTable _stringTable = new StringTable();
+
     // top-level annotations
     private List<SchemaAnnotation> _annotations;
 
@@ -236,7 +253,9 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         XsbReader reader = null;
         try {
             // Read the index file, which starts with a header.
-            reader = new XsbReader(getTypeSystem(), "index", FILETYPE_SCHEMAINDEX);
+            _pack = XsbPack.load(getTypeSystem());
+            _packed = (_pack != null);
+            reader = openReader("index", FILETYPE_SCHEMAINDEX);
 
             // has a handle pool (count, handle/type, handle/type...)
             _localHandles = new SchemaTypePool(getTypeSystem());
@@ -647,8 +666,27 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         _incomplete = incomplete;
     }
 
+    /**
+     * The strings of all resources read by a type system. Namespaces, local names and class names
+     * appear in the resources of many components, so each of them is only kept once on the heap,
+     * instead of once per component. Unlike {@link String#intern()}, the table is released
+     * together with the type system.
+     */
+    static final class StringTable {
+        private final ConcurrentHashMap<String, String> _strings = new ConcurrentHashMap<>();
+
+        String get(String str) {
+            String result = _strings.putIfAbsent(str, str);
+            return (result == null) ? str : result;
+        }
+
+        int size() {
+            return _strings.size();
+        }
+    }
+
     static class StringPool {
-        private final List<String> intsToStrings = new ArrayList<>();
+        private final ArrayList<String> intsToStrings = new ArrayList<>();
         private final Map<String, Integer> stringsToInts = new HashMap<>();
         private final String _handle;
         private final String _name;
@@ -696,18 +734,27 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         }
 
         void readFrom(LongUTFDataInputStream input) {
+            readFrom(input, null);
+        }
+
+        /**
+         * Reads the strings of a resource. A read pool is only used for looking up strings by code,
+         * so the reverse map isn't filled.
+         *
+         * @param stringTable the strings which are already used by the type system,
+         *                    so equal strings of different resources are shared, or null
+         */
+        void readFrom(LongUTFDataInputStream input, StringTable stringTable) {
             if (intsToStrings.size() != 1 || stringsToInts.size() != 0) {
                 throw new IllegalStateException();
             }
 
             try {
                 int size = input.readUnsignedShortOrInt();
+                intsToStrings.ensureCapacity(size);
                 for (int i = 1; i < size; i++) {
-                    String str = input.readLongUTF().intern();
-                    int code = codeForString(str);
-                    if (code != i) {
-                        throw new IllegalStateException();
-                    }
+                    String str = input.readLongUTF();
+                    intsToStrings.add(stringTable == null ? str : stringTable.get(str));
                 }
             } catch (IOException e) {
                 throw new SchemaTypeLoaderException(e.getMessage() == null ? e.getMessage() : "IO Exception", _name, _handle, SchemaTypeLoaderException.IO_EXCEPTION, e);
@@ -728,25 +775,51 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
             throw new IllegalArgumentException("filer must not be null");
         }
         _filer = filer;
+        _packWriter = _packed ? new XsbPack.Writer(getTypeSystem()) : null;
+
+        try {
+            _localHandles.startWriteMode();
+            saveTypesRecursively(globalTypes());
+            saveTypesRecursively(documentTypes());
+            saveTypesRecursively(attributeTypes());
+            saveGlobalElements(globalElements());
+            saveGlobalAttributes(globalAttributes());
+            saveModelGroups(modelGroups());
+            saveAttributeGroups(attributeGroups());
+            saveIdentityConstraints(identityConstraints());
+
+            saveTypesRecursively(redefinedGlobalTypes());
+            saveModelGroups(redefinedModelGroups());
+            saveAttributeGroups(redefinedAttributeGroups());
+
+            saveIndex();
+
+            XsbPack.Writer pack = _packWriter;
+            _packWriter = null;
+            if (pack != null) {
+                pack.save();
+            }
+        } finally {
+            _packWriter = null;
+        }
 
-        _localHandles.startWriteMode();
-        saveTypesRecursively(globalTypes());
-        saveTypesRecursively(documentTypes());
-        saveTypesRecursively(attributeTypes());
-        saveGlobalElements(globalElements());
-        saveGlobalAttributes(globalAttributes());
-        saveModelGroups(modelGroups());
-        saveAttributeGroups(attributeGroups());
-        saveIdentityConstraints(identityConstraints());
-
-        saveTypesRecursively(redefinedGlobalTypes());
-        saveModelGroups(redefinedModelGroups());
-        saveAttributeGroups(redefinedAttributeGroups());
-
-        saveIndex();
+        // the pointers are looked up by name, so they are never packed
         savePointers();
     }
 
+    /**
+     * If set, {@link #save(Filer)} writes the index and all components into a single resource,
+     * instead of a resource per component. This avoids a resource lookup for each component,
+     * which is slow for type systems with many components, e.g. in nested jars.
+     */
+    public void setPacked(boolean packed) {
+        _packed = packed;
+    }
+
+    public boolean isPacked() {
+        return _packed;
+    }
+
     void saveTypesRecursively(SchemaType[] types) {
         for (SchemaType type : types) {
             if (type.getTypeSystem() != getTypeSystem()) {
@@ -915,9 +988,8 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     static final byte[] SINGLE_ZERO_BYTE = {0};
 
     public SchemaType typeForHandle(String handle) {
-        synchronized (_resolvedHandles) {
-            return (SchemaType) _resolvedHandles.get(handle);
-        }
+        Object o = _resolvedHandles.get(handle);
+        return (o instanceof SchemaType) ? (SchemaType) o : null;
     }
 
     public SchemaType typeForClassname(String classname) {
@@ -926,56 +998,89 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
     }
 
     public SchemaComponent resolveHandle(String handle) {
-        SchemaComponent result;
-
-        synchronized (_resolvedHandles) {
-            result = _resolvedHandles.get(handle);
+        Object o = _resolvedHandles.get(handle);
+        if (o instanceof SchemaComponent) {
+            return (SchemaComponent) o;
         }
-        if (result == null) {
-            XsbReader reader = new XsbReader(getTypeSystem(), handle, 0xFFFF);
-            int filetype = reader.getActualFiletype();
-            switch (filetype) {
-                case FILETYPE_SCHEMATYPE:
-                    XBeanDebug.LOG.atTrace().log("Resolving type for handle {}", handle);
-                    result = reader.finishLoadingType();
-                    break;
-                case FILETYPE_SCHEMAELEMENT:
-                    XBeanDebug.LOG.atTrace().log("Resolving element for handle {}", handle);
-                    result = reader.finishLoadingElement();
-                    break;
-                case FILETYPE_SCHEMAATTRIBUTE:
-                    XBeanDebug.LOG.atTrace().log("Resolving attribute for handle {}", handle);
-                    result = reader.finishLoadingAttribute();
-                    break;
-                case FILETYPE_SCHEMAMODELGROUP:
-                    XBeanDebug.LOG.atTrace().log("Resolving model group for handle {}", handle);
-                    result = reader.finishLoadingModelGroup();
-                    break;
-                case FILETYPE_SCHEMAATTRIBUTEGROUP:
-                    XBeanDebug.LOG.atTrace().log("Resolving attribute group for handle {}", handle);
-                    result = reader.finishLoadingAttributeGroup();
-                    break;
-                case FILETYPE_SCHEMAIDENTITYCONSTRAINT:
-                    XBeanDebug.LOG.atTrace().log("Resolving id constraint for handle {}", handle);
-                    result = reader.finishLoadingIdentityConstraint();
-                    break;
-                default:
-                    throw new IllegalStateException("Illegal handle type");
+
+        // The handle is loaded by the first thread which registers its resolution task.
+        // Other threads asking for the same handle wait for that task, while threads asking
+        // for different handles don't block each other.
+        if (o == null) {
+            HandleResolution newTask = new HandleResolution(handle);
+            o = _resolvedHandles.putIfAbsent(handle, newTask);
+            if (o == null) {
+                newTask.run();
+                o = newTask;
+            } else if (o instanceof SchemaComponent) {
+                return (SchemaComponent) o;
             }
+        }
 
-            synchronized (_resolvedHandles) {
-                if (!_resolvedHandles.containsKey(handle)) {
-                    _resolvedHandles.put(handle, result);
-                } else {
-                    result = _resolvedHandles.get(handle);
-                }
+        HandleResolution task = (HandleResolution) o;
+        if (task._owner == Thread.currentThread() && !task.isDone()) {
+            // a recursive request while loading would wait for itself
+            return loadHandle(handle);
+        }
+
+        try {
+            SchemaComponent result = task.get();
+            if (result != null) {
+                _resolvedHandles.replace(handle, task, result);
+            } else {
+                _resolvedHandles.remove(handle, task);
             }
+            return result;
+        } catch (ExecutionException e) {
+            // don't cache failures, a later call can try again
+            _resolvedHandles.remove(handle, task);
+            ExceptionUtil.rethrow(e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SchemaTypeLoaderException("Interrupted while resolving handle " + handle,
+                _name, handle, SchemaTypeLoaderException.IO_EXCEPTION, e);
         }
-        return result;
     }
 
-    private final Map<String, SchemaComponent> _resolvedHandles = new HashMap<>();
-    private boolean _allNonGroupHandlesResolved = false;
+    private final class HandleResolution extends FutureTask<SchemaComponent> {
+        private final Thread _owner = Thread.currentThread();
+
+        HandleResolution(String handle) {
+            super(() -> loadHandle(handle));
+        }
+    }
+
+    private SchemaComponent loadHandle(String handle) {
+        XsbReader reader = openReader(handle, 0xFFFF);
+        int filetype = reader.getActualFiletype();
+        switch (filetype) {
+            case FILETYPE_SCHEMATYPE:
+                XBeanDebug.LOG.atTrace().log("Resolving type for handle {}", handle);
+                return reader.finishLoadingType();
+            case FILETYPE_SCHEMAELEMENT:
+                XBeanDebug.LOG.atTrace().log("Resolving element for handle {}", handle);
+                return reader.finishLoadingElement();
+            case FILETYPE_SCHEMAATTRIBUTE:
+                XBeanDebug.LOG.atTrace().log("Resolving attribute for handle {}", handle);
+                return reader.finishLoadingAttribute();
+            case FILETYPE_SCHEMAMODELGROUP:
+                XBeanDebug.LOG.atTrace().log("Resolving model group for handle {}", handle);
+                return reader.finishLoadingModelGroup();
+            case FILETYPE_SCHEMAATTRIBUTEGROUP:
+                XBeanDebug.LOG.atTrace().log("Resolving attribute group for handle {}", handle);
+                return reader.finishLoadingAttributeGroup();
+            case FILETYPE_SCHEMAIDENTITYCONSTRAINT:
+                XBeanDebug.LOG.atTrace().log("Resolving id constraint for handle {}", handle);
+                return reader.finishLoadingIdentityConstraint();
+            default:
+                throw new IllegalStateException("Illegal handle type");
+        }
+    }
+
+    // values are either the resolved SchemaComponent or the HandleResolution which is loading it
+    private final ConcurrentHashMap<String, Object> _resolvedHandles = new ConcurrentHashMap<>();
+    private volatile boolean _allNonGroupHandlesResolved = false;
 
     public void resolve() {
         XBeanDebug.LOG.atTrace().log("Resolve called type system {}", _name);
@@ -1002,6 +1107,50 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         _allNonGroupHandlesResolved = true;
     }
 
+    // number of handles resolved by one preload task
+    private static final int PRELOAD_BATCH_SIZE = 32;
+
+    public PreloadResult preload(Executor executor) {
+        long start = System.nanoTime();
+
+        // dynamically compiled type systems don't have any unresolved components
+        if (_classloader == null && _resourceLoader == null) {
+            resolve();
+            return new PreloadResult(0, System.nanoTime() - start);
+        }
+
+        XBeanDebug.LOG.atTrace().log("Preloading all handles for type system {}", _name);
+
+        List<String> handles = new ArrayList<>(_localHandles.getHandles());
+        AtomicInteger loaded = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < handles.size(); i += PRELOAD_BATCH_SIZE) {
+            List<String> batch = handles.subList(i, Math.min(i + PRELOAD_BATCH_SIZE, handles.size()));
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (String handle : batch) {
+                    if (!(_resolvedHandles.get(handle) instanceof SchemaComponent)) {
+                        resolveHandle(handle);
+                        loaded.incrementAndGet();
+                    }
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            ExceptionUtil.rethrow(e.getCause());
+        }
+
+        // links the global component refs, which are resolved by now
+        resolve();
+
+        PreloadResult result = new PreloadResult(loaded.get(), System.nanoTime() - start);
+        XBeanDebug.LOG.atTrace().log("Finished preloading type system {}: {}", _name, result);
+        return result;
+    }
+
 
     public boolean isNamespaceDefined(String namespace) {
         return _namespaces.contains(namespace);
@@ -1164,6 +1313,18 @@ public class SchemaTypeSystemImpl extends SchemaTypeLoaderBase implements Schema
         }
     }
 
+    StringTable getStringTable() {
+        return _stringTable;
+    }
+
+    XsbPack.Writer getPackWriter() {
+        return _packWriter;
+    }
+
+    XsbReader openReader(String handle, int filetype) {
+        return (_pack != null) ? new XsbReader(_pack, handle, filetype) : new XsbReader(getTypeSystem(), handle, filetype);
+    }
+
     InputStream getLoaderStream(String resourcename) {
         return _resourceLoader.getResourceAsStream(resourcename);
     }
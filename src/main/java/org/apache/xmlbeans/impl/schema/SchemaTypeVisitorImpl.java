@@ -460,6 +460,69 @@ public class SchemaTypeVisitorImpl implements TypeStoreVisitor
       return visit(eltName,PROBE_VALIDITY);
     }
 
+    /**
+     * Captures the committed state of the state machine. The count of a particle
+     * with an unbounded maxOccurs is only distinguished up to minOccurs + 1, because
+     * the traversal doesn't distinguish larger counts.
+     */
+    ContentModelAutomaton.Config saveState()
+    {
+        assert _rollbackSize == 0 && _rollbackIndex == _stackSize;
+
+        SchemaParticle[] parts = new SchemaParticle[_stackSize];
+        int size = 0;
+        for (int i = 0; i < _stackSize; i++)
+        {
+            VisitorState s = _stack[i];
+            parts[i] = s._curPart;
+            size += 2 + (s._seen == null ? 0 : s._seen.length);
+        }
+
+        int[] values = new int[size];
+        int k = 0;
+        for (int i = 0; i < _stackSize; i++)
+        {
+            VisitorState s = _stack[i];
+            int count = s._curCount;
+            if (s._curMax == Integer.MAX_VALUE && count > s._curMin && count < s._curMax)
+                count = s._curMin + 1;
+            values[k++] = count;
+            values[k++] = s._processedChildCount;
+            if (s._seen != null)
+            {
+                for (boolean seen : s._seen)
+                    values[k++] = seen ? 1 : 0;
+            }
+        }
+        return new ContentModelAutomaton.Config(parts, values);
+    }
+
+    /**
+     * Resets the state machine to a state captured by {@link #saveState()}.
+     */
+    void restoreState(ContentModelAutomaton.Config config)
+    {
+        init(null);
+
+        int k = 0;
+        for (SchemaParticle part : config._parts)
+        {
+            addParticle(part);
+            VisitorState s = topRef();
+            s._curCount = config._values[k++];
+            s._processedChildCount = config._values[k++];
+            if (s._seen != null)
+            {
+                for (int j = 0; j < s._seen.length; j++)
+                    s._seen[j] = config._values[k++] != 0;
+            }
+        }
+
+        _rollbackIndex = _stackSize;
+        _top = null;
+        _matchedParticle = null;
+    }
+
     /**
      * Constructs elementflags
      */
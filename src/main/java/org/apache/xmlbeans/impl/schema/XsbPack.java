@@ -0,0 +1,168 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.schema;
+
+import org.apache.xmlbeans.SchemaTypeLoaderException;
+import org.apache.xmlbeans.impl.common.IOUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl.FILETYPE_SCHEMAPACKED;
+
+/**
+ * A packed type system keeps the index and all components in a single .xsb resource,
+ * instead of one resource per component.
+ * <p>
+ * The resource starts with the usual header and a string pool, which is shared by all
+ * components. It is followed by a directory of the handle, filetype and length of each
+ * component and then by the component data, which is encoded as in the single component
+ * resources, but without a header. The resource is read once, when the type system is
+ * loaded, and the components are decoded from their offsets on demand.
+ */
+final class XsbPack {
+    /**
+     * the handle of the packed resource, relative to the base package of the type system
+     */
+    static final String HANDLE = "packed";
+
+    private final XsbReader _header;
+    private final byte[] _data;
+    private final Map<String, Entry> _entries;
+
+    private XsbPack(XsbReader header, byte[] data, Map<String, Entry> entries) {
+        _header = header;
+        _data = data;
+        _entries = entries;
+    }
+
+    /**
+     * Reads the packed resource of the type system
+     *
+     * @return the pack or null, if the type system was saved with a resource per component
+     */
+    static XsbPack load(SchemaTypeSystemImpl typeSystem) {
+        InputStream rawinput = typeSystem.getLoaderStream(typeSystem.getBasePackage() + HANDLE + ".xsb");
+        if (rawinput == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try {
+            IOUtil.copyCompletely(rawinput, bos);
+        } catch (IOException e) {
+            throw new SchemaTypeLoaderException(e.getMessage(), typeSystem.getName(), HANDLE, SchemaTypeLoaderException.IO_EXCEPTION, e);
+        }
+        byte[] data = bos.toByteArray();
+
+        ByteArrayInputStream input = new ByteArrayInputStream(data);
+        XsbReader header = new XsbReader(typeSystem, HANDLE, FILETYPE_SCHEMAPACKED, input);
+        List<Entry> entries = header.readPackDirectory();
+
+        Map<String, Entry> entryMap = new HashMap<>();
+        int offset = data.length - input.available();
+        for (Entry entry : entries) {
+            entry.offset = offset;
+            offset += entry.length;
+            entryMap.put(entry.handle, entry);
+        }
+
+        if (offset != data.length) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Packed resource is truncated", typeSystem.getName(), HANDLE, SchemaTypeLoaderException.IO_EXCEPTION);
+        }
+
+        return new XsbPack(header, data, entryMap);
+    }
+
+    /**
+     * @return the reader of the pack header, which holds the version and the shared string pool
+     */
+    XsbReader getHeader() {
+        return _header;
+    }
+
+    Entry getEntry(String handle) {
+        return _entries.get(handle);
+    }
+
+    InputStream getEntryStream(Entry entry) {
+        return new ByteArrayInputStream(_data, entry.offset, entry.length);
+    }
+
+    static final class Entry {
+        final String handle;
+        final int filetype;
+        int offset;
+        int length;
+        private ByteArrayOutputStream buffer;
+
+        Entry(String handle, int filetype, int length) {
+            this.handle = handle;
+            this.filetype = filetype;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Collects the components of a type system, while it is saved
+     */
+    static final class Writer {
+        private final SchemaTypeSystemImpl _typeSystem;
+        private final SchemaTypeSystemImpl.StringPool _stringPool;
+        private final List<Entry> _entries = new ArrayList<>();
+
+        Writer(SchemaTypeSystemImpl typeSystem) {
+            _typeSystem = typeSystem;
+            _stringPool = new SchemaTypeSystemImpl.StringPool(HANDLE, typeSystem.getName());
+        }
+
+        SchemaTypeSystemImpl.StringPool getStringPool() {
+            return _stringPool;
+        }
+
+        /**
+         * @return the stream for the data of a component, which is written to the pack on {@link #save()}
+         */
+        OutputStream newEntry(String handle, int filetype) {
+            Entry entry = new Entry(handle, filetype, 0);
+            entry.buffer = new ByteArrayOutputStream();
+            _entries.add(entry);
+            return entry.buffer;
+        }
+
+        void save() {
+            for (Entry entry : _entries) {
+                entry.length = entry.buffer.size();
+            }
+
+            XsbReader saver = new XsbReader(_typeSystem, HANDLE, _stringPool);
+            saver.writePackDirectory(_entries);
+            saver.writeRealHeader(HANDLE, FILETYPE_SCHEMAPACKED);
+            saver.writePackDirectory(_entries);
+            for (Entry entry : _entries) {
+                saver.writeBytes(entry.buffer.toByteArray());
+            }
+            saver.writeEnd();
+        }
+    }
+}
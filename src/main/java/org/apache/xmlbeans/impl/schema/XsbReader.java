@@ -50,19 +50,62 @@ class XsbReader {
     int _actualfiletype;
 
     XsbReader(SchemaTypeSystemImpl typeSystem, String handle) {
+        this(typeSystem, handle, packedStringPool(typeSystem, handle));
+    }
+
+    XsbReader(SchemaTypeSystemImpl typeSystem, String handle, SchemaTypeSystemImpl.StringPool stringPool) {
         this.typeSystem = typeSystem;
         _handle = handle;
-        _stringPool = new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
+        _stringPool = (stringPool != null) ? stringPool : new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
+    }
+
+    // components of a packed type system share the string pool of the pack,
+    // but pointers are always saved as separate resources
+    private static SchemaTypeSystemImpl.StringPool packedStringPool(SchemaTypeSystemImpl typeSystem, String handle) {
+        XsbPack.Writer pack = typeSystem.getPackWriter();
+        return (pack != null && handle.indexOf('/') < 0) ? pack.getStringPool() : null;
     }
 
     public XsbReader(SchemaTypeSystemImpl typeSystem, String handle, int filetype) {
-        this.typeSystem = typeSystem;
+        this(typeSystem, handle, filetype, openResource(typeSystem, handle));
+    }
+
+    private static InputStream openResource(SchemaTypeSystemImpl typeSystem, String handle) {
         String resourcename = typeSystem.getBasePackage()  + handle + ".xsb";
         InputStream rawinput = typeSystem.getLoaderStream(resourcename);
         if (rawinput == null) {
             throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Could not locate compiled schema resource " + resourcename, typeSystem.getName(), handle, SchemaTypeLoaderException.NO_RESOURCE);
         }
+        return rawinput;
+    }
 
+    /**
+     * Reads a component of a packed type system. The version and the string pool are
+     * taken from the header of the pack.
+     */
+    XsbReader(XsbPack pack, String handle, int filetype) {
+        XsbReader header = pack.getHeader();
+        this.typeSystem = header.typeSystem;
+
+        XsbPack.Entry entry = pack.getEntry(handle);
+        if (entry == null) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: Could not locate compiled schema component " + handle + " in packed resource", typeSystem.getName(), handle, SchemaTypeLoaderException.NO_RESOURCE);
+        }
+        if (entry.filetype != filetype && filetype != 0xFFFF) {
+            throw new SchemaTypeLoaderException("XML-BEANS compiled schema: File has the wrong type - expecting type " + filetype + ", got type " + entry.filetype, typeSystem.getName(), handle, SchemaTypeLoaderException.WRONG_FILE_TYPE);
+        }
+
+        _input = new LongUTFDataInputStream(pack.getEntryStream(entry));
+        _handle = handle;
+        _majorver = header._majorver;
+        _minorver = header._minorver;
+        _releaseno = header._releaseno;
+        _stringPool = header._stringPool;
+        _actualfiletype = entry.filetype;
+    }
+
+    XsbReader(SchemaTypeSystemImpl typeSystem, String handle, int filetype, InputStream rawinput) {
+        this.typeSystem = typeSystem;
         _input = new LongUTFDataInputStream(rawinput);
         _handle = handle;
 
@@ -100,7 +143,7 @@ class XsbReader {
         }
 
         _stringPool = new SchemaTypeSystemImpl.StringPool(_handle, typeSystem.getName());
-        _stringPool.readFrom(_input);
+        _stringPool.readFrom(_input, typeSystem.getStringTable());
 
         _actualfiletype = actualfiletype;
     }
@@ -151,6 +194,14 @@ class XsbReader {
             resourcename = typeSystem.getBasePackage() + handle + ".xsb";
         }
 
+        XsbPack.Writer pack = typeSystem.getPackWriter();
+        if (pack != null && handle.indexOf('/') < 0) {
+            // the header and string pool are written once for the whole pack
+            _output = new LongUTFDataOutputStream(pack.newEntry(handle, filetype));
+            _handle = handle;
+            return;
+        }
+
         OutputStream rawoutput = typeSystem.getSaverStream(resourcename, _handle);
         if (rawoutput == null) {
             throw new SchemaTypeLoaderException("Could not write compiled schema resource " + resourcename, typeSystem.getName(), handle, SchemaTypeLoaderException.NOT_WRITEABLE);
@@ -236,6 +287,37 @@ class XsbReader {
         writeAnnotations(typeSystem.annotations());
     }
 
+    void writePackDirectory(List<XsbPack.Entry> entries) {
+        writeShortOrInt(entries.size());
+        for (XsbPack.Entry entry : entries) {
+            writeString(entry.handle);
+            writeShort(entry.filetype);
+            writeInt(entry.length);
+        }
+    }
+
+    List<XsbPack.Entry> readPackDirectory() {
+        int size = readUnsignedShortOrInt();
+        List<XsbPack.Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String handle = readString();
+            int filetype = readShort();
+            int length = readInt();
+            entries.add(new XsbPack.Entry(handle, filetype, length));
+        }
+        return entries;
+    }
+
+    void writeBytes(byte[] bytes) {
+        if (_output != null) {
+            try {
+                _output.write(bytes);
+            } catch (IOException e) {
+                throw new SchemaTypeLoaderException(e.getMessage(), typeSystem.getName(), _handle, SchemaTypeLoaderException.IO_EXCEPTION, e);
+            }
+        }
+    }
+
     int readShort() {
         try {
             return _input.readUnsignedShort();
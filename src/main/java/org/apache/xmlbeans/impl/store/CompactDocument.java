@@ -0,0 +1,447 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlCursor.TokenType;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.common.StaxHelper;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only document, which keeps its nodes in parallel arrays instead of a tree of {@link Xobj}s.
+ * <p>
+ * The nodes are numbered in document order, node 0 is the document. An element is followed by its
+ * attributes and namespace declarations and then by its content, so the children are found without
+ * any pointers. The text of all nodes is kept in a single char buffer and the names are interned,
+ * i.e. a node takes about 21 bytes instead of the 100 and more bytes of a {@link Xobj} and its text.
+ * <p>
+ * The kinds of the nodes are the {@link TokenType} ints, e.g. {@link TokenType#INT_START}.
+ * A subtree, which is needed as an {@link XmlObject}, e.g. for its typed getters, is loaded into
+ * a regular store by {@link #getObject(int)}, while the rest of the document stays compact.
+ */
+public final class CompactDocument {
+    private final SchemaTypeLoader _stl;
+    private final XmlOptions _options;
+
+    private byte[] _kinds = new byte[1024];
+    // the index of the name, the target of a procinst or -1
+    private int[] _names = new int[1024];
+    private int[] _parents = new int[1024];
+    // the node after the subtree of a node
+    private int[] _ends = new int[1024];
+    // the text of an attribute, namespace, text, comment or procinst in _chars
+    private int[] _offsets = new int[1024];
+    private int[] _lengths = new int[1024];
+    private int _size;
+
+    private char[] _chars = new char[4096];
+    private int _cch;
+
+    private final List<QName> _nameTable = new ArrayList<>();
+
+    // the subtrees, which have been loaded into a store
+    private final Map<Integer, XmlObject> _objects = new HashMap<>();
+
+    private CompactDocument(SchemaTypeLoader stl, XmlOptions options) {
+        _stl = stl;
+        _options = options;
+    }
+
+    /**
+     * @param stl     the loader of the types of the subtrees, see {@link #getObject(int)}
+     * @param xsr     the reader, which is positioned on the start of the document
+     * @param options the load options of the subtrees
+     */
+    public static CompactDocument parse(SchemaTypeLoader stl, XMLStreamReader xsr, XmlOptions options) throws XmlException {
+        CompactDocument doc = new CompactDocument(stl, options);
+        try {
+            doc.load(xsr);
+        } catch (XMLStreamException e) {
+            throw new XmlException(e.getMessage(), e);
+        }
+        return doc;
+    }
+
+    /**
+     * @see #parse(SchemaTypeLoader, XMLStreamReader, XmlOptions)
+     */
+    public static CompactDocument parse(SchemaTypeLoader stl, InputStream in, XmlOptions options) throws XmlException {
+        try {
+            XMLStreamReader xsr = StaxHelper.newXMLInputFactory(XmlOptions.maskNull(options)).createXMLStreamReader(in);
+            try {
+                return parse(stl, xsr, options);
+            } finally {
+                xsr.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return the kind of the node, a {@link TokenType} int
+     */
+    public int getKind(int node) {
+        return _kinds[node];
+    }
+
+    /**
+     * @return the name of an element or attribute, the prefix of a namespace as the local part
+     * of a QName with the namespace URI or the target of a procinst, otherwise null
+     */
+    public QName getName(int node) {
+        int name = _names[node];
+        return name < 0 ? null : _nameTable.get(name);
+    }
+
+    /**
+     * @return the parent of the node or -1 for the document
+     */
+    public int getParent(int node) {
+        return _parents[node];
+    }
+
+    /**
+     * @return the first child of the document or an element, which isn't an attribute or
+     * namespace, or -1
+     */
+    public int getFirstChild(int node) {
+        int end = _ends[node];
+        for (int i = node + 1; i < end; i++) {
+            if (_kinds[i] != TokenType.INT_ATTR && _kinds[i] != TokenType.INT_NAMESPACE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the next sibling of the node or -1
+     */
+    public int getNextSibling(int node) {
+        int parent = _parents[node];
+        int next = _ends[node];
+        return parent < 0 || next >= _ends[parent] ? -1 : next;
+    }
+
+    /**
+     * @return the value of the attribute of the element or null
+     */
+    public String getAttributeValue(int element, QName name) {
+        for (int i = element + 1; i < _size && isAttrOrNamespace(i); i++) {
+            if (_kinds[i] == TokenType.INT_ATTR && _nameTable.get(_names[i]).equals(name)) {
+                return getText(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of an attribute, the URI of a namespace, the text of a text or comment
+     * and the value of a procinst, otherwise null
+     */
+    public String getText(int node) {
+        switch (_kinds[node]) {
+            case TokenType.INT_ATTR:
+            case TokenType.INT_NAMESPACE:
+            case TokenType.INT_TEXT:
+            case TokenType.INT_COMMENT:
+            case TokenType.INT_PROCINST:
+                return new String(_chars, _offsets[node], _lengths[node]);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the text of the node or, for the document or an element, the text of all descendant text nodes
+     */
+    public String getStringValue(int node) {
+        int kind = _kinds[node];
+        if (kind != TokenType.INT_STARTDOC && kind != TokenType.INT_START) {
+            return getText(node);
+        }
+        StringBuilder sb = new StringBuilder();
+        int end = _ends[node];
+        for (int i = node + 1; i < end; i++) {
+            if (_kinds[i] == TokenType.INT_TEXT) {
+                sb.append(_chars, _offsets[i], _lengths[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Loads the document or an element into a store on the first call, like a separate document.
+     * The namespaces, which are in scope for an element, are declared on it.
+     *
+     * @return the document of the loaded subtree, which is typed by the schema type loader of this document
+     */
+    public XmlObject getObject(int node) throws XmlException {
+        int kind = _kinds[node];
+        if (kind != TokenType.INT_STARTDOC && kind != TokenType.INT_START) {
+            throw new IllegalArgumentException("Only the document or an element can be loaded");
+        }
+        synchronized (_objects) {
+            XmlObject o = _objects.get(node);
+            if (o == null) {
+                o = Locale.parseToXmlObject(_stl, this, node, _options);
+                _objects.put(node, o);
+            }
+            return o;
+        }
+    }
+
+    /**
+     * Sends the events of the subtree to the load context of a store.
+     */
+    void load(int node, Locale.LoadContext context) {
+        int[] stack = new int[16];
+        int depth = 0;
+        int end = _ends[node];
+
+        for (int i = node; i < end; i++) {
+            while (depth > 0 && _ends[stack[depth - 1]] <= i) {
+                context.endElement();
+                depth--;
+            }
+
+            switch (_kinds[i]) {
+                case TokenType.INT_START:
+                    context.startElement(_nameTable.get(_names[i]));
+                    if (i == node) {
+                        inheritNamespaces(node, context);
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = i;
+                    break;
+                case TokenType.INT_ATTR: {
+                    QName name = _nameTable.get(_names[i]);
+                    context.attr(name.getLocalPart(), name.getNamespaceURI(), name.getPrefix(), getText(i));
+                    break;
+                }
+                case TokenType.INT_NAMESPACE:
+                    xmlns(context, _nameTable.get(_names[i]).getLocalPart(), getText(i));
+                    break;
+                case TokenType.INT_TEXT:
+                    context.text(_chars, _offsets[i], _lengths[i]);
+                    break;
+                case TokenType.INT_COMMENT:
+                    context.comment(_chars, _offsets[i], _lengths[i]);
+                    break;
+                case TokenType.INT_PROCINST:
+                    context.procInst(_nameTable.get(_names[i]).getLocalPart(), getText(i));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        while (depth-- > 0) {
+            context.endElement();
+        }
+    }
+
+    /**
+     * Declares the namespaces of the ancestors, which aren't declared by the element itself.
+     */
+    private void inheritNamespaces(int element, Locale.LoadContext context) {
+        List<String> prefixes = new ArrayList<>();
+        for (int e = element; e > 0; e = _parents[e]) {
+            for (int i = e + 1; i < _size && isAttrOrNamespace(i); i++) {
+                if (_kinds[i] == TokenType.INT_NAMESPACE) {
+                    String prefix = _nameTable.get(_names[i]).getLocalPart();
+                    if (!prefixes.contains(prefix)) {
+                        prefixes.add(prefix);
+                        if (e != element) {
+                            xmlns(context, prefix, getText(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void xmlns(Locale.LoadContext context, String prefix, String uri) {
+        if (prefix.isEmpty()) {
+            context.attr("xmlns", Locale._xmlnsUri, null, uri);
+        } else {
+            context.attr(prefix, Locale._xmlnsUri, "xmlns", uri);
+        }
+    }
+
+    private boolean isAttrOrNamespace(int node) {
+        return _kinds[node] == TokenType.INT_ATTR || _kinds[node] == TokenType.INT_NAMESPACE;
+    }
+
+    private void load(XMLStreamReader xsr) throws XMLStreamException {
+        // the names are interned with their prefixes
+        Map<String, Integer> nameIds = new HashMap<>();
+        int parent = add(TokenType.INT_STARTDOC, -1, -1);
+
+        for (int event = xsr.getEventType(); ; event = xsr.next()) {
+            switch (event) {
+                case XMLStreamReader.START_ELEMENT: {
+                    parent = add(TokenType.INT_START, name(nameIds, xsr.getNamespaceURI(), xsr.getLocalName(), xsr.getPrefix()), parent);
+
+                    for (int a = 0, n = xsr.getAttributeCount(); a < n; a++) {
+                        int attr = add(TokenType.INT_ATTR, name(nameIds, xsr.getAttributeNamespace(a),
+                            xsr.getAttributeLocalName(a), xsr.getAttributePrefix(a)), parent);
+                        text(attr, xsr.getAttributeValue(a));
+                    }
+
+                    for (int a = 0, n = xsr.getNamespaceCount(); a < n; a++) {
+                        String uri = xsr.getNamespaceURI(a);
+                        int ns = add(TokenType.INT_NAMESPACE, name(nameIds, uri, xsr.getNamespacePrefix(a), null), parent);
+                        text(ns, uri);
+                    }
+                    break;
+                }
+
+                case XMLStreamReader.END_ELEMENT:
+                    _ends[parent] = _size;
+                    parent = _parents[parent];
+                    break;
+
+                case XMLStreamReader.CHARACTERS:
+                case XMLStreamReader.CDATA:
+                case XMLStreamReader.ENTITY_REFERENCE: {
+                    int last = _size - 1;
+                    // adjacent text is merged, its chars are the last ones in the buffer
+                    if (_kinds[last] != TokenType.INT_TEXT || _parents[last] != parent) {
+                        last = add(TokenType.INT_TEXT, -1, parent);
+                        _offsets[last] = _cch;
+                    }
+                    if (event == XMLStreamReader.ENTITY_REFERENCE) {
+                        appendChars(xsr.getText());
+                    } else {
+                        appendChars(xsr.getTextCharacters(), xsr.getTextStart(), xsr.getTextLength());
+                    }
+                    _lengths[last] = _cch - _offsets[last];
+                    break;
+                }
+
+                case XMLStreamReader.COMMENT:
+                    text(add(TokenType.INT_COMMENT, -1, parent), xsr.getText());
+                    break;
+
+                case XMLStreamReader.PROCESSING_INSTRUCTION:
+                    text(add(TokenType.INT_PROCINST, name(nameIds, "", xsr.getPITarget(), null), parent), xsr.getPIData());
+                    break;
+
+                default:
+                    break;
+            }
+
+            if (event == XMLStreamReader.END_DOCUMENT || !xsr.hasNext()) {
+                break;
+            }
+        }
+
+        _ends[0] = _size;
+        trim();
+    }
+
+    private int add(int kind, int name, int parent) {
+        if (_size == _kinds.length) {
+            int n = _size * 2;
+            _kinds = Arrays.copyOf(_kinds, n);
+            _names = Arrays.copyOf(_names, n);
+            _parents = Arrays.copyOf(_parents, n);
+            _ends = Arrays.copyOf(_ends, n);
+            _offsets = Arrays.copyOf(_offsets, n);
+            _lengths = Arrays.copyOf(_lengths, n);
+        }
+        int node = _size++;
+        _kinds[node] = (byte) kind;
+        _names[node] = name;
+        _parents[node] = parent;
+        // the end of an element is set, when it is closed
+        _ends[node] = node + 1;
+        return node;
+    }
+
+    private int name(Map<String, Integer> nameIds, String uri, String local, String prefix) {
+        uri = uri == null ? "" : uri;
+        local = local == null ? "" : local;
+        prefix = prefix == null ? "" : prefix;
+        String key = uri + '\u0000' + local + '\u0000' + prefix;
+        Integer id = nameIds.get(key);
+        if (id == null) {
+            id = _nameTable.size();
+            _nameTable.add(new QName(uri, local, prefix));
+            nameIds.put(key, id);
+        }
+        return id;
+    }
+
+    private void text(int node, String s) {
+        _offsets[node] = _cch;
+        appendChars(s);
+        _lengths[node] = _cch - _offsets[node];
+    }
+
+    private void appendChars(String s) {
+        if (s != null) {
+            ensureChars(s.length());
+            s.getChars(0, s.length(), _chars, _cch);
+            _cch += s.length();
+        }
+    }
+
+    private void appendChars(char[] buff, int off, int cch) {
+        ensureChars(cch);
+        System.arraycopy(buff, off, _chars, _cch, cch);
+        _cch += cch;
+    }
+
+    private void ensureChars(int cch) {
+        if (_cch + cch > _chars.length) {
+            _chars = Arrays.copyOf(_chars, Math.max(_chars.length * 2, _cch + cch));
+        }
+    }
+
+    private void trim() {
+        _kinds = Arrays.copyOf(_kinds, _size);
+        _names = Arrays.copyOf(_names, _size);
+        _parents = Arrays.copyOf(_parents, _size);
+        _ends = Arrays.copyOf(_ends, _size);
+        _offsets = Arrays.copyOf(_offsets, _size);
+        _lengths = Arrays.copyOf(_lengths, _size);
+        _chars = Arrays.copyOf(_chars, _cch);
+    }
+}
@@ -67,6 +67,9 @@ public final class Cur {
 
     Locale.Ref _ref;
 
+    // the locations of the thread state, which has provided this cur
+    Locations _locations;
+
     int _stackTop;
 
     int _selectionFirst;
@@ -523,7 +526,9 @@ public final class Cur {
     void moveToNoCheck(Xobj x, int p) {
         if (_state == EMBEDDED && x != _xobj) {
             _xobj._embedded = listRemove(_xobj._embedded);
-            _locale._registered = listInsert(_locale._registered);
+
+            Locale.ThreadState s = _locale.state();
+            s._registered = listInsert(s._registered);
             _state = REGISTERED;
         }
 
@@ -794,13 +799,13 @@ public final class Cur {
     public void push() {
         assert isPositioned();
 
-        int i = _locale._locations.allocate(this);
-        _stackTop = _locale._locations.insert(_stackTop, _stackTop, i);
+        int i = _locations.allocate(this);
+        _stackTop = _locations.insert(_stackTop, _stackTop, i);
     }
 
     void popButStay() {
         if (_stackTop != Locations.NULL) {
-            _stackTop = _locale._locations.remove(_stackTop, _stackTop);
+            _stackTop = _locations.remove(_stackTop, _stackTop);
         }
     }
 
@@ -809,8 +814,8 @@ public final class Cur {
             return false;
         }
 
-        _locale._locations.moveTo(_stackTop, this);
-        _stackTop = _locale._locations.remove(_stackTop, _stackTop);
+        _locations.moveTo(_stackTop, this);
+        _stackTop = _locations.remove(_stackTop, _stackTop);
 
         return true;
     }
@@ -818,21 +823,21 @@ public final class Cur {
     boolean isAtLastPush() {
         assert _stackTop != Locations.NULL;
 
-        return _locale._locations.isSamePos(_stackTop, this);
+        return _locations.isSamePos(_stackTop, this);
     }
 
     public boolean isAtEndOfLastPush() {
         assert _stackTop != Locations.NULL;
 
-        return _locale._locations.isAtEndOf(_stackTop, this);
+        return _locations.isAtEndOf(_stackTop, this);
     }
 
     public void addToSelection(Cur that) {
         assert that != null && that.isNormal();
         assert isPositioned() && that.isPositioned();
 
-        int i = _locale._locations.allocate(that);
-        _selectionFirst = _locale._locations.insert(_selectionFirst, Locations.NULL, i);
+        int i = _locations.allocate(that);
+        _selectionFirst = _locations.insert(_selectionFirst, Locations.NULL, i);
 
         _selectionCount++;
     }
@@ -840,8 +845,8 @@ public final class Cur {
     public void addToSelection() {
         assert isPositioned();
 
-        int i = _locale._locations.allocate(this);
-        _selectionFirst = _locale._locations.insert(_selectionFirst, Locations.NULL, i);
+        int i = _locations.allocate(this);
+        _selectionFirst = _locations.insert(_selectionFirst, Locations.NULL, i);
 
         _selectionCount++;
     }
@@ -855,12 +860,12 @@ public final class Cur {
         }
 
         while (_selectionN < i) {
-            _selectionLoc = _locale._locations.next(_selectionLoc);
+            _selectionLoc = _locations.next(_selectionLoc);
             _selectionN++;
         }
 
         while (_selectionN > i) {
-            _selectionLoc = _locale._locations.prev(_selectionLoc);
+            _selectionLoc = _locations.prev(_selectionLoc);
             _selectionN--;
         }
 
@@ -882,7 +887,7 @@ public final class Cur {
             _selectionLoc = Locations.NULL;
         }
 
-        _selectionFirst = _locale._locations.remove(_selectionFirst, j);
+        _selectionFirst = _locations.remove(_selectionFirst, j);
 
         _selectionCount--;
     }
@@ -894,7 +899,7 @@ public final class Cur {
     public void moveToSelection(int i) {
         assert i >= 0 && i < _selectionCount;
 
-        _locale._locations.moveTo(selectionIndex(i), this);
+        _locations.moveTo(selectionIndex(i), this);
     }
 
     public void clearSelection() {
@@ -1839,7 +1844,7 @@ public final class Cur {
 
         xTo.insertCharsHelper(
             pTo, xFrom.getCharsHelper(pFrom, cch),
-            xFrom._locale._offSrc, xFrom._locale._cchSrc, false);
+            xFrom._locale.state()._offSrc, xFrom._locale.state()._cchSrc, false);
 
         xFrom.removeCharsHelper(pFrom, cch, xTo, pTo, true, false);
     }
@@ -2336,8 +2341,9 @@ public final class Cur {
 
         Object src = _xobj.getFirstChars();
 
-        _offSrc = _locale._offSrc;
-        _cchSrc = _locale._cchSrc;
+        Locale.ThreadState s = _locale.state();
+        _offSrc = s._offSrc;
+        _cchSrc = s._cchSrc;
 
         return src;
     }
@@ -2406,7 +2412,7 @@ public final class Cur {
 
     private Xobj getNormal(Xobj x, int p) {
         Xobj nx = x.getNormal(p);
-        _posTemp = x._locale._posTemp;
+        _posTemp = x._locale.state()._posTemp;
         return nx;
     }
 
@@ -2418,7 +2424,7 @@ public final class Cur {
 
     private Xobj getDenormal(Xobj x, int p) {
         Xobj dx = x.getDenormal(p);
-        _posTemp = x._locale._posTemp;
+        _posTemp = x._locale.state()._posTemp;
         return dx;
     }
 
@@ -2595,7 +2601,7 @@ public final class Cur {
             }
 
             if (_prevTemp == null) {
-                _locale._tempFrames[_tempFrame] = _nextTemp;
+                _locale.state()._tempFrames[_tempFrame] = _nextTemp;
             } else {
                 _prevTemp._nextTemp = _nextTemp;
             }
@@ -2636,12 +2642,24 @@ public final class Cur {
             // Unregister and either diapose of cursor or add it back to pool
 
             assert _state == REGISTERED;
-            _locale._registered = listRemove(_locale._registered);
 
-            if (_locale._curPoolCount < 16) {
-                _locale._curPool = listInsert(_locale._curPool);
+            Locale.ThreadState s = _locale.state();
+            boolean listed = false;
+
+            if (!_locale.frozen() || isOnList(s._registered)) {
+                s._registered = listRemove(s._registered);
+            } else {
+                // a cur, which has been registered on another thread before the locale was frozen,
+                // stays on the list of that thread
+                listed = _prev != null;
+            }
+
+            _locations = null;
+
+            if (!listed && s._curPoolCount < 16) {
+                s._curPool = listInsert(s._curPool);
                 _state = POOLED;
-                _locale._curPoolCount++;
+                s._curPoolCount++;
             } else {
                 _locale = null;
                 _state = DISPOSED;
@@ -2724,7 +2742,7 @@ public final class Cur {
 
         assert _state == REGISTERED;
 
-        return isOnList(_locale._registered);
+        return _locale.frozen() || isOnList(_locale.state()._registered);
     }
 
     public static final class CurLoadContext extends LoadContext {
@@ -3261,7 +3279,7 @@ public final class Cur {
             dumpCur(o, "E:", c, ref);
         }
 
-        for (Cur c = xo._locale._registered; c != null; c = c._next) {
+        for (Cur c = xo._locale.state()._registered; c != null; c = c._next) {
             if (c._xobj == xo) {
                 dumpCur(o, "R:", c, ref);
             }
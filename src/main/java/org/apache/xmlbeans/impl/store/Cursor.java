@@ -19,6 +19,7 @@ import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlDocumentProperties;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.common.EncodingMap;
 import org.apache.xmlbeans.impl.common.GlobalLock;
 import org.apache.xmlbeans.impl.common.XMLChar;
 import org.apache.xmlbeans.impl.store.Locale.ChangeListener;
@@ -564,6 +565,14 @@ public final class Cursor implements XmlCursor, ChangeListener {
             throw new IllegalArgumentException("Null OutputStream specified");
         }
 
+        // the fast saver writes UTF-8 only, any other encoding is left to the regular saver
+        if (options != null && options.isSaveOptimizeForSpeed() && isUtf8(options.getCharacterEncoding())) {
+            try (Utf8Writer w = new Utf8Writer(os)) {
+                Saver.OptimizedForSpeedSaver.save(_cur, w); //ignore all other options
+            }
+            return;
+        }
+
         try (InputStream is = _newInputStream(options)) {
             byte[] bytes = new byte[8192];
 
@@ -579,6 +588,10 @@ public final class Cursor implements XmlCursor, ChangeListener {
         }
     }
 
+    private static boolean isUtf8(String encoding) {
+        return encoding == null || "UTF-8".equals(EncodingMap.getJava2IANAMapping(encoding));
+    }
+
     public void _save(Writer w, XmlOptions options) throws IOException {
         if (w == null) {
             throw new IllegalArgumentException("Null Writer specified");
@@ -1960,6 +1973,18 @@ public final class Cursor implements XmlCursor, ChangeListener {
     }
 
     public Node getDomNode() {
+        Locale l = _cur._locale;
+        if (l.frozen()) {
+            // the DOM nodes of the text are created on demand, even in a frozen document
+            synchronized (l) {
+                l.enter();
+                try {
+                    return _getDomNode();
+                } finally {
+                    l.exit();
+                }
+            }
+        }
         return syncWrap(this::_getDomNode);
     }
 
@@ -3747,7 +3747,7 @@ public final class DomImpl {
     }
 
     private static <T> T syncWrapHelper(Locale l, boolean enter, Supplier<T> inner) {
-        if (l.noSync()) {
+        if (l.domNoSync()) {
             return syncWrapHelper2(l, enter, inner);
         } else {
             synchronized (l) {
@@ -3770,7 +3770,7 @@ public final class DomImpl {
     }
 
     private static <T> T syncWrapHelperEx(Locale l, boolean enter, WrapSoapEx<T> inner) throws SOAPException {
-        if (l.noSync()) {
+        if (l.domNoSync()) {
             return syncWrapHelperEx2(l, enter, inner);
         } else {
             synchronized (l) {
@@ -22,6 +22,7 @@ import org.apache.xmlbeans.XmlCursor.XmlBookmark;
 import org.apache.xmlbeans.impl.common.QNameHelper;
 import org.apache.xmlbeans.impl.common.ResolverUtil;
 import org.apache.xmlbeans.impl.common.SAXHelper;
+import org.apache.xmlbeans.impl.common.SystemCache;
 import org.apache.xmlbeans.impl.common.XmlLocale;
 import org.apache.xmlbeans.impl.store.Cur.Locations;
 import org.apache.xmlbeans.impl.store.DomImpl.Dom;
@@ -43,10 +44,14 @@ import java.io.StringReader;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.apache.xmlbeans.impl.values.TypeStore.*;
 
@@ -85,7 +90,7 @@ public final class Locale
 
         _noSync = options.isUnsynchronized();
 
-        _tempFrames = new Cur[_numTempFramesLeft = 8];
+        _state = new ThreadState();
 
         // BUGBUG - this cannot be thread local ....
         // BUGBUG - this cannot be thread local ....
@@ -96,8 +101,6 @@ public final class Locale
 
         _qnameFactory = new DefaultQNameFactory(); //new LocalDocumentQNameFactory();
 
-        _locations = new Locations(this);
-
         _schemaTypeLoader = stl;
 
         _validateOnSet = options.isValidateOnSet();
@@ -130,12 +133,18 @@ public final class Locale
 
         if (source instanceof Locale) {
             l = (Locale) source;
+        } else if (source instanceof XmlObject && ((XmlObject) source).isFrozen()) {
+            throw new IllegalStateException("The locale of a frozen document can't be shared");
         } else if (source instanceof XmlTokenSource) {
             l = (Locale) ((XmlTokenSource) source).monitor();
         } else {
             throw new IllegalArgumentException("Source locale not understood: " + source);
         }
 
+        if (l.frozen()) {
+            throw new IllegalStateException("The locale of a frozen document can't be shared");
+        }
+
         if (l._schemaTypeLoader != stl) {
             throw new IllegalArgumentException(
                 "Source locale does not support same schema type loader");
@@ -536,6 +545,24 @@ public final class Locale
         }
     }
 
+    static XmlObject parseToXmlObject(SchemaTypeLoader stl, CompactDocument doc, int node, XmlOptions options)
+    throws XmlException {
+        try {
+            return syncWrap(stl, options, (l) -> {
+                LoadContext context = new Cur.CurLoadContext(l, options);
+                doc.load(node, context);
+                Cur c = context.finish();
+                autoTypeDocument(c, null, options);
+                XmlObject x = (XmlObject) c.getUser();
+                c.release();
+                return x;
+            });
+        } catch (IOException e) {
+            assert false : "doesn't throw IOException";
+            throw new RuntimeException(e);
+        }
+    }
+
     private static void lineNumber(XMLStreamReader xsr, LoadContext context) {
         javax.xml.stream.Location loc = xsr.getLocation();
 
@@ -614,7 +641,8 @@ public final class Locale
 
                 case XMLStreamReader.START_ELEMENT: {
                     depth++;
-                    context.startElement(xsr.getName());
+                    // use the (cached) name parts instead of the parser's QName instance
+                    context.startElement(makeQName(xsr.getNamespaceURI(), xsr.getLocalName(), xsr.getPrefix()));
 
                     if (lineNums) {
                         lineNumber(xsr, context);
@@ -923,18 +951,7 @@ public final class Locale
     }
 
     QName makeQualifiedQName(String uri, String qname) {
-        if (qname == null) {
-            qname = "";
-        }
-
-        int i = qname.indexOf(':');
-
-        return i < 0
-            ?
-            _qnameFactory.getQName(uri, qname)
-            :
-            _qnameFactory.getQName(uri, qname.substring(i + 1),
-                qname.substring(0, i));
+        return _qnameFactory.getQualifiedQName(uri, qname == null ? "" : qname);
     }
 
     static private class DocProps
@@ -991,7 +1008,15 @@ public final class Locale
         }
     }
 
+    void checkNotFrozen() {
+        if (frozen()) {
+            throw new IllegalStateException("The document is frozen");
+        }
+    }
+
     void notifyChange() {
+        checkNotFrozen();
+
         // First, notify the registered listeners ...
 
         while (_changeListeners != null) {
@@ -1011,7 +1036,7 @@ public final class Locale
         // Then, prepare for the change in a locale specific way.  Need to create real Curs for
         // 'virtual' Curs in Locations
 
-        _locations.notifyChange();
+        state()._locations.notifyChange();
     }
 
     //
@@ -1197,6 +1222,7 @@ public final class Locale
 
     public static void clearThreadLocals() {
         tl_scrubBuffer.remove();
+        Utf8Writer.clearThreadLocals();
     }
 
     static ScrubBuffer getScrubBuffer(int wsr) {
@@ -1313,40 +1339,39 @@ public final class Locale
             return null;
         }
 
-        int da = _nthCache_A.distance(parent, name, set, n);
-        int db = _nthCache_B.distance(parent, name, set, n);
+        // random access to a large array is served by an index of the matching children
+        ThreadState s = state();
+
+        childIndex index = s.findChildIndex(parent, name, set, n >= childIndex.THRESHOLD);
+        if (index != null) {
+            return index.get(n);
+        }
+
+        int da = s._nthCache_A.distance(parent, name, set, n);
+        int db = s._nthCache_B.distance(parent, name, set, n);
 
         Xobj x =
             da <= db
-                ? _nthCache_A.fetch(parent, name, set, n)
-                : _nthCache_B.fetch(parent, name, set, n);
+                ? s._nthCache_A.fetch(parent, name, set, n)
+                : s._nthCache_B.fetch(parent, name, set, n);
 
         if (da == db) {
-            nthCache temp = _nthCache_A;
-            _nthCache_A = _nthCache_B;
-            _nthCache_B = temp;
+            nthCache temp = s._nthCache_A;
+            s._nthCache_A = s._nthCache_B;
+            s._nthCache_B = temp;
         }
 
         return x;
     }
 
     int count(Xobj parent, QName name, QNameSet set) {
-        int n = 0;
-
-        for (Xobj x = findNthChildElem(parent, name, set, 0);
-             x != null; x = x._nextSibling) {
-            if (x.isElem()) {
-                if (set == null) {
-                    if (x._name.equals(name)) {
-                        n++;
-                    }
-                } else if (set.contains(x._name)) {
-                    n++;
-                }
-            }
+        if (parent == null) {
+            return 0;
         }
 
-        return n;
+        // counting walks all children anyway, so the index is built on the way
+        // and the following indexed accesses don't need to walk them again
+        return state().findChildIndex(parent, name, set, true).size();
     }
 
     static boolean toChild(Cur c, QName name, int n) {
@@ -1623,6 +1648,7 @@ public final class Locale
                 _version = Locale.this.version();
                 _parent = parent;
                 _name = name;
+                _set = set;
                 _child = null;
                 _n = -1;
 
@@ -1682,6 +1708,58 @@ public final class Locale
         private int _n;
     }
 
+    /**
+     * The child elements of a parent, which match a name or a set of names.
+     * <p>
+     * It's valid until the next structural change of the store, changes of text values
+     * don't invalidate it.
+     */
+    class childIndex {
+        /**
+         * Indexed accesses beyond this position build an index
+         */
+        static final int THRESHOLD = 8;
+
+        private long _version = -1;
+        private Xobj _parent;
+        private QName _name;
+        private QNameSet _set;
+        private Xobj[] _children = new Xobj[THRESHOLD];
+        private int _size;
+
+        boolean isFor(Xobj parent, QName name, QNameSet set) {
+            return _version == _versionSansText && _parent == parent &&
+                   (set == null ? _set == null && Objects.equals(_name, name) : _set == set);
+        }
+
+        void build(Xobj parent, QName name, QNameSet set) {
+            Arrays.fill(_children, 0, _size, null);
+            _size = 0;
+
+            for (Xobj x = parent._firstChild; x != null; x = x._nextSibling) {
+                if (x.isElem() && (set == null ? name == null || name.equals(x._name) : set.contains(x._name))) {
+                    if (_size == _children.length) {
+                        _children = Arrays.copyOf(_children, _size * 2);
+                    }
+                    _children[_size++] = x;
+                }
+            }
+
+            _version = _versionSansText;
+            _parent = parent;
+            _name = name;
+            _set = set;
+        }
+
+        Xobj get(int n) {
+            return n < _size ? _children[n] : null;
+        }
+
+        int size() {
+            return _size;
+        }
+    }
+
     //
     //
     //
@@ -1693,34 +1771,36 @@ public final class Locale
             return null;
         }
 
-        int da = _domNthCache_A.distance(parent, n);
-        int db = _domNthCache_B.distance(parent, n);
+        ThreadState s = state();
+
+        int da = s._domNthCache_A.distance(parent, n);
+        int db = s._domNthCache_B.distance(parent, n);
 
 
         // the "better" cache should never walk more than 1/2 len
         Dom x;
-        boolean bInvalidate = (db - _domNthCache_B._len / 2 > 0) &&
-                              (db - _domNthCache_B._len / 2 - domNthCache.BLITZ_BOUNDARY > 0);
-        boolean aInvalidate = (da - _domNthCache_A._len / 2 > 0) &&
-                              (da - _domNthCache_A._len / 2 - domNthCache.BLITZ_BOUNDARY > 0);
+        boolean bInvalidate = (db - s._domNthCache_B._len / 2 > 0) &&
+                              (db - s._domNthCache_B._len / 2 - domNthCache.BLITZ_BOUNDARY > 0);
+        boolean aInvalidate = (da - s._domNthCache_A._len / 2 > 0) &&
+                              (da - s._domNthCache_A._len / 2 - domNthCache.BLITZ_BOUNDARY > 0);
         if (da <= db) {
             if (!aInvalidate) {
-                x = _domNthCache_A.fetch(parent, n);
+                x = s._domNthCache_A.fetch(parent, n);
             } else {
-                _domNthCache_B._version = -1;//blitz the cache
-                x = _domNthCache_B.fetch(parent, n);
+                s._domNthCache_B._version = -1;//blitz the cache
+                x = s._domNthCache_B.fetch(parent, n);
             }
         } else if (!bInvalidate) {
-            x = _domNthCache_B.fetch(parent, n);
+            x = s._domNthCache_B.fetch(parent, n);
         } else {
-            _domNthCache_A._version = -1;//blitz the cache
-            x = _domNthCache_A.fetch(parent, n);
+            s._domNthCache_A._version = -1;//blitz the cache
+            x = s._domNthCache_A.fetch(parent, n);
         }
 
         if (da == db) {
-            domNthCache temp = _domNthCache_A;
-            _domNthCache_A = _domNthCache_B;
-            _domNthCache_B = temp;
+            domNthCache temp = s._domNthCache_A;
+            s._domNthCache_A = s._domNthCache_B;
+            s._domNthCache_B = temp;
         }
 
         return x;
@@ -1731,29 +1811,32 @@ public final class Locale
             return 0;
         }
 
-        int da = _domNthCache_A.distance(parent, 0);
-        int db = _domNthCache_B.distance(parent, 0);
+        ThreadState s = state();
+
+        int da = s._domNthCache_A.distance(parent, 0);
+        int db = s._domNthCache_B.distance(parent, 0);
 
         int len =
             da <= db
-                ? _domNthCache_A.length(parent)
-                : _domNthCache_B.length(parent);
+                ? s._domNthCache_A.length(parent)
+                : s._domNthCache_B.length(parent);
 
         if (da == db) {
-            domNthCache temp = _domNthCache_A;
-            _domNthCache_A = _domNthCache_B;
-            _domNthCache_B = temp;
+            domNthCache temp = s._domNthCache_A;
+            s._domNthCache_A = s._domNthCache_B;
+            s._domNthCache_B = temp;
         }
 
         return len;
     }
 
     void invalidateDomCaches(Dom d) {
-        if (_domNthCache_A._parent == d) {
-            _domNthCache_A._version = -1;
+        ThreadState s = state();
+        if (s._domNthCache_A._parent == d) {
+            s._domNthCache_A._version = -1;
         }
-        if (_domNthCache_B._parent == d) {
-            _domNthCache_B._version = -1;
+        if (s._domNthCache_B._parent == d) {
+            s._domNthCache_B._version = -1;
         }
     }
 
@@ -1898,17 +1981,9 @@ public final class Locale
         return c;
     }
 
-    final ReferenceQueue<Ref> refQueue() {
-        if (_refQueue == null) {
-            _refQueue = new ReferenceQueue<>();
-        }
-
-        return _refQueue;
-    }
-
     final static class Ref extends PhantomReference {
         Ref(Cur c, Object obj) {
-            super(obj, c._locale.refQueue());
+            super(obj, c._locale.state().refQueue());
 
             _cur = c;
         }
@@ -1921,17 +1996,19 @@ public final class Locale
     }
 
     Cur tempCur(String id) {
-        Cur c = getCur();
+        ThreadState s = state();
+
+        Cur c = getCur(s);
 
         assert c._tempFrame == -1;
 
-        assert _numTempFramesLeft < _tempFrames.length : "Temp frame not pushed";
+        assert s._numTempFramesLeft < s._tempFrames.length : "Temp frame not pushed";
 
-        int frame = _tempFrames.length - _numTempFramesLeft - 1;
+        int frame = s._tempFrames.length - s._numTempFramesLeft - 1;
 
-        assert frame >= 0 && frame < _tempFrames.length;
+        assert frame >= 0 && frame < s._tempFrames.length;
 
-        Cur next = _tempFrames[frame];
+        Cur next = s._tempFrames[frame];
 
         c._nextTemp = next;
         assert c._prevTemp == null;
@@ -1941,7 +2018,7 @@ public final class Locale
             next._prevTemp = c;
         }
 
-        _tempFrames[frame] = c;
+        s._tempFrames[frame] = c;
         c._tempFrame = frame;
 
         c._id = id;
@@ -1950,15 +2027,19 @@ public final class Locale
     }
 
     Cur getCur() {
-        assert _curPool == null || _curPoolCount > 0;
+        return getCur(state());
+    }
+
+    private Cur getCur(ThreadState s) {
+        assert s._curPool == null || s._curPoolCount > 0;
 
         Cur c;
 
-        if (_curPool == null) {
+        if (s._curPool == null) {
             c = new Cur(this);
         } else {
-            _curPool = _curPool.listRemove(c = _curPool);
-            _curPoolCount--;
+            s._curPool = s._curPool.listRemove(c = s._curPool);
+            s._curPoolCount--;
         }
 
         assert c._state == Cur.POOLED;
@@ -1966,17 +2047,25 @@ public final class Locale
         assert c._xobj == null && c._pos == Cur.NO_POS;
         assert c._ref == null;
 
-        _registered = c.listInsert(_registered);
+        // The curs of a frozen locale don't need to follow any changes, so they aren't registered
+
+        if (!frozen()) {
+            s._registered = c.listInsert(s._registered);
+        }
+
         c._state = Cur.REGISTERED;
+        c._locations = s._locations;
 
         return c;
     }
 
     void embedCurs() {
-        for (Cur c; (c = _registered) != null; ) {
+        ThreadState s = state();
+
+        for (Cur c; (c = s._registered) != null; ) {
             assert c._xobj != null;
 
-            _registered = c.listRemove(_registered);
+            s._registered = c.listRemove(s._registered);
             c._xobj._embedded = c.listInsert(c._xobj._embedded);
             c._state = Cur.EMBEDDED;
         }
@@ -1992,7 +2081,8 @@ public final class Locale
     }
 
     boolean entered() {
-        return _tempFrames.length - _numTempFramesLeft > 0;
+        ThreadState s = state();
+        return s._tempFrames.length - s._numTempFramesLeft > 0;
     }
 
     public void enter(Locale otherLocale) {
@@ -2004,27 +2094,29 @@ public final class Locale
     }
 
     public void enter() {
-        assert _numTempFramesLeft >= 0;
+        ThreadState s = state();
+
+        assert s._numTempFramesLeft >= 0;
 
-        if (--_numTempFramesLeft <= 0) {
-            Cur[] newTempFrames = new Cur[_tempFrames.length * 2];
+        if (--s._numTempFramesLeft <= 0) {
+            Cur[] newTempFrames = new Cur[s._tempFrames.length * 2];
             //move this assignment down so if array allocation fails, error is not masked
-            _numTempFramesLeft = _tempFrames.length;
-            System.arraycopy(_tempFrames, 0, newTempFrames, 0,
-                _tempFrames.length);
-            _tempFrames = newTempFrames;
+            s._numTempFramesLeft = s._tempFrames.length;
+            System.arraycopy(s._tempFrames, 0, newTempFrames, 0,
+                s._tempFrames.length);
+            s._tempFrames = newTempFrames;
         }
 
-        if (++_entryCount > 1000) {
-            pollQueue();
-            _entryCount = 0;
+        if (++s._entryCount > 1000) {
+            pollQueue(s);
+            s._entryCount = 0;
         }
     }
 
-    private void pollQueue() {
-        if (_refQueue != null) {
+    private static void pollQueue(ThreadState s) {
+        if (s._refQueue != null) {
             for (; ; ) {
-                Ref ref = (Ref) _refQueue.poll();
+                Ref ref = (Ref) s._refQueue.poll();
 
                 if (ref == null) {
                     break;
@@ -2046,28 +2138,93 @@ public final class Locale
     }
 
     public void exit() {
+        ThreadState s = state();
+
         //asserts computed frame fits between 0 and _tempFrames.length
-        assert _numTempFramesLeft >= 0 &&
-               (_numTempFramesLeft <= _tempFrames.length - 1) :
+        assert s._numTempFramesLeft >= 0 &&
+               (s._numTempFramesLeft <= s._tempFrames.length - 1) :
             " Temp frames mismanaged. Impossible stack frame. Unsynchronized: " +
             noSync();
 
-        int frame = _tempFrames.length - ++_numTempFramesLeft;
+        int frame = s._tempFrames.length - ++s._numTempFramesLeft;
 
         // no dead loop - _tempFrames is modified in Cur.release() and the next Cur is taken
         // the place of the current one - basically this releases all following Curs
         // usually _tempFrames[frame] == null, as the Cur has been released before
-        while (_tempFrames[frame] != null) {
-            _tempFrames[frame].release();
+        while (s._tempFrames[frame] != null) {
+            s._tempFrames[frame].release();
         }
     }
 
     public boolean noSync() {
-        return _noSync;
+        return _noSync || frozen();
     }
 
     public boolean sync() {
-        return !_noSync;
+        return !noSync();
+    }
+
+    public boolean frozen() {
+        return _threadStates != null;
+    }
+
+    /**
+     * The DOM updates its text nodes on reads, so it's synchronized for a frozen locale, too.
+     */
+    boolean domNoSync() {
+        return _noSync;
+    }
+
+    /**
+     * Freezes the locale and prepares the document for concurrent reads, see {@link XmlObject#freeze()}.
+     * Afterwards, every thread uses its own temp curs, cur pool and caches, and any change of
+     * the locale throws an {@link IllegalStateException}.
+     *
+     * @param root the root of the document
+     */
+    void freeze(Xobj root) {
+        if (frozen()) {
+            return;
+        }
+
+        enter();
+        try {
+            // create the users and their values, which would be created on the first read otherwise
+            for (Xobj x = root; x != null; x = x.walk(root, true)) {
+                if (x.isUserNode()) {
+                    x.ensureOccupancy();
+                    x.getUser().freeze_value();
+                }
+            }
+        } finally {
+            exit();
+        }
+
+        // the thread, which freezes the locale, continues with the existing state, so that
+        // its open cursors stay valid
+        ThreadLocal<WeakReference<ThreadState>> states = new ThreadLocal<>();
+        states.set(new WeakReference<>(_state));
+        _frozenStates = new ConcurrentLinkedQueue<>();
+        _threadStates = states;
+    }
+
+    /**
+     * @return the state of the current thread
+     */
+    ThreadState state() {
+        ThreadLocal<WeakReference<ThreadState>> states = _threadStates;
+        if (states == null) {
+            return _state;
+        }
+
+        WeakReference<ThreadState> ref = states.get();
+        ThreadState s = ref == null ? null : ref.get();
+        if (s == null) {
+            s = new ThreadState();
+            _frozenStates.add(s);
+            states.set(new WeakReference<>(s));
+        }
+        return s;
     }
 
     static boolean isWhiteSpace(String s) {
@@ -2228,29 +2385,106 @@ public final class Locale
 
         XMLReader xr = options.getLoadUseXMLReader();
 
-        if (xr == null) {
+        if (xr != null) {
+            // A caller supplied reader is never pooled, as we don't know what else it is used for
+            SaxLoader sl = new XmlReaderSaxLoader(xr, -1);
+
+            // I've noticed that most XMLReaders don't like a null EntityResolver...
+
+            if (er != null) {
+                xr.setEntityResolver(er);
+            }
+
+            return sl;
+        }
+
+        long readerConfig = getReaderConfig(options);
+
+        SaxLoader sl = SaxLoaderPool.take(readerConfig);
+
+        if (sl == null) {
             try {
                 xr = SAXHelper.newXMLReader(new XmlOptions(options));
             } catch (Exception e) {
                 throw new XmlException("Problem creating XMLReader", e);
             }
+
+            sl = new XmlReaderSaxLoader(xr, readerConfig);
         }
 
-        SaxLoader sl = new XmlReaderSaxLoader(xr);
+        // a pooled reader might still have the resolver of its previous use
+        sl._xr.setEntityResolver(er == null ? SAXHelper.IGNORING_ENTITY_RESOLVER : er);
+
+        return sl;
+    }
+
+    /**
+     * Condenses the options which are used by {@link SAXHelper#newXMLReader(XmlOptions)}
+     * into a key, so that pooled readers are only reused for a compatible configuration
+     */
+    private static long getReaderConfig(XmlOptions options) {
+        return ((long) options.getEntityExpansionLimit() << 3) |
+               (options.isLoadDTDGrammar() ? 4 : 0) |
+               (options.isLoadExternalDTD() ? 2 : 0) |
+               (options.disallowDocTypeDeclaration() ? 1 : 0);
+    }
+
+    /**
+     * A small per-thread pool of configured SaxLoaders.
+     * <p>
+     * Creating a XMLReader (factory lookup, parser instantiation and security setup) often
+     * costs more than parsing a small document, hence loaders are kept in the thread local
+     * slot of the {@link SystemCache} and reused for loads with the same reader configuration.
+     * A loader is removed from the pool while it is in use, so nested loads get their own
+     * instance.
+     */
+    private static final class SaxLoaderPool {
+        private static final int MAX_POOLED_LOADERS = 4;
+
+        private final SaxLoader[] _loaders = new SaxLoader[MAX_POOLED_LOADERS];
+        private int _count;
+
+        static SaxLoader take(long readerConfig) {
+            Object o = SystemCache.get().getSaxLoader();
+            if (!(o instanceof SaxLoaderPool)) {
+                return null;
+            }
 
-        // I've noticed that most XMLReaders don't like a null EntityResolver...
+            SaxLoaderPool pool = (SaxLoaderPool) o;
+            for (int i = pool._count - 1; i >= 0; i--) {
+                SaxLoader sl = pool._loaders[i];
+                if (sl._readerConfig == readerConfig) {
+                    pool._loaders[i] = pool._loaders[--pool._count];
+                    pool._loaders[pool._count] = null;
+                    return sl;
+                }
+            }
 
-        if (er != null) {
-            xr.setEntityResolver(er);
+            return null;
         }
 
-        return sl;
+        static void offer(SaxLoader sl) {
+            SystemCache cache = SystemCache.get();
+            Object o = cache.getSaxLoader();
+
+            SaxLoaderPool pool;
+            if (o instanceof SaxLoaderPool) {
+                pool = (SaxLoaderPool) o;
+            } else {
+                pool = new SaxLoaderPool();
+                cache.setSaxLoader(pool);
+            }
+
+            if (pool._count < MAX_POOLED_LOADERS) {
+                pool._loaders[pool._count++] = sl;
+            }
+        }
     }
 
     private static class XmlReaderSaxLoader
         extends SaxLoader {
-        XmlReaderSaxLoader(XMLReader xr) {
-            super(xr, null);
+        XmlReaderSaxLoader(XMLReader xr, long readerConfig) {
+            super(xr, null, readerConfig);
         }
     }
 
@@ -2274,6 +2508,20 @@ public final class Locale
             _startLocator = startLocator;
         }
 
+        /**
+         * Drops all per document state, so the handler can be used for another load
+         */
+        void resetSaxHandler() {
+            _locale = null;
+            _context = null;
+            _startLocator = null;
+            _insideCDATA = false;
+            _entityBytesLimit = 10240;
+            _entityBytes = 0;
+            _insideEntity = 0;
+            delayedPrefixMappings.clear();
+        }
+
         void initSaxHandler(Locale l, final XmlOptions options) {
             _locale = l;
 
@@ -2331,18 +2579,9 @@ public final class Locale
             delayedPrefixMappings.clear();
 
             for (int i = 0, len = atts.getLength(); i < len; i++) {
-                String aqn = atts.getQName(i);
-
-                int colon = aqn.indexOf(':');
-
-                if (colon < 0) {
-                    _context.attr(aqn, atts.getURI(i), null,
-                        atts.getValue(i));
-                } else {
-                    _context.attr(aqn.substring(colon + 1), atts.getURI(i), aqn.substring(
-                        0, colon),
-                        atts.getValue(i));
-                }
+                // split the qualified name within the QName cache, to avoid the substrings
+                _context.attr(_locale.makeQualifiedQName(atts.getURI(i), atts.getQName(i)),
+                    atts.getValue(i));
             }
         }
 
@@ -2489,10 +2728,11 @@ public final class Locale
     }
 
     private static abstract class SaxLoader extends SaxHandler implements ErrorHandler {
-        SaxLoader(XMLReader xr, Locator startLocator) {
+        SaxLoader(XMLReader xr, Locator startLocator, long readerConfig) {
             super(startLocator);
 
             _xr = xr;
+            _readerConfig = readerConfig;
 
             try {
                 _xr.setFeature("http://xml.org/sax/features/namespaces", true);
@@ -2547,6 +2787,11 @@ public final class Locale
 
                 postLoad(c);
 
+                if (_readerConfig >= 0) {
+                    resetSaxHandler();
+                    SaxLoaderPool.offer(this);
+                }
+
                 return c;
             } catch (XmlRuntimeException e) {
                 _context.abort();
@@ -2590,6 +2835,9 @@ public final class Locale
         }
 
         private final XMLReader _xr;
+
+        // the reader configuration this loader can be pooled for, -1 if it must not be pooled
+        private final long _readerConfig;
     }
 
     private Dom load(InputSource is, XmlOptions options)
@@ -2734,21 +2982,25 @@ public final class Locale
             return _cache.getName(uri, local, prefix);
         }
 
+        public QName getQualifiedQName(String uri, String qualifiedName) {
+            return _cache.getQualifiedName(uri, qualifiedName);
+        }
+
         public QName getQName(char[] uriSrc, int uriPos, int uriCch,
                               char[] localSrc, int localPos, int localCch) {
             return
-                _cache.getName(new String(uriSrc, uriPos, uriCch),
-                    new String(localSrc, localPos, localCch),
-                    "");
+                _cache.getName(uriSrc, uriPos, uriCch,
+                    localSrc, localPos, localCch,
+                    null, 0, 0);
         }
 
         public QName getQName(char[] uriSrc, int uriPos, int uriCch,
                               char[] localSrc, int localPos, int localCch,
                               char[] prefixSrc, int prefixPos, int prefixCch) {
             return
-                _cache.getName(new String(uriSrc, uriPos, uriCch),
-                    new String(localSrc, localPos, localCch),
-                    new String(prefixSrc, prefixPos, prefixCch));
+                _cache.getName(uriSrc, uriPos, uriCch,
+                    localSrc, localPos, localCch,
+                    prefixSrc, prefixPos, prefixCch);
         }
     }
 
@@ -2757,29 +3009,20 @@ public final class Locale
 
     SchemaTypeLoader _schemaTypeLoader;
 
-    private ReferenceQueue<Ref> _refQueue;
-    private int _entryCount;
-
-    int _numTempFramesLeft;
-    Cur[] _tempFrames;
-
-    Cur _curPool;
-    int _curPoolCount;
-
-    Cur _registered;
+    // the state of the threads, which use the locale one at a time, see state()
+    private final ThreadState _state;
+    // the states of the threads, which read a frozen locale. A state refers to the locale, so the
+    // threads only hold it weakly, and the locale holds it, until the locale itself is collected
+    private volatile ThreadLocal<WeakReference<ThreadState>> _threadStates;
+    private Queue<ThreadState> _frozenStates;
 
     ChangeListener _changeListeners;
 
     long _versionAll;
     long _versionSansText;
 
-    Locations _locations;
-
     private CharUtil _charUtil;
 
-    int _offSrc;
-    int _cchSrc;
-
     Saaj _saaj;
 
     Dom _ownerDoc;
@@ -2788,11 +3031,78 @@ public final class Locale
 
     boolean _validateOnSet;
 
-    int _posTemp;
+    /**
+     * The scratch state of the operations on the store: the temp curs, the cur pool, the
+     * locations, the out values of the char accessors and the caches of the child lookups.
+     * A locale has one, which is used by one thread at a time, a frozen locale has one per thread.
+     */
+    final class ThreadState {
+        ThreadState() {
+            _tempFrames = new Cur[_numTempFramesLeft = 8];
+            _locations = new Locations(Locale.this);
+        }
+
+        final ReferenceQueue<Ref> refQueue() {
+            if (_refQueue == null) {
+                _refQueue = new ReferenceQueue<>();
+            }
+
+            return _refQueue;
+        }
+
+        /**
+         * Returns the index of the children of a parent, which match the name or set.
+         *
+         * @param build if true, the index is built if there is no valid one
+         * @return the index or null, if none is valid and build is false
+         */
+        childIndex findChildIndex(Xobj parent, QName name, QNameSet set, boolean build) {
+            for (childIndex index : _childIndexes) {
+                if (index != null && index.isFor(parent, name, set)) {
+                    return index;
+                }
+            }
+
+            if (!build) {
+                return null;
+            }
+
+            // replace the indexes round robin, a few are enough for nested arrays
+            int i = _nextChildIndex;
+            _nextChildIndex = (i + 1) % _childIndexes.length;
+            childIndex index = _childIndexes[i];
+            if (index == null) {
+                index = _childIndexes[i] = new childIndex();
+            }
+            index.build(parent, name, set);
+            return index;
+        }
+
+        private ReferenceQueue<Ref> _refQueue;
+        private int _entryCount;
+
+        int _numTempFramesLeft;
+        Cur[] _tempFrames;
+
+        Cur _curPool;
+        int _curPoolCount;
+
+        Cur _registered;
 
-    nthCache _nthCache_A = new nthCache();
-    nthCache _nthCache_B = new nthCache();
+        final Locations _locations;
 
-    domNthCache _domNthCache_A = new domNthCache();
-    domNthCache _domNthCache_B = new domNthCache();
+        int _offSrc;
+        int _cchSrc;
+
+        int _posTemp;
+
+        nthCache _nthCache_A = new nthCache();
+        nthCache _nthCache_B = new nthCache();
+
+        private final childIndex[] _childIndexes = new childIndex[4];
+        private int _nextChildIndex;
+
+        domNthCache _domNthCache_A = new domNthCache();
+        domNthCache _domNthCache_B = new domNthCache();
+    }
 }
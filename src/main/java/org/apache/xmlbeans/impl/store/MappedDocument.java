@@ -0,0 +1,591 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.XmlRuntimeException;
+import org.apache.xmlbeans.impl.common.StaxHelper;
+import org.apache.xmlbeans.impl.xpath.XPath;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A document in a memory-mapped file, whose elements are loaded into a store on demand.
+ * <p>
+ * Opening the document only indexes the elements down to a given depth: the offsets of their
+ * start and end tags, their names and their namespace declarations. Neither the text nor the
+ * deeper elements are decoded, so the heap only depends on the number of indexed elements.
+ * An indexed element is parsed from the mapped bytes by {@link #getObject(int)}, like a record
+ * of a {@link RecordLoader}, i.e. the namespaces of its ancestors are declared on it.
+ * <p>
+ * Only UTF-8 documents are supported. The entities of an internal DTD subset can't be resolved,
+ * when an element is loaded.
+ */
+public final class MappedDocument implements Closeable {
+    // the size of a mapped region
+    private static final int CHUNK_BITS = 30;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private static final byte[] WRAPPER_END = "</w>".getBytes(StandardCharsets.UTF_8);
+
+    private final SchemaTypeLoader _stl;
+    private final XmlOptions _options;
+    private final XPath _wrappedPath;
+    private final long _length;
+    private ByteBuffer[] _buffers;
+
+    // the indexed elements in document order, element 0 is the document element
+    private long[] _startOffsets = new long[1024];
+    private long[] _endOffsets = new long[1024];
+    private int[] _parents = new int[1024];
+    // the element after the indexed descendants of an element
+    private int[] _ends = new int[1024];
+    private int[] _names = new int[1024];
+    private int _size;
+
+    // the qualified names of the elements as written in the document
+    private final List<String> _nameTable = new ArrayList<>();
+    // the prefix and uri pairs, which are declared by the indexed elements
+    private final Map<Integer, List<String>> _namespaces = new HashMap<>();
+
+    private MappedDocument(SchemaTypeLoader stl, ByteBuffer[] buffers, long length, XmlOptions options)
+        throws XmlException {
+        _stl = stl;
+        _buffers = buffers;
+        _length = length;
+        _options = options;
+        // the element is loaded as the child of a wrapper, which declares the inherited namespaces
+        _wrappedPath = XPath.compileXPath("$this/*/*", "this");
+    }
+
+    /**
+     * Maps the file and indexes its elements.
+     *
+     * @param stl     the loader of the types of the loaded elements
+     * @param depth   the depth of the deepest indexed elements, 0 for only the document element
+     * @param options the load options of the elements
+     */
+    public static MappedDocument open(File file, SchemaTypeLoader stl, int depth, XmlOptions options)
+        throws IOException, XmlException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            ByteBuffer[] buffers = new ByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < buffers.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << CHUNK_BITS, length - start));
+            }
+
+            MappedDocument doc = new MappedDocument(stl, buffers, length, options);
+            try {
+                doc.index(depth);
+            } catch (IndexOutOfBoundsException e) {
+                throw new XmlException("Unexpected end of the document " + file);
+            }
+            return doc;
+        }
+    }
+
+    /**
+     * @return the number of indexed elements
+     */
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * @return the parent of the element or -1 for the document element
+     */
+    public int getParent(int element) {
+        return _parents[element];
+    }
+
+    /**
+     * @return the first indexed child of the element or -1
+     */
+    public int getFirstChild(int element) {
+        return _ends[element] > element + 1 ? element + 1 : -1;
+    }
+
+    /**
+     * @return the next sibling of the element or -1
+     */
+    public int getNextSibling(int element) {
+        int parent = _parents[element];
+        int next = _ends[element];
+        return parent < 0 || next >= _ends[parent] ? -1 : next;
+    }
+
+    /**
+     * @return the name of the element
+     */
+    public QName getName(int element) {
+        String qname = _nameTable.get(_names[element]);
+        int colon = qname.indexOf(':');
+        String prefix = colon < 0 ? "" : qname.substring(0, colon);
+        String uri = findNamespace(element, prefix);
+        if (uri == null) {
+            throw new XmlRuntimeException("Undeclared prefix " + prefix);
+        }
+        return new QName(uri, qname.substring(colon + 1), prefix);
+    }
+
+    /**
+     * @return the size of the element in the file
+     */
+    public long getByteLength(int element) {
+        return _endOffsets[element] - _startOffsets[element];
+    }
+
+    /**
+     * Parses the element and its descendants from the file. Every call returns a new document.
+     *
+     * @return the document of the element, which is typed by the schema type loader of this document
+     */
+    public XmlObject getObject(int element) throws XmlException {
+        if (_buffers == null) {
+            throw new IllegalStateException("The document is closed");
+        }
+
+        InputStream in = new SequenceInputStream(new ByteArrayInputStream(wrapperStart(element)),
+            new SequenceInputStream(new MappedInputStream(_startOffsets[element], _endOffsets[element]),
+                new ByteArrayInputStream(WRAPPER_END)));
+
+        try {
+            XMLStreamReader xsr = StaxHelper.newXMLInputFactory(XmlOptions.maskNull(_options)).createXMLStreamReader(in, "UTF-8");
+            try (RecordLoader loader = new RecordLoader(_stl, xsr, _wrappedPath, null, _options)) {
+                if (!loader.hasNext()) {
+                    throw new XmlException("The element " + element + " can't be loaded");
+                }
+                return loader.next();
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlException(e.getMessage(), e);
+        } catch (XmlRuntimeException e) {
+            if (e.getCause() instanceof XmlException) {
+                throw (XmlException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the mapped file. The loaded elements stay valid.
+     */
+    public void close() {
+        _buffers = null;
+    }
+
+    private String findNamespace(int element, String prefix) {
+        if (prefix.equals("xml")) {
+            return "http://www.w3.org/XML/1998/namespace";
+        }
+        for (int e = element; e >= 0; e = _parents[e]) {
+            List<String> decls = _namespaces.get(e);
+            if (decls != null) {
+                for (int i = decls.size() - 2; i >= 0; i -= 2) {
+                    if (decls.get(i).equals(prefix)) {
+                        return decls.get(i + 1);
+                    }
+                }
+            }
+        }
+        return prefix.isEmpty() ? "" : null;
+    }
+
+    /**
+     * @return the start tag of the wrapper, which declares the namespaces of the ancestors of the element
+     */
+    private byte[] wrapperStart(int element) {
+        StringBuilder sb = new StringBuilder("<w");
+        List<String> prefixes = new ArrayList<>();
+        for (int e = _parents[element]; e >= 0; e = _parents[e]) {
+            List<String> decls = _namespaces.get(e);
+            if (decls != null) {
+                for (int i = decls.size() - 2; i >= 0; i -= 2) {
+                    String prefix = decls.get(i);
+                    if (!prefixes.contains(prefix)) {
+                        prefixes.add(prefix);
+                        sb.append(prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix).append("=\"");
+                        escape(sb, decls.get(i + 1));
+                        sb.append('"');
+                    }
+                }
+            }
+        }
+        return sb.append('>').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                default:
+                    sb.append(ch);
+                    break;
+            }
+        }
+    }
+
+    private byte byteAt(long pos) {
+        return _buffers[(int) (pos >>> CHUNK_BITS)].get((int) (pos & CHUNK_MASK));
+    }
+
+    private void index(int maxDepth) throws XmlException {
+        long pos = 0;
+        if (_length >= 3 && byteAt(0) == (byte) 0xEF && byteAt(1) == (byte) 0xBB && byteAt(2) == (byte) 0xBF) {
+            pos = 3;
+        } else if (_length >= 2 && (byteAt(0) == (byte) 0xFE || byteAt(0) == (byte) 0xFF || byteAt(0) == 0)) {
+            throw new XmlException("Only UTF-8 documents can be mapped");
+        }
+
+        Map<String, Integer> nameIds = new HashMap<>();
+        // the indexed open elements by depth
+        int[] stack = new int[16];
+        int depth = 0;
+
+        for (pos = indexOf('<', pos); pos >= 0; pos = indexOf('<', pos)) {
+            byte b = byteAt(pos + 1);
+            if (b == '?') {
+                long end = find("?>", pos + 2);
+                if (startsWith(pos, "<?xml ")) {
+                    checkEncoding(pos, end);
+                }
+                pos = end + 2;
+            } else if (b == '!') {
+                if (startsWith(pos, "<!--")) {
+                    pos = find("-->", pos + 4) + 3;
+                } else if (startsWith(pos, "<![CDATA[")) {
+                    pos = find("]]>", pos + 9) + 3;
+                } else {
+                    pos = skipDoctype(pos + 2);
+                }
+            } else if (b == '/') {
+                pos = find(">", pos + 2) + 1;
+                if (--depth < 0) {
+                    throw new XmlException("Unexpected end tag at offset " + pos);
+                }
+                if (depth <= maxDepth) {
+                    int e = stack[depth];
+                    _endOffsets[e] = pos;
+                    _ends[e] = _size;
+                }
+            } else {
+                long start = pos;
+                long nameEnd = pos + 1;
+                while (!isNameEnd(byteAt(nameEnd))) {
+                    nameEnd++;
+                }
+
+                List<String> decls = null;
+                boolean empty;
+                long p = nameEnd;
+                for (; ; ) {
+                    p = skipSpace(p);
+                    byte c = byteAt(p);
+                    if (c == '>') {
+                        empty = false;
+                        p++;
+                        break;
+                    }
+                    if (c == '/') {
+                        empty = true;
+                        p = find(">", p) + 1;
+                        break;
+                    }
+
+                    long attrEnd = p;
+                    while (!isNameEnd(byteAt(attrEnd)) && byteAt(attrEnd) != '=') {
+                        attrEnd++;
+                    }
+                    long q = skipSpace(find("=", attrEnd) + 1);
+                    byte quote = byteAt(q);
+                    if (quote != '"' && quote != '\'') {
+                        throw new XmlException("Unquoted attribute value at offset " + q);
+                    }
+                    long close = indexOf(quote, q + 1);
+                    if (close < 0) {
+                        throw new XmlException("Unterminated attribute value at offset " + q);
+                    }
+
+                    if (depth <= maxDepth) {
+                        String attr = string(p, attrEnd);
+                        if (attr.equals("xmlns") || attr.startsWith("xmlns:")) {
+                            if (decls == null) {
+                                decls = new ArrayList<>();
+                            }
+                            decls.add(attr.length() == 5 ? "" : attr.substring(6));
+                            decls.add(unescape(string(q + 1, close)));
+                        }
+                    }
+                    p = close + 1;
+                }
+
+                if (depth <= maxDepth) {
+                    String qname = string(start + 1, nameEnd);
+                    Integer name = nameIds.get(qname);
+                    if (name == null) {
+                        name = _nameTable.size();
+                        _nameTable.add(qname);
+                        nameIds.put(qname, name);
+                    }
+
+                    int e = add(start, depth == 0 ? -1 : stack[depth - 1], name);
+                    if (decls != null) {
+                        _namespaces.put(e, decls);
+                    }
+                    if (empty) {
+                        _endOffsets[e] = p;
+                        _ends[e] = _size;
+                    } else {
+                        if (depth == stack.length) {
+                            stack = Arrays.copyOf(stack, depth * 2);
+                        }
+                        stack[depth] = e;
+                    }
+                }
+
+                if (!empty) {
+                    depth++;
+                }
+                pos = p;
+            }
+        }
+
+        if (depth != 0 || _size == 0) {
+            throw new XmlException("The document isn't well-formed");
+        }
+    }
+
+    private int add(long start, int parent, int name) {
+        if (_size == _parents.length) {
+            int n = _size * 2;
+            _startOffsets = Arrays.copyOf(_startOffsets, n);
+            _endOffsets = Arrays.copyOf(_endOffsets, n);
+            _parents = Arrays.copyOf(_parents, n);
+            _ends = Arrays.copyOf(_ends, n);
+            _names = Arrays.copyOf(_names, n);
+        }
+        int e = _size++;
+        _startOffsets[e] = start;
+        _parents[e] = parent;
+        _names[e] = name;
+        return e;
+    }
+
+    private void checkEncoding(long start, long end) throws XmlException {
+        String decl = string(start, end);
+        int i = decl.indexOf("encoding");
+        if (i < 0) {
+            return;
+        }
+        int q = i + 8;
+        while (q < decl.length() && decl.charAt(q) != '"' && decl.charAt(q) != '\'') {
+            q++;
+        }
+        int close = q + 1 < decl.length() ? decl.indexOf(decl.charAt(q), q + 1) : -1;
+        if (close < 0) {
+            throw new XmlException("Invalid XML declaration");
+        }
+        String encoding = decl.substring(q + 1, close).toLowerCase(java.util.Locale.ROOT);
+        if (!encoding.equals("utf-8") && !encoding.equals("utf8") && !encoding.equals("us-ascii")) {
+            throw new XmlException("Only UTF-8 documents can be mapped, not " + encoding);
+        }
+    }
+
+    private long skipDoctype(long pos) {
+        int brackets = 0;
+        byte quote = 0;
+        for (; ; pos++) {
+            byte c = byteAt(pos);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']') {
+                brackets--;
+            } else if (c == '>' && brackets == 0) {
+                return pos + 1;
+            }
+        }
+    }
+
+    private long skipSpace(long pos) {
+        while (isSpace(byteAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean isNameEnd(byte b) {
+        return isSpace(b) || b == '/' || b == '>';
+    }
+
+    private long indexOf(byte b, long from) {
+        for (long pos = from; pos < _length; pos++) {
+            if (byteAt(pos) == b) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private long indexOf(char c, long from) {
+        return indexOf((byte) c, from);
+    }
+
+    private long find(String s, long from) throws XmlException {
+        for (long pos = indexOf(s.charAt(0), from); pos >= 0; pos = indexOf(s.charAt(0), pos + 1)) {
+            if (startsWith(pos, s)) {
+                return pos;
+            }
+        }
+        throw new XmlException("Missing " + s + " after offset " + from);
+    }
+
+    private boolean startsWith(long pos, String s) {
+        if (pos + s.length() > _length) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (byteAt(pos + i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = byteAt(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            int semi;
+            if (ch != '&' || (semi = value.indexOf(';', i)) < 0) {
+                sb.append(ch);
+                continue;
+            }
+            String ref = value.substring(i + 1, semi);
+            switch (ref) {
+                case "amp":
+                    sb.append('&');
+                    break;
+                case "lt":
+                    sb.append('<');
+                    break;
+                case "gt":
+                    sb.append('>');
+                    break;
+                case "quot":
+                    sb.append('"');
+                    break;
+                case "apos":
+                    sb.append('\'');
+                    break;
+                default:
+                    if (ref.startsWith("#x")) {
+                        sb.appendCodePoint(Integer.parseInt(ref.substring(2), 16));
+                    } else if (ref.startsWith("#")) {
+                        sb.appendCodePoint(Integer.parseInt(ref.substring(1)));
+                    } else {
+                        sb.append('&').append(ref).append(';');
+                    }
+                    break;
+            }
+            i = semi;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a range of the mapped file.
+     */
+    private final class MappedInputStream extends InputStream {
+        private long _pos;
+        private final long _end;
+
+        MappedInputStream(long start, long end) {
+            _pos = start;
+            _end = end;
+        }
+
+        public int read() {
+            return _pos < _end ? byteAt(_pos++) & 0xFF : -1;
+        }
+
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (_pos >= _end) {
+                return -1;
+            }
+            ByteBuffer chunk = _buffers[(int) (_pos >>> CHUNK_BITS)].duplicate();
+            int p = (int) (_pos & CHUNK_MASK);
+            int n = (int) Math.min(Math.min(len, chunk.limit() - p), _end - _pos);
+            chunk.position(p);
+            chunk.get(b, off, n);
+            _pos += n;
+            return n;
+        }
+    }
+}
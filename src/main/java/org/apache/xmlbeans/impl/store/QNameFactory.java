@@ -23,6 +23,8 @@ public interface QNameFactory
     
     public QName getQName ( String uri, String local, String prefix );
 
+    public QName getQualifiedQName ( String uri, String qualifiedName );
+
     public QName getQName (
         char[] uriSrc,   int uriPos,   int uriCch,
         char[] localSrc, int localPos, int localCch );
@@ -0,0 +1,312 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.XmlRuntimeException;
+import org.apache.xmlbeans.impl.xpath.XPath;
+import org.apache.xmlbeans.impl.xpath.XPathExecutionContext;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a large document into records, i.e. the elements which are selected by a path,
+ * and loads each record into its own store.
+ * <p>
+ * The document is read with a {@link XMLStreamReader}, so only the current record and
+ * the names and namespaces of the enclosing elements are kept in memory. The namespaces,
+ * which are in scope for a record, are declared on the record, so that QName values
+ * can be resolved in the loaded record.
+ * <p>
+ * Records aren't nested, i.e. elements inside of a record are not checked against the path.
+ * <p>
+ * If the reader reports errors, e.g. a validating reader, the errors are split up: the errors,
+ * which are reported while a record is read, including its start and end tags, belong to the
+ * record, the others to the document.
+ */
+public final class RecordLoader implements Iterator<XmlObject>, Closeable {
+    private final SchemaTypeLoader _stl;
+    private final XMLStreamReader _xsr;
+    private final XPath _path;
+    private final SchemaType _type;
+    private final XmlOptions _options;
+
+    // the list, which the reader adds its errors to, or null
+    private final List<XmlError> _errors;
+    private final List<XmlError> _documentErrors = new ArrayList<>();
+    private List<XmlError> _nextErrors = Collections.emptyList();
+    private List<XmlError> _recordErrors = Collections.emptyList();
+
+    private final XPathExecutionContext _context = new XPathExecutionContext();
+
+    // the namespace declarations of the open elements, the counts are per element
+    private final List<String> _nsDecls = new ArrayList<>();
+    private final List<Integer> _nsCounts = new ArrayList<>();
+
+    // the depth below an element, whose descendants can't be records
+    private int _skip;
+    private boolean _started;
+    private boolean _finished;
+    private XmlObject _next;
+
+    /**
+     * @param stl     the loader of the record types
+     * @param xsr     the reader, which is positioned on the start of the document
+     * @param path    the path, which selects the records
+     * @param type    the type of the records or null, to find the type by the record name.
+     *                A record with a type, which isn't a document type, is loaded as a fragment
+     *                of that type, i.e. without the record element.
+     * @param options the load options
+     */
+    public RecordLoader(SchemaTypeLoader stl, XMLStreamReader xsr, XPath path, SchemaType type, XmlOptions options) {
+        this(stl, xsr, path, type, options, null);
+    }
+
+    /**
+     * @param errors the list, which the reader adds its errors to
+     * @see #RecordLoader(SchemaTypeLoader, XMLStreamReader, XPath, SchemaType, XmlOptions)
+     */
+    public RecordLoader(SchemaTypeLoader stl, XMLStreamReader xsr, XPath path, SchemaType type, XmlOptions options,
+                        List<XmlError> errors) {
+        _stl = stl;
+        _errors = errors;
+        _xsr = xsr;
+        _path = path;
+        _type = type;
+
+        if (type != null && !type.isDocumentType() && !type.isAttributeType()) {
+            // discard the record element
+            _options = new XmlOptions(options).setLoadReplaceDocumentElement(null);
+        } else {
+            _options = options;
+        }
+    }
+
+    /**
+     * Compiles the path for selecting all elements with the given name.
+     */
+    public static XPath recordPath(QName recordName) throws XmlException {
+        String uri = recordName.getNamespaceURI();
+        if (uri.isEmpty()) {
+            return XPath.compileXPath("$this//" + recordName.getLocalPart(), "this");
+        }
+        return XPath.compileXPath("$this//r:" + recordName.getLocalPart(), "this", Collections.singletonMap("r", uri));
+    }
+
+    public boolean hasNext() {
+        if (_next == null && !_finished) {
+            try {
+                _next = advance();
+            } catch (XMLStreamException e) {
+                throw new XmlRuntimeException(e.getMessage(), e);
+            } catch (XmlException e) {
+                throw new XmlRuntimeException(e);
+            }
+        }
+        return _next != null;
+    }
+
+    public XmlObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        XmlObject o = _next;
+        _next = null;
+        _recordErrors = _nextErrors;
+        _nextErrors = Collections.emptyList();
+        return o;
+    }
+
+    /**
+     * @return the errors of the record, which has been returned by the last call of {@link #next()}
+     */
+    public List<XmlError> getRecordErrors() {
+        return _recordErrors;
+    }
+
+    /**
+     * @return the errors so far, which don't belong to a record
+     */
+    public List<XmlError> getDocumentErrors() {
+        return Collections.unmodifiableList(_documentErrors);
+    }
+
+    /**
+     * Closes the reader, but not its underlying source.
+     */
+    public void close() {
+        _finished = true;
+        _next = null;
+        try {
+            _xsr.close();
+        } catch (XMLStreamException e) {
+            throw new XmlRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private XmlObject advance() throws XMLStreamException, XmlException {
+        int event = _xsr.getEventType();
+        if (!_started) {
+            _started = true;
+            _context.init(_path);
+            _context.start();
+        } else {
+            // the reader is on the end of the previous record
+            event = _xsr.next();
+        }
+
+        for (; ; event = _xsr.next()) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    pushNamespaces();
+                    if (_skip > 0) {
+                        _skip++;
+                        break;
+                    }
+
+                    int ret = _context.element(_xsr.getName());
+                    if ((ret & XPathExecutionContext.HIT) != 0) {
+                        // the load leaves the reader on the end of the record
+                        XmlObject record = _stl.parse(new RecordReader(_xsr, inheritedNamespaces()), _type, _options);
+                        endElement();
+                        if (_errors != null && !_errors.isEmpty()) {
+                            _nextErrors = new ArrayList<>(_errors);
+                            _errors.clear();
+                        }
+                        return record;
+                    }
+                    if ((ret & XPathExecutionContext.DESCEND) == 0) {
+                        _skip = 1;
+                    }
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    endElement();
+                    break;
+
+                case XMLStreamConstants.END_DOCUMENT:
+                    moveDocumentErrors();
+                    _finished = true;
+                    return null;
+
+                default:
+                    break;
+            }
+
+            moveDocumentErrors();
+            if (!_xsr.hasNext()) {
+                _finished = true;
+                return null;
+            }
+        }
+    }
+
+    private void moveDocumentErrors() {
+        if (_errors != null && !_errors.isEmpty()) {
+            _documentErrors.addAll(_errors);
+            _errors.clear();
+        }
+    }
+
+    private void endElement() {
+        if (_skip == 0 || --_skip == 0) {
+            _context.end();
+        }
+        int n = _nsCounts.remove(_nsCounts.size() - 1);
+        for (int i = 0; i < 2 * n; i++) {
+            _nsDecls.remove(_nsDecls.size() - 1);
+        }
+    }
+
+    private void pushNamespaces() {
+        int n = _xsr.getNamespaceCount();
+        for (int i = 0; i < n; i++) {
+            String prefix = _xsr.getNamespacePrefix(i);
+            String uri = _xsr.getNamespaceURI(i);
+            _nsDecls.add(prefix == null ? "" : prefix);
+            _nsDecls.add(uri == null ? "" : uri);
+        }
+        _nsCounts.add(n);
+    }
+
+    /**
+     * @return the prefix/uri pairs, which are in scope for the current element, but not declared on it
+     */
+    private List<String> inheritedNamespaces() {
+        int own = 2 * _nsCounts.get(_nsCounts.size() - 1);
+        List<String> prefixes = new ArrayList<>();
+        List<String> inherited = new ArrayList<>();
+        for (int i = _nsDecls.size() - 2; i >= 0; i -= 2) {
+            String prefix = _nsDecls.get(i);
+            if (prefixes.contains(prefix)) {
+                continue;
+            }
+            prefixes.add(prefix);
+            if (i < _nsDecls.size() - own) {
+                inherited.add(prefix);
+                inherited.add(_nsDecls.get(i + 1));
+            }
+        }
+        return inherited;
+    }
+
+    /**
+     * Adds the inherited namespace declarations to the start of the record
+     */
+    private static final class RecordReader extends StreamReaderDelegate {
+        private final List<String> _inherited;
+        private boolean _atStart = true;
+
+        RecordReader(XMLStreamReader xsr, List<String> inherited) {
+            super(xsr);
+            _inherited = inherited;
+        }
+
+        public int next() throws XMLStreamException {
+            _atStart = false;
+            return super.next();
+        }
+
+        public int getNamespaceCount() {
+            return super.getNamespaceCount() + (_atStart ? _inherited.size() / 2 : 0);
+        }
+
+        public String getNamespacePrefix(int index) {
+            int n = super.getNamespaceCount();
+            return index < n ? super.getNamespacePrefix(index) : _inherited.get(2 * (index - n));
+        }
+
+        public String getNamespaceURI(int index) {
+            int n = super.getNamespaceCount();
+            return index < n ? super.getNamespaceURI(index) : _inherited.get(2 * (index - n) + 1);
+        }
+    }
+}
@@ -0,0 +1,545 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.om.AxisInfo;
+import net.sf.saxon.om.GenericTreeInfo;
+import net.sf.saxon.om.NamespaceBinding;
+import net.sf.saxon.om.NamespaceMap;
+import net.sf.saxon.om.NamespaceUri;
+import net.sf.saxon.om.NodeInfo;
+import net.sf.saxon.pattern.NodeKindTest;
+import net.sf.saxon.pattern.NodePredicate;
+import net.sf.saxon.pattern.NodeTest;
+import net.sf.saxon.str.StringView;
+import net.sf.saxon.str.UnicodeString;
+import net.sf.saxon.tree.iter.AxisIterator;
+import net.sf.saxon.tree.wrapper.AbstractNodeWrapper;
+import net.sf.saxon.type.Type;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Saxon tree, which navigates the Xobj links of a document directly, instead of
+ * wrapping the DOM of the store.
+ * <p>
+ * The nodes are created on demand and hold an Xobj, and for text nodes, whether the
+ * text is the value or the after text of the Xobj. The tree doesn't synchronize or
+ * enter the locale per step, so it must only be used while the locale of the document
+ * is entered, e.g. within a selection or a query of a cursor.
+ */
+public final class SaxonTree extends GenericTreeInfo {
+    private static final int NODE = 0;
+    private static final int VALUE_TEXT = 1;
+    private static final int AFTER_TEXT = 2;
+
+    private final Xobj _root;
+    private Map<String, NodeInfo> _xmlIds;
+
+    private SaxonTree(Configuration config, Xobj root) {
+        super(config);
+        _root = root;
+        setRootNode(new StoreNode(this, root, NODE));
+    }
+
+    /**
+     * Creates the tree of the document of the given node of the store.
+     *
+     * @return the tree, or null if the node isn't a node of the store or isn't under the
+     * owner document of its locale
+     */
+    public static SaxonTree forNode(Node node, Configuration config) {
+        if (!(node instanceof DomImpl.Dom)) {
+            return null;
+        }
+
+        DomImpl.Dom d = (DomImpl.Dom) node;
+        Cur c = d.tempCur();
+        Xobj root = c._xobj;
+        c.release();
+
+        while (root._parent != null) {
+            root = root._parent;
+        }
+
+        // Saxon's DOM wrapper roots a node at its owner document, so a fragment or another
+        // document of the locale stays with it to give "/" the same meaning
+        Document owner = DomImpl.node_getOwnerDocument(d);
+        if (owner != null && owner != root) {
+            return null;
+        }
+        return new SaxonTree(config, root);
+    }
+
+    /**
+     * Looks the id up in the ids of the document, then in its xml:id attributes, like
+     * Saxon's DOM wrapper.
+     */
+    @Override
+    public NodeInfo selectID(String id, boolean getParent) {
+        if (_root instanceof DocumentXobj) {
+            Element e = ((DocumentXobj) _root).getElementById(id);
+            if (e != null) {
+                return wrap(e);
+            }
+        }
+
+        if (_xmlIds == null) {
+            Map<String, NodeInfo> ids = new HashMap<>();
+            AxisIterator it = getRootNode().iterateAxis(AxisInfo.DESCENDANT, NodeKindTest.ELEMENT);
+            for (NodeInfo n; (n = it.next()) != null; ) {
+                String value = n.getAttributeValue(NamespaceUri.XML, "id");
+                if (value != null) {
+                    ids.put(value, n);
+                }
+            }
+            _xmlIds = ids;
+        }
+        return _xmlIds.get(id);
+    }
+
+    /**
+     * @return the node of this tree for the given node of the store, or null if the node
+     * is in a different document
+     */
+    public NodeInfo wrap(Node node) {
+        if (!(node instanceof DomImpl.Dom)) {
+            return null;
+        }
+
+        StoreNode n = toNode(this, (DomImpl.Dom) node);
+        Xobj root = n._xobj;
+        while (root._parent != null) {
+            root = root._parent;
+        }
+        return root == _root ? n : null;
+    }
+
+    /**
+     * @return the locale of the document of this tree
+     */
+    public Locale getLocale() {
+        return _root._locale;
+    }
+
+    private static StoreNode toNode(SaxonTree tree, DomImpl.Dom d) {
+        Cur c = d.tempCur();
+        try {
+            Xobj x = c._xobj;
+            int p = c._pos;
+            return new StoreNode(tree, x, p == 0 ? NODE : p < x.posAfter() ? VALUE_TEXT : AFTER_TEXT);
+        } finally {
+            c.release();
+        }
+    }
+
+    static final class StoreNode extends AbstractNodeWrapper {
+        private final Xobj _xobj;
+        private final int _kind;
+
+        StoreNode(SaxonTree tree, Xobj x, int kind) {
+            treeInfo = tree;
+            _xobj = x;
+            _kind = kind;
+        }
+
+        private StoreNode node(Xobj x, int kind) {
+            return new StoreNode((SaxonTree) treeInfo, x, kind);
+        }
+
+        public Object getUnderlyingNode() {
+            if (_kind == NODE) {
+                return _xobj.getDom();
+            }
+
+            Cur c = _xobj.tempCur();
+            try {
+                c.moveTo(_xobj, _kind == VALUE_TEXT ? 1 : _xobj.posAfter());
+                return c.getDom();
+            } finally {
+                c.release();
+            }
+        }
+
+        public int getNodeKind() {
+            if (_kind != NODE) {
+                return Type.TEXT;
+            }
+
+            switch (_xobj.kind()) {
+                case Cur.ELEM:
+                    return Type.ELEMENT;
+                case Cur.ATTR:
+                    return Type.ATTRIBUTE;
+                case Cur.COMMENT:
+                    return Type.COMMENT;
+                case Cur.PROCINST:
+                    return Type.PROCESSING_INSTRUCTION;
+                default:
+                    return Type.DOCUMENT;
+            }
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof StoreNode)) {
+                return false;
+            }
+            StoreNode o = (StoreNode) other;
+            return _xobj == o._xobj && _kind == o._kind;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode(_xobj) * 3 + _kind;
+        }
+
+        public UnicodeString getUnicodeStringValue() {
+            return StringView.tidy(getValue());
+        }
+
+        private String getValue() {
+            switch (_kind) {
+                case VALUE_TEXT:
+                    _xobj.ensureOccupancy();
+                    return _xobj.getCharsValueAsString(0, _xobj._cchValue);
+                case AFTER_TEXT:
+                    return _xobj.getCharsAfterAsString(0, _xobj._cchAfter);
+                default:
+                    // the text of the descendants for containers, without comments and procinsts
+                    return _xobj.getValueAsString();
+            }
+        }
+
+        public String getLocalPart() {
+            return hasName() ? _xobj._name.getLocalPart() : "";
+        }
+
+        public NamespaceUri getNamespaceUri() {
+            return NamespaceUri.of(getURI());
+        }
+
+        public String getURI() {
+            return hasName() && !_xobj.isProcinst() ? _xobj._name.getNamespaceURI() : "";
+        }
+
+        public String getPrefix() {
+            if (!hasName() || _xobj.isProcinst()) {
+                return "";
+            }
+
+            QName name = _xobj._name;
+            String prefix = name.getPrefix();
+            if (prefix.isEmpty() && _xobj.isAttr() && !name.getNamespaceURI().isEmpty() && _xobj._parent != null) {
+                // an attribute is only namespaced with a prefix
+                prefix = _xobj._parent.prefixForNamespace(name.getNamespaceURI(), null, false);
+            }
+            return prefix == null ? "" : prefix;
+        }
+
+        private boolean hasName() {
+            return _kind == NODE && _xobj._name != null;
+        }
+
+        public NodeInfo getParent() {
+            if (_kind == VALUE_TEXT) {
+                return node(_xobj, NODE);
+            }
+            Xobj parent = _xobj._parent;
+            return parent == null ? null : node(parent, NODE);
+        }
+
+        public boolean hasChildNodes() {
+            return firstChild() != null;
+        }
+
+        private StoreNode firstChild() {
+            if (_kind != NODE || !_xobj.isContainer()) {
+                return null;
+            }
+
+            _xobj.ensureOccupancy();
+            return _xobj._cchValue > 0 ? node(_xobj, VALUE_TEXT) : following(_xobj._firstChild);
+        }
+
+        private StoreNode nextSibling() {
+            switch (_kind) {
+                case VALUE_TEXT:
+                    return following(_xobj._firstChild);
+                case AFTER_TEXT:
+                    return following(_xobj._nextSibling);
+                default:
+                    if (_xobj.isAttr() || _xobj._parent == null) {
+                        return null;
+                    }
+                    return _xobj._cchAfter > 0 ? node(_xobj, AFTER_TEXT) : following(_xobj._nextSibling);
+            }
+        }
+
+        private StoreNode previousSibling() {
+            switch (_kind) {
+                case VALUE_TEXT:
+                    return null;
+                case AFTER_TEXT:
+                    return _xobj.isAttr() ? preceding(_xobj._prevSibling, _xobj._parent) : node(_xobj, NODE);
+                default:
+                    if (_xobj.isAttr() || _xobj._parent == null) {
+                        return null;
+                    }
+                    return preceding(_xobj._prevSibling, _xobj._parent);
+            }
+        }
+
+        /**
+         * The first child node at or after the given Xobj. Attributes are skipped, but the
+         * text after the last attribute is the leading text of the element.
+         */
+        private StoreNode following(Xobj x) {
+            for (; x != null; x = x._nextSibling) {
+                if (!x.isAttr()) {
+                    return node(x, NODE);
+                }
+                if (x._cchAfter > 0) {
+                    return node(x, AFTER_TEXT);
+                }
+            }
+            return null;
+        }
+
+        private StoreNode preceding(Xobj x, Xobj parent) {
+            for (; x != null; x = x._prevSibling) {
+                if (x._cchAfter > 0) {
+                    return node(x, AFTER_TEXT);
+                }
+                if (!x.isAttr()) {
+                    return node(x, NODE);
+                }
+            }
+            return parent._cchValue > 0 ? node(parent, VALUE_TEXT) : null;
+        }
+
+        protected AxisIterator iterateAttributes(NodeTest nodeTest) {
+            if (_kind != NODE || !_xobj.isElem()) {
+                return new NodeIterator(null, nodeTest, ATTRIBUTES);
+            }
+            return new NodeIterator(nextAttr(_xobj._firstChild), nodeTest, ATTRIBUTES);
+        }
+
+        private StoreNode nextAttr(Xobj x) {
+            for (; x != null && x.isAttr(); x = x._nextSibling) {
+                if (!x.isXmlns()) {
+                    return node(x, NODE);
+                }
+            }
+            return null;
+        }
+
+        protected AxisIterator iterateChildren(NodeTest nodeTest) {
+            return new NodeIterator(firstChild(), nodeTest, FORWARDS);
+        }
+
+        protected AxisIterator iterateSiblings(NodeTest nodeTest, boolean forwards) {
+            return forwards
+                ? new NodeIterator(nextSibling(), nodeTest, FORWARDS)
+                : new NodeIterator(previousSibling(), nodeTest, BACKWARDS);
+        }
+
+        public int compareOrder(NodeInfo other) {
+            if (!(other instanceof StoreNode) || ((StoreNode) other).treeInfo != treeInfo) {
+                if (other.getNodeKind() == Type.NAMESPACE) {
+                    return -other.compareOrder(this);
+                }
+                return Long.compare(treeInfo.getDocumentNumber(), other.getTreeInfo().getDocumentNumber());
+            }
+
+            StoreNode o = (StoreNode) other;
+            Xobj a = _xobj;
+            Xobj b = o._xobj;
+            if (a == b) {
+                return Integer.compare(_kind, o._kind);
+            }
+
+            int da = depth(a);
+            int db = depth(b);
+            while (da > db) {
+                if (a._parent == b) {
+                    return -ancestorOrder(o._kind, a);
+                }
+                a = a._parent;
+                da--;
+            }
+            while (db > da) {
+                if (b._parent == a) {
+                    return ancestorOrder(_kind, b);
+                }
+                b = b._parent;
+                db--;
+            }
+            while (a._parent != b._parent) {
+                a = a._parent;
+                b = b._parent;
+            }
+            for (Xobj x = a._nextSibling; x != null; x = x._nextSibling) {
+                if (x == b) {
+                    return -1;
+                }
+            }
+            return 1;
+        }
+
+        /**
+         * @param kind  the kind of the node of the ancestor
+         * @param child the child of the ancestor, which contains the other node
+         * @return -1, if the node of the ancestor comes first
+         */
+        private static int ancestorOrder(int kind, Xobj child) {
+            // the value text follows the attributes, but precedes the other children
+            return kind == NODE || (kind == VALUE_TEXT && !child.isAttr()) ? -1 : 1;
+        }
+
+        private static int depth(Xobj x) {
+            int depth = 0;
+            for (x = x._parent; x != null; x = x._parent) {
+                depth++;
+            }
+            return depth;
+        }
+
+        public void generateId(StringBuilder buffer) {
+            buffer.append('d').append(treeInfo.getDocumentNumber());
+            appendPath(buffer, _xobj);
+            if (_kind != NODE) {
+                buffer.append(_kind == VALUE_TEXT ? 'v' : 'a');
+            }
+        }
+
+        private static void appendPath(StringBuilder buffer, Xobj x) {
+            if (x._parent == null) {
+                return;
+            }
+            appendPath(buffer, x._parent);
+
+            int i = 0;
+            for (Xobj s = x._prevSibling; s != null; s = s._prevSibling) {
+                i++;
+            }
+            buffer.append('n').append(i);
+        }
+
+        public String getAttributeValue(NamespaceUri uri, String local) {
+            if (_kind != NODE || !_xobj.isElem()) {
+                return null;
+            }
+
+            for (Xobj x = _xobj._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+                QName name = x._name;
+                if (!x.isXmlns() && name.getLocalPart().equals(local) && name.getNamespaceURI().equals(uri.toString())) {
+                    return x.getValueAsString();
+                }
+            }
+            return null;
+        }
+
+        public NamespaceBinding[] getDeclaredNamespaces(NamespaceBinding[] buffer) {
+            if (_kind != NODE || !_xobj.isElem()) {
+                return null;
+            }
+
+            List<NamespaceBinding> bindings = new ArrayList<>();
+            for (Xobj x = _xobj._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+                if (x.isXmlns()) {
+                    bindings.add(new NamespaceBinding(x.getXmlnsPrefix(), NamespaceUri.of(x.getXmlnsUri())));
+                }
+            }
+            return bindings.toArray(new NamespaceBinding[0]);
+        }
+
+        public NamespaceMap getAllNamespaces() {
+            if (_kind != NODE || !_xobj.isElem()) {
+                return null;
+            }
+
+            List<Xobj> elements = new ArrayList<>();
+            for (Xobj e = _xobj; e != null && e.isElem(); e = e._parent) {
+                elements.add(e);
+            }
+
+            // the outermost declarations first, which are overwritten by the inner ones
+            NamespaceMap map = NamespaceMap.emptyMap();
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                for (Xobj x = elements.get(i)._firstChild; x != null && x.isAttr(); x = x._nextSibling) {
+                    if (x.isXmlns() && !"xml".equals(x.getXmlnsPrefix())) {
+                        String uri = x.getXmlnsUri();
+                        map = uri.isEmpty()
+                            ? map.remove(x.getXmlnsPrefix())
+                            : map.put(x.getXmlnsPrefix(), NamespaceUri.of(uri));
+                    }
+                }
+            }
+
+            // the name of a created element might not be declared
+            QName name = _xobj._name;
+            if (!name.getNamespaceURI().isEmpty()) {
+                map = map.put(name.getPrefix(), NamespaceUri.of(name.getNamespaceURI()));
+            }
+            return map;
+        }
+    }
+
+    private static final int FORWARDS = 0;
+    private static final int BACKWARDS = 1;
+    private static final int ATTRIBUTES = 2;
+
+    private static final class NodeIterator implements AxisIterator {
+        private StoreNode _next;
+        private final NodePredicate _test;
+        private final int _direction;
+
+        NodeIterator(StoreNode first, NodePredicate test, int direction) {
+            _next = first;
+            _test = test;
+            _direction = direction;
+        }
+
+        public NodeInfo next() {
+            while (_next != null) {
+                StoreNode n = _next;
+                switch (_direction) {
+                    case FORWARDS:
+                        _next = n.nextSibling();
+                        break;
+                    case BACKWARDS:
+                        _next = n.previousSibling();
+                        break;
+                    default:
+                        _next = n.nextAttr(n._xobj._nextSibling);
+                        break;
+                }
+
+                if (_test == null || _test.test(n)) {
+                    return n;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.store;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.ref.SoftReference;
+
+/**
+ * Encodes chars as UTF-8 straight into a byte buffer, which is written to an output stream.
+ * <p>
+ * Unlike an {@link java.io.OutputStreamWriter}, there is no charset encoder and no char buffer
+ * in between, and the byte buffer is reused by the following writers of the thread.
+ * Unpaired surrogates are written as '?'. Closing the writer flushes it, but doesn't close the stream.
+ */
+final class Utf8Writer extends Writer {
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final ThreadLocal<SoftReference<byte[]>> tl_buffer = new ThreadLocal<>();
+
+    private final OutputStream _os;
+    private byte[] _buf;
+    private int _pos;
+    // a high surrogate, which waits for its low surrogate
+    private char _highSurrogate;
+
+    Utf8Writer(OutputStream os) {
+        _os = os;
+
+        SoftReference<byte[]> ref = tl_buffer.get();
+        byte[] buf = ref == null ? null : ref.get();
+        if (buf == null) {
+            buf = new byte[BUFFER_SIZE];
+        } else {
+            // borrowed, a nested writer allocates its own buffer
+            tl_buffer.remove();
+        }
+        _buf = buf;
+    }
+
+    static void clearThreadLocals() {
+        tl_buffer.remove();
+    }
+
+    public void write(int c) throws IOException {
+        if (_buf.length - _pos < 4) {
+            flushBuffer();
+        }
+        encode((char) c);
+    }
+
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (_buf.length - _pos < 4) {
+                flushBuffer();
+            }
+
+            char c = cbuf[off++];
+            if (c < 0x80 && _highSurrogate == 0) {
+                // a run of ASCII chars, as far as the buffer goes
+                int limit = Math.min(end, off + _buf.length - _pos - 1);
+                _buf[_pos++] = (byte) c;
+                while (off < limit && (c = cbuf[off]) < 0x80) {
+                    _buf[_pos++] = (byte) c;
+                    off++;
+                }
+            } else {
+                encode(c);
+            }
+        }
+    }
+
+    public void write(String s, int off, int len) throws IOException {
+        int end = off + len;
+        while (off < end) {
+            if (_buf.length - _pos < 4) {
+                flushBuffer();
+            }
+
+            char c = s.charAt(off++);
+            if (c < 0x80 && _highSurrogate == 0) {
+                int limit = Math.min(end, off + _buf.length - _pos - 1);
+                _buf[_pos++] = (byte) c;
+                while (off < limit && (c = s.charAt(off)) < 0x80) {
+                    _buf[_pos++] = (byte) c;
+                    off++;
+                }
+            } else {
+                encode(c);
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        _os.flush();
+    }
+
+    public void close() throws IOException {
+        if (_buf == null) {
+            return;
+        }
+
+        if (_highSurrogate != 0) {
+            _highSurrogate = 0;
+            _buf[_pos++] = '?';
+        }
+        flushBuffer();
+
+        tl_buffer.set(new SoftReference<>(_buf));
+        _buf = null;
+    }
+
+    /**
+     * Needs 4 free bytes in the buffer.
+     */
+    private void encode(char c) {
+        if (_highSurrogate != 0) {
+            char high = _highSurrogate;
+            _highSurrogate = 0;
+
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                _buf[_pos++] = (byte) (0xF0 | (cp >> 18));
+                _buf[_pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                _buf[_pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                _buf[_pos++] = (byte) (0x80 | (cp & 0x3F));
+                return;
+            }
+
+            // c isn't a low surrogate, so it takes 3 bytes at most
+            _buf[_pos++] = '?';
+        }
+
+        if (c < 0x80) {
+            _buf[_pos++] = (byte) c;
+        } else if (c < 0x800) {
+            _buf[_pos++] = (byte) (0xC0 | (c >> 6));
+            _buf[_pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            _highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            _buf[_pos++] = '?';
+        } else {
+            _buf[_pos++] = (byte) (0xE0 | (c >> 12));
+            _buf[_pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            _buf[_pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (_pos > 0) {
+            _os.write(_buf, 0, _pos);
+            _pos = 0;
+        }
+    }
+}
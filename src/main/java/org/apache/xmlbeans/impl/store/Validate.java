@@ -15,19 +15,38 @@
 
 package org.apache.xmlbeans.impl.store;
 
+import org.apache.xmlbeans.impl.common.ValidatorEventBuffer;
 import org.apache.xmlbeans.impl.common.ValidatorListener;
 import javax.xml.stream.Location;
 import org.apache.xmlbeans.XmlCursor;
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
 
 final class Validate implements ValidatorListener.Event
 {
     Validate ( Cur c, ValidatorListener sink )
+    {
+        this( c, sink, false );
+    }
+
+    /**
+     * @param topName true, if the BEGIN event of the top element has its name
+     */
+    private Validate ( Cur c, ValidatorListener sink, boolean topName )
     {
         if (!c.isUserNode())
             throw new IllegalStateException( "Inappropriate location to validate" );
 
         _sink = sink;
+        _topName = topName;
+
+        if (sink instanceof ValidatorListener.Partitioner)
+        {
+            _partitioner = (ValidatorListener.Partitioner) sink;
+            _partitioner.enablePartitions( LOCATOR );
+        }
+
         _cur = c;
         _textCur = c.tempCur();
         _hasText = false;
@@ -77,11 +96,27 @@ final class Validate implements ValidatorListener.Event
                 {
                 case Cur.ELEM :
                     emitEvent( ValidatorListener.BEGIN );
+
+                    if (_buffer == null && _partitioner != null)
+                        startPartition();
+                    else if (_buffer != null)
+                        _buffer.location( _cur._xobj );
+
                     doAttrs();
+                    _depth++;
                     break;
 
                 case - Cur.ELEM :
+                    _depth--;
                     emitEvent( ValidatorListener.END );
+
+                    if (_buffer != null && _depth == _partitionDepth)
+                    {
+                        // the element has been recorded, its END goes to the listener, too
+                        _sink = _partitioner;
+                        _buffer = null;
+                        emitEvent( ValidatorListener.END );
+                    }
                     break;
 
                 case Cur.TEXT :
@@ -102,6 +137,39 @@ final class Validate implements ValidatorListener.Event
         emitEvent( ValidatorListener.END );
     }
 
+    // Records the element and its content, if the listener wants to validate it separately
+
+    private void startPartition ( )
+    {
+        ValidatorEventBuffer buffer = _partitioner.partition();
+
+        if (buffer == null)
+            return;
+
+        _buffer = buffer;
+        _partitionDepth = _depth;
+        _sink = buffer;
+
+        emitEvent( ValidatorListener.BEGIN );
+        buffer.location( _cur._xobj );
+
+        // The in scope namespaces, the nearest declarations are recorded last
+
+        List<Xobj> ancestors = new ArrayList<>();
+
+        for ( Xobj x = _cur._xobj._parent ; x != null ; x = x._parent )
+            ancestors.add( x );
+
+        for ( int i = ancestors.size() - 1 ; i >= 0 ; i-- )
+        {
+            for ( Xobj a = ancestors.get( i )._firstChild ; a != null && a.isAttr() ; a = a._nextSibling )
+            {
+                if (a.isXmlns())
+                    buffer.namespace( a.getXmlnsPrefix(), a.getXmlnsUri() );
+            }
+        }
+    }
+
     private void doAttrs ( )
     {
         // When processing attrs, there can be no accumulated text because there would have been
@@ -115,6 +183,13 @@ final class Validate implements ValidatorListener.Event
             {
                 if (_cur.isNormalAttr() && !_cur.getUri().equals( Locale._xsi ))
                     _sink.nextEvent( ValidatorListener.ATTR, this );
+                else if (_buffer != null)
+                {
+                    if (_cur.isXmlns())
+                        _buffer.namespace( _cur.getXmlnsPrefix(), _cur.getXmlnsUri() );
+                    else if (_cur.isNormalAttr())
+                        _buffer.xsi( _cur.getLocal(), _cur.getValueAsString() );
+                }
             }
             while ( _cur.toNextAttr() );
 
@@ -259,14 +334,63 @@ final class Validate implements ValidatorListener.Event
 
     public QName getName ( )
     {
-        return _cur.isAtLastPush() ? null : _cur.getName();
+        return _cur.isAtLastPush() && !_topName ? null : _cur.getName();
     }
 
+    //
+    // Resolves the elements recorded by a partition, while the validation is running
+    //
+
+    private static final ValidatorEventBuffer.Locator LOCATOR = new ValidatorEventBuffer.Locator()
+    {
+        public XmlCursor getCursor ( Object element, QName attr, boolean end )
+        {
+            Xobj x = (Xobj) element;
+
+            if (attr != null)
+            {
+                for ( Xobj a = x._firstChild ; a != null && a.isAttr() ; a = a._nextSibling )
+                {
+                    if (a.isNormalAttr() && a._name.equals( attr ))
+                        return new Cursor( a, 0 );
+                }
+            }
+
+            return new Cursor( x, end ? Cur.END_POS : 0 );
+        }
+
+        public void validate ( Object element, ValidatorListener listener )
+        {
+            Xobj x = (Xobj) element;
+
+            x._locale.enter();
+
+            try
+            {
+                Cur c = x.tempCur();
+                new Validate( c, listener, true );
+                c.release();
+            }
+            finally
+            {
+                x._locale.exit();
+            }
+        }
+    };
+
     //
     //
     //
 
     private ValidatorListener _sink;
+    private final boolean _topName;
+
+    // While an element is recorded, the buffer is the sink
+
+    private ValidatorListener.Partitioner _partitioner;
+    private ValidatorEventBuffer _buffer;
+    private int _depth;
+    private int _partitionDepth;
 
     private Cur _cur;
 
@@ -618,7 +618,7 @@ abstract class Xobj implements TypeStore {
     }
 
     final int posTemp() {
-        return _locale._posTemp;
+        return _locale.state()._posTemp;
     }
 
     final Xobj getNormal(int p) {
@@ -638,7 +638,7 @@ abstract class Xobj implements TypeStore {
             p = END_POS;
         }
 
-        _locale._posTemp = p;
+        _locale.state()._posTemp = p;
 
         return x;
     }
@@ -668,7 +668,7 @@ abstract class Xobj implements TypeStore {
             }
         }
 
-        _locale._posTemp = p;
+        _locale.state()._posTemp = p;
 
         return x;
     }
@@ -1114,13 +1114,15 @@ abstract class Xobj implements TypeStore {
 
         Object src = getChars(p, cch);
 
+        Locale.ThreadState s = _locale.state();
+
         if (wsr == WS_PRESERVE) {
-            return CharUtil.getString(src, _locale._offSrc, _locale._cchSrc);
+            return CharUtil.getString(src, s._offSrc, s._cchSrc);
         }
 
         Locale.ScrubBuffer scrub = Locale.getScrubBuffer(wsr);
 
-        scrub.scrub(src, _locale._offSrc, _locale._cchSrc);
+        scrub.scrub(src, s._offSrc, s._cchSrc);
 
         return scrub.getResultAsString();
     }
@@ -1141,14 +1143,17 @@ abstract class Xobj implements TypeStore {
         if (!hasChildren()) {
             Object src = getFirstChars();
 
+            Locale.ThreadState state = _locale.state();
+
             if (wsr == WS_PRESERVE) {
-                String s = CharUtil.getString(src, _locale._offSrc, _locale._cchSrc);
+                String s = CharUtil.getString(src, state._offSrc, state._cchSrc);
 
-                // Cache string to be able to use it later again
+                // Cache string to be able to use it later again, but don't change a frozen
+                // document, which is read concurrently
 
                 int cch = s.length();
 
-                if (cch > 0) {
+                if (cch > 0 && !_locale.frozen()) {
                     Xobj lastAttr = lastAttr();
 
                     assert (lastAttr == null ? _cchValue : lastAttr._cchAfter) == cch;
@@ -1167,7 +1172,7 @@ abstract class Xobj implements TypeStore {
 
             Locale.ScrubBuffer scrub = Locale.getScrubBuffer(wsr);
 
-            scrub.scrub(src, _locale._offSrc, _locale._cchSrc);
+            scrub.scrub(src, state._offSrc, state._cchSrc);
 
             return scrub.getResultAsString();
         }
@@ -1214,8 +1219,9 @@ abstract class Xobj implements TypeStore {
         Xobj lastAttr = lastAttr();
 
         if (lastAttr == null || lastAttr._cchAfter <= 0) {
-            _locale._offSrc = 0;
-            _locale._cchSrc = 0;
+            Locale.ThreadState s = _locale.state();
+            s._offSrc = 0;
+            s._cchSrc = 0;
 
             return null;
         }
@@ -1226,8 +1232,9 @@ abstract class Xobj implements TypeStore {
     Object getChars(int pos, int cch, Cur c) {
         Object src = getChars(pos, cch);
 
-        c._offSrc = _locale._offSrc;
-        c._cchSrc = _locale._cchSrc;
+        Locale.ThreadState s = _locale.state();
+        c._offSrc = s._offSrc;
+        c._cchSrc = s._cchSrc;
 
         return src;
     }
@@ -1244,8 +1251,9 @@ abstract class Xobj implements TypeStore {
         }
 
         if (cch == 0) {
-            _locale._offSrc = 0;
-            _locale._cchSrc = 0;
+            Locale.ThreadState s = _locale.state();
+            s._offSrc = 0;
+            s._cchSrc = 0;
 
             return null;
         }
@@ -1260,17 +1268,18 @@ abstract class Xobj implements TypeStore {
 
         int pa = posAfter();
 
+        Locale.ThreadState s = _locale.state();
         Object src;
 
         if (pos >= pa) {
             src = _srcAfter;
-            _locale._offSrc = _offAfter + pos - pa;
+            s._offSrc = _offAfter + pos - pa;
         } else {
             src = _srcValue;
-            _locale._offSrc = _offValue + pos - 1;
+            s._offSrc = _offValue + pos - 1;
         }
 
-        _locale._cchSrc = cch;
+        s._cchSrc = cch;
 
         return src;
     }
@@ -1691,7 +1700,28 @@ abstract class Xobj implements TypeStore {
         return _locale._validateOnSet;
     }
 
+    public void freeze() {
+        Xobj root = this;
+
+        _locale.enter();
+
+        try {
+            while (root._parent != null) {
+                root = root._parent;
+            }
+        } finally {
+            _locale.exit();
+        }
+
+        _locale.freeze(root);
+    }
+
+    public boolean is_frozen() {
+        return _locale.frozen();
+    }
+
     public void invalidate_text() {
+        _locale.checkNotFrozen();
         _locale.enter();
 
         try {
@@ -1790,6 +1820,7 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser change_type(SchemaType type) {
+        _locale.checkNotFrozen();
         _locale.enter();
 
         try {
@@ -1804,6 +1835,7 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser substitute(QName name, SchemaType type) {
+        _locale.checkNotFrozen();
         _locale.enter();
 
         try {
@@ -1822,6 +1854,7 @@ abstract class Xobj implements TypeStore {
     }
 
     public void store_text(String text) {
+        _locale.checkNotFrozen();
         _locale.enter();
 
         TypeStoreUser user = _user;
@@ -1941,6 +1974,7 @@ abstract class Xobj implements TypeStore {
             return;
         }
 
+        _locale.checkNotFrozen();
         _locale.enter();
 
         try {
@@ -1963,23 +1997,13 @@ abstract class Xobj implements TypeStore {
     }
 
     public TypeStoreUser find_element_user(QName name, int i) {
-        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
-            if (x.isElem() && x._name.equals(name) && --i < 0) {
-                return x.getUser();
-            }
-        }
-
-        return null;
+        Xobj x = i < 0 ? null : _locale.findNthChildElem(this, name, null, i);
+        return x == null ? null : x.getUser();
     }
 
     public TypeStoreUser find_element_user(QNameSet names, int i) {
-        for (Xobj x = _firstChild; x != null; x = x._nextSibling) {
-            if (x.isElem() && names.contains(x._name) && --i < 0) {
-                return x.getUser();
-            }
-        }
-
-        return null;
+        Xobj x = i < 0 ? null : _locale.findNthChildElem(this, null, names, i);
+        return x == null ? null : x.getUser();
     }
 
     @SuppressWarnings("unchecked")
@@ -2268,7 +2292,8 @@ abstract class Xobj implements TypeStore {
         }
 
         Locale locale = this.locale();
-        if (options.isCopyUseNewSynchronizationDomain()) {
+        // the copy of a frozen document is modifiable
+        if (options.isCopyUseNewSynchronizationDomain() || locale.frozen()) {
             locale = Locale.getLocale(stl, options);
         }
 
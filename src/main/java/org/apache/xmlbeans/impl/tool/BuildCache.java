@@ -0,0 +1,467 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.tool;
+
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of the schema builds of scomp and the maven plugin.
+ * <p>
+ * An entry is keyed by a hash of the xmlbeans version, the options and the content of the
+ * input files. It holds the generated sources and the classes directory with the .xsb files.
+ * The schemas, which are imported or included from other files, are recorded with their hash
+ * in the entry and are checked on a hit. The messages of the build are stored with the entry,
+ * too, and are passed to the error listener on a hit.
+ * <p>
+ * A build, which misses the cache, runs in a staging directory of the cache. It starts from
+ * the last entry of the same input files and options, if there is one, so only the sources
+ * of the changed types are written and compiled. The staging directory becomes the new entry
+ * and is copied to the output directories.
+ */
+final class BuildCache {
+    private static final String MANIFEST = "inputs.properties";
+    private static final String MESSAGES = "messages.ser";
+    private static final String SRC = "src";
+    private static final String CLASSES = "classes";
+
+    private final File cacheDir;
+    // the hash of the input, and of the input without the file contents
+    private final String key;
+    private final String inputKey;
+    private final boolean verbose;
+    // the classes of repackaged sources aren't in the directories of their sources
+    private final boolean repackaged;
+
+    private File staging;
+    private boolean incremental;
+    private final List<XmlError> messages = new ArrayList<>();
+
+    private BuildCache(File cacheDir, String key, String inputKey, boolean verbose, boolean repackaged) {
+        this.cacheDir = cacheDir;
+        this.key = key;
+        this.inputKey = inputKey;
+        this.verbose = verbose;
+        this.repackaged = repackaged;
+    }
+
+    /**
+     * @return the cache of the build or null, if the build has no cache or can't be cached
+     */
+    static BuildCache forBuild(Parameters params, File baseDir) throws IOException {
+        File cacheDir = params.getCacheDir();
+        if (cacheDir == null) {
+            return null;
+        }
+
+        // the output of urls, code printers, extensions and entity resolvers can't be hashed
+        boolean hasExtensions = params.getExtensions() != null && !params.getExtensions().isEmpty();
+        if (params.getUrlFiles() != null || params.getSchemaCodePrinter() != null || hasExtensions ||
+            params.getEntityResolver() != null) {
+            if (params.isVerbose()) {
+                System.out.println("Build cache not used for urls, code printers, extensions and entity resolvers");
+            }
+            return null;
+        }
+
+        MessageDigest input = newDigest();
+        update(input, "xmlbeans", XmlBeans.getVersion());
+        update(input, "name", params.getName());
+        update(input, "baseDir", baseDir.getAbsolutePath());
+        update(input, "flags", params.isNojavac(), params.isDebug(), params.isDownload(), params.isNoUpa(),
+            params.isNoPvr(), params.isNoAnn(), params.isNoVDoc(), params.isNoExt(), params.isPacked(), params.isCopyAnn());
+        update(input, "repackage", params.getRepackage());
+        update(input, "partialMethods", sorted(params.getPartialMethods()));
+        update(input, "mdefNamespaces", sorted(params.getMdefNamespaces()));
+        update(input, "catalog", params.getCatalogFile());
+        update(input, "compiler", params.getCompiler());
+
+        List<File> files = new ArrayList<>();
+        addFiles(input, "xsd", params.getXsdFiles(), files);
+        addFiles(input, "wsdl", params.getWsdlFiles(), files);
+        addFiles(input, "config", params.getConfigFiles(), files);
+        addFiles(input, "java", params.getJavaFiles(), files);
+        if (params.getCatalogFile() != null) {
+            files.add(new File(params.getCatalogFile()));
+        }
+
+        File[] classpath = params.getClasspath();
+        if (classpath != null) {
+            for (File f : classpath) {
+                // the jars of the classpath are rather checked by their size and time than by their content
+                update(input, "classpath", f.getAbsolutePath(), f.length(), f.lastModified());
+            }
+        }
+
+        MessageDigest content = newDigest();
+        byte[] inputHash = input.digest();
+        content.update(inputHash);
+        for (File f : files) {
+            content.update(hash(f.toPath()));
+        }
+
+        return new BuildCache(cacheDir, toHex(content.digest()), toHex(inputHash), params.isVerbose(), params.getRepackage() != null);
+    }
+
+    /**
+     * A type system without a name gets a random name, which changes all generated sources.
+     * The builds of the same input files and options get the same name instead.
+     */
+    String getSystemName() {
+        return "s" + inputKey.substring(0, 32);
+    }
+
+    /**
+     * @param listener the error listener of the build or null
+     * @return the error listener, which records the messages of the build for its entry
+     */
+    Collection<XmlError> recordMessages(Collection<XmlError> listener) {
+        return new AbstractCollection<XmlError>() {
+            public boolean add(XmlError e) {
+                messages.add(e);
+                return listener == null || listener.add(e);
+            }
+
+            public Iterator<XmlError> iterator() {
+                return listener == null ? Collections.emptyIterator() : listener.iterator();
+            }
+
+            public int size() {
+                return listener == null ? 0 : listener.size();
+            }
+        };
+    }
+
+    /**
+     * Copies the cached output to the output directories, if the cache has an entry for the build,
+     * and passes the messages of the cached build to the listener.
+     *
+     * @param listener the error listener of the build or null
+     * @return true, if the output has been copied from the cache
+     */
+    boolean restore(File srcDir, File classesDir, Collection<XmlError> listener) throws IOException {
+        File entry = new File(cacheDir, key);
+        File manifest = new File(entry, MANIFEST);
+        if (!manifest.isFile()) {
+            if (verbose) {
+                System.out.println("Build cache miss: " + key);
+            }
+            return false;
+        }
+
+        Properties dependencies = new Properties();
+        try (InputStream is = Files.newInputStream(manifest.toPath())) {
+            dependencies.load(is);
+        }
+        for (String uri : dependencies.stringPropertyNames()) {
+            Path path = toPath(uri);
+            if (path == null || !Files.isRegularFile(path) || !dependencies.getProperty(uri).equals(toHex(hash(path)))) {
+                if (verbose) {
+                    System.out.println("Build cache miss: " + key + " - changed " + uri);
+                }
+                return false;
+            }
+        }
+
+        List<XmlError> cachedMessages = readMessages(new File(entry, MESSAGES).toPath());
+        copyDir(new File(entry, SRC), srcDir, null);
+        copyDir(new File(entry, CLASSES), classesDir, null);
+        if (listener != null) {
+            listener.addAll(cachedMessages);
+        }
+        if (verbose) {
+            System.out.println("Build cache hit: " + key);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the staging directory of the build. It contains the output of the last entry
+     * of the same input files, except for the .xsb files and the copied schemas of the type
+     * system, which are saved anew. The compiled type system holder is kept, as its source
+     * doesn't change with the name of the type system.
+     */
+    void stage() throws IOException {
+        Files.createDirectories(cacheDir.toPath());
+        staging = Files.createTempDirectory(cacheDir.toPath(), key + ".").toFile();
+
+        File last = new File(cacheDir, inputKey + ".last");
+        File entry = (last.isFile() && !repackaged)
+            ? new File(cacheDir, new String(Files.readAllBytes(last.toPath()), StandardCharsets.UTF_8).trim())
+            : null;
+        if (entry != null && new File(entry, MANIFEST).isFile()) {
+            Path metadata = new File(entry, CLASSES).toPath().resolve(SchemaTypeSystemImpl.METADATA_PACKAGE_GEN);
+            copyDir(new File(entry, SRC), getSrcDir(), null);
+            copyDir(new File(entry, CLASSES), getClassesDir(),
+                p -> p.startsWith(metadata) && !p.getFileName().toString().endsWith(".class"));
+            incremental = true;
+            if (verbose) {
+                System.out.println("Build cache rebuilds changed types of " + entry.getName());
+            }
+        }
+    }
+
+    /**
+     * @return true, if the staging directory contains the output of the last entry
+     */
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    File getSrcDir() {
+        return new File(staging, SRC);
+    }
+
+    File getClassesDir() {
+        return new File(staging, CLASSES);
+    }
+
+    /**
+     * With the staged output of the last entry, the source files and the classes of the types,
+     * which aren't generated any more, are deleted. The classes of the changed sources are
+     * deleted, too, as their nested classes may have changed.
+     *
+     * @param sourceFiles        all generated source files
+     * @param changedSourceFiles the generated source files, which have been written
+     * @return the source files to compile
+     */
+    List<File> sourcesToCompile(List<File> sourceFiles, List<File> changedSourceFiles) throws IOException {
+        if (!incremental) {
+            return sourceFiles;
+        }
+
+        Set<File> generated = new HashSet<>(sourceFiles);
+        List<File> obsolete;
+        try (Stream<Path> paths = Files.walk(getSrcDir().toPath())) {
+            obsolete = paths.map(Path::toFile)
+                .filter(f -> f.isFile() && !generated.contains(f))
+                .collect(Collectors.toList());
+        }
+        for (File f : obsolete) {
+            Files.delete(f.toPath());
+            deleteClasses(f);
+        }
+        for (File f : changedSourceFiles) {
+            deleteClasses(f);
+        }
+
+        if (verbose) {
+            System.out.println("Build cache compiles " + changedSourceFiles.size() + " of " +
+                sourceFiles.size() + " source files, " + obsolete.size() + " removed");
+        }
+        return changedSourceFiles;
+    }
+
+    /**
+     * Copies the staged output to the output directories. If the build succeeded,
+     * the staging directory becomes the entry of the build.
+     *
+     * @param sourcesToCopyMap the uris of all schemas read by the build
+     */
+    void finish(boolean success, Map<String, String> sourcesToCopyMap, File srcDir, File classesDir) throws IOException {
+        try {
+            copyDir(getSrcDir(), srcDir, null);
+            copyDir(getClassesDir(), classesDir, null);
+            if (!success) {
+                return;
+            }
+
+            Properties dependencies = new Properties();
+            for (String uri : sourcesToCopyMap.keySet()) {
+                Path path = toPath(uri);
+                if (path == null || !Files.isRegularFile(path)) {
+                    if (verbose) {
+                        System.out.println("Build cache can't store the build, which reads " + uri);
+                    }
+                    return;
+                }
+                dependencies.setProperty(uri, toHex(hash(path)));
+            }
+            writeMessages(staging.toPath().resolve(MESSAGES));
+            try (OutputStream os = Files.newOutputStream(staging.toPath().resolve(MANIFEST))) {
+                dependencies.store(os, null);
+            }
+
+            // an existing entry is never replaced, as a concurrent build may restore it
+            Path entry = cacheDir.toPath().resolve(key);
+            boolean stored = true;
+            try {
+                Files.move(staging.toPath(), entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException | AtomicMoveNotSupportedException e) {
+                if (!Files.isDirectory(entry)) {
+                    throw e;
+                }
+                stored = false;
+            }
+            Files.write(cacheDir.toPath().resolve(inputKey + ".last"), key.getBytes(StandardCharsets.UTF_8));
+            if (verbose) {
+                System.out.println(stored ? "Build cache stored: " + key : "Build cache already stored: " + key);
+            }
+        } finally {
+            deleteDir(staging.toPath());
+        }
+    }
+
+    private void writeMessages(Path file) throws IOException {
+        // the copies drop the cursors and the non-serializable details of the subclasses
+        ArrayList<XmlError> copies = new ArrayList<>();
+        for (XmlError e : messages) {
+            copies.add(new XmlError(e));
+        }
+        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(file))) {
+            oos.writeObject(copies);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<XmlError> readMessages(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Collections.emptyList();
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(file)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                // only the list of the messages is read
+                String name = desc.getName();
+                if (!name.equals(ArrayList.class.getName()) && !name.equals(XmlError.class.getName())) {
+                    throw new InvalidClassException(name, "Unexpected class in the build cache");
+                }
+                return super.resolveClass(desc);
+            }
+        }) {
+            return (List<XmlError>) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void deleteClasses(File sourceFile) throws IOException {
+        Path relative = getSrcDir().toPath().relativize(sourceFile.toPath());
+        String name = relative.getFileName().toString();
+        name = name.substring(0, name.length() - ".java".length());
+        Path dir = getClassesDir().toPath().resolve(relative).getParent();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> classes = Files.newDirectoryStream(dir, name + "{.class,$*.class}")) {
+            for (Path c : classes) {
+                Files.delete(c);
+            }
+        }
+    }
+
+    private static Path toPath(String uri) {
+        try {
+            return uri.startsWith("file:") ? Paths.get(URI.create(uri)) : null;
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static void copyDir(File from, File to, Predicate<Path> exclude) throws IOException {
+        if (!from.isDirectory()) {
+            return;
+        }
+        Path source = from.toPath();
+        Path target = to.toPath();
+        Files.createDirectories(target);
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path p : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(p) || (exclude != null && exclude.test(p))) {
+                    continue;
+                }
+                Path t = target.resolve(source.relativize(p).toString());
+                Files.createDirectories(t.getParent());
+                Files.copy(p, t, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static void deleteDir(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            List<Path> all = paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path p : all) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    private static void addFiles(MessageDigest input, String kind, File[] files, List<File> contents) {
+        if (files != null) {
+            for (File f : files) {
+                update(input, kind, f.getAbsolutePath());
+                contents.add(f);
+            }
+        }
+    }
+
+    private static List<String> sorted(Collection<?> values) {
+        return (values == null) ? null : values.stream().map(String::valueOf).sorted().collect(Collectors.toList());
+    }
+
+    private static void update(MessageDigest md, Object... values) {
+        for (Object v : values) {
+            md.update(String.valueOf(v).getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+        }
+    }
+
+    private static byte[] hash(Path file) throws IOException {
+        MessageDigest md = newDigest();
+        if (Files.isRegularFile(file)) {
+            md.update(Files.readAllBytes(file));
+        }
+        return md.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -19,6 +19,10 @@ import org.apache.xmlbeans.SystemProperties;
 import org.apache.xmlbeans.impl.common.IOUtil;
 import org.apache.xmlbeans.impl.util.ExceptionUtil;
 
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -53,16 +57,24 @@ public class CodeGenUtil {
     }
 
     static void addAllJavaFiles(List<File> srcFiles, List<String> args) {
+        List<File> javaFiles = new ArrayList<>();
+        collectJavaFiles(srcFiles, javaFiles);
+        for (File f : javaFiles) {
+            args.add(quoteAndEscapeFilename(f.getAbsolutePath()));
+        }
+    }
+
+    private static void collectJavaFiles(List<File> srcFiles, List<File> javaFiles) {
         for (File f : srcFiles) {
             if (f.isDirectory()) {
                 File[] files = f.listFiles(
                     file -> (file.isFile() && file.getName().endsWith(".java")) || file.isDirectory()
                 );
                 if (files != null) {
-                    addAllJavaFiles(Arrays.asList(files), args);
+                    collectJavaFiles(Arrays.asList(files), javaFiles);
                 }
             } else {
-                args.add(quoteAndEscapeFilename(f.getAbsolutePath()));
+                javaFiles.add(f);
             }
         }
     }
@@ -96,6 +108,110 @@ public class CodeGenUtil {
         return externalCompile(srcFiles, outdir, cp, debug, javacPath, null, memStart, memMax, quiet, verbose);
     }
 
+    /**
+     * Compiles the generated source files into the output directory.
+     * If no compiler path is given and the runtime provides a system java compiler,
+     * the sources are compiled in-process, otherwise javac is forked as in
+     * {@link #externalCompile(List, File, File[], boolean, String, String, String, String, boolean, boolean)}.
+     * The memory settings only apply to the forked compiler.
+     *
+     * @return true if the sources have been compiled without errors
+     */
+    public static boolean compile(List<File> srcFiles, File outdir, File[] cp, boolean debug, String javacPath, String genver, String memStart, String memMax, boolean quiet, boolean verbose) {
+        JavaCompiler javac = (javacPath == null) ? systemJavaCompiler() : null;
+        return (javac == null)
+            ? externalCompile(srcFiles, outdir, cp, debug, javacPath, genver, memStart, memMax, quiet, verbose)
+            : internalCompile(javac, srcFiles, outdir, cp, debug, genver, quiet, verbose);
+    }
+
+    private static JavaCompiler systemJavaCompiler() {
+        try {
+            return ToolProvider.getSystemJavaCompiler();
+        } catch (NoClassDefFoundError e) {
+            // a runtime image without the java.compiler module
+            return null;
+        }
+    }
+
+    private static boolean internalCompile(JavaCompiler javac, List<File> srcFiles, File outdir, File[] cp, boolean debug, String genver, boolean quiet, boolean verbose) {
+        List<String> args = new ArrayList<>();
+
+        if (outdir == null) {
+            outdir = new File(".");
+        } else {
+            args.add("-d");
+            args.add(outdir.getAbsolutePath());
+        }
+
+        if (cp == null) {
+            cp = systemClasspath();
+        }
+
+        if (cp.length > 0) {
+            // see externalCompile for the output directory on the classpath
+            StringBuilder classPath = new StringBuilder(outdir.getAbsolutePath());
+            for (File file : cp) {
+                classPath.append(File.pathSeparator);
+                classPath.append(file.getAbsolutePath());
+            }
+
+            args.add("-classpath");
+            args.add(classPath.toString());
+        }
+
+        if (genver == null) {
+            genver = "1.8";
+        }
+
+        args.add("-source");
+        args.add(genver);
+
+        args.add("-target");
+        args.add(genver);
+
+        args.add(debug ? "-g" : "-g:none");
+
+        if (verbose) {
+            args.add("-verbose");
+        }
+
+        List<File> javaFiles = new ArrayList<>();
+        collectJavaFiles(srcFiles, javaFiles);
+
+        if (verbose) {
+            System.out.print("compile command: javac");
+            for (String arg : args) {
+                System.out.print(" " + arg);
+            }
+            for (File javaFile : javaFiles) {
+                System.out.print(" " + javaFile.getAbsolutePath());
+            }
+            System.out.println();
+        }
+
+        StringWriter output = new StringWriter();
+        boolean success;
+        try (StandardJavaFileManager fileManager = javac.getStandardFileManager(null, null, null)) {
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(javaFiles);
+            success = javac.getTask(output, fileManager, null, args, null, units).call();
+        } catch (Throwable e) {
+            if (ExceptionUtil.isFatal(e)) {
+                ExceptionUtil.rethrow(e);
+            }
+            System.err.println(e.toString());
+            System.err.println(e.getCause());
+            e.printStackTrace(System.err);
+            return false;
+        }
+
+        if ((!success || (verbose && !quiet)) && output.getBuffer().length() > 0) {
+            System.err.println(output.toString());
+            System.err.flush();
+        }
+
+        return success;
+    }
+
     /**
      * Invokes javac on the generated source files in order to turn them
      * into binary files in the output directory.  This will return a list of
@@ -205,7 +321,7 @@ public class CodeGenUtil {
 
             proc.waitFor();
 
-            if (verbose || proc.exitValue() != 0) {
+            if (proc.exitValue() != 0 || (verbose && !quiet)) {
                 if (outputBuffer.length() > 0) {
                     System.out.println(outputBuffer.toString());
                     System.out.flush();
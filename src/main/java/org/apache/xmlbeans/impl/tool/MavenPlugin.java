@@ -125,6 +125,10 @@ public class MavenPlugin extends AbstractMojo {
     @Parameter( defaultValue = "false" )
     private boolean noVDoc;
 
+    /** save the metadata of all schema components into a single .xsb file - default: false */
+    @Parameter( defaultValue = "false" )
+    private boolean packed;
+
     /** Metadata package name. If explicitly set empty, generates to org.apache.xmlbeans.metadata - default: ${project.groupId}.${project.artifactId}.metadata */
     @Parameter( defaultValue = "${project.groupId}.${project.artifactId}.metadata" )
     private String repackage;
@@ -187,6 +191,10 @@ public class MavenPlugin extends AbstractMojo {
     @Parameter
     private List<Extension> extensions;
 
+    /** cacheDir is a build cache, which reuses the output of unchanged schemas and recompiles only changed types - default: no cache */
+    @Parameter
+    private File cacheDir;
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (sourceDir == null || sourceDir.isEmpty() || !new File(sourceDir).isDirectory()) {
             throw new MojoFailureException("Set configuration <sourceDir> (='"+sourceDir+"') to a valid directory containing *.xsd,*.wsdl files.");
@@ -281,6 +289,7 @@ public class MavenPlugin extends AbstractMojo {
             params.setNoAnn(noAnn);
             params.setCopyAnn(copyAnn);
             params.setNoVDoc(noVDoc);
+            params.setPacked(packed);
             if (repackage != null && !repackage.isEmpty()) {
                 params.setRepackage("org.apache.xmlbeans.metadata:"+repackage);
             }
@@ -301,6 +310,7 @@ public class MavenPlugin extends AbstractMojo {
             params.setOutputJar(outputJar);
             params.setDebug(debug);
             params.setExtensions(extensions);
+            params.setCacheDir(cacheDir);
 
             boolean result = SchemaCompiler.compile(params);
 
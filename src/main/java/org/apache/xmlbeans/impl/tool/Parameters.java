@@ -52,6 +52,7 @@ public class Parameters {
     private boolean noAnn;
     private boolean noVDoc;
     private boolean noExt;
+    private boolean packed;
     private boolean debug;
     private boolean copyAnn;
     private boolean incrementalSrcGen;
@@ -59,6 +60,7 @@ public class Parameters {
     private List<Extension> extensions = Collections.emptyList();
     private Set<String> mdefNamespaces = Collections.emptySet();
     private String catalogFile;
+    private File cacheDir;
     private SchemaCodePrinter schemaCodePrinter;
     private EntityResolver entityResolver;
     private Set<XmlOptions.BeanMethod> partialMethods = Collections.emptySet();
@@ -215,6 +217,14 @@ public class Parameters {
         this.noVDoc = newNoVDoc;
     }
 
+    public boolean isPacked() {
+        return packed;
+    }
+
+    public void setPacked(boolean packed) {
+        this.packed = packed;
+    }
+
     public boolean isNoExt() {
         return noExt;
     }
@@ -334,4 +344,19 @@ public class Parameters {
     public void setPartialMethods(Set<XmlOptions.BeanMethod> partialMethods) {
         this.partialMethods = partialMethods;
     }
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Sets the directory of the build cache, which keeps the output of the builds by a hash
+     * of their input. A build with the same input copies the cached output instead of
+     * compiling the schemas.
+     *
+     * @param cacheDir the cache directory or null, to build without a cache
+     */
+    public void setCacheDir(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
 }
@@ -35,6 +35,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SchemaCompiler {
     public static void printUsage() {
@@ -53,10 +55,12 @@ public class SchemaCompiler {
         System.out.println("    -noann - ignore annotations");
         System.out.println("    -novdoc - do not validate contents of <documentation>");
         System.out.println("    -noext - ignore all extension (Pre/Post and Interface) found in .xsdconfig files");
-        System.out.println("    -compiler - path to external java compiler");
+        System.out.println("    -packed - save the schema metadata into a single .xsb file instead of one file per component");
+        System.out.println("    -compiler - path to external java compiler (default is the in-process compiler of the jdk)");
         System.out.println("    -ms - initial memory for external java compiler (default '" + CodeGenUtil.DEFAULT_MEM_START + "')");
         System.out.println("    -mx - maximum memory for external java compiler (default '" + CodeGenUtil.DEFAULT_MEM_MAX + "')");
         System.out.println("    -debug - compile with debug symbols");
+        System.out.println("    -cache dir - build cache, which reuses the output of unchanged schemas and recompiles only changed types");
         System.out.println("    -quiet - print fewer informational messages");
         System.out.println("    -verbose - print more informational messages");
         System.out.println("    -version - prints version information");
@@ -96,6 +100,7 @@ public class SchemaCompiler {
         flags.add("noann");
         flags.add("novdoc");
         flags.add("noext");
+        flags.add("packed");
         flags.add("srconly");
         flags.add("debug");
 
@@ -117,6 +122,7 @@ public class SchemaCompiler {
         opts.add("catalog");
         opts.add("partialMethods");
         opts.add("copyann");
+        opts.add("cache");
 
         CommandLine cl = new CommandLine(args, flags, opts);
 
@@ -183,6 +189,7 @@ public class SchemaCompiler {
         boolean noAnn = (cl.getOpt("noann") != null);
         boolean noVDoc = (cl.getOpt("novdoc") != null);
         boolean noExt = (cl.getOpt("noext") != null);
+        boolean packed = (cl.getOpt("packed") != null);
         boolean nojavac = (cl.getOpt("srconly") != null);
         boolean debug = (cl.getOpt("debug") != null);
         boolean copyAnn = (cl.getOpt("copyann") != null);
@@ -281,6 +288,7 @@ public class SchemaCompiler {
         }
 
         String compiler = cl.getOpt("compiler");
+        String cache = cl.getOpt("cache");
         String jar = cl.getOpt("jar");
         if (verbose && jar != null) {
             System.out.println("The 'jar' option is no longer supported.");
@@ -332,6 +340,7 @@ public class SchemaCompiler {
         params.setNoAnn(noAnn);
         params.setNoVDoc(noVDoc);
         params.setNoExt(noExt);
+        params.setPacked(packed);
         params.setDebug(debug);
         params.setErrorListener(err);
         params.setRepackage(repackage);
@@ -341,6 +350,7 @@ public class SchemaCompiler {
         params.setSchemaCodePrinter(codePrinter);
         params.setPartialMethods(parsePartialMethods(partialMethods));
         params.setCopyAnn(copyAnn);
+        params.setCacheDir(cache == null ? null : new File(cache));
         boolean result = compile(params);
 
         if (tempdir != null) {
@@ -612,6 +622,7 @@ public class SchemaCompiler {
         boolean noAnn = params.isNoAnn();
         boolean noVDoc = params.isNoVDoc();
         boolean noExt = params.isNoExt();
+        boolean packed = params.isPacked();
         boolean incrSrcGen = params.isIncrementalSrcGen();
         boolean copyAnn = params.isCopyAnn();
         Collection<XmlError> outerErrorListener = params.getErrorListener();
@@ -651,6 +662,32 @@ public class SchemaCompiler {
             baseDir = new File(userDir);
         }
 
+        // with a cache, the build runs in a staging directory of the cache
+        File outSrcDir = srcDir;
+        File outClassesDir = classesDir;
+        BuildCache cache;
+        try {
+            cache = BuildCache.forBuild(params, baseDir);
+            if (cache != null) {
+                if (cache.restore(srcDir, classesDir, outerErrorListener)) {
+                    boolean result = nojavac || outputJar == null || jarClasses(classesDir, outputJar, quiet);
+                    if (!result && !quiet) {
+                        System.out.println("BUILD FAILED");
+                    }
+                    return result;
+                }
+                cache.stage();
+                srcDir = cache.getSrcDir();
+                classesDir = cache.getClassesDir();
+                if (name == null) {
+                    name = cache.getSystemName();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            return false;
+        }
+
         ResourceLoader cpResourceLoader = null;
 
         Map<String, String> sourcesToCopyMap = new HashMap<>();
@@ -663,8 +700,8 @@ public class SchemaCompiler {
 
         File schemasDir = IOUtil.createDir(classesDir, SchemaTypeSystemImpl.METADATA_PACKAGE_GEN + "/src");
 
-        // build the in-memory type system
-        XmlErrorWatcher errorListener = new XmlErrorWatcher(outerErrorListener);
+        // build the in-memory type system, the cache keeps its messages for the hits
+        XmlErrorWatcher errorListener = new XmlErrorWatcher(cache == null ? outerErrorListener : cache.recordMessages(outerErrorListener));
         SchemaTypeSystem system = loadTypeSystem(name, xsdFiles, wsdlFiles, urlFiles, configFiles,
             javaFiles, cpResourceLoader, download, noUpa, noPvr, noAnn, noVDoc, noExt, mdefNamespaces,
             baseDir, sourcesToCopyMap, errorListener, schemasDir, cmdLineEntRes, classpath);
@@ -683,7 +720,8 @@ public class SchemaCompiler {
 
             // filer implementation writes binary .xsd and generated source to disk
             Repackager repackager = (repackage == null ? null : new Repackager(repackage));
-            FilerImpl filer = new FilerImpl(classesDir, srcDir, repackager, verbose, incrSrcGen);
+            boolean incremental = incrSrcGen || (cache != null && cache.isIncremental());
+            FilerImpl filer = new FilerImpl(classesDir, srcDir, repackager, verbose, incremental);
 
             // currently just for schemaCodePrinter
             XmlOptions options = new XmlOptions();
@@ -695,12 +733,21 @@ public class SchemaCompiler {
             options.setCompileAnnotationAsJavadoc(copyAnn);
 
             // save .xsb files
+            if (packed && system instanceof SchemaTypeSystemImpl) {
+                ((SchemaTypeSystemImpl) system).setPacked(true);
+            }
             system.save(filer);
 
-            // gen source files
-            result = SchemaTypeSystemCompiler.generateTypes(system, filer, options);
+            // gen source files, one type per task
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            try {
+                options.setCompileExecutor(executor);
+                result = SchemaTypeSystemCompiler.generateTypes(system, filer, options);
+            } finally {
+                executor.shutdown();
+            }
 
-            if (incrSrcGen) {
+            if (incrSrcGen && cache == null) {
                 // We have to delete extra source files that may be out of date
                 SchemaCodeGenerator.deleteObsoleteFiles(srcDir, srcDir,
                     new HashSet<>(filer.getSourceFiles()));
@@ -718,11 +765,21 @@ public class SchemaCompiler {
                 start = System.currentTimeMillis();
 
                 List<File> sourcefiles = filer.getSourceFiles();
+                if (cache != null) {
+                    try {
+                        // only the changed sources, if the cache starts from the last build
+                        sourcefiles = new ArrayList<>(cache.sourcesToCompile(sourcefiles, filer.getChangedSourceFiles()));
+                    } catch (IOException e) {
+                        System.err.println("IO Error " + e);
+                        result = false;
+                    }
+                }
 
                 if (javaFiles != null) {
                     sourcefiles.addAll(java.util.Arrays.asList(javaFiles));
                 }
-                if (!CodeGenUtil.externalCompile(sourcefiles, classesDir, classpath, debug, compiler, memoryInitialSize, memoryMaximumSize, quiet, verbose)) {
+                if (result && !sourcefiles.isEmpty() &&
+                    !CodeGenUtil.compile(sourcefiles, classesDir, classpath, debug, compiler, null, memoryInitialSize, memoryMaximumSize, quiet, verbose)) {
                     result = false;
                 }
 
@@ -731,20 +788,22 @@ public class SchemaCompiler {
                     System.out.println("Time to compile code: " + ((double) (finish - start) / 1000.0) + " seconds");
                 }
 
-                // jar classes and .xsb
-                if (result && outputJar != null) {
-                    try {
-                        new JarHelper().jarDir(classesDir, outputJar);
-                    } catch (IOException e) {
-                        System.err.println("IO Error " + e);
-                        result = false;
-                    }
+            }
+        }
 
-                    if (result && !params.isQuiet()) {
-                        System.out.println("Compiled types to: " + outputJar);
-                    }
-                }
+        if (cache != null) {
+            try {
+                cache.finish(result && system != null, sourcesToCopyMap, outSrcDir, outClassesDir);
+            } catch (IOException e) {
+                System.err.println("IO Error " + e);
+                result = false;
             }
+            classesDir = outClassesDir;
+        }
+
+        // jar classes and .xsb
+        if (result && system != null && !nojavac && outputJar != null) {
+            result = jarClasses(classesDir, outputJar, quiet);
         }
 
         if (!result && !quiet) {
@@ -760,6 +819,20 @@ public class SchemaCompiler {
         return result;
     }
 
+    private static boolean jarClasses(File classesDir, File outputJar, boolean quiet) {
+        try {
+            new JarHelper().jarDir(classesDir, outputJar);
+        } catch (IOException e) {
+            System.err.println("IO Error " + e);
+            return false;
+        }
+
+        if (!quiet) {
+            System.out.println("Compiled types to: " + outputJar);
+        }
+        return true;
+    }
+
     static Set<BeanMethod> parsePartialMethods(String partialMethods) {
         final Set<BeanMethod> beanMethods = new HashSet<>();
         if (partialMethods != null) {
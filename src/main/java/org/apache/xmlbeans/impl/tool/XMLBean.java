@@ -71,6 +71,7 @@ public class XMLBean extends MatchingTask {
         noann,
         novdoc,
         noext = false,
+        packed = false,
         failonerror = true,
         fork = true,
         includeAntRuntime = true,
@@ -232,6 +233,7 @@ public class XMLBean extends MatchingTask {
             params.setNoAnn(noann);
             params.setNoVDoc(novdoc);
             params.setNoExt(noext);
+            params.setPacked(packed);
             params.setRepackage(repackage);
             params.setPartialMethods(SchemaCompiler.parsePartialMethods(partialMethods));
             success = SchemaCompiler.compile(params);
@@ -741,6 +743,19 @@ public class XMLBean extends MatchingTask {
         return noext;
     }
 
+    /**
+     * Save the metadata of all schema components into a single .xsb file
+     *
+     * @param packed save a single .xsb file
+     */
+    public void setPacked(boolean packed) {
+        this.packed = packed;
+    }
+
+    public boolean isPacked() {
+        return packed;
+    }
+
     //REVIEW this allows people to deal with the case where they drag in
     //more files for compilation than they should.  not sure if this is
     //a good thing or not
@@ -153,6 +153,7 @@ public class XsbDumper {
     public static final int FILETYPE_SCHEMAPOINTER = 5;
     public static final int FILETYPE_SCHEMAMODELGROUP = 6;
     public static final int FILETYPE_SCHEMAATTRIBUTEGROUP = 7;
+    public static final int FILETYPE_SCHEMAPACKED = 9;
 
     static String filetypeString(int code) {
         switch (code) {
@@ -170,6 +171,8 @@ public class XsbDumper {
                 return "FILETYPE_SCHEMAMODELGROUP";
             case FILETYPE_SCHEMAATTRIBUTEGROUP:
                 return "FILETYPE_SCHEMAATTRIBUTEGROUP";
+            case FILETYPE_SCHEMAPACKED:
+                return "FILETYPE_SCHEMAPACKED";
             default:
                 return "Unknown FILETYPE (" + code + ")";
         }
@@ -354,10 +357,19 @@ public class XsbDumper {
 
     void dumpAll() {
         int filetype = dumpHeader();
+        if (filetype == FILETYPE_SCHEMAPACKED) {
+            dumpPackedData();
+        } else {
+            dumpComponent(filetype);
+        }
+        readEnd();
+    }
+
+    void dumpComponent(int filetype) {
         switch (filetype) {
             case FILETYPE_SCHEMAINDEX:
                 dumpIndexData();
-                return;
+                break;
             case FILETYPE_SCHEMATYPE:
                 dumpTypeFileData();
                 break;
@@ -376,8 +388,10 @@ public class XsbDumper {
             case FILETYPE_SCHEMAATTRIBUTEGROUP:
                 dumpAttributeGroupData();
                 break;
+            default:
+                emit("Data not dumped.");
+                break;
         }
-        readEnd();
     }
 
     static String hex32String(int i) {
@@ -417,6 +431,40 @@ public class XsbDumper {
         return actualfiletype;
     }
 
+    void dumpPackedData() {
+        // a directory of handle/type/length, followed by the data of all components
+        int size = readShortOrInt();
+        emit("Packed components (" + size + "):");
+        String[] handles = new String[size];
+        int[] filetypes = new int[size];
+        int[] lengths = new int[size];
+        indent();
+        for (int i = 0; i < size; i++) {
+            handles[i] = readString();
+            filetypes[i] = readShort();
+            lengths[i] = readInt();
+            emit(handles[i] + " (" + filetypeString(filetypes[i]) + ", " + lengths[i] + " bytes)");
+        }
+        outdent();
+
+        // each component is dumped from its own stream, so unknown data is skipped
+        LongUTFDataInputStream packInput = _input;
+        for (int i = 0; i < size; i++) {
+            byte[] data = new byte[lengths[i]];
+            try {
+                packInput.readFully(data);
+            } catch (IOException e) {
+                error(e);
+            }
+            emit(handles[i] + ":");
+            indent();
+            _input = new LongUTFDataInputStream(new ByteArrayInputStream(data));
+            dumpComponent(filetypes[i]);
+            outdent();
+        }
+        _input = packInput;
+    }
+
     void dumpPointerData() {
         emit("Type system: " + readString());
     }
@@ -470,8 +518,6 @@ public class XsbDumper {
         if (atLeast(2, 19, 0)) {
             dumpAnnotations();
         }
-
-        readEnd();
     }
 
 
@@ -509,7 +555,7 @@ public class XsbDumper {
             }
 
             try {
-                int size = input.readShort();
+                int size = input.readUnsignedShortOrInt();
                 emit("String pool (" + size + "):");
                 indent();
                 for (int i = 1; i < size; i++) {
@@ -540,6 +586,15 @@ public class XsbDumper {
         }
     }
 
+    int readShortOrInt() {
+        try {
+            return _input.readUnsignedShortOrInt();
+        } catch (IOException e) {
+            error(e);
+            return 0;
+        }
+    }
+
     int readInt() {
         try {
             return _input.readInt();
@@ -550,7 +605,7 @@ public class XsbDumper {
     }
 
     String readString() {
-        return _stringPool.stringForCode(readShort());
+        return _stringPool.stringForCode(readShortOrInt());
     }
 
     QName readQName() {
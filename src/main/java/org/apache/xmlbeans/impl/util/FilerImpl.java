@@ -25,12 +25,14 @@ import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This implementation of Filer writes to disk.
+ * The files can be created concurrently, e.g. when the sources are generated in parallel.
  */
 public class FilerImpl implements Filer {
     private final File classdir;
@@ -38,6 +40,7 @@ public class FilerImpl implements Filer {
     private final Repackager repackager;
     private final boolean verbose;
     private final List<File> sourceFiles;
+    private final List<File> changedSourceFiles;
     private final boolean incrSrcGen;
     private Set<String> seenTypes;
     private static final Charset CHARSET;
@@ -56,10 +59,11 @@ public class FilerImpl implements Filer {
         this.srcdir = srcdir;
         this.repackager = repackager;
         this.verbose = verbose;
-        this.sourceFiles = new ArrayList<>();
+        this.sourceFiles = Collections.synchronizedList(new ArrayList<>());
+        this.changedSourceFiles = Collections.synchronizedList(new ArrayList<>());
         this.incrSrcGen = incrSrcGen;
         if (this.incrSrcGen) {
-            seenTypes = new HashSet<>();
+            seenTypes = ConcurrentHashMap.newKeySet();
         }
     }
 
@@ -111,8 +115,9 @@ public class FilerImpl implements Filer {
         if (incrSrcGen && sourcefile.exists()) {
             // Generate the file in a buffer and then compare it to the
             // file already on disk
-            return new IncrFileWriter(sourcefile, repackager);
+            return new IncrFileWriter(sourcefile, repackager, changedSourceFiles);
         } else {
+            changedSourceFiles.add(sourcefile);
             return repackager == null ?
                 writerForFile(sourcefile) :
                 new RepackagingWriter(sourcefile, repackager);
@@ -123,6 +128,14 @@ public class FilerImpl implements Filer {
         return new ArrayList<>(sourceFiles);
     }
 
+    /**
+     * Returns the source files, which have been written. With the incremental source
+     * generation, these are the new files and the files with a different content.
+     */
+    public List<File> getChangedSourceFiles() {
+        return new ArrayList<>(changedSourceFiles);
+    }
+
     public Repackager getRepackager() {
         return repackager;
     }
@@ -141,10 +154,12 @@ public class FilerImpl implements Filer {
     static class IncrFileWriter extends StringWriter {
         private final File _file;
         private final Repackager _repackager;
+        private final List<File> _changedFiles;
 
-        public IncrFileWriter(File file, Repackager repackager) {
+        public IncrFileWriter(File file, Repackager repackager, List<File> changedFiles) {
             _file = file;
             _repackager = repackager;
+            _changedFiles = changedFiles;
         }
 
         public void close() throws IOException {
@@ -167,6 +182,7 @@ public class FilerImpl implements Filer {
                 try (Writer fw = writerForFile(_file)) {
                     fw.write(str);
                 }
+                _changedFiles.add(_file);
             }
         }
     }
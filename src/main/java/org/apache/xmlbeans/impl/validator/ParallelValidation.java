@@ -0,0 +1,454 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.validator;
+
+import org.apache.xmlbeans.SchemaField;
+import org.apache.xmlbeans.SchemaIdentityConstraint;
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.common.IdentityConstraint;
+import org.apache.xmlbeans.impl.common.ValidatorEventBuffer;
+import org.apache.xmlbeans.impl.common.ValidatorListener;
+import org.apache.xmlbeans.impl.util.ExceptionUtil;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Validates the children of an element in parallel, see {@link XmlOptions#setValidateExecutor}.
+ * <p>
+ * The validator of the parent checks the content model as usual. For each child, which the content
+ * model accepts, the store records the events of the child in a {@link ValidatorEventBuffer}. The
+ * buffers are validated in batches on the executor, each child by its own {@link Validator}, while
+ * the store continues with the next children.
+ * <p>
+ * The results are merged in document order on the thread of the parent validator:
+ * <ul>
+ * <li>The errors of the parent validator, which are reported in the meantime, are deferred until
+ * the preceding children have been merged.</li>
+ * <li>A child with errors is validated again on the store, so that its errors have locations.</li>
+ * <li>The identity constraints, which are in scope at the parent, and the IDs span several children.
+ * The validators of the children forward the calls for them to a {@link ConstraintLog}, which is
+ * replayed to the identity constraint engine of the parent. If a key, keyref or unique constraint
+ * is in scope, all calls are forwarded, otherwise only the ones for ID values.</li>
+ * </ul>
+ */
+final class ParallelValidation {
+    // the minimum number of events of a batch
+    private static final int BATCH_EVENTS = 16384;
+    private static final int MAX_PENDING_BATCHES = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final Validator _validator;
+    private final IdentityConstraint _constraintEngine;
+    private final SchemaTypeLoader _globalTypes;
+    private final Collection<XmlError> _errorListener;
+    private final Executor _executor;
+    private final ValidatorEventBuffer.Locator _locator;
+    private final int _depth;
+
+    // the options of the validators of the children on the executor and on the store
+    private final XmlOptions _batchOptions;
+    private final XmlOptions _storeOptions;
+
+    // the child, which has been added, but not yet recorded
+    private Partition _pending;
+    private Batch _batch;
+    private final ArrayDeque<Batch> _batches = new ArrayDeque<>();
+    private int _partitionCount;
+
+    // the errors of the parent validator, which wait for the preceding children
+    private final ArrayDeque<DeferredError> _deferredErrors = new ArrayDeque<>();
+
+    ParallelValidation(Validator validator, IdentityConstraint constraintEngine, SchemaTypeLoader globalTypes,
+                       XmlOptions options, Collection<XmlError> errorListener, Executor executor,
+                       ValidatorEventBuffer.Locator locator, int depth) {
+        _validator = validator;
+        _constraintEngine = constraintEngine;
+        _globalTypes = globalTypes;
+        _errorListener = errorListener;
+        _executor = executor;
+        _locator = locator;
+        _depth = depth;
+
+        _batchOptions = new XmlOptions(options).setValidateExecutor(null).setErrorListener(null);
+        _storeOptions = new XmlOptions(options).setValidateExecutor(null).setErrorListener(errorListener);
+    }
+
+    /**
+     * @return the depth of the parent validator, whose children are validated on their own
+     */
+    int getDepth() {
+        return _depth;
+    }
+
+    /**
+     * Adds a child, which the content model of the parent has accepted.
+     */
+    void add(SchemaType type, SchemaField field, SchemaType parentType, SchemaField parentField) {
+        assert _pending == null;
+
+        if (_batch != null && _batch.size() >= BATCH_EVENTS) {
+            submit();
+        }
+        if (_batch == null) {
+            _batch = new Batch();
+        }
+
+        // the ancestors don't change while their children are validated
+        boolean forwardAll = _constraintEngine.hasOpenConstraints();
+        _pending = new Partition(_partitionCount++, type, field, parentType, parentField,
+            new ValidatorEventBuffer(_locator), forwardAll);
+        _batch._partitions.add(_pending);
+    }
+
+    /**
+     * @return the buffer for the events of the last added child
+     */
+    ValidatorEventBuffer take() {
+        Partition p = _pending;
+        _pending = null;
+        return p == null ? null : p._events;
+    }
+
+    /**
+     * @return true, if the error of the parent validator has been deferred
+     */
+    boolean defer(XmlError error) {
+        if (_batch == null && _batches.isEmpty() && _deferredErrors.isEmpty()) {
+            return false;
+        }
+        _deferredErrors.add(new DeferredError(error, _partitionCount));
+        return true;
+    }
+
+    /**
+     * Merges all children, when the parent ends.
+     */
+    void finish() {
+        if (_batch != null) {
+            submit();
+        }
+        while (!_batches.isEmpty()) {
+            merge(_batches.removeFirst());
+        }
+        flushErrors(Integer.MAX_VALUE);
+    }
+
+    private void submit() {
+        Batch batch = _batch;
+        _batch = null;
+        _batches.add(batch);
+        _executor.execute(batch._task);
+
+        // merge the finished batches, and limit the memory of the buffers
+        while (!_batches.isEmpty() &&
+               (_batches.peekFirst()._task.isDone() || _batches.size() > MAX_PENDING_BATCHES)) {
+            merge(_batches.removeFirst());
+        }
+    }
+
+    private void merge(Batch batch) {
+        try {
+            batch._task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a validation", e);
+        } catch (ExecutionException e) {
+            ExceptionUtil.rethrow(e.getCause());
+        }
+
+        for (Partition p : batch._partitions) {
+            flushErrors(p._index);
+
+            if (p._invalid) {
+                _validator.setInvalid();
+            }
+
+            if (p._invalid && _errorListener != null) {
+                // validate the child again, so that the errors have locations
+                Validator v = p.newValidator(_globalTypes, _storeOptions,
+                    new PartitionConstraints(_errorListener, _constraintEngine, p._forwardAll));
+                p._events.validateSource(v);
+            } else {
+                p._log.replay(_constraintEngine);
+            }
+        }
+    }
+
+    private void flushErrors(int partition) {
+        while (!_deferredErrors.isEmpty() && _deferredErrors.peekFirst()._partition <= partition) {
+            _errorListener.add(_deferredErrors.removeFirst()._error);
+        }
+    }
+
+    private static final class DeferredError {
+        final XmlError _error;
+        // the number of preceding children
+        final int _partition;
+
+        DeferredError(XmlError error, int partition) {
+            _error = error;
+            _partition = partition;
+        }
+    }
+
+    private final class Batch implements Runnable {
+        final List<Partition> _partitions = new ArrayList<>();
+        final FutureTask<Void> _task = new FutureTask<>(this, null);
+
+        int size() {
+            int n = 0;
+            for (Partition p : _partitions) {
+                n += p._events.size();
+            }
+            return n;
+        }
+
+        public void run() {
+            for (Partition p : _partitions) {
+                p.validate(_globalTypes, _batchOptions);
+            }
+        }
+    }
+
+    private static final class Partition {
+        final int _index;
+        final SchemaType _type;
+        final SchemaField _field;
+        final SchemaType _parentType;
+        final SchemaField _parentField;
+        final ValidatorEventBuffer _events;
+        final boolean _forwardAll;
+
+        // the results of the validation on the executor
+        ConstraintLog _log;
+        boolean _invalid;
+
+        Partition(int index, SchemaType type, SchemaField field, SchemaType parentType, SchemaField parentField,
+                  ValidatorEventBuffer events, boolean forwardAll) {
+            _index = index;
+            _type = type;
+            _field = field;
+            _parentType = parentType;
+            _parentField = parentField;
+            _events = events;
+            _forwardAll = forwardAll;
+        }
+
+        Validator newValidator(SchemaTypeLoader globalTypes, XmlOptions options, IdentityConstraint engine) {
+            return new Validator(_type, _field, _parentType, _parentField, globalTypes, options, null, engine);
+        }
+
+        void validate(SchemaTypeLoader globalTypes, XmlOptions options) {
+            List<XmlError> errors = new ArrayList<>();
+            ConstraintLog log = new ConstraintLog(_events);
+            Validator v = new Validator(_type, _field, _parentType, _parentField, globalTypes, options, errors,
+                new PartitionConstraints(errors, log, _forwardAll));
+            _events.replay(v);
+
+            _invalid = !v.isValid() || !errors.isEmpty();
+            _log = log;
+        }
+    }
+
+    /**
+     * The identity constraint engine of a child. The constraints of the child and its descendants are
+     * checked here, the calls for the constraints of the ancestors and the IDs are forwarded.
+     */
+    private static final class PartitionConstraints extends IdentityConstraint {
+        private final IdentityConstraint _target;
+        // forward all calls, the constraints of the child are checked by the target, too
+        private final boolean _forwardAll;
+
+        PartitionConstraints(Collection<XmlError> errorListener, IdentityConstraint target, boolean forwardAll) {
+            super(errorListener, false, false);
+            _target = target;
+            _forwardAll = forwardAll;
+        }
+
+        public void element(ValidatorListener.Event e, SchemaType st, SchemaIdentityConstraint[] ics) {
+            if (_forwardAll) {
+                _target.element(e, st, ics);
+            } else {
+                super.element(e, st, ics);
+            }
+        }
+
+        public void endElement(ValidatorListener.Event e) {
+            if (_forwardAll) {
+                _target.endElement(e);
+            } else {
+                super.endElement(e);
+            }
+        }
+
+        public void attr(ValidatorListener.Event e, QName name, SchemaType st, String value) {
+            if (!_forwardAll) {
+                super.attr(e, name, st, value);
+            }
+            if (_forwardAll || isIdType(st)) {
+                _target.attr(e, name, st, value);
+            }
+        }
+
+        public void text(ValidatorListener.Event e, SchemaType st, String value, boolean emptyContent) {
+            if (!_forwardAll) {
+                super.text(e, st, value, emptyContent);
+            }
+            if (_forwardAll || isIdType(st)) {
+                _target.text(e, st, value, emptyContent);
+            }
+        }
+    }
+
+    /**
+     * Records the calls of the identity constraint engine of a child on the executor, so
+     * that they can be replayed to the engine of the parent.
+     */
+    private static final class ConstraintLog extends IdentityConstraint {
+        private static final int ELEMENT = 0;
+        private static final int END_ELEMENT = 1;
+        private static final int ATTR = 2;
+        private static final int TEXT = 3;
+
+        private final ValidatorEventBuffer _events;
+        private final List<Entry> _entries = new ArrayList<>();
+
+        ConstraintLog(ValidatorEventBuffer events) {
+            super(null, false, false);
+            _events = events;
+        }
+
+        public void element(ValidatorListener.Event e, SchemaType st, SchemaIdentityConstraint[] ics) {
+            _entries.add(new Entry(ELEMENT, _events.getPosition(), e.getName(), st, null, false, ics));
+        }
+
+        public void endElement(ValidatorListener.Event e) {
+            _entries.add(new Entry(END_ELEMENT, _events.getPosition(), null, null, null, false, null));
+        }
+
+        public void attr(ValidatorListener.Event e, QName name, SchemaType st, String value) {
+            _entries.add(new Entry(ATTR, _events.getPosition(), name, st, value, false, null));
+        }
+
+        public void text(ValidatorListener.Event e, SchemaType st, String value, boolean emptyContent) {
+            _entries.add(new Entry(TEXT, _events.getPosition(), null, st, value, emptyContent, null));
+        }
+
+        void replay(IdentityConstraint target) {
+            ReplayEvent event = new ReplayEvent();
+            for (Entry entry : _entries) {
+                event._entry = entry;
+                switch (entry._kind) {
+                    case ELEMENT:
+                        target.element(event, entry._type, entry._constraints);
+                        break;
+                    case END_ELEMENT:
+                        target.endElement(event);
+                        break;
+                    case ATTR:
+                        target.attr(event, entry._name, entry._type, entry._value);
+                        break;
+                    default:
+                        target.text(event, entry._type, entry._value, entry._emptyContent);
+                        break;
+                }
+            }
+        }
+
+        private static final class Entry {
+            final int _kind;
+            final int _position;
+            final QName _name;
+            final SchemaType _type;
+            final String _value;
+            final boolean _emptyContent;
+            final SchemaIdentityConstraint[] _constraints;
+
+            Entry(int kind, int position, QName name, SchemaType type, String value, boolean emptyContent,
+                  SchemaIdentityConstraint[] constraints) {
+                _kind = kind;
+                _position = position;
+                _name = name;
+                _type = type;
+                _value = value;
+                _emptyContent = emptyContent;
+                _constraints = constraints;
+            }
+        }
+
+        /**
+         * The replayed event has the name of the recorded one, and its location is resolved by the store.
+         */
+        private final class ReplayEvent implements ValidatorListener.Event {
+            Entry _entry;
+
+            public XmlCursor getLocationAsCursor() {
+                return _events.getLocationAsCursor(_entry._position);
+            }
+
+            public Location getLocation() {
+                return null;
+            }
+
+            public String getXsiType() {
+                return null;
+            }
+
+            public String getXsiNil() {
+                return null;
+            }
+
+            public String getXsiLoc() {
+                return null;
+            }
+
+            public String getXsiNoLoc() {
+                return null;
+            }
+
+            public QName getName() {
+                return _entry._name;
+            }
+
+            public String getText() {
+                return _entry._value;
+            }
+
+            public String getText(int wsr) {
+                return _entry._value;
+            }
+
+            public boolean textIsWhitespace() {
+                return false;
+            }
+
+            public String getNamespaceForPrefix(String prefix) {
+                return null;
+            }
+        }
+    }
+}
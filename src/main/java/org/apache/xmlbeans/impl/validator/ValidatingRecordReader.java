@@ -0,0 +1,127 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.validator;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.store.RecordLoader;
+import org.apache.xmlbeans.impl.xpath.XPath;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Validates a document against its schema and loads the records, i.e. the elements
+ * selected by a path, as typed {@link XmlObject}s in a single pass over the stream.
+ * <p>
+ * The document is validated with a {@link ValidatingXMLStreamReader}, while the records
+ * are loaded by a {@link RecordLoader}, so the memory only depends on the size of
+ * a record. The validation doesn't stop at an invalid record: the errors are reported
+ * per record by {@link #getErrors()}, the errors outside of the records by
+ * {@link #getDocumentErrors()}. They are not passed to the error listener of the options.
+ * <p>
+ * <pre>
+ * try (ValidatingRecordReader records = new ValidatingRecordReader(stl, xsr, name, LineItem.type, null)) {
+ *     while (records.hasNext()) {
+ *         LineItem item = (LineItem) records.next();
+ *         if (records.isValid()) {
+ *             ...
+ *         }
+ *     }
+ * }
+ * </pre>
+ */
+public final class ValidatingRecordReader implements Iterator<XmlObject>, Closeable {
+    private final List<XmlError> _errors = new ArrayList<>();
+    private final RecordLoader _loader;
+
+    /**
+     * @param stl        the loader of the document and record types
+     * @param xsr        the reader, which is positioned on the start of the document
+     * @param recordName the name of the record elements
+     * @param type       the type of the records or null, to find the type by the record name
+     * @param options    the load and validate options
+     */
+    public ValidatingRecordReader(SchemaTypeLoader stl, XMLStreamReader xsr, QName recordName,
+                                  SchemaType type, XmlOptions options) throws XmlException {
+        this(stl, xsr, RecordLoader.recordPath(recordName), type, options);
+    }
+
+    /**
+     * @param path the path, which selects the records
+     * @see #ValidatingRecordReader(SchemaTypeLoader, XMLStreamReader, QName, SchemaType, XmlOptions)
+     */
+    public ValidatingRecordReader(SchemaTypeLoader stl, XMLStreamReader xsr, XPath path,
+                                  SchemaType type, XmlOptions options) {
+        // the errors are collected here, so they can be split up by records
+        XmlOptions validateOptions = new XmlOptions(options).setErrorListener(_errors);
+
+        ValidatingXMLStreamReader vxsr = new ValidatingXMLStreamReader();
+        vxsr.init(xsr, true, null, stl, validateOptions, _errors);
+
+        _loader = new RecordLoader(stl, vxsr, path, type, options, _errors);
+    }
+
+    public boolean hasNext() {
+        return _loader.hasNext();
+    }
+
+    public XmlObject next() {
+        return _loader.next();
+    }
+
+    /**
+     * @return the validation errors of the record, which has been returned by the last call of {@link #next()}
+     */
+    public List<XmlError> getErrors() {
+        return _loader.getRecordErrors();
+    }
+
+    /**
+     * @return true, if the record, which has been returned by the last call of {@link #next()}, is valid
+     */
+    public boolean isValid() {
+        for (XmlError e : getErrors()) {
+            if (e.getSeverity() == XmlError.SEVERITY_ERROR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the validation errors so far, which don't belong to a record, e.g. a missing element
+     * between the records or an unknown document element
+     */
+    public List<XmlError> getDocumentErrors() {
+        return _loader.getDocumentErrors();
+    }
+
+    /**
+     * Closes the reader, but not its underlying source.
+     */
+    public void close() {
+        _loader.close();
+    }
+}
@@ -17,6 +17,7 @@ package org.apache.xmlbeans.impl.validator;
 
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.common.*;
+import org.apache.xmlbeans.impl.schema.ContentModelAutomaton;
 import org.apache.xmlbeans.impl.schema.SchemaTypeImpl;
 import org.apache.xmlbeans.impl.schema.SchemaTypeVisitorImpl;
 import org.apache.xmlbeans.impl.util.ExceptionUtil;
@@ -27,14 +28,30 @@ import javax.xml.namespace.QName;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 public final class Validator
-    implements ValidatorListener {
+    implements ValidatorListener.Partitioner {
     public Validator(
         SchemaType type, SchemaField field, SchemaTypeLoader globalLoader,
         XmlOptions options, Collection<XmlError> defaultErrorListener) {
+        this(type, field, null, null, globalLoader, options, defaultErrorListener, null);
+    }
+
+    /**
+     * Validates a child element on its own, see {@link ParallelValidation}.
+     *
+     * @param parentType       the type of the parent element, which is reported with the errors
+     * @param parentField      the field of the parent element, which is reported with the errors
+     * @param constraintEngine the identity constraint engine or null, for a new one
+     */
+    Validator(
+        SchemaType type, SchemaField field, SchemaType parentType, SchemaField parentField,
+        SchemaTypeLoader globalLoader, XmlOptions options, Collection<XmlError> defaultErrorListener,
+        IdentityConstraint constraintEngine) {
         options = XmlOptions.maskNull(options);
+        _options = options;
         _errorListener = options.getErrorListener();
         _treatLaxAsSkip = options.isValidateTreatLaxAsSkip();
         _strict = options.isValidateStrict();
@@ -43,11 +60,14 @@ public final class Validator
             _errorListener = defaultErrorListener;
         }
 
-        _constraintEngine = new IdentityConstraint(_errorListener, type.isDocumentType());
+        _constraintEngine = constraintEngine != null ? constraintEngine :
+            new IdentityConstraint(_errorListener, type.isDocumentType());
 
         _globalTypes = globalLoader;
         _rootType = type;
         _rootField = field;
+        _parentType = parentType;
+        _parentField = parentField;
 
         _vc = new ValidatorVC();
     }
@@ -77,6 +97,27 @@ public final class Validator
         return !_invalid && _constraintEngine.isValid();
     }
 
+    public void enablePartitions(ValidatorEventBuffer.Locator locator) {
+        Executor executor = _options.getValidateExecutor();
+        if (executor != null && _stateStack == null) {
+            // the children of the document element or of the validated element
+            int depth = _rootType.isDocumentType() ? 2 : 1;
+            _partitions = new ParallelValidation(this, _constraintEngine, _globalTypes, _options,
+                _errorListener, executor, locator, depth);
+        }
+    }
+
+    public ValidatorEventBuffer partition() {
+        return _partitions == null ? null : _partitions.take();
+    }
+
+    /**
+     * Called by {@link ParallelValidation}, if a child has been invalid.
+     */
+    void setInvalid() {
+        _invalid = true;
+    }
+
     // KHK: remove this
     private void emitError(Event event, String message, QName offendingQName,
                            SchemaType expectedSchemaType,
@@ -120,7 +161,9 @@ public final class Validator
                         errorType, badSchemaType);
                 }
 
-                _errorListener.add(error);
+                if (_partitions == null || !_partitions.defer(error)) {
+                    _errorListener.add(error);
+                }
             }
         }
     }
@@ -129,8 +172,12 @@ public final class Validator
                                 SchemaType expectedSchemaType, List<QName> expectedQNames,
                                 int errorType, SchemaType badSchemaType) {
         QName fieldName = null;
-        if (_stateStack != null && _stateStack._field != null) {
-            fieldName = _stateStack._field.getName();
+        if (_stateStack != null) {
+            if (_stateStack._field != null) {
+                fieldName = _stateStack._field.getName();
+            }
+        } else if (_parentField != null) {
+            fieldName = _parentField.getName();
         }
 
         Validator.this.emitError(event, null, code, args, XmlError.SEVERITY_ERROR, fieldName, offendingQName, expectedSchemaType,
@@ -293,6 +340,13 @@ public final class Validator
             }
 
             elementType = elementField.getType();
+
+            if (state._partitioned) {
+                // the child is validated on its own, see partition()
+                _partitions.add(elementType, elementField, state._type, state._field);
+                _eatContent = 1;
+                return;
+            }
         }
 
         assert elementType != null;
@@ -343,7 +397,7 @@ public final class Validator
                 // not sure how to extract this one
                 emitFieldError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$XSI_TYPE_INVALID_QNAME,
                     new Object[]{value}, event.getName(), xsiType, null,
-                    XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                    XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
 
                 _eatContent = 1;
 
@@ -364,7 +418,7 @@ public final class Validator
             if (!elementType.isAssignableFrom(xsiType)) {
                 emitFieldError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$XSI_TYPE_NOT_DERIVED,
                     new Object[]{xsiType, elementType}, event.getName(), elementType, null,
-                    XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                    XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
 
                 _eatContent = 1;
 
@@ -377,7 +431,7 @@ public final class Validator
                     if (t.getDerivationType() == SchemaType.DT_EXTENSION) {
                         emitFieldError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$XSI_TYPE_BLOCK_EXTENSION,
                             new Object[]{xsiType, elementType}, event.getName(), elementType, null,
-                            XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                            XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
 
                         _eatContent = 1;
 
@@ -392,7 +446,7 @@ public final class Validator
                     if (t.getDerivationType() == SchemaType.DT_RESTRICTION) {
                         emitFieldError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$XSI_TYPE_BLOCK_RESTRICTION,
                             new Object[]{xsiType, elementType}, event.getName(), elementType, null,
-                            XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                            XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
 
                         _eatContent = 1;
 
@@ -444,7 +498,7 @@ public final class Validator
         if (elementType.isAbstract()) {
             emitError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$ABSTRACT,
                 new Object[]{elementType},
-                event.getName(), elementType, XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                event.getName(), elementType, XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
 
             _eatContent = 1;
 
@@ -466,7 +520,7 @@ public final class Validator
         if (hasNil && (elementField == null || !elementField.isNillable())) {
             emitFieldError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$NOT_NILLABLE, null,
                 elementField == null ? null : elementField.getName(), elementType, null,
-                XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
 
             _eatContent = 1;
             return;
@@ -475,7 +529,7 @@ public final class Validator
         if (isNil && elementField != null && elementField.isFixed()) {
             emitFieldError(event, XmlErrorCodes.ELEM_LOCALLY_VALID$NIL_WITH_FIXED, null,
                 elementField.getName(), elementType, null,
-                XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? null : state._type));
+                XmlValidationError.ELEMENT_TYPE_INVALID, (state == null ? _parentType : state._type));
         }
 
         newState(elementType, elementField, isNil);
@@ -496,11 +550,7 @@ public final class Validator
 
         State state = topState();
 
-        if (state._attrs == null) {
-            state._attrs = new HashSet<>();
-        }
-
-        if (state._attrs.contains(attrName)) {
+        if (!state.addAttribute(attrName)) {
             emitFieldError(event, XmlErrorCodes.XML_DUPLICATE_ATTRIBUTE,
                 new Object[]{QNameHelper.pretty(attrName)},
                 attrName, null, null, XmlValidationError.INCORRECT_ATTRIBUTE, state._type);
@@ -508,8 +558,6 @@ public final class Validator
             return;
         }
 
-        state._attrs.add(attrName);
-
         if (!state._canHaveAttrs) {
             emitFieldError(event, XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$NO_WILDCARD,
                 new Object[]{QNameHelper.pretty(attrName)}, attrName, null, null,
@@ -601,11 +649,12 @@ public final class Validator
         State state = topState();
 
         if (state._attrModel != null) {
-            SchemaLocalAttribute[] attrs = state._attrModel.getAttributes();
+            SchemaLocalAttribute[] attrs = state._automaton != null
+                ? state._automaton.getAttributes() : state._attrModel.getAttributes();
 
-            for (SchemaLocalAttribute sla : attrs) {
-                if (state._attrs == null ||
-                    !state._attrs.contains(sla.getName())) {
+            for (int i = 0; i < attrs.length; i++) {
+                SchemaLocalAttribute sla = attrs[i];
+                if (!state.hasDeclaredAttribute(i, sla.getName())) {
                     if (sla.getUse() == SchemaLocalAttribute.REQUIRED) {
                         // KHK: cvc-complex-type.4
                         emitFieldError(event, XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$MISSING_REQUIRED_ATTRIBUTE,
@@ -647,6 +696,11 @@ public final class Validator
         _wildcardElement = null;
         State state = topState();
 
+        if (state._partitioned) {
+            // the errors of the children come before the errors of the end
+            _partitions.finish();
+        }
+
         if (!state._isNil) {
             if (!state.end()) {
                 findDetailedErrorEnd(event, state);
@@ -804,22 +858,111 @@ public final class Validator
 
     private static final class State {
         boolean visit(QName name) {
-            return _canHaveElements && _visitor.visit(name);
+            if (!_canHaveElements) {
+                return false;
+            }
+            if (_contentState != null) {
+                ContentModelAutomaton.Transition t = _contentState.next(name);
+                if (t != null && t.isValid()) {
+                    _contentState = t.getTarget();
+                    _matchedParticle = t.getParticle();
+                    return true;
+                }
+                // the visitor reports the error or continues beyond the size of the automaton
+                switchToVisitor();
+            }
+            return _visitor.visit(name);
         }
 
         boolean test(QName name) {
-            return _canHaveElements && _visitor.testValid(name);
+            if (!_canHaveElements) {
+                return false;
+            }
+            if (_contentState != null) {
+                ContentModelAutomaton.Transition t = _contentState.next(name);
+                if (t != null) {
+                    return t.isValid();
+                }
+                switchToVisitor();
+            }
+            return _visitor.testValid(name);
         }
 
         boolean end() {
-            return !_canHaveElements || _visitor.visit(null);
+            if (!_canHaveElements) {
+                return true;
+            }
+            if (_contentState != null) {
+                if (_contentState.canEnd()) {
+                    return true;
+                }
+                switchToVisitor();
+            }
+            return _visitor.visit(null);
         }
 
         SchemaParticle currentParticle() {
+            if (_contentState != null) {
+                return _matchedParticle;
+            }
             assert _visitor != null;
             return _visitor.currentParticle();
         }
 
+        private void switchToVisitor() {
+            _visitor = _automaton.newVisitor(_contentState);
+            _contentState = null;
+            _matchedParticle = null;
+        }
+
+        /**
+         * @return false, if the attribute has been seen before
+         */
+        boolean addAttribute(QName name) {
+            int i = _automaton == null ? -1 : _automaton.getAttributeIndex(name);
+            if (i >= 0) {
+                if (_declaredAttrs.get(i)) {
+                    return false;
+                }
+                _declaredAttrs.set(i);
+                return true;
+            }
+            if (_attrs == null) {
+                _attrs = new HashSet<>();
+            }
+            return _attrs.add(name);
+        }
+
+        boolean hasDeclaredAttribute(int i, QName name) {
+            if (_automaton != null) {
+                return _declaredAttrs.get(i);
+            }
+            return _attrs != null && _attrs.contains(name);
+        }
+
+        void reset() {
+            _type = null;
+            _field = null;
+            _canHaveAttrs = false;
+            _canHaveMixedContent = false;
+            _hasSimpleContent = false;
+            _sawText = false;
+            _isEmpty = false;
+            _isNil = false;
+            _visitor = null;
+            _canHaveElements = false;
+            _automaton = null;
+            _contentState = null;
+            _matchedParticle = null;
+            _attrModel = null;
+            _partitioned = false;
+            _declaredAttrs.clear();
+            if (_attrs != null && !_attrs.isEmpty()) {
+                _attrs.clear();
+            }
+            _next = null;
+        }
+
         SchemaType _type;
         SchemaField _field;
 
@@ -834,10 +977,21 @@ public final class Validator
         SchemaTypeVisitorImpl _visitor;
         boolean _canHaveElements;
 
+        // the compiled model of a SchemaTypeImpl, the content is checked with the visitor
+        // only if the automaton doesn't suffice
+        ContentModelAutomaton _automaton;
+        ContentModelAutomaton.State _contentState;
+        SchemaParticle _matchedParticle;
+
         SchemaAttributeModel _attrModel;
 
+        // the seen attributes, declared ones by their index in the automaton
+        final BitSet _declaredAttrs = new BitSet();
         HashSet<QName> _attrs;
 
+        // the children are validated on their own
+        boolean _partitioned;
+
         State _next;
     }
 
@@ -853,7 +1007,13 @@ public final class Validator
     }
 
     private void newState(SchemaType type, SchemaField field, boolean isNil) {
-        State state = new State();
+        State state = _freeStates;
+        if (state != null) {
+            _freeStates = state._next;
+            state.reset();
+        } else {
+            state = new State();
+        }
 
         state._type = type;
         state._field = field;
@@ -865,6 +1025,9 @@ public final class Validator
         } else {
             state._canHaveAttrs = true;
             state._attrModel = type.getAttributeModel();
+            if (type instanceof SchemaTypeImpl) {
+                state._automaton = ((SchemaTypeImpl) type).getContentModelAutomaton();
+            }
 
             switch (type.getContentType()) {
                 case SchemaType.EMPTY_CONTENT:
@@ -885,7 +1048,11 @@ public final class Validator
                     state._canHaveElements = particle != null;
 
                     if (state._canHaveElements) {
-                        state._visitor = initVisitor(particle);
+                        if (state._automaton != null) {
+                            state._contentState = state._automaton.start();
+                        } else {
+                            state._visitor = initVisitor(particle);
+                        }
                     }
 
                     break;
@@ -896,20 +1063,29 @@ public final class Validator
         }
 
         pushState(state);
+
+        state._partitioned = _partitions != null && _depth == _partitions.getDepth() &&
+                             state._canHaveElements && !isNil;
     }
 
     private void popState(Event e) {
-        if (_stateStack._visitor != null) {
-            poolVisitor(_stateStack._visitor);
-            _stateStack._visitor = null;
+        State state = _stateStack;
+        if (state._visitor != null) {
+            poolVisitor(state._visitor);
+            state._visitor = null;
         }
 
-        _stateStack = _stateStack._next;
+        _stateStack = state._next;
+        _depth--;
+
+        state._next = _freeStates;
+        _freeStates = state;
     }
 
     private void pushState(State state) {
         state._next = _stateStack;
         _stateStack = state;
+        _depth++;
     }
 
     private final LinkedList<TypeStoreVisitor> _visitorPool = new LinkedList<>();
@@ -1498,10 +1674,17 @@ public final class Validator
     //
 
     private boolean _invalid;
+    private final XmlOptions _options;
     private final SchemaType _rootType;
     private final SchemaField _rootField;
+    private final SchemaType _parentType;
+    private final SchemaField _parentField;
     private final SchemaTypeLoader _globalTypes;
     private State _stateStack;
+    private int _depth;
+    private ParallelValidation _partitions;
+    // the popped states, which are reused for the next elements
+    private State _freeStates;
     private int _errorState;
     private Collection<XmlError> _errorListener;
     private final boolean _treatLaxAsSkip;
@@ -18,6 +18,8 @@ package org.apache.xmlbeans.impl.values;
 import org.apache.xmlbeans.XmlObject;
 
 import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -81,6 +83,45 @@ public class JavaListXmlObject<T extends XmlObject> extends AbstractList<T> {
         return old;
     }
 
+    /**
+     * Returns an iterator, which asks for the size only once and then fetches the elements
+     * by position. The store keeps an index of the array elements, so each step is O(1).
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int size = size();
+            private int cursor = 0;
+            private int lastRet = -1;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public T next() {
+                if (cursor >= size) {
+                    throw new NoSuchElementException();
+                }
+                T t = get(cursor);
+                lastRet = cursor++;
+                return t;
+            }
+
+            @Override
+            public void remove() {
+                if (lastRet < 0) {
+                    throw new IllegalStateException();
+                }
+                JavaListXmlObject.this.remove(lastRet);
+                cursor = lastRet;
+                lastRet = -1;
+                size--;
+            }
+        };
+    }
+
     @Override
     public int size() {
         if (sizer == null) {
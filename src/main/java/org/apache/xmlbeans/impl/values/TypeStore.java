@@ -117,6 +117,20 @@ public interface TypeStore extends NamespaceManager
      */
     boolean validate_on_set();
 
+    /**
+     * Makes the document of this store read-only, see {@link org.apache.xmlbeans.XmlObject#freeze()}.
+     * Stores which can't be frozen ignore this call.
+     */
+    default void freeze() {
+    }
+
+    /**
+     * Tells if the document of this store is frozen.
+     */
+    default boolean is_frozen() {
+        return false;
+    }
+
     /**
      * Here the typestore is resposible for finding the schema field for
      * this object. This is done by
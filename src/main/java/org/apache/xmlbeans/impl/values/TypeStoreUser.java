@@ -61,6 +61,14 @@ public interface TypeStoreUser
      */
     boolean uses_invalidate_value();
 
+    /**
+     * A store will call back on freeze_value before the document is frozen.
+     * The type has to compute its cached value, because the store
+     * can't be changed anymore afterwards.
+     */
+    default void freeze_value() {
+    }
+
     /**
      * A store will call back on build_text when it knows its own text
      * is invalid and needs to fill it in.  If forExternal is true, then
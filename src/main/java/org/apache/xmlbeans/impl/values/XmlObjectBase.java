@@ -35,6 +35,7 @@ import java.math.BigInteger;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlObject, SimpleValue {
     public static final short MAJOR_VERSION_NUMBER = (short) 1; // for serialization
@@ -45,7 +46,9 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
 
     public final Object monitor() {
         if (has_store()) {
-            return get_store().get_locale();
+            TypeStore store = get_store();
+            // the readers of a frozen document don't share a lock
+            return store.is_frozen() ? this : store.get_locale();
         }
         return this;
     }
@@ -631,6 +634,10 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
      * True if the value is nilled.
      */
     public final boolean isNil() {
+        if (isFrozen()) {
+            check_dated();
+            return ((_flags & FLAG_NIL) != 0);
+        }
         synchronized (monitor()) {
             check_dated();
             return ((_flags & FLAG_NIL) != 0);
@@ -733,6 +740,21 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         return (_flags & FLAG_IMMUTABLE) != 0;
     }
 
+    public void freeze() {
+        if (isImmutable()) {
+            return;
+        }
+
+        synchronized (monitor()) {
+            check_orphaned();
+            get_store().freeze();
+        }
+    }
+
+    public boolean isFrozen() {
+        return isImmutable() || (has_store() && get_store().is_frozen());
+    }
+
 
     // TEXTUSER implementation
 
@@ -774,6 +796,18 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         return type.isSimpleType() || type.getContentType() == SchemaType.SIMPLE_CONTENT;
     }
 
+    /**
+     * Called by a TypeStore before the document is frozen to
+     * compute the value, which is read concurrently afterwards.
+     */
+    public final void freeze_value() {
+        try {
+            check_dated();
+        } catch (XmlValueOutOfRangeException e) {
+            // an invalid value stays dated and throws again, when it is read
+        }
+    }
+
     /**
      * Called by a TypeStore to indicate that the xsi:nil attribute
      * on the containing element (and possibly the text) has been
@@ -1057,6 +1091,7 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         if ((_flags & FLAG_IMMUTABLE) != 0) {
             throw new IllegalStateException();
         }
+        check_frozen();
 
         boolean wasNilled = ((_flags & FLAG_NIL) != 0);
 
@@ -1269,6 +1304,16 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         if ((_flags & FLAG_IMMUTABLE) != 0) {
             throw new IllegalStateException();
         }
+        check_frozen();
+    }
+
+    /**
+     * Throws before a set operation changes the cached value of a frozen document.
+     */
+    private void check_frozen() {
+        if ((_flags & FLAG_STORE) != 0 && get_store().is_frozen()) {
+            throw new IllegalStateException("The document is frozen");
+        }
     }
 
     /**
@@ -1462,19 +1507,27 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             }
             return compute_text(null);
         }
+        // the readers of a frozen document don't lock
+        if (isFrozen()) {
+            return storeStringValue();
+        }
+        synchronized (monitor()) {
+            return storeStringValue();
+        }
+    }
+
+    private String storeStringValue() {
         // Since complex-content types don't have a "natural" string value, we
         // emit the deeply concatenated, tag-removed content of the tag.
-        synchronized (monitor()) {
-            if (_isComplexContent()) {
-                return get_store().fetch_text(TypeStore.WS_PRESERVE);
-            }
+        if (_isComplexContent()) {
+            return get_store().fetch_text(TypeStore.WS_PRESERVE);
+        }
 
-            check_dated();
-            if ((_flags & FLAG_NIL) != 0) {
-                return null;
-            }
-            return compute_text(has_store() ? get_store() : null);
+        check_dated();
+        if ((_flags & FLAG_NIL) != 0) {
+            return null;
         }
+        return compute_text(has_store() ? get_store() : null);
     }
 
     public byte[] getByteArrayValue() {
@@ -2382,6 +2435,11 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
     }
 
     public final boolean valueEquals(XmlObject xmlobj) {
+        // e.g. two values of a frozen document
+        if (preCheck() && (xmlobj.isImmutable() || underlying(xmlobj).preCheck())) {
+            return valueEqualsImpl(xmlobj);
+        }
+
         boolean acquired = false;
         try {
             if (isImmutable()) {
@@ -2476,6 +2534,11 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
             return 2;
         }
 
+        // e.g. two values of a frozen document
+        if (preCheck() && (xmlobj.isImmutable() || underlying(xmlobj).preCheck())) {
+            return compareValueImpl(xmlobj);
+        }
+
         boolean acquired = false;
         try {
             if (isImmutable()) {
@@ -3098,6 +3161,19 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
         return sAttr.getDefaultValue();
     }
 
+    /**
+     * Runs a read of this object, which only locks if the document isn't frozen.
+     * The generated getters read through it, too.
+     */
+    protected final <T> T read(Supplier<T> reader) {
+        if (isFrozen()) {
+            return reader.get();
+        }
+        synchronized (monitor()) {
+            return reader.get();
+        }
+    }
+
     private List<XmlObjectBase> getBaseArray(QName elementName) {
         check_orphaned();
         List<XmlObjectBase> targetList = new java.util.ArrayList<>();
@@ -3113,204 +3189,192 @@ public abstract class XmlObjectBase implements TypeStoreUser, Serializable, XmlO
     }
 
     protected <T> T[] getObjectArray(QName elementName, Function<SimpleValue, T> fun, IntFunction<T[]> arrayCon) {
-        synchronized (monitor()) {
-            return getBaseArray(elementName).stream().map(fun).toArray(arrayCon);
-        }
+        return read(() -> getBaseArray(elementName).stream().map(fun).toArray(arrayCon));
     }
 
     protected <T> T[] getEnumArray(QName elementName, IntFunction<T[]> arrayCon) {
-        synchronized (monitor()) {
-            return getBaseArray(elementName).stream().map(SimpleValue::getEnumValue).toArray(arrayCon);
-        }
+        return read(() -> getBaseArray(elementName).stream().map(SimpleValue::getEnumValue).toArray(arrayCon));
     }
 
     protected boolean[] getBooleanArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             boolean[] result = new boolean[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getBooleanValue();
             }
             return result;
-        }
+        });
     }
 
     protected float[] getFloatArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             float[] result = new float[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getFloatValue();
             }
             return result;
-        }
+        });
     }
 
     protected double[] getDoubleArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
                 .mapToDouble(org.apache.xmlbeans.SimpleValue::getDoubleValue)
                 .toArray();
-        }
+        });
     }
 
     protected byte[] getByteArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             byte[] result = new byte[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getByteValue();
             }
             return result;
-        }
+        });
     }
 
     protected short[] getShortArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             short[] result = new short[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getShortValue();
             }
             return result;
-        }
+        });
     }
 
     protected int[] getIntArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
                 .mapToInt(org.apache.xmlbeans.SimpleValue::getIntValue)
                 .toArray();
-        }
+        });
     }
 
     protected long[] getLongArray(QName elementName) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementName);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
                 .mapToLong(org.apache.xmlbeans.SimpleValue::getLongValue)
                 .toArray();
-        }
+        });
     }
 
     protected <T extends XmlObject> T[] getXmlObjectArray(QName elementName, T[] arrayCon) {
-        synchronized (monitor()) {
-            return getBaseArray(elementName).toArray(arrayCon);
-        }
+        return read(() -> getBaseArray(elementName).toArray(arrayCon));
     }
 
     protected <T> T[] getObjectArray(QNameSet elementSet, Function<SimpleValue, T> fun, IntFunction<T[]> arrayCon) {
-        synchronized (monitor()) {
-            return getBaseArray(elementSet).stream().map(fun).toArray(arrayCon);
-        }
+        return read(() -> getBaseArray(elementSet).stream().map(fun).toArray(arrayCon));
     }
 
     protected <T> T[] getEnumArray(QNameSet elementSet, IntFunction<T[]> arrayCon) {
-        synchronized (monitor()) {
-            return getBaseArray(elementSet).stream().map(SimpleValue::getEnumValue).toArray(arrayCon);
-        }
+        return read(() -> getBaseArray(elementSet).stream().map(SimpleValue::getEnumValue).toArray(arrayCon));
     }
 
     protected boolean[] getBooleanArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             boolean[] result = new boolean[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getBooleanValue();
             }
             return result;
-        }
+        });
     }
 
     protected float[] getFloatArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             float[] result = new float[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getFloatValue();
             }
             return result;
-        }
+        });
     }
 
     protected double[] getDoubleArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
                 .mapToDouble(org.apache.xmlbeans.SimpleValue::getDoubleValue)
                 .toArray();
-        }
+        });
     }
 
     protected byte[] getByteArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             byte[] result = new byte[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getByteValue();
             }
             return result;
-        }
+        });
     }
 
     protected short[] getShortArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             short[] result = new short[targetList.size()];
             for (int i = 0; i < result.length; i++) {
                 result[i] = ((org.apache.xmlbeans.SimpleValue) targetList.get(i)).getShortValue();
             }
             return result;
-        }
+        });
     }
 
     protected int[] getIntArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
                 .mapToInt(org.apache.xmlbeans.SimpleValue::getIntValue)
                 .toArray();
-        }
+        });
     }
 
     protected long[] getLongArray(QNameSet elementSet) {
-        synchronized (monitor()) {
+        return read(() -> {
             List<XmlObjectBase> targetList = getBaseArray(elementSet);
             return targetList.stream()
                 .map(org.apache.xmlbeans.SimpleValue.class::cast)
                 .mapToLong(org.apache.xmlbeans.SimpleValue::getLongValue)
                 .toArray();
-        }
+        });
     }
 
     protected <T extends XmlObject> T[] getXmlObjectArray(QNameSet elementSet, T[] arrayCon) {
-        synchronized (monitor()) {
-            return getBaseArray(elementSet).toArray(arrayCon);
-        }
+        return read(() -> getBaseArray(elementSet).toArray(arrayCon));
     }
 
     protected <T extends XmlObject> T[] xgetArray(QName elementName, IntFunction<T[]> arrayCon) {
-        synchronized (monitor()) {
+        return read(() -> {
             check_orphaned();
             java.util.List<T> targetList = new java.util.ArrayList<>();
             get_store().find_all_element_users(elementName, targetList);
             return targetList.stream().toArray(arrayCon);
-        }
+        });
     }
 
     protected <T extends XmlObject> T[] xgetArray(QNameSet elementSet, IntFunction<T[]> arrayCon) {
-        synchronized (monitor()) {
+        return read(() -> {
             check_orphaned();
             java.util.List<T> targetList = new java.util.ArrayList<>();
             get_store().find_all_element_users(elementSet, targetList);
             return targetList.stream().toArray(arrayCon);
-        }
+        });
     }
 }
@@ -0,0 +1,38 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.values;
+
+import org.apache.xmlbeans.SchemaType;
+
+/**
+ * Creates the instances of a generated impl class without reflection.
+ * <p>
+ * The schema compiler emits one into each impl class as the public static field
+ * {@link #FIELD_NAME}, which the schema type looks up once, when it first creates
+ * an instance. Impl classes of older compilers don't have the field and are still
+ * instantiated through their constructors.
+ */
+@FunctionalInterface
+public interface XmlObjectBaseFactory {
+    String FIELD_NAME = "IMPL_FACTORY";
+
+    /**
+     * @param sType   the type of the instance, which is the impl's type or a restriction of it
+     * @param complex whether the instance has complex content, which is only used by
+     *                the impls of simple types
+     */
+    XmlObjectBase newInstance(SchemaType sType, boolean complex);
+}
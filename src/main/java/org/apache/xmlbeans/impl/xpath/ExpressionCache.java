@@ -0,0 +1,195 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.xpath;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A concurrent, size bounded cache of compiled expressions.
+ * <p>
+ * Lookups don't lock. An expression is compiled once, by the first thread asking for it.
+ * Other threads asking for the same expression wait for that compilation, while threads
+ * asking for other expressions aren't blocked. Failed compilations aren't cached.
+ * <p>
+ * When the cache grows beyond its maximum size, the least recently used entries are evicted.
+ */
+public final class ExpressionCache<K, V> {
+    private final int maxSize;
+    private final ConcurrentHashMap<K, Entry<V>> cache = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+
+    /**
+     * @param maxSize the number of expressions after which the least recently used are evicted
+     */
+    public ExpressionCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the cached expression for the key, or compiles and caches it.
+     *
+     * @param key      the expression and all settings which affect its compilation
+     * @param compiler compiles the expression, the exceptions it throws are passed on to the caller
+     * @return the compiled expression
+     */
+    public V get(K key, Function<? super K, ? extends V> compiler) {
+        Entry<V> entry = cache.get(key);
+        if (entry == null) {
+            Entry<V> newEntry = new Entry<>();
+            entry = cache.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                misses.increment();
+                return compile(key, newEntry, compiler);
+            }
+        }
+
+        hits.increment();
+        entry.lastAccess = System.nanoTime();
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private V compile(K key, Entry<V> entry, Function<? super K, ? extends V> compiler) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = compiler.apply(key);
+        } catch (RuntimeException | Error e) {
+            // waiting threads get the same exception, later calls try again
+            cache.remove(key, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        } finally {
+            compileNanos.add(System.nanoTime() - start);
+        }
+
+        entry.lastAccess = System.nanoTime();
+        entry.complete(value);
+
+        if (cache.size() > maxSize) {
+            evict();
+        }
+        return value;
+    }
+
+    private void evict() {
+        // only one thread needs to evict, the others just carry on
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            int size = cache.size();
+            if (size <= maxSize) {
+                return;
+            }
+
+            // evict a few more entries than necessary, so the cache isn't sorted on every miss
+            int toEvict = size - maxSize + Math.max(maxSize / 10, 1);
+            List<Map.Entry<K, Entry<V>>> entries = new ArrayList<>(cache.entrySet());
+            entries.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+            for (int i = 0; i < toEvict && i < entries.size(); i++) {
+                Map.Entry<K, Entry<V>> e = entries.get(i);
+                if (cache.remove(e.getKey(), e.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of lookups which found a cached or currently compiling expression
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups which needed to compile the expression
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of evicted expressions
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the total time spent compiling expressions in nanoseconds
+     */
+    public long getCompileNanos() {
+        return compileNanos.sum();
+    }
+
+    /**
+     * @return the number of cached expressions
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Removes all cached expressions, the statistics are kept.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public String toString() {
+        return "hits=" + getHits() + " misses=" + getMisses() + " evictions=" + getEvictions() +
+               " compileMillis=" + (getCompileNanos() / 1000000) + " size=" + size();
+    }
+
+    private static final class Entry<V> extends CompletableFuture<V> {
+        volatile long lastAccess = System.nanoTime();
+    }
+}
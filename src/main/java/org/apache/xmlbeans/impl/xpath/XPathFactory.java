@@ -15,6 +15,7 @@
 
 package org.apache.xmlbeans.impl.xpath;
 
+import org.apache.xmlbeans.SystemProperties;
 import org.apache.xmlbeans.XmlCursor;
 import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
@@ -23,18 +24,65 @@ import org.apache.xmlbeans.impl.xpath.saxon.SaxonXPath;
 import org.apache.xmlbeans.impl.xpath.saxon.SaxonXQuery;
 import org.apache.xmlbeans.impl.xpath.xmlbeans.XmlbeansXPath;
 
-import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Objects;
 
 public class XPathFactory {
     private static final int USE_XMLBEANS = 0x01;
     private static final int USE_SAXON = 0x04;
 
-    private static final Map<String, WeakReference<Path>> _xmlbeansPathCache = new WeakHashMap<>();
-    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final int CACHE_SIZE = Integer.parseInt(SystemProperties.getProperty("xmlbean.xpathcachesize", "1024"));
+
+    private static final ExpressionCache<CacheKey, Path> _pathCache = new ExpressionCache<>(CACHE_SIZE);
+    private static final ExpressionCache<CacheKey, SaxonXQuery> _queryCache = new ExpressionCache<>(CACHE_SIZE);
+
+    /**
+     * An expression with the settings which are used for compiling it
+     */
+    private static final class CacheKey {
+        private final String expr;
+        private final String currentVar;
+        private final Object settings;
+        private final int hash;
+
+        CacheKey(String expr, String currentVar, Object settings) {
+            this.expr = expr;
+            this.currentVar = currentVar;
+            this.settings = settings;
+            this.hash = Objects.hash(expr, currentVar, settings);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return hash == other.hash && expr.equals(other.expr) &&
+                   Objects.equals(currentVar, other.currentVar) && Objects.equals(settings, other.settings);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * @return the cache of compiled XPath expressions
+     */
+    public static ExpressionCache<?, Path> getPathCache() {
+        return _pathCache;
+    }
+
+    /**
+     * @return the cache of compiled XQuery expressions
+     */
+    public static ExpressionCache<?, ? extends XQuery> getQueryCache() {
+        return _queryCache;
+    }
 
     static String getCurrentNodeVar(XmlOptions options) {
         String currentNodeVar = "this";
@@ -64,60 +112,36 @@ public class XPathFactory {
                 : options.isXPathUseXmlBeans() ? USE_XMLBEANS
                 : USE_XMLBEANS | USE_SAXON;
 
+        return _pathCache.get(new CacheKey(pathExpr, currentVar, force), key -> compilePath(pathExpr, currentVar, force));
+    }
+
+    private static Path compilePath(String pathExpr, String currentVar, int force) {
         Path path = null;
-        WeakReference<Path> pathWeakRef = null;
         Map<String, String> namespaces = (force & USE_SAXON) != 0 ? new HashMap<>() : null;
-        lock.readLock().lock();
-        try {
-            if ((force & USE_XMLBEANS) != 0) {
-                pathWeakRef = _xmlbeansPathCache.get(pathExpr);
-            }
-            if (pathWeakRef != null) {
-                path = pathWeakRef.get();
-            }
-            if (path != null) {
-                return path;
-            }
-        } finally {
-            lock.readLock().unlock();
+        if ((force & USE_XMLBEANS) != 0) {
+            path = getCompiledPathXmlBeans(pathExpr, currentVar, namespaces);
         }
-        lock.writeLock().lock();
-        try {
+        if (path == null && (force & USE_SAXON) != 0) {
+            path = getCompiledPathSaxon(pathExpr, currentVar, namespaces);
+        }
+        if (path == null) {
+            StringBuilder errMessage = new StringBuilder();
             if ((force & USE_XMLBEANS) != 0) {
-                pathWeakRef = _xmlbeansPathCache.get(pathExpr);
-                if (pathWeakRef != null) {
-                    path = pathWeakRef.get();
-                }
-                if (path == null) {
-                    path = getCompiledPathXmlBeans(pathExpr, currentVar, namespaces);
-                }
+                errMessage.append(" Trying XmlBeans path engine...");
             }
-            if (path == null && (force & USE_SAXON) != 0) {
-                path = getCompiledPathSaxon(pathExpr, currentVar, namespaces);
+            if ((force & USE_SAXON) != 0) {
+                errMessage.append(" Trying Saxon path engine...");
             }
-            if (path == null) {
-                StringBuilder errMessage = new StringBuilder();
-                if ((force & USE_XMLBEANS) != 0) {
-                    errMessage.append(" Trying XmlBeans path engine...");
-                }
-                if ((force & USE_SAXON) != 0) {
-                    errMessage.append(" Trying Saxon path engine...");
-                }
-
-                throw new RuntimeException(errMessage.toString() + " FAILED on " + pathExpr);
-            }
-        } finally {
-            lock.writeLock().unlock();
+
+            throw new RuntimeException(errMessage.toString() + " FAILED on " + pathExpr);
         }
         return path;
     }
 
     private static Path getCompiledPathXmlBeans(String pathExpr, String currentVar, Map<String, String> namespaces) {
         try {
-            Path path = new XmlbeansXPath(pathExpr, currentVar,
+            return new XmlbeansXPath(pathExpr, currentVar,
                 XPath.compileXPath(pathExpr, currentVar, namespaces));
-            _xmlbeansPathCache.put(pathExpr, new WeakReference<>(path));
-            return path;
         } catch (XPath.XPathCompileException ignored) {
             return null;
         }
@@ -159,14 +183,24 @@ public class XPathFactory {
         return getCompiledQuery(queryExpr, options).cursorExecute(c, options);
     }
 
-    public static synchronized XQuery getCompiledQuery(String queryExpr, XmlOptions options) {
+    public static XQuery getCompiledQuery(String queryExpr, XmlOptions options) {
         return getCompiledQuery(queryExpr, XPathFactory.getCurrentNodeVar(options), options);
     }
 
-    static synchronized XQuery getCompiledQuery(String queryExpr, String currentVar, XmlOptions options) {
+    static XQuery getCompiledQuery(String queryExpr, String currentVar, XmlOptions options) {
         assert queryExpr != null;
-        options = XmlOptions.maskNull(options);
+        XmlOptions opts = XmlOptions.maskNull(options);
+
+        // the additional namespaces are declared when compiling the query
+        Map<String, String> nsMap = opts.getLoadAdditionalNamespaces();
+        CacheKey key = new CacheKey(queryExpr, currentVar, (nsMap == null) ? null : new HashMap<>(nsMap));
+
+        // the compiled query is shared, but the execution state is not
+        SaxonXQuery compiled = _queryCache.get(key, k -> compileQuery(queryExpr, currentVar, opts));
+        return new SaxonXQuery(compiled);
+    }
 
+    private static SaxonXQuery compileQuery(String queryExpr, String currentVar, XmlOptions options) {
         //Parse the query via XmlBeans: need to figure out end of prolog
         //in order to bind $this...not good but...
         Map<String, String> boundary = new HashMap<>();
@@ -182,7 +216,7 @@ public class XPathFactory {
         return new SaxonXQuery(queryExpr, currentVar, boundaryVal, options);
     }
 
-    public static synchronized String compileQuery(String queryExpr, XmlOptions options) {
+    public static String compileQuery(String queryExpr, XmlOptions options) {
         getCompiledQuery(queryExpr, options);
         return queryExpr;
     }
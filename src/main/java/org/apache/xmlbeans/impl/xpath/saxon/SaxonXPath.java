@@ -16,7 +16,6 @@
 package org.apache.xmlbeans.impl.xpath.saxon;
 
 import net.sf.saxon.Configuration;
-import net.sf.saxon.dom.DOMNodeWrapper;
 import net.sf.saxon.om.Item;
 import net.sf.saxon.om.NamespaceUri;
 import net.sf.saxon.om.NodeInfo;
@@ -27,6 +26,7 @@ import net.sf.saxon.value.DateTimeValue;
 import net.sf.saxon.value.GDateValue;
 import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.impl.store.Cur;
+import org.apache.xmlbeans.impl.store.SaxonTree;
 import org.apache.xmlbeans.impl.xpath.Path;
 import org.apache.xmlbeans.impl.xpath.XPath;
 import org.apache.xmlbeans.impl.xpath.XPathEngine;
@@ -41,11 +41,31 @@ import java.util.Map;
 
 @SuppressWarnings("WeakerAccess")
 public class SaxonXPath implements Path {
+    /**
+     * The configuration of all compiled paths and queries. A Configuration is thread-safe
+     * and doesn't depend on the schema type loader, as the expressions are evaluated untyped
+     * over the DOM of the store.
+     */
+    private static final Configuration CONFIGURATION = new Configuration();
+
     private final Map<String, String> namespaceMap = new HashMap<>();
     private String path;
     private String contextVar;
     private String defaultNS;
 
+    // compiled on the first select, and shared by all threads afterwards
+    private volatile Compiled compiled;
+
+    private static final class Compiled {
+        final XPathExpression expression;
+        final XPathVariable thisVar;
+
+        Compiled(XPathExpression expression, XPathVariable thisVar) {
+            this.expression = expression;
+            this.thisVar = thisVar;
+        }
+    }
+
     /**
      * Construct given an XPath expression string.
      *
@@ -61,6 +81,10 @@ public class SaxonXPath implements Path {
         this.namespaceMap.remove(XPath._DEFAULT_ELT_NS);
     }
 
+    static Configuration getConfiguration() {
+        return CONFIGURATION;
+    }
+
     public XPathEngine execute(Cur c, XmlOptions options) {
         return new SaxonXPathEngine(this, c);
     }
@@ -89,34 +113,19 @@ public class SaxonXPath implements Path {
     public List selectNodes(Object node) {
         try {
             Node contextNode = (Node) node;
-            Configuration config = new Configuration();
-            IndependentContext sc = new IndependentContext(config);
-            // Declare ns bindings
-            // also see https://saxonica.plan.io/issues/2130
-            // (XPath referencing attribute with namespace fails when using DOM)
-            if (defaultNS != null) {
-                sc.setDefaultElementNamespace(NamespaceUri.of(defaultNS));
-            }
-
-            for (Map.Entry<String, String> entry : namespaceMap.entrySet()) {
-                sc.declareNamespace(entry.getKey(), NamespaceUri.of(entry.getValue()));
-            }
+            Compiled c = compile();
 
-            NodeInfo contextItem = config.unravel(new DOMSource(contextNode));
+            NodeInfo contextItem = wrap(contextNode);
 
-            XPathEvaluator xpe = new XPathEvaluator(config);
-            xpe.setStaticContext(sc);
-            XPathVariable thisVar = sc.declareVariable(NamespaceUri.of(""), contextVar);
-            XPathExpression xpath = xpe.createExpression(path);
-            XPathDynamicContext dc = xpath.createDynamicContext(null);
+            XPathDynamicContext dc = c.expression.createDynamicContext(null);
             dc.setContextItem(contextItem);
-            dc.setVariable(thisVar, contextItem);
+            dc.setVariable(c.thisVar, contextItem);
 
-            List<Item> saxonNodes = xpath.evaluate(dc);
+            List<Item> saxonNodes = c.expression.evaluate(dc);
             List<Object> retNodes = new ArrayList<>(saxonNodes.size());
             for (Item o : saxonNodes) {
-                if (o instanceof DOMNodeWrapper) {
-                    Node n = getUnderlyingNode((DOMNodeWrapper) o);
+                if (o instanceof VirtualNode) {
+                    Node n = getUnderlyingNode((VirtualNode) o);
                     retNodes.add(n);
                 } else if (o instanceof NodeInfo) {
                     retNodes.add(o.getStringValue());
@@ -134,6 +143,42 @@ public class SaxonXPath implements Path {
         }
     }
 
+    /**
+     * Nodes of the documents of the store are navigated natively, fragments and other
+     * nodes through their DOM.
+     */
+    private static NodeInfo wrap(Node node) {
+        SaxonTree tree = SaxonTree.forNode(node, CONFIGURATION);
+        return tree == null ? CONFIGURATION.unravel(new DOMSource(node)) : tree.wrap(node);
+    }
+
+    private Compiled compile() throws TransformerException {
+        Compiled c = compiled;
+        if (c != null) {
+            return c;
+        }
+
+        IndependentContext sc = new IndependentContext(CONFIGURATION);
+        // Declare ns bindings
+        // also see https://saxonica.plan.io/issues/2130
+        // (XPath referencing attribute with namespace fails when using DOM)
+        if (defaultNS != null) {
+            sc.setDefaultElementNamespace(NamespaceUri.of(defaultNS));
+        }
+
+        for (Map.Entry<String, String> entry : namespaceMap.entrySet()) {
+            sc.declareNamespace(entry.getKey(), NamespaceUri.of(entry.getValue()));
+        }
+
+        XPathEvaluator xpe = new XPathEvaluator(CONFIGURATION);
+        xpe.setStaticContext(sc);
+        XPathVariable thisVar = sc.declareVariable(NamespaceUri.of(""), contextVar);
+        // a concurrent first select may compile twice, but both results are equivalent
+        c = new Compiled(xpe.createExpression(path), thisVar);
+        compiled = c;
+        return c;
+    }
+
     public List selectPath(Object node) {
         return selectNodes(node);
     }
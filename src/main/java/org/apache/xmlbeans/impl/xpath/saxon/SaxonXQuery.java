@@ -16,7 +16,6 @@
 package org.apache.xmlbeans.impl.xpath.saxon;
 
 import net.sf.saxon.Configuration;
-import net.sf.saxon.dom.DocumentWrapper;
 import net.sf.saxon.dom.NodeOverNodeInfo;
 import net.sf.saxon.ma.map.HashTrieMap;
 import net.sf.saxon.om.Item;
@@ -28,15 +27,17 @@ import net.sf.saxon.query.StaticQueryContext;
 import net.sf.saxon.query.XQueryExpression;
 import net.sf.saxon.str.StringView;
 import net.sf.saxon.type.BuiltInAtomicType;
+import net.sf.saxon.tree.wrapper.VirtualNode;
 import net.sf.saxon.value.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.store.Cur;
 import org.apache.xmlbeans.impl.store.Cursor;
+import org.apache.xmlbeans.impl.store.DomImpl;
 import org.apache.xmlbeans.impl.store.Locale;
+import org.apache.xmlbeans.impl.store.SaxonTree;
 import org.apache.xmlbeans.impl.xpath.XQuery;
-import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
 import javax.xml.datatype.DatatypeConstants;
@@ -44,6 +45,7 @@ import javax.xml.datatype.Duration;
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.xpath.XPathException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -78,7 +80,7 @@ public class SaxonXQuery implements XQuery {
         _options = xmlOptions;
 
 
-        config = new Configuration();
+        config = SaxonXPath.getConfiguration();
         StaticQueryContext sc = config.newStaticQueryContext();
         Map<String, String> nsMap = xmlOptions.getLoadAdditionalNamespaces();
         if (nsMap != null) {
@@ -98,6 +100,18 @@ public class SaxonXQuery implements XQuery {
     }
 
 
+    /**
+     * Construct a query, which shares the compiled expression of the given query,
+     * but has its own execution state.
+     *
+     * @param compiled the compiled query
+     */
+    public SaxonXQuery(SaxonXQuery compiled) {
+        xquery = compiled.xquery;
+        contextVar = compiled.contextVar;
+        config = compiled.config;
+    }
+
     public XmlObject[] objectExecute(Cur c, XmlOptions options) {
         _version = c.getLocale().version();
         _cur = c.weakCur(this);
@@ -173,11 +187,8 @@ public class SaxonXQuery implements XQuery {
         try {
             Node contextNode = (Node) node;
 
-            Document dom = (contextNode.getNodeType() == Node.DOCUMENT_NODE)
-                ? (Document) contextNode : contextNode.getOwnerDocument();
-
-            DocumentWrapper docWrapper = new DocumentWrapper(dom, null, config);
-            NodeInfo root = docWrapper.wrap(contextNode);
+            SaxonTree tree = SaxonTree.forNode(contextNode, config);
+            NodeInfo root = wrap(tree, contextNode);
 
             NamespaceUri emptyUri = NamespaceUri.of("");
             DynamicQueryContext dc = new DynamicQueryContext(config);
@@ -190,7 +201,7 @@ public class SaxonXQuery implements XQuery {
                     Object value = me.getValue();
                     if (value instanceof XmlTokenSource) {
                         Node paramObject = ((XmlTokenSource) value).getDomNode();
-                        dc.setParameter(key, docWrapper.wrap(paramObject));
+                        dc.setParameter(key, wrap(tree, paramObject));
                     } else {
                         try {
                             dc.setParameter(key, objectToItem(value, config));
@@ -204,7 +215,10 @@ public class SaxonXQuery implements XQuery {
             List<Object> saxonNodes = xquery.evaluate(dc);
             for (ListIterator<Object> it = saxonNodes.listIterator(); it.hasNext(); ) {
                 Object o = it.next();
-                if (o instanceof NodeInfo) {
+                if (o instanceof VirtualNode) {
+                    // a node of the store
+                    it.set(((VirtualNode) o).getRealNode());
+                } else if (o instanceof NodeInfo) {
                     Node n = NodeOverNodeInfo.wrap((NodeInfo) o);
                     it.set(n);
                 }
@@ -216,6 +230,20 @@ public class SaxonXQuery implements XQuery {
     }
 
 
+    /**
+     * Nodes of the document of the context node, or of another document of its locale,
+     * are navigated natively. Fragments, and the nodes of other locales, are wrapped as
+     * DOM, which enters their locale on each access.
+     */
+    private NodeInfo wrap(SaxonTree tree, Node node) {
+        NodeInfo n = tree == null ? null : tree.wrap(node);
+        if (n == null && tree != null && node instanceof DomImpl.Dom && ((DomImpl.Dom) node).locale() == tree.getLocale()) {
+            SaxonTree other = SaxonTree.forNode(node, config);
+            n = other == null ? null : other.wrap(node);
+        }
+        return n != null ? n : config.unravel(new DOMSource(node));
+    }
+
     private static Item objectToItem(Object value, Configuration config) throws XPathException, net.sf.saxon.trans.XPathException {
         if (value == null) {
             return null;
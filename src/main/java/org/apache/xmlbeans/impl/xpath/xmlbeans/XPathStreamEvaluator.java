@@ -0,0 +1,307 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.xpath.xmlbeans;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SimpleValue;
+import org.apache.xmlbeans.XmlAnySimpleType;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.xpath.XPath;
+import org.apache.xmlbeans.impl.xpath.XPathExecutionContext;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates a compiled path in a single forward pass over a {@link XMLStreamReader},
+ * without loading the document into a store.
+ * <p>
+ * Only the matches are built as {@link XmlObject}s, so apart from them the memory
+ * doesn't depend on the size of the document, but only on its depth. The paths
+ * are limited to what {@link XPath#compileXPath} accepts, i.e. child and descendant
+ * steps and attribute tests, but not a trailing <code>//.</code>.
+ * <p>
+ * Matches are passed on, when they have been read completely. So a match, which is
+ * nested in another match, is passed on before the enclosing match.
+ * <p>
+ * An evaluator is not thread-safe, but can be reused for several readers.
+ */
+public class XPathStreamEvaluator extends XPathExecutionContext {
+    private final XPath _xpath;
+    private final SchemaType _type;
+    private final XmlOptions _options;
+
+    // the namespace declarations of the open elements, the counts are per element
+    private final List<String> _nsDecls = new ArrayList<>();
+    private final List<Integer> _nsCounts = new ArrayList<>();
+
+    private final List<Capture> _captures = new ArrayList<>();
+
+    /**
+     * @param xpath the compiled path
+     */
+    public XPathStreamEvaluator(XPath xpath) {
+        this(xpath, null, null);
+    }
+
+    /**
+     * @param xpath   the compiled path
+     * @param type    the type of the matches or null, to return the matches untyped. A typed
+     *                match holds the attributes and content of the matched element, like a
+     *                matched attribute holds its value.
+     * @param options the options for creating the matches
+     */
+    public XPathStreamEvaluator(XPath xpath, SchemaType type, XmlOptions options) {
+        if (xpath.sawDeepDot()) {
+            throw new IllegalArgumentException("Paths ending in //. can't be evaluated on a stream");
+        }
+        _xpath = xpath;
+        _type = type;
+        _options = options;
+    }
+
+    /**
+     * Reads the document or element, which the reader is positioned on, and collects the matches.
+     *
+     * @param reader the reader, which is positioned on the start of a document or an element
+     * @return the matches in the order, in which they ended
+     */
+    public List<XmlObject> evaluate(XMLStreamReader reader) throws XMLStreamException {
+        List<XmlObject> matches = new ArrayList<>();
+        evaluate(reader, matches::add);
+        return matches;
+    }
+
+    /**
+     * Reads the document or element, which the reader is positioned on, and passes on each match.
+     * <p>
+     * The reader is left on the end of the document or the element.
+     *
+     * @param reader  the reader, which is positioned on the start of a document or an element
+     * @param matches receives the matched elements and attributes
+     */
+    public void evaluate(XMLStreamReader reader, Consumer<? super XmlObject> matches) throws XMLStreamException {
+        int event = reader.getEventType();
+        if (event != XMLStreamConstants.START_DOCUMENT && event != XMLStreamConstants.START_ELEMENT) {
+            throw new IllegalStateException("The reader must be positioned on the start of a document or an element");
+        }
+        // a stream, which starts on an element, ends with it
+        boolean fragment = event == XMLStreamConstants.START_ELEMENT;
+
+        init(_xpath);
+        _nsDecls.clear();
+        _nsCounts.clear();
+        _captures.clear();
+
+        // the context node is the document, even if the stream starts with an element
+        if ((start() & HIT) != 0) {
+            beginCapture(0);
+        }
+
+        int depth = 0;
+        // the depth below an element, whose descendants can't match
+        int skip = 0;
+
+        for (; ; event = reader.next()) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    depth++;
+                    pushNamespaces(reader);
+                    QName name = reader.getName();
+
+                    int ret = 0;
+                    if (skip > 0) {
+                        skip++;
+                    } else {
+                        ret = element(name);
+                        if ((ret & DESCEND) == 0) {
+                            skip = 1;
+                        }
+                    }
+
+                    for (Capture c : _captures) {
+                        c.startElement(reader, name, false);
+                    }
+                    if ((ret & HIT) != 0) {
+                        beginCapture(depth).startElement(reader, name, true);
+                    }
+                    if ((ret & ATTRS) != 0) {
+                        for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+                            if (attr(reader.getAttributeName(i))) {
+                                matches.accept(newAttributeMatch(reader.getAttributeValue(i)));
+                            }
+                        }
+                    }
+                    break;
+                }
+
+                case XMLStreamConstants.END_ELEMENT:
+                    for (Capture c : _captures) {
+                        c.cursor.toNextToken();
+                    }
+                    endCaptures(depth, matches);
+
+                    if (skip == 0 || --skip == 0) {
+                        end();
+                    }
+                    popNamespaces();
+                    if (--depth == 0 && fragment) {
+                        endCaptures(0, matches);
+                        return;
+                    }
+                    break;
+
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    if (depth > 0) {
+                        for (Capture c : _captures) {
+                            c.cursor.insertChars(reader.getText());
+                        }
+                    }
+                    break;
+
+                case XMLStreamConstants.COMMENT:
+                    for (Capture c : _captures) {
+                        c.cursor.insertComment(reader.getText());
+                    }
+                    break;
+
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    for (Capture c : _captures) {
+                        c.cursor.insertProcInst(reader.getPITarget(), reader.getPIData());
+                    }
+                    break;
+
+                case XMLStreamConstants.END_DOCUMENT:
+                    endCaptures(0, matches);
+                    return;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    private Capture beginCapture(int depth) {
+        // a typed match holds the attributes and content of the matched element in a fragment of the type
+        XmlObject doc = (_type != null && depth > 0)
+            ? XmlBeans.getContextTypeLoader().newInstance(_type, _options)
+            : XmlObject.Factory.newInstance(_options);
+        XmlCursor cursor = doc.newCursor();
+        cursor.toNextToken();
+        Capture c = new Capture(doc, cursor, depth);
+        _captures.add(c);
+        return c;
+    }
+
+    private void endCaptures(int depth, Consumer<? super XmlObject> matches) {
+        for (int i = _captures.size() - 1; i >= 0; i--) {
+            Capture c = _captures.get(i);
+            if (c.depth == depth) {
+                _captures.remove(i);
+                matches.accept(c.finish());
+            }
+        }
+    }
+
+    private XmlObject newAttributeMatch(String value) {
+        SchemaType type = (_type != null && _type.isSimpleType()) ? _type : XmlAnySimpleType.type;
+        XmlObject o = XmlBeans.getContextTypeLoader().newInstance(type, _options);
+        ((SimpleValue) o).setStringValue(value);
+        return o;
+    }
+
+    private void pushNamespaces(XMLStreamReader reader) {
+        int n = reader.getNamespaceCount();
+        for (int i = 0; i < n; i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            String uri = reader.getNamespaceURI(i);
+            _nsDecls.add(prefix == null ? "" : prefix);
+            _nsDecls.add(uri == null ? "" : uri);
+        }
+        _nsCounts.add(n);
+    }
+
+    private void popNamespaces() {
+        int n = _nsCounts.remove(_nsCounts.size() - 1);
+        for (int i = 0; i < 2 * n; i++) {
+            _nsDecls.remove(_nsDecls.size() - 1);
+        }
+    }
+
+    private final class Capture {
+        final XmlObject doc;
+        final XmlCursor cursor;
+        final int depth;
+
+        Capture(XmlObject doc, XmlCursor cursor, int depth) {
+            this.doc = doc;
+            this.cursor = cursor;
+            this.depth = depth;
+        }
+
+        void startElement(XMLStreamReader reader, QName name, boolean root) {
+            if (!root || _type == null) {
+                cursor.beginElement(name);
+            }
+
+            if (root) {
+                // the root of a fragment needs all namespaces in scope, which can be used by its values,
+                // the innermost declaration of a prefix wins
+                List<String> declared = new ArrayList<>();
+                for (int i = _nsDecls.size() - 2; i >= 0; i -= 2) {
+                    String prefix = _nsDecls.get(i);
+                    if (!declared.contains(prefix)) {
+                        declared.add(prefix);
+                        cursor.insertNamespace(prefix, _nsDecls.get(i + 1));
+                    }
+                }
+            } else {
+                for (int i = 0, n = reader.getNamespaceCount(); i < n; i++) {
+                    String prefix = reader.getNamespacePrefix(i);
+                    String uri = reader.getNamespaceURI(i);
+                    cursor.insertNamespace(prefix == null ? "" : prefix, uri == null ? "" : uri);
+                }
+            }
+
+            for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+                cursor.insertAttributeWithValue(reader.getAttributeName(i), reader.getAttributeValue(i));
+            }
+        }
+
+        XmlObject finish() {
+            cursor.dispose();
+            if (depth == 0 || _type != null) {
+                return doc;
+            }
+
+            try (XmlCursor c = doc.newCursor()) {
+                c.toFirstChild();
+                return c.getObject();
+            }
+        }
+    }
+}
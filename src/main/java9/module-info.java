@@ -20,6 +20,7 @@ module org.apache.xmlbeans {
     requires jdk.xml.dom;
     requires org.apache.logging.log4j;
     requires static ant;
+    requires static java.compiler;
     requires static com.github.javaparser.core;
     requires static Saxon.HE;
 
@@ -18,6 +18,7 @@ package compile.scomp.checkin;
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.XmlOptions.BeanMethod;
 import org.apache.xmlbeans.impl.common.QNameHelper;
+import org.apache.xmlbeans.impl.schema.SchemaTypeSystemCompiler;
 import org.apache.xmlbeans.impl.tool.*;
 import org.apache.xmlbeans.impl.util.FilerImpl;
 import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
@@ -41,6 +42,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static common.Common.SCOMP_CASE_ROOT;
@@ -489,6 +493,98 @@ public class CompilationTests {
         assertTrue(act.contains("* / heck, I'm smart"));
     }
 
+    @Test
+    void parallelCodeGen() throws Exception {
+        deltree(xbeanOutput("compile/scomp/parallel"));
+        File seqSrc = xbeanOutput("compile/scomp/parallel/seq");
+        File parSrc = xbeanOutput("compile/scomp/parallel/par");
+        File classes = xbeanOutput("compile/scomp/parallel/classes");
+
+        SchemaDocument xsd = SchemaDocument.Factory.parse(xbeanCase("pricequote/PriceQuote.xsd"));
+        SchemaTypeSystemCompiler.Parameters compileParams = new SchemaTypeSystemCompiler.Parameters();
+        compileParams.setSchemas(new SchemaDocument.Schema[]{xsd.getSchema()});
+        compileParams.setLinkTo(XmlBeans.getBuiltinTypeSystem());
+        compileParams.setOptions(new XmlOptions());
+        compileParams.setJavaize(true);
+        SchemaTypeSystem sts = SchemaTypeSystemCompiler.compile(compileParams);
+
+        assertTrue(SchemaTypeSystemCompiler.generateTypes(sts, new FilerImpl(classes, seqSrc, null, false, false), new XmlOptions()));
+
+        FilerImpl filer = new FilerImpl(classes, parSrc, null, false, false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            XmlOptions options = new XmlOptions().setCompileExecutor(executor);
+            assertTrue(SchemaTypeSystemCompiler.generateTypes(sts, filer, options));
+        } finally {
+            executor.shutdown();
+        }
+
+        List<File> sources = filer.getSourceFiles();
+        try (Stream<Path> seqFiles = Files.walk(seqSrc.toPath())) {
+            assertEquals(seqFiles.filter(Files::isRegularFile).count(), sources.size());
+        }
+        for (File f : sources) {
+            Path seq = seqSrc.toPath().resolve(parSrc.toPath().relativize(f.toPath()));
+            assertArrayEquals(Files.readAllBytes(seq), Files.readAllBytes(f.toPath()), f.getName());
+        }
+
+        // the in-process compiler
+        sts.save(filer);
+        assertTrue(CodeGenUtil.compile(sources, classes, null, false, null, null, null, null, true, false));
+        try (Stream<Path> classFiles = Files.walk(classes.toPath())) {
+            assertTrue(classFiles.anyMatch(c -> c.toString().endsWith("Impl.class")));
+        }
+    }
+
+    @Test
+    void buildCache() throws Exception {
+        deltree(xbeanOutput("compile/scomp/cache"));
+        File xsd = xbeanOutput("compile/scomp/cache/PriceQuote.xsd");
+        xsd.getParentFile().mkdirs();
+        Files.copy(xbeanCase("pricequote/PriceQuote.xsd").toPath(), xsd.toPath());
+
+        Parameters params = new Parameters();
+        params.setXsdFiles(xsd);
+        params.setCacheDir(xbeanOutput("compile/scomp/cache/cache"));
+
+        // the second build copies the output and the messages of the first
+        List<List<Path>> outputs = new ArrayList<>();
+        List<List<String>> messages = new ArrayList<>();
+        for (String build : new String[]{"miss", "hit"}) {
+            File classesdir = xbeanOutput("compile/scomp/cache/" + build + "/classes");
+            List<XmlError> errors = new ArrayList<>();
+            params.setSrcDir(xbeanOutput("compile/scomp/cache/" + build + "/src"));
+            params.setClassesDir(classesdir);
+            params.setErrorListener(errors);
+            assertTrue(SchemaCompiler.compile(params), "Build failed " + build);
+            try (Stream<Path> files = Files.walk(classesdir.toPath())) {
+                outputs.add(files.map(classesdir.toPath()::relativize).sorted().collect(Collectors.toList()));
+            }
+            messages.add(errors.stream().map(XmlError::toString).collect(Collectors.toList()));
+        }
+        assertEquals(outputs.get(0), outputs.get(1));
+        assertFalse(messages.get(0).isEmpty());
+        assertEquals(messages.get(0), messages.get(1));
+
+        // a changed schema rebuilds the changed types on top of the last build
+        String schema = new String(Files.readAllBytes(xsd.toPath()), StandardCharsets.UTF_8);
+        Files.write(xsd.toPath(), schema.replace("name=\"stock-price\" type=\"xsd:string\"",
+            "name=\"stock-price\" type=\"xsd:decimal\"").getBytes(StandardCharsets.UTF_8));
+        File srcdir = xbeanOutput("compile/scomp/cache/changed/src");
+        File classesdir = xbeanOutput("compile/scomp/cache/changed/classes");
+        params.setSrcDir(srcdir);
+        params.setClassesDir(classesdir);
+        assertTrue(SchemaCompiler.compile(params), "Build failed changed");
+
+        try (Stream<Path> files = Files.walk(classesdir.toPath())) {
+            assertEquals(outputs.get(0), files.map(classesdir.toPath()::relativize).sorted().collect(Collectors.toList()));
+        }
+        try (Stream<Path> files = Files.walk(srcdir.toPath())) {
+            Path stockPrice = files.filter(p -> p.endsWith("StockPriceDocument.java")).findFirst().orElseThrow(AssertionError::new);
+            assertTrue(new String(Files.readAllBytes(stockPrice), StandardCharsets.UTF_8).contains("java.math.BigDecimal"));
+        }
+    }
+
     //TESTENV:
 
     private static void dumpErrors(List<XmlError> errors, PrintWriter out) {
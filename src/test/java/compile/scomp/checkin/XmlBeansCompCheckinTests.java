@@ -17,14 +17,21 @@ package compile.scomp.checkin;
 import compile.scomp.common.mockobj.TestFiler;
 import org.apache.xmlbeans.*;
 import org.apache.xmlbeans.impl.schema.SchemaTypeSystemImpl;
+import org.apache.xmlbeans.impl.tool.XsbDumper;
 import org.hamcrest.MatcherAssert;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static common.Common.OUTPUTROOT;
 import static compile.scomp.common.CompileTestBase.ERR_XSD;
@@ -177,4 +184,72 @@ public class XmlBeansCompCheckinTests {
         sts = XmlBeans.compileXmlBeans(null, null, schemas, null, null, null, null);
         assertNotNull(sts);
     }
+
+    /**
+     * Verify all components of a saved type system can be loaded up front
+     */
+    @Test
+    void test_sts_preload() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        SchemaTypeSystem sts = XmlBeans.compileXmlBeans("preload", null, schemas, null,
+            XmlBeans.getBuiltinTypeSystem(), null, xm_opts);
+
+        File tempDir = new File(OUTPUTROOT, "sts_preload");
+        tempDir.mkdirs();
+        tempDir.deleteOnExit();
+        sts.saveToDirectory(tempDir);
+
+        SchemaTypeLoader loader = XmlBeans.typeLoaderForResource(XmlBeans.resourceLoaderForPath(new File[]{tempDir}));
+        SchemaType aType = loader.findType(new QName("http://baz", "aType"));
+        assertNotNull(aType);
+
+        SchemaTypeSystem loaded = aType.getTypeSystem();
+        SchemaTypeSystem.PreloadResult result = loaded.preload(ForkJoinPool.commonPool());
+        assertTrue(result.getComponentCount() > 0, "Expected unresolved components: " + result);
+        assertNotNull(loaded.findElement(new QName("http://baz", "elName")));
+
+        // everything is resolved by now
+        assertEquals(0, loaded.preload(ForkJoinPool.commonPool()).getComponentCount());
+    }
+
+    /**
+     * Verify a packed type system is saved as a single resource and can be loaded and dumped
+     */
+    @Test
+    void test_sts_packed() throws Exception {
+        XmlObject[] schemas = {XmlObject.Factory.parse(FOR_XSD)};
+        XmlOptions opts = new XmlOptions(xm_opts).setCompilePackedTypesystem();
+        SchemaTypeSystem sts = XmlBeans.compileXmlBeans("packedCompile", null, schemas, null,
+            XmlBeans.getBuiltinTypeSystem(), null, opts);
+
+        File tempDir = new File(OUTPUTROOT, "sts_packed");
+        tempDir.mkdirs();
+        tempDir.deleteOnExit();
+        sts.saveToDirectory(tempDir);
+
+        File systemDir = new File(tempDir, "org/apache/xmlbeans/metadata/system/packedCompile");
+        String[] xsbFiles = systemDir.list();
+        assertNotNull(xsbFiles);
+        assertArrayEquals(new String[]{"packed.xsb"}, xsbFiles);
+        // the pointers are still saved per component
+        assertTrue(new File(tempDir, "org/apache/xmlbeans/metadata/element/http_3A_2F_2Fbaz/elName.xsb").exists());
+
+        SchemaTypeLoader loader = XmlBeans.typeLoaderForResource(XmlBeans.resourceLoaderForPath(new File[]{tempDir}));
+        SchemaGlobalElement elName = loader.findElement(new QName("http://baz", "elName"));
+        assertNotNull(elName);
+        assertEquals(new QName("http://baz", "aType"), elName.getType().getName());
+        assertEquals(1, elName.getType().getAttributeProperties().length);
+        // all components can be decoded from the pack
+        elName.getTypeSystem().resolve();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (InputStream is = new FileInputStream(new File(systemDir, "packed.xsb"));
+             PrintStream ps = new PrintStream(bos, true, "UTF-8")) {
+            XsbDumper.dump(is, "", ps);
+        }
+        String dump = bos.toString("UTF-8");
+        assertTrue(dump.contains("FILETYPE_SCHEMAPACKED"));
+        assertTrue(dump.contains("FILETYPE_SCHEMAINDEX"));
+        assertTrue(dump.contains("FILETYPE_SCHEMATYPE"));
+    }
 }
@@ -16,6 +16,8 @@
 
 package dom.checkin;
 
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
 import org.apache.xmlbeans.XmlOptions;
 import org.apache.xmlbeans.impl.common.DocumentHelper;
 import org.apache.xmlbeans.impl.common.SAXHelper;
@@ -117,6 +119,29 @@ public class ParserTest {
         assertThrows(SAXException.class, () -> reader.parse(is));
     }
 
+    @Test
+    void testPooledXMLReader() throws Exception {
+        String xmlWithDtd = "<!DOCTYPE foo [<!ELEMENT t ANY><!ENTITY xe \"TEST XXE\"> ]>\n<xml>&xe;</xml>";
+        XmlOptions disallow = new XmlOptions();
+        disallow.setDisallowDocTypeDeclaration(true);
+
+        // alternate between reader configurations, so pooled readers are reused with mixed options
+        for (int i = 0; i < 3; i++) {
+            XmlObject xo = XmlObject.Factory.parse(xmlWithDtd);
+            assertEquals("TEST XXE", xo.newCursor().getTextValue());
+            assertThrows(XmlException.class, () -> XmlObject.Factory.parse(xmlWithDtd, disallow));
+            assertThrows(XmlException.class, () -> XmlObject.Factory.parse("<xml>"));
+        }
+
+        // a caller supplied reader is used as-is
+        XmlOptions options = new XmlOptions();
+        options.setLoadUseXMLReader(SAXHelper.newXMLReader(disallow));
+        for (int i = 0; i < 2; i++) {
+            assertThrows(XmlException.class, () -> XmlObject.Factory.parse(xmlWithDtd, options));
+        }
+        assertEquals("x", XmlObject.Factory.parse("<xml>x</xml>", options).newCursor().getTextValue());
+    }
+
     @Test
     void testDocumentBuilder() throws Exception {
         XmlOptions options = new XmlOptions();
@@ -0,0 +1,109 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.SimpleValue;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor.TokenType;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.store.CompactDocument;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CompactDocumentTest {
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:cd' xmlns='urn:cd' elementFormDefault='qualified'>" +
+        "  <xs:element name='item'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='qty' type='xs:int'/><xs:element name='code' type='xs:QName'/>" +
+        "  </xs:sequence><xs:attribute name='id' type='xs:string'/></xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private static final String XML =
+        "<c:items xmlns:c='urn:cd' xmlns:x='urn:x'><!--c-->" +
+        "<c:item id='a'><c:qty>1</c:qty><c:code>x:one</c:code></c:item>" +
+        "<c:item id='b'><c:qty>2</c:qty><c:code>x:two</c:code></c:item>" +
+        "<?pi data?>text &amp; more</c:items>";
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        XmlObject xsd = XmlObject.Factory.parse(XSD);
+        sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    private static CompactDocument parse() throws Exception {
+        return CompactDocument.parse(sts, new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)), null);
+    }
+
+    @Test
+    void navigation() throws Exception {
+        CompactDocument doc = parse();
+        assertEquals(TokenType.INT_STARTDOC, doc.getKind(0));
+
+        int items = doc.getFirstChild(0);
+        assertEquals(new QName("urn:cd", "items"), doc.getName(items));
+        assertEquals(-1, doc.getNextSibling(items));
+
+        int comment = doc.getFirstChild(items);
+        assertEquals(TokenType.INT_COMMENT, doc.getKind(comment));
+        assertEquals("c", doc.getText(comment));
+
+        int item = doc.getNextSibling(comment);
+        assertEquals("a", doc.getAttributeValue(item, new QName("id")));
+        assertEquals("1x:one", doc.getStringValue(item));
+        assertEquals(items, doc.getParent(item));
+
+        int pi = doc.getNextSibling(doc.getNextSibling(item));
+        assertEquals(TokenType.INT_PROCINST, doc.getKind(pi));
+        assertEquals("pi", doc.getName(pi).getLocalPart());
+
+        int text = doc.getNextSibling(pi);
+        assertEquals("text & more", doc.getText(text));
+        assertEquals(-1, doc.getNextSibling(text));
+    }
+
+    @Test
+    void objects() throws Exception {
+        CompactDocument doc = parse();
+        int items = doc.getFirstChild(0);
+        int second = doc.getNextSibling(doc.getNextSibling(doc.getFirstChild(items)));
+
+        XmlObject item = doc.getObject(second);
+        assertSame(item, doc.getObject(second));
+        assertEquals(sts.findDocumentType(new QName("urn:cd", "item")), item.schemaType());
+
+        XmlObject[] qty = item.selectPath("declare namespace c='urn:cd' c:item/c:qty");
+        assertEquals(2, ((SimpleValue) qty[0]).getIntValue());
+
+        // the inherited namespace is declared on the loaded element
+        XmlObject[] code = item.selectPath("declare namespace c='urn:cd' c:item/c:code");
+        assertEquals(new QName("urn:x", "two"), ((SimpleValue) code[0]).getQNameValue());
+
+        XmlObject whole = doc.getObject(0);
+        assertEquals(2, whole.selectPath("declare namespace c='urn:cd' c:items/c:item").length);
+        // the comment and the processing instruction are loaded, too
+        assertEquals(XmlObject.Factory.parse(XML).xmlText(), whole.xmlText());
+    }
+}
@@ -0,0 +1,102 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlErrorCodes;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentModelValidationTest {
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:cm' xmlns='urn:cm' elementFormDefault='qualified'>" +
+        "  <xs:element name='order'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='id' type='xs:int'/>" +
+        "    <xs:choice minOccurs='0' maxOccurs='unbounded'>" +
+        "      <xs:element name='item' type='xs:string'/><xs:element name='note' type='xs:string'/>" +
+        "    </xs:choice>" +
+        "    <xs:element name='total' type='xs:int' minOccurs='1' maxOccurs='3'/>" +
+        "    <xs:element name='address' minOccurs='0'><xs:complexType><xs:all>" +
+        "      <xs:element name='city' type='xs:string'/><xs:element name='zip' type='xs:string' minOccurs='0'/>" +
+        "    </xs:all></xs:complexType></xs:element>" +
+        "  </xs:sequence>" +
+        "  <xs:attribute name='currency' type='xs:string' use='required'/>" +
+        "  <xs:attribute name='priority' type='xs:int'/>" +
+        "  </xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        XmlObject xsd = XmlObject.Factory.parse(XSD);
+        sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    private static List<String> validate(String body) throws Exception {
+        XmlObject doc = sts.parse("<order xmlns='urn:cm' " + body + "</order>", null, null);
+        List<XmlError> errors = new ArrayList<>();
+        doc.validate(new XmlOptions().setErrorListener(errors));
+        return errors.stream().map(XmlError::getErrorCode).collect(Collectors.toList());
+    }
+
+    @Test
+    void validContent() throws Exception {
+        // repeated, so that the states of the automaton are reused
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Collections.emptyList(), validate("currency='EUR'><id>1</id><total>3</total>"));
+            assertEquals(Collections.emptyList(), validate("currency='EUR' priority='1'><id>1</id>" +
+                "<item>a</item><note>b</note><item>c</item><item>d</item><total>3</total><total>4</total>" +
+                "<address><zip>1</zip><city>x</city></address>"));
+        }
+    }
+
+    @Test
+    void invalidContent() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Collections.singletonList(XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$EXPECTED_DIFFERENT_ELEMENT),
+                validate("currency='EUR'><item>a</item><id>1</id><total>3</total>"));
+            assertEquals(Collections.singletonList(XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$MISSING_ELEMENT),
+                validate("currency='EUR'><id>1</id><item>a</item>"));
+            // only the optional address can follow
+            assertEquals(Collections.singletonList(XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$EXPECTED_DIFFERENT_ELEMENT),
+                validate("currency='EUR'><id>1</id><total>1</total><total>2</total><total>3</total><total>4</total>"));
+            assertEquals(Collections.singletonList(XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$MISSING_ELEMENT),
+                validate("currency='EUR'><id>1</id><total>3</total><address><zip>1</zip></address>"));
+        }
+    }
+
+    @Test
+    void attributes() throws Exception {
+        assertEquals(Collections.singletonList(XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$MISSING_REQUIRED_ATTRIBUTE),
+            validate("priority='1'><id>1</id><total>3</total>"));
+
+        List<String> errors = validate("currency='EUR' other='x'><id>1</id><total>3</total>");
+        assertTrue(errors.contains(XmlErrorCodes.ELEM_COMPLEX_TYPE_LOCALLY_VALID$NO_WILDCARD), errors.toString());
+    }
+}
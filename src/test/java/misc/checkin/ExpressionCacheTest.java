@@ -0,0 +1,114 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.xpath.ExpressionCache;
+import org.apache.xmlbeans.impl.xpath.XPathFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExpressionCacheTest {
+
+    @Test
+    void testHitsAndMisses() {
+        ExpressionCache<String, String> cache = new ExpressionCache<>(16);
+        String v1 = cache.get("a", String::toUpperCase);
+        assertEquals("A", v1);
+        assertSame(v1, cache.get("a", k -> "other"));
+        cache.get("b", String::toUpperCase);
+
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testEviction() {
+        ExpressionCache<Integer, Integer> cache = new ExpressionCache<>(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.get(i, k -> k);
+            // keep the first entry hot
+            cache.get(0, k -> -1);
+        }
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.getEvictions() >= 900);
+        assertEquals(0, (int) cache.get(0, k -> -1));
+    }
+
+    @Test
+    void testFailureNotCached() {
+        ExpressionCache<String, String> cache = new ExpressionCache<>(16);
+        assertThrows(IllegalStateException.class, () -> cache.get("a", k -> {
+            throw new IllegalStateException(k);
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("A", cache.get("a", String::toUpperCase));
+    }
+
+    @Test
+    void testConcurrentCompileOnce() throws Exception {
+        ExpressionCache<String, Object> cache = new ExpressionCache<>(16);
+        AtomicInteger compiles = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return cache.get("expr", k -> {
+                        compiles.incrementAndGet();
+                        return new Object();
+                    });
+                }));
+            }
+            start.countDown();
+
+            Object first = results.get(0).get();
+            for (Future<Object> f : results) {
+                assertSame(first, f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, compiles.get());
+        assertEquals(63, cache.getHits());
+    }
+
+    @Test
+    void testFactoryCachesPaths() throws Exception {
+        XmlObject o = XmlObject.Factory.parse("<a><b>1</b><b>2</b></a>");
+        long misses = XPathFactory.getPathCache().getMisses();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(2, o.selectPath("//b").length);
+        }
+        assertTrue(XPathFactory.getPathCache().getMisses() - misses <= 1);
+    }
+}
@@ -0,0 +1,191 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.SimpleValue;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.common.XmlLocale;
+import org.apache.xmlbeans.impl.xb.xsdschema.SchemaDocument;
+import org.apache.xmlbeans.impl.values.XmlObjectBase;
+import org.apache.xmlbeans.impl.xb.xsdschema.TopLevelElement;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrozenDocumentTest {
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:fd' xmlns='urn:fd' elementFormDefault='qualified'>" +
+        "  <xs:element name='orders'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='order' maxOccurs='unbounded'><xs:complexType><xs:sequence>" +
+        "      <xs:element name='qty' type='xs:int'/><xs:element name='note' type='xs:string'/>" +
+        "    </xs:sequence><xs:attribute name='id' type='xs:string'/></xs:complexType></xs:element>" +
+        "  </xs:sequence></xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        XmlObject xsd = XmlObject.Factory.parse(XSD);
+        sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    private static XmlObject parse() throws Exception {
+        StringBuilder sb = new StringBuilder("<orders xmlns='urn:fd'>");
+        for (int i = 0; i < 500; i++) {
+            sb.append("<order id='o").append(i).append("'><qty>").append(i)
+                .append("</qty><note> note ").append(i).append(" </note></order>");
+        }
+        return sts.parse(sb.append("</orders>").toString(), null, null);
+    }
+
+    private static String read(XmlObject doc) {
+        StringBuilder sb = new StringBuilder();
+        long sum = 0;
+        for (XmlObject qty : doc.selectPath("declare namespace f='urn:fd' .//f:qty")) {
+            sum += ((SimpleValue) qty).getIntValue();
+        }
+        sb.append(sum).append('|');
+
+        try (XmlCursor c = doc.newCursor()) {
+            while (c.toNextToken() != XmlCursor.TokenType.ENDDOC) {
+                if (c.isAttr()) {
+                    sb.append(c.getTextValue());
+                } else if (c.isText()) {
+                    sb.append(c.getChars());
+                }
+            }
+        }
+        return sb.append('|').append(doc.xmlText()).toString();
+    }
+
+    @Test
+    void concurrentReads() throws Exception {
+        XmlObject doc = parse();
+        String expected = read(doc);
+
+        doc.freeze();
+        assertTrue(doc.isFrozen());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> read(doc)));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String readSchema(SchemaDocument.Schema schema) {
+        StringBuilder sb = new StringBuilder(schema.getTargetNamespace());
+        for (TopLevelElement element : schema.getElementArray()) {
+            sb.append('|').append(element.getName()).append(element.isSetComplexType());
+        }
+        return sb.append('|').append(schema.xgetElementFormDefault().getStringValue()).toString();
+    }
+
+    @Test
+    void generatedGetters() throws Exception {
+        SchemaDocument.Schema schema = SchemaDocument.Factory.parse(XSD).getSchema();
+        String expected = readSchema(schema);
+
+        schema.freeze();
+        assertTrue(schema.isFrozen());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> readSchema(schema)));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static WeakReference<XmlLocale> readOnce(ExecutorService executor) throws Exception {
+        XmlObject doc = parse();
+        doc.freeze();
+        executor.submit(() -> read(doc)).get();
+        return new WeakReference<>(((XmlObjectBase) doc).getXmlLocale());
+    }
+
+    @Test
+    void collectedAfterPooledRead() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // the pooled thread outlives the document, which it has read
+            WeakReference<XmlLocale> locale = readOnce(executor);
+            for (int i = 0; i < 50 && locale.get() != null; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertNull(locale.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void changes() throws Exception {
+        XmlObject doc = parse();
+        XmlObject[] qty = doc.selectPath("declare namespace f='urn:fd' .//f:qty");
+        doc.freeze();
+
+        assertThrows(IllegalStateException.class, () -> ((SimpleValue) qty[0]).setIntValue(7));
+        assertThrows(IllegalStateException.class, () -> ((SimpleValue) qty[0]).setStringValue("7"));
+        assertEquals(0, ((SimpleValue) qty[0]).getIntValue());
+
+        try (XmlCursor c = qty[1].newCursor()) {
+            c.toFirstContentToken();
+            assertThrows(IllegalStateException.class, () -> c.insertChars("1"));
+        }
+
+        // the copy is modifiable
+        XmlObject copy = doc.copy();
+        assertFalse(copy.isFrozen());
+        XmlObject[] copyQty = copy.selectPath("declare namespace f='urn:fd' .//f:qty");
+        ((SimpleValue) copyQty[0]).setIntValue(7);
+        assertEquals(7, ((SimpleValue) copyQty[0]).getIntValue());
+
+        assertThrows(IllegalStateException.class, () ->
+            XmlObject.Factory.parse("<a/>", new XmlOptions().setUseSameLocale(doc)));
+    }
+}
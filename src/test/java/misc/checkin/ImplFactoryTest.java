@@ -0,0 +1,60 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.values.XmlObjectBaseFactory;
+import org.junit.jupiter.api.Test;
+import org.openuri.xstypes.test.CustomerDocument;
+import org.openuri.xstypes.test.Person;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ImplFactoryTest {
+    private static final String XML =
+        "<customer xmlns='http://openuri.org/xstypes/test' gender='female'>" +
+        "<firstname>Anne</firstname><number>7</number><number>8</number></customer>";
+
+    private static void assertFactory(XmlObject o) throws Exception {
+        XmlObjectBaseFactory factory = (XmlObjectBaseFactory)
+            o.getClass().getDeclaredField(XmlObjectBaseFactory.FIELD_NAME).get(null);
+        assertNotNull(factory);
+        // the factory of a generated type creates its impl
+        assertSame(o.getClass(), factory.newInstance(o.schemaType(), !o.schemaType().isSimpleType()).getClass());
+    }
+
+    @Test
+    void generatedFactories() throws Exception {
+        CustomerDocument doc = CustomerDocument.Factory.parse(XML);
+        Person person = doc.getCustomer();
+
+        assertFactory(doc);
+        assertFactory(person);
+        // an anonymous restriction of a simple type
+        Person.Number number = person.xgetNumberArray(1);
+        assertFactory(number);
+        assertEquals(8, number.getIntValue());
+        assertEquals(Person.Gender.FEMALE, person.getGender());
+
+        // a new value, created with the factory, and set into the store
+        Person.Number created = Person.Number.Factory.newInstance();
+        created.setIntValue(10);
+        person.xsetNumberArray(0, created);
+        assertEquals(10, person.getNumberArray(0));
+    }
+}
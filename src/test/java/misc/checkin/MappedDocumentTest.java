@@ -0,0 +1,102 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.SimpleValue;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.store.MappedDocument;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedDocumentTest {
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:md' xmlns='urn:md' elementFormDefault='qualified'>" +
+        "  <xs:element name='item'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='qty' type='xs:int'/><xs:element name='code' type='xs:QName'/>" +
+        "  </xs:sequence><xs:attribute name='id' type='xs:string'/></xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        XmlObject xsd = XmlObject.Factory.parse(XSD);
+        sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    private static File write(String xml) throws Exception {
+        File file = File.createTempFile("mapped", ".xml");
+        file.deleteOnExit();
+        Files.write(file.toPath(), xml.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    void records() throws Exception {
+        File file = write("<?xml version='1.0' encoding='UTF-8'?>\n<!DOCTYPE items>" +
+            "<items xmlns='urn:md' xmlns:x='urn:x'><!-- <item> -->" +
+            "<item id='a&gt;'><qty>1</qty><code>x:one</code></item>" +
+            "<![CDATA[<item/>]]>" +
+            "<item id='b'/>" +
+            "<item id='c' xmlns:x='urn:y'><qty>3</qty><code>x:three</code></item>" +
+            "</items>");
+
+        try (MappedDocument doc = MappedDocument.open(file, sts, 1, null)) {
+            assertEquals(4, doc.size());
+            assertEquals(new QName("urn:md", "items"), doc.getName(0));
+
+            int first = doc.getFirstChild(0);
+            assertEquals(new QName("urn:md", "item"), doc.getName(first));
+            int second = doc.getNextSibling(first);
+            int third = doc.getNextSibling(second);
+            assertEquals(-1, doc.getNextSibling(third));
+            assertEquals(-1, doc.getFirstChild(first));
+            assertEquals(0, doc.getParent(third));
+
+            XmlObject item = doc.getObject(first);
+            assertEquals(sts.findDocumentType(new QName("urn:md", "item")), item.schemaType());
+            XmlObject[] qty = item.selectPath("declare namespace m='urn:md' m:item/m:qty");
+            assertEquals(1, ((SimpleValue) qty[0]).getIntValue());
+            XmlObject[] code = item.selectPath("declare namespace m='urn:md' m:item/m:code");
+            assertEquals(new QName("urn:x", "one"), ((SimpleValue) code[0]).getQNameValue());
+
+            // the own declaration wins over the inherited one
+            code = doc.getObject(third).selectPath("declare namespace m='urn:md' m:item/m:code");
+            assertEquals(new QName("urn:y", "three"), ((SimpleValue) code[0]).getQNameValue());
+
+            assertEquals(0, doc.getObject(second).selectPath("declare namespace m='urn:md' m:item/m:qty").length);
+        }
+    }
+
+    @Test
+    void errors() throws Exception {
+        assertThrows(XmlException.class, () -> MappedDocument.open(write("<a><b></a>"), sts, 1, null));
+        assertThrows(XmlException.class, () -> MappedDocument.open(write("<a><b/>"), sts, 1, null));
+        assertThrows(XmlException.class, () ->
+            MappedDocument.open(write("<?xml version='1.0' encoding='ISO-8859-1'?><a/>"), sts, 1, null));
+    }
+}
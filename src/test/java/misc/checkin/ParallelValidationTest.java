@@ -0,0 +1,131 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlError;
+import org.apache.xmlbeans.XmlErrorCodes;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelValidationTest {
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:pv' xmlns='urn:pv' xmlns:p='urn:pv' elementFormDefault='qualified'>" +
+        "  <xs:element name='orders'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='header' type='xs:string'/>" +
+        "    <xs:element name='order' maxOccurs='unbounded'><xs:complexType><xs:sequence>" +
+        "      <xs:element name='item' maxOccurs='unbounded'><xs:complexType>" +
+        "        <xs:attribute name='sku' type='xs:string' use='required'/>" +
+        "        <xs:attribute name='qty' type='xs:int'/>" +
+        "      </xs:complexType></xs:element>" +
+        "    </xs:sequence><xs:attribute name='id' type='xs:ID' use='required'/></xs:complexType>" +
+        "    <xs:unique name='uniqueSku'><xs:selector xpath='p:item'/><xs:field xpath='@sku'/></xs:unique>" +
+        "    </xs:element>" +
+        "  </xs:sequence></xs:complexType>" +
+        "  <xs:key name='orderKey'><xs:selector xpath='p:order'/><xs:field xpath='@id'/></xs:key>" +
+        "  </xs:element>" +
+        "</xs:schema>";
+
+    private static SchemaTypeSystem sts;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        XmlObject xsd = XmlObject.Factory.parse(XSD);
+        sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        executor.shutdown();
+    }
+
+    private static String orders(int count, String broken) {
+        StringBuilder sb = new StringBuilder("<p:orders xmlns:p='urn:pv'><p:header>h</p:header>");
+        for (int i = 0; i < count; i++) {
+            if (i == count / 2 && broken != null) {
+                sb.append(broken);
+            }
+            sb.append("<p:order id='o").append(i).append("'>");
+            for (int j = 0; j < 10; j++) {
+                sb.append("<p:item sku='s").append(j).append("' qty='").append(j).append("'/>");
+            }
+            sb.append("</p:order>");
+        }
+        return sb.append("</p:orders>").toString();
+    }
+
+    private static List<String> validate(XmlObject doc, boolean parallel) {
+        List<XmlError> errors = new ArrayList<>();
+        XmlOptions options = new XmlOptions().setErrorListener(errors);
+        if (parallel) {
+            options.setValidateExecutor(executor);
+        }
+        boolean valid = doc.validate(options);
+        assertEquals(errors.isEmpty(), valid);
+        return errors.stream().map(e -> e.getErrorCode() + " " + e.getLine()).collect(Collectors.toList());
+    }
+
+    private static List<String> compare(String xml) throws Exception {
+        XmlObject doc = sts.parse(xml, null, new XmlOptions().setLoadLineNumbers());
+        List<String> sequential = validate(doc, false);
+        assertEquals(sequential, validate(doc, true));
+        return sequential;
+    }
+
+    @Test
+    void validDocument() throws Exception {
+        assertEquals(Collections.emptyList(), compare(orders(5000, null)));
+    }
+
+    @Test
+    void invalidChild() throws Exception {
+        List<String> errors = compare(orders(5000, "<p:order id='x'><p:item qty='a'/><p:item sku='s'/><p:item sku='s'/></p:order>"));
+        assertEquals(3, errors.size(), errors.toString());
+    }
+
+    @Test
+    void constraintsAcrossChildren() throws Exception {
+        // a duplicate ID and key of another order
+        List<String> errors = compare(orders(5000, "<p:order id='o1'><p:item sku='s'/></p:order>"));
+        assertFalse(errors.isEmpty());
+        assertTrue(errors.stream().anyMatch(e -> e.startsWith(XmlErrorCodes.IDENTITY_CONSTRAINT_VALID$DUPLICATE_KEY)), errors.toString());
+    }
+
+    @Test
+    void invalidParent() throws Exception {
+        // the errors of the parent are reported between the errors of the children
+        String xml = orders(5000, "<p:other/><p:order id='x'><p:item/></p:order>");
+        List<String> errors = compare(xml.replace("<p:header>h</p:header>", ""));
+        assertTrue(errors.size() >= 2, errors.toString());
+    }
+}
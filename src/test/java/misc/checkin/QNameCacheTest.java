@@ -0,0 +1,136 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.QNameCache;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QNameCacheTest {
+    private static final String URI = "http://openuri.org/easypo";
+
+    @Test
+    void testQualifiedName() {
+        QNameCache cache = new QNameCache(32);
+
+        QName q1 = cache.getQualifiedName(URI, "po:customer");
+        assertEquals(new QName(URI, "customer", "po"), q1);
+        assertEquals("po", q1.getPrefix());
+        assertSame(q1, cache.getName(URI, "customer", "po"));
+        assertSame(q1, cache.getQualifiedName(URI, "po:customer"));
+
+        QName q2 = cache.getQualifiedName(URI, "customer");
+        assertEquals("", q2.getPrefix());
+        assertNotSame(q1, q2);
+        assertSame(q2, cache.getName(URI, "customer"));
+
+        QName q3 = cache.getQualifiedName(null, "customer");
+        assertEquals("", q3.getNamespaceURI());
+        assertSame(q3, cache.getName("", "customer"));
+    }
+
+    @Test
+    void testCharRangeName() {
+        QNameCache cache = new QNameCache(32);
+        char[] buf = ("xx" + URI + "yy" + "line-item" + "zzpo").toCharArray();
+        int localPos = 4 + URI.length();
+
+        QName q1 = cache.getName(buf, 2, URI.length(), buf, localPos, 9, buf, localPos + 11, 2);
+        assertEquals(new QName(URI, "line-item", "po"), q1);
+        assertEquals("po", q1.getPrefix());
+        assertSame(q1, cache.getName(URI, "line-item", "po"));
+        assertSame(q1, cache.getName(buf, 2, URI.length(), buf, localPos, 9, buf, localPos + 11, 2));
+
+        QName q2 = cache.getName(null, 0, 0, buf, localPos, 4, null, 0, 0);
+        assertSame(q2, cache.getName("", "line"));
+    }
+
+    @Test
+    void testRehash() {
+        QNameCache cache = new QNameCache(16);
+        QName[] names = new QName[1000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = cache.getQualifiedName(URI, "p" + (i % 7) + ":n" + i);
+        }
+        for (int i = 0; i < names.length; i++) {
+            char[] local = ("n" + i).toCharArray();
+            char[] prefix = ("p" + (i % 7)).toCharArray();
+            char[] uri = URI.toCharArray();
+            assertSame(names[i], cache.getName(uri, 0, uri.length, local, 0, local.length, prefix, 0, prefix.length));
+        }
+    }
+
+    @Test
+    void testBoundedSize() {
+        QNameCache cache = new QNameCache(16, 0.7f, 1024);
+        QName hot = cache.getName(URI, "hot");
+        for (int i = 0; i < 100000; i++) {
+            cache.getName(URI, "generated" + i);
+            // frequently used names are promoted and survive the eviction
+            if (i % 100 == 0) {
+                assertSame(hot, cache.getName(URI, "hot"));
+            }
+        }
+        assertTrue(cache.size() <= 2 * 1024 + 16, "cache size " + cache.size());
+        assertEquals(100001, cache.getMisses());
+        assertEquals(1000, cache.getHits());
+    }
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        QNameCache cache = new QNameCache(16);
+        int threads = 8;
+        QName[][] results = new QName[threads][];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int tt = t;
+                futures.add(pool.submit(() -> {
+                    QName[] names = new QName[5000];
+                    for (int i = 0; i < names.length; i++) {
+                        names[i] = cache.getQualifiedName(URI, "p:n" + i);
+                    }
+                    results[tt] = names;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (int t = 1; t < threads; t++) {
+            for (int i = 0; i < results[0].length; i++) {
+                assertSame(results[0][i], results[t][i]);
+            }
+        }
+        assertEquals(5000, cache.getMisses());
+        assertEquals(5000 * (threads - 1), cache.getHits());
+    }
+}
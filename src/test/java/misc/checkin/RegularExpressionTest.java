@@ -15,11 +15,19 @@
 
 package misc.checkin;
 
+import org.apache.xmlbeans.impl.regex.Match;
 import org.apache.xmlbeans.impl.regex.RegularExpression;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RegularExpressionTest {
@@ -31,6 +39,32 @@ public class RegularExpressionTest {
         assertTrue(regex.matches(rnd));
     }
 
+    @Test
+    void testConcurrentMatches() throws Exception {
+        RegularExpression regex = new RegularExpression("(\\d+)-(\\d+)");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int n = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        Match match = new Match();
+                        char[] target = ("order " + n + "-" + i).toCharArray();
+                        assertTrue(regex.matches(target, 0, target.length, match));
+                        assertEquals(String.valueOf(i), match.getCapturedText(2));
+                        assertFalse(regex.matches("order " + n));
+                    }
+                }));
+            }
+            for (Future<?> f : results) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 
     private static final String AB = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     private static final Random rnd = new Random();
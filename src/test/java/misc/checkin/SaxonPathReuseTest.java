@@ -0,0 +1,69 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SaxonPathReuseTest {
+    private static final String PATH =
+        "declare namespace p='urn:p' $this/p:order/p:item[p:price > 10]";
+
+    @Test
+    void sameExpressionOnManyDocuments() throws Exception {
+        XmlOptions options = new XmlOptions().setXPathUseSaxon();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int items = 10 + t;
+                results.add(pool.submit(() -> {
+                    StringBuilder sb = new StringBuilder("<order xmlns='urn:p'>");
+                    for (int i = 0; i < items; i++) {
+                        sb.append("<item><price>").append(i * 2).append("</price></item>");
+                    }
+                    XmlObject doc = XmlObject.Factory.parse(sb.append("</order>").toString());
+
+                    int count = 0;
+                    for (int i = 0; i < 50; i++) {
+                        count = doc.selectPath(PATH, options).length;
+                        try (XmlCursor c = doc.newCursor()) {
+                            c.selectPath(PATH, options);
+                            assertEquals(count, c.getSelectionCount());
+                        }
+                    }
+                    return count;
+                }));
+            }
+            for (int t = 0; t < 4; t++) {
+                // prices 0, 2, ... above 10
+                assertEquals(10 + t - 6, (int) results.get(t).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SaxonTreeTest {
+    private static final XmlOptions SAXON = new XmlOptions().setXPathUseSaxon();
+
+    private static final String XML =
+        "<a xmlns='urn:a' xmlns:p='urn:p' p:x='1' y='2'>lead<b>one</b>mid<!--c--><?pi data?><b p:x='3'>two</b>tail</a>";
+
+    private static String[] select(XmlObject doc, String path) {
+        try (XmlCursor c = doc.newCursor()) {
+            c.selectPath("declare namespace a='urn:a' declare namespace p='urn:p' " + path, SAXON);
+            String[] values = new String[c.getSelectionCount()];
+            for (int i = 0; c.toNextSelection(); i++) {
+                values[i] = c.getTextValue();
+            }
+            return values;
+        }
+    }
+
+    @Test
+    void axes() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(XML);
+
+        assertEquals("lead,mid,tail", String.join(",", select(doc, "$this/a:a/text()")));
+        assertEquals(2, select(doc, "$this/a:a/a:b").length);
+        assertEquals("two", select(doc, "$this//a:b[@p:x = 3]")[0]);
+        assertEquals("1", select(doc, "$this/a:a/@p:x")[0]);
+        // the namespace declarations aren't attributes
+        assertEquals(2, select(doc, "$this/a:a/@*").length);
+        assertEquals("mid", select(doc, "$this//a:b[1]/following-sibling::text()[1]")[0]);
+        assertEquals("one", select(doc, "$this//comment()/preceding-sibling::a:b")[0]);
+        assertEquals("leadonemidtwotail", select(doc, "string($this/a:a)")[0]);
+        assertEquals(1, select(doc, "$this//processing-instruction('pi')").length);
+    }
+
+    @Test
+    void documentOrder() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(XML);
+
+        String[] values = select(doc, "($this//a:b | $this/a:a/text() | $this/a:a/@y)");
+        assertEquals("2,lead,one,mid,two,tail", String.join(",", values));
+    }
+
+    @Test
+    void query() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse(XML);
+
+        XmlObject[] res = doc.execQuery("declare namespace a='urn:a'; $this//a:b[. = 'two']");
+        assertEquals(1, res.length);
+        assertEquals("two", res[0].newCursor().getTextValue());
+    }
+}
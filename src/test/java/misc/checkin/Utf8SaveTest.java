@@ -0,0 +1,74 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package misc.checkin;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Utf8SaveTest {
+    private static String save(XmlObject doc) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        doc.save(bos, new XmlOptions().setSaveOptimizeForSpeed(true));
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String saveToWriter(XmlObject doc) throws Exception {
+        StringWriter w = new StringWriter();
+        doc.save(w, new XmlOptions().setSaveOptimizeForSpeed(true));
+        return w.toString();
+    }
+
+    @Test
+    void sameAsWriter() throws Exception {
+        // ASCII, 2 and 3 byte chars, a surrogate pair and the escaped chars
+        StringBuilder sb = new StringBuilder("<a xmlns='urn:u' att='&quot;&lt;&amp;é'>");
+        for (int i = 0; i < 5000; i++) {
+            sb.append("<b>xé€😀 &lt;&amp;").append(i).append("</b>");
+        }
+        sb.append("<!--").append(new String(new char[3000]).replace('\0', 'c')).append("-->");
+        sb.append("<?pi ").append(new String(new char[3000]).replace('\0', 'p')).append("?>");
+        XmlObject doc = XmlObject.Factory.parse(sb.append("</a>").toString());
+
+        String expected = saveToWriter(doc);
+        assertEquals(expected, save(doc));
+        // with the buffer of the previous save
+        assertEquals(expected, save(doc));
+        assertEquals(doc.xmlText(), XmlObject.Factory.parse(save(doc)).xmlText());
+    }
+
+    @Test
+    void otherEncoding() throws Exception {
+        XmlObject doc = XmlObject.Factory.parse("<a>xé</a>");
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        doc.save(bos, new XmlOptions().setSaveOptimizeForSpeed(true).setCharacterEncoding("ISO-8859-1"));
+        String saved = new String(bos.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertTrue(saved.contains("encoding=\"ISO-8859-1\""), saved);
+        assertEquals(doc.xmlText(), XmlObject.Factory.parse(saved).xmlText());
+
+        bos.reset();
+        doc.save(bos, new XmlOptions().setSaveOptimizeForSpeed(true).setCharacterEncoding("utf-8"));
+        assertEquals(saveToWriter(doc), new String(bos.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,127 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.apache.xmlbeans.impl.regex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegexAutomatonTest {
+    private static final String[] PATTERNS = {
+        "[0-9]{5}(-[0-9]{4})?",
+        "[A-Z]{2}",
+        "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}",
+        "(ab|a)*b", "a{2,4}", "a{3,}", "a{0,2}b", "a{0}b", "(a*)*b", "x?y*z+", "(a|b|)c{1,2}",
+        ".*x.", "\\d+\\.\\d{2}", "\\i\\c*", "[^abc]+", "\\p{Lu}\\p{Ll}*", "[a-z-[aeiou]]+"
+    };
+
+    private static final String ALPHABET = "abcxyzAZ09-._:\n\u00e9\u0416";
+
+    @Test
+    void sameAsInterpreter() {
+        Random rnd = new Random(42);
+        for (String pattern : PATTERNS) {
+            RegularExpression re = new RegularExpression(pattern, "X");
+            RegexAutomaton automaton = RegexAutomaton.compile(re.tokentree);
+            assertNotNull(automaton, pattern);
+
+            for (int i = 0; i < 5000; i++) {
+                String s = randomString(rnd, pattern, i);
+                boolean expected = re.matches(s, 0, s.length(), (Match) null);
+                assertEquals(expected, automaton.match(s) == RegexAutomaton.MATCH, pattern + " / " + s);
+            }
+        }
+    }
+
+    @Test
+    void commonFacets() {
+        RegularExpression zip = new RegularExpression("[0-9]{5}(-[0-9]{4})?", "X");
+        assertTrue(zip.matches("12345"));
+        assertTrue(zip.matches("12345-6789"));
+        assertFalse(zip.matches("12345-"));
+        assertFalse(zip.matches("1234"));
+
+        RegularExpression uuid = new RegularExpression(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}", "X");
+        assertTrue(uuid.matches("123e4567-e89b-12d3-a456-426614174000"));
+        assertFalse(uuid.matches("123e4567-e89b-12d3-a456-42661417400g"));
+    }
+
+    @Test
+    void fallback() {
+        // not in the XML Schema mode
+        assertNull(new RegularExpression("^a+$").getAutomaton());
+
+        // surrogate pairs are left to the interpreter
+        RegularExpression re = new RegularExpression(".+", "X");
+        assertNotNull(re.getAutomaton());
+        assertEquals(RegexAutomaton.UNDECIDED, re.getAutomaton().match("a\uD83D\uDE00"));
+        assertTrue(re.matches("a\uD83D\uDE00"));
+    }
+
+    @Test
+    void concurrentMatches() throws Exception {
+        RegularExpression re = new RegularExpression("[A-Z]{2}[0-9]{2}[A-Z0-9]{11,30}", "X");
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(() -> {
+                    int n = 0;
+                    for (int i = 0; i < 10000; i++) {
+                        if (re.matches("DE" + (10 + i % 90) + "37040044053201300" + (i % 10)) && !re.matches("de00")) {
+                            n++;
+                        }
+                    }
+                    return n;
+                }));
+            }
+            for (Future<Integer> f : results) {
+                assertEquals(10000, (int) f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String randomString(Random rnd, String pattern, int i) {
+        StringBuilder sb = new StringBuilder();
+        if (i % 3 == 0) {
+            // strings near the pattern
+            for (char ch : pattern.toCharArray()) {
+                if (Character.isLetterOrDigit(ch) || ch == '-') {
+                    sb.append(ch);
+                }
+            }
+        } else {
+            for (int j = rnd.nextInt(12); j > 0; j--) {
+                sb.append(ALPHABET.charAt(rnd.nextInt(ALPHABET.length())));
+            }
+        }
+        return sb.toString();
+    }
+}
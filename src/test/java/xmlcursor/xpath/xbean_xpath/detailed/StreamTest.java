@@ -0,0 +1,113 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlcursor.xpath.xbean_xpath.detailed;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlInt;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.xpath.XPath;
+import org.apache.xmlbeans.impl.xpath.xmlbeans.XPathStreamEvaluator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StreamTest {
+    private static final String XML =
+        "<po xmlns=\"http://openuri.org/po\" xmlns:c=\"http://openuri.org/customer\">" +
+        "<c:customer id=\"7\"><c:name>Gladys</c:name></c:customer>" +
+        "<item id=\"1\"><price>10</price><item id=\"2\"><price>20</price></item></item>" +
+        "<item id=\"3\"><price>30</price><!-- note --></item>" +
+        "</po>";
+
+    private static final String NS =
+        "declare namespace p='http://openuri.org/po'; declare namespace c='http://openuri.org/customer'; ";
+
+    private static XMLStreamReader reader(String xml) throws Exception {
+        return XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+    }
+
+    private static List<String> texts(XmlObject[] objs) {
+        List<String> l = new ArrayList<>();
+        for (XmlObject o : objs) {
+            try (XmlCursor c = o.newCursor()) {
+                l.add(c.getTextValue());
+            }
+        }
+        l.sort(null);
+        return l;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "$this/p:po/p:item", "$this//p:item", "$this//p:price", "$this/p:po/c:customer/c:name",
+        "$this//p:item/@id", "$this//@id", "$this/p:po/*", "$this//p:item/p:price"
+    })
+    void sameAsSelectPath(String path) throws Exception {
+        XmlObject[] expected = XmlObject.Factory.parse(XML).selectPath(NS + path);
+
+        XPath xpath = XPath.compileXPath(NS + path, "this");
+        List<XmlObject> actual = new XPathStreamEvaluator(xpath).evaluate(reader(XML));
+
+        assertEquals(texts(expected), texts(actual.toArray(new XmlObject[0])));
+    }
+
+    @Test
+    void typedMatches() throws Exception {
+        XPath xpath = XPath.compileXPath(NS + "$this//p:price", "this");
+        List<XmlObject> actual = new XPathStreamEvaluator(xpath, XmlInt.type, null).evaluate(reader(XML));
+
+        int sum = 0;
+        for (XmlObject o : actual) {
+            assertInstanceOf(XmlInt.class, o);
+            sum += ((XmlInt) o).getIntValue();
+        }
+        assertEquals(60, sum);
+    }
+
+    @Test
+    void startOnElement() throws Exception {
+        XMLStreamReader xsr = reader(XML);
+        while (!(xsr.isStartElement() && xsr.getLocalName().equals("item"))) {
+            xsr.next();
+        }
+
+        XPath xpath = XPath.compileXPath(NS + "$this//p:price", "this");
+        assertEquals(2, new XPathStreamEvaluator(xpath).evaluate(xsr).size());
+        assertEquals(XMLStreamConstants.END_ELEMENT, xsr.getEventType());
+        assertEquals("item", xsr.getLocalName());
+
+        // the reader can be evaluated further
+        xsr.next();
+        assertEquals(1, new XPathStreamEvaluator(xpath).evaluate(xsr).size());
+    }
+
+    @Test
+    void deepDotNotSupported() throws Exception {
+        XPath xpath = XPath.compileXPath(".//.");
+        assertThrows(IllegalArgumentException.class, () -> new XPathStreamEvaluator(xpath));
+    }
+}
@@ -0,0 +1,92 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlobject.detailed;
+
+import com.easypo.XmlLineItemBean;
+import com.easypo.XmlPurchaseOrderDocumentBean;
+import com.easypo.XmlPurchaseOrderDocumentBean.PurchaseOrder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IndexedArrayTest {
+    private static PurchaseOrder newOrder(int items) {
+        XmlPurchaseOrderDocumentBean doc = XmlPurchaseOrderDocumentBean.Factory.newInstance();
+        PurchaseOrder po = doc.addNewPurchaseOrder();
+        po.addNewCustomer().setName("Gladys");
+        for (int i = 0; i < items; i++) {
+            po.addNewLineItem().setDescription("item " + i);
+        }
+        return po;
+    }
+
+    @Test
+    void randomAccess() {
+        PurchaseOrder po = newOrder(500);
+        Random rnd = new Random(42);
+        for (int n = 0; n < 2000; n++) {
+            int i = rnd.nextInt(500);
+            assertEquals("item " + i, po.getLineItemArray(i).getDescription());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> po.getLineItemArray(500));
+    }
+
+    @Test
+    void indexFollowsChanges() {
+        PurchaseOrder po = newOrder(100);
+        assertEquals("item 50", po.getLineItemArray(50).getDescription());
+
+        po.removeLineItem(10);
+        assertEquals(99, po.sizeOfLineItemArray());
+        assertEquals("item 51", po.getLineItemArray(50).getDescription());
+
+        po.insertNewLineItem(20).setDescription("new");
+        assertEquals("new", po.getLineItemArray(20).getDescription());
+        assertEquals("item 50", po.getLineItemArray(50).getDescription());
+
+        // changing values keeps the array
+        for (int i = 0; i < po.sizeOfLineItemArray(); i++) {
+            po.getLineItemArray(i).setDescription("changed " + i);
+        }
+        assertEquals("changed 99", po.getLineItemArray(99).getDescription());
+    }
+
+    @Test
+    void listIterator() {
+        PurchaseOrder po = newOrder(300);
+        int n = 0;
+        for (XmlLineItemBean item : po.getLineItemList()) {
+            assertEquals("item " + n++, item.getDescription());
+        }
+        assertEquals(300, n);
+
+        Iterator<XmlLineItemBean> it = po.getLineItemList().iterator();
+        while (it.hasNext()) {
+            if (it.next().getDescription().endsWith("0")) {
+                it.remove();
+            }
+        }
+        assertEquals(270, po.sizeOfLineItemArray());
+        for (XmlLineItemBean item : po.getLineItemList()) {
+            assertFalse(item.getDescription().endsWith("0"));
+        }
+    }
+}
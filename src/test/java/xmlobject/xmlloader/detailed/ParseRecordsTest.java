@@ -0,0 +1,93 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlobject.xmlloader.detailed;
+
+import com.easypo.XmlLineItemBean;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.junit.jupiter.api.Test;
+import tools.util.JarUtil;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+public class ParseRecordsTest {
+    private static final String PO_NS = "http://openuri.org/easypo";
+
+    @Test
+    void typedRecords() throws Exception {
+        QName lineItem = new QName(PO_NS, "line-item");
+        try (InputStream is = JarUtil.getResourceFromJarasStream("xbean/xmlobject/easypo1.xml");
+             Stream<XmlObject> records = XmlBeans.parseRecords(is, lineItem, XmlLineItemBean.type, null)) {
+            List<XmlObject> items = records.collect(Collectors.toList());
+            assertEquals(3, items.size());
+
+            XmlLineItemBean first = (XmlLineItemBean) items.get(0);
+            assertEquals("Burnham's Celestial Handbook, Vol 1", first.getDescription());
+            assertEquals(new BigDecimal("21.79"), first.getPrice());
+
+            // each record has its own store
+            assertNotSame(items.get(0).monitor(), items.get(1).monitor());
+        }
+    }
+
+    @Test
+    void inScopeNamespaces() throws Exception {
+        String xml =
+            "<feed xmlns='urn:feed' xmlns:x='urn:x'><header/>" +
+            "<record><code>x:a</code></record>" +
+            "<group><record xmlns:x='urn:other'><code>x:b</code></record></group>" +
+            "</feed>";
+
+        XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        try (Stream<XmlObject> records = XmlBeans.parseRecords(xsr, new QName("urn:feed", "record"), null, null)) {
+            List<QName> codes = records.map(ParseRecordsTest::code).collect(Collectors.toList());
+            assertEquals(new QName("urn:x", "a"), codes.get(0));
+            assertEquals(new QName("urn:other", "b"), codes.get(1));
+        }
+    }
+
+    @Test
+    void recordPath() throws Exception {
+        String xml = "<feed><record n='1'/><group><record n='2'/></group><record n='3'/></feed>";
+
+        XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        try (Stream<XmlObject> records = XmlBeans.parseRecords(xsr, "$this/feed/record", null, null)) {
+            assertEquals(2, records.count());
+        }
+    }
+
+    private static QName code(XmlObject record) {
+        try (XmlCursor c = record.newCursor()) {
+            c.toFirstChild();
+            c.toFirstChild();
+            String value = c.getTextValue();
+            int colon = value.indexOf(':');
+            return new QName(c.namespaceForPrefix(value.substring(0, colon)), value.substring(colon + 1));
+        }
+    }
+}
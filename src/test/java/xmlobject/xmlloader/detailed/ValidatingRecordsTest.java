@@ -0,0 +1,129 @@
+/*   Copyright 2004 The Apache Software Foundation
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package xmlobject.xmlloader.detailed;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.validator.ValidatingRecordReader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ValidatingRecordsTest {
+    private static final String NS = "urn:feed";
+
+    private static final String XSD =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='urn:feed' xmlns='urn:feed' elementFormDefault='qualified'>" +
+        "  <xs:element name='feed'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='header' type='xs:string'/>" +
+        "    <xs:element ref='item' maxOccurs='unbounded'/>" +
+        "  </xs:sequence></xs:complexType></xs:element>" +
+        "  <xs:element name='item'><xs:complexType><xs:sequence>" +
+        "    <xs:element name='name' type='xs:string'/>" +
+        "    <xs:element name='price' type='xs:decimal'/>" +
+        "  </xs:sequence><xs:attribute name='id' type='xs:int' use='required'/></xs:complexType></xs:element>" +
+        "</xs:schema>";
+
+    private static SchemaTypeSystem sts;
+
+    @BeforeAll
+    static void compile() throws Exception {
+        XmlObject xsd = XmlObject.Factory.parse(XSD);
+        sts = XmlBeans.compileXsd(new XmlObject[]{xsd}, XmlBeans.getBuiltinTypeSystem(), null);
+    }
+
+    @Test
+    void validRecords() throws Exception {
+        String xml = "<feed xmlns='urn:feed'><header>h</header>" +
+            "<item id='1'><name>a</name><price>1.50</price></item>" +
+            "<item id='2'><name>b</name><price>2</price></item></feed>";
+
+        SchemaType itemType = sts.findDocumentType(new QName(NS, "item"));
+        try (ValidatingRecordReader records = reader(xml)) {
+            int n = 0;
+            while (records.hasNext()) {
+                XmlObject item = records.next();
+                assertSame(itemType, item.schemaType());
+                assertTrue(records.isValid(), records.getErrors().toString());
+                n++;
+            }
+            assertEquals(2, n);
+            assertEquals(0, records.getDocumentErrors().size());
+        }
+    }
+
+    @Test
+    void invalidRecords() throws Exception {
+        String xml = "<feed xmlns='urn:feed'><header>h</header>" +
+            "<item id='1'><name>a</name><price>x</price></item>" +
+            "<item id='2'><name>b</name><price>2</price></item>" +
+            "<item><name>c</name><price>3</price></item></feed>";
+
+        List<Boolean> valid = new ArrayList<>();
+        List<Integer> errors = new ArrayList<>();
+        try (ValidatingRecordReader records = reader(xml)) {
+            while (records.hasNext()) {
+                XmlObject item = records.next();
+                valid.add(records.isValid());
+                errors.add(records.getErrors().size());
+                // the invalid records are loaded all the same
+                try (XmlCursor c = item.newCursor()) {
+                    c.toFirstChild();
+                    c.toFirstChild();
+                    assertEquals("name", c.getName().getLocalPart());
+                }
+            }
+            assertEquals(0, records.getDocumentErrors().size());
+        }
+        assertEquals(Arrays.asList(false, true, false), valid);
+        assertEquals(Arrays.asList(1, 0, 1), errors);
+    }
+
+    @Test
+    void documentErrors() throws Exception {
+        // the footer isn't declared, which is an error of the document
+        String xml = "<feed xmlns='urn:feed'><header>h</header>" +
+            "<item id='1'><name>a</name><price>1</price></item><footer/></feed>";
+
+        try (ValidatingRecordReader records = reader(xml)) {
+            assertTrue(records.hasNext());
+            records.next();
+            assertTrue(records.isValid());
+            assertFalse(records.hasNext());
+            assertFalse(records.getDocumentErrors().isEmpty());
+        }
+    }
+
+    private static ValidatingRecordReader reader(String xml) throws Exception {
+        XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        return new ValidatingRecordReader(sts, xsr, new QName(NS, "item"), null, null);
+    }
+}
@@ -24,6 +24,8 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
         super(sType);
     }
 
+    public static final org.apache.xmlbeans.impl.values.XmlObjectBaseFactory IMPL_FACTORY = (sType, b) -> new RootDocumentImpl(sType);
+
     private static final QName[] PROPERTY_QNAME = {
         new QName("partials", "root"),
     };
@@ -35,12 +37,12 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
      */
     @Override
     public partials.RootDocument.Root getRoot() {
-        synchronized (monitor()) {
+        return read(() -> {
             check_orphaned();
             partials.RootDocument.Root target = null;
             target = (partials.RootDocument.Root)get_store().find_element_user(PROPERTY_QNAME[0], 0);
             return (target == null) ? null : target;
-        }
+        });
     }
 // </GET>
 // <SET>
@@ -80,6 +82,8 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
             super(sType);
         }
 
+        public static final org.apache.xmlbeans.impl.values.XmlObjectBaseFactory IMPL_FACTORY = (sType, b) -> new RootImpl(sType);
+
         private static final QName[] PROPERTY_QNAME = {
             new QName("partials", "single"),
             new QName("partials", "complex"),
@@ -94,12 +98,12 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public java.math.BigDecimal getSingle() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 org.apache.xmlbeans.SimpleValue target = null;
                 target = (org.apache.xmlbeans.SimpleValue)get_store().find_element_user(PROPERTY_QNAME[0], 0);
                 return (target == null) ? null : target.getBigDecimalValue();
-            }
+            });
         }
 // </GET>
 // <XGET>
@@ -109,12 +113,12 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public org.apache.xmlbeans.XmlDecimal xgetSingle() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 org.apache.xmlbeans.XmlDecimal target = null;
                 target = (org.apache.xmlbeans.XmlDecimal)get_store().find_element_user(PROPERTY_QNAME[0], 0);
                 return target;
-            }
+            });
         }
 // </XGET>
 // <IS_NIL>
@@ -124,12 +128,12 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public boolean isNilSingle() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 org.apache.xmlbeans.XmlDecimal target = null;
                 target = (org.apache.xmlbeans.XmlDecimal)get_store().find_element_user(PROPERTY_QNAME[0], 0);
                 return target != null && target.isNil();
-            }
+            });
         }
 // </IS_NIL>
 // <IS_SET>
@@ -139,10 +143,10 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public boolean isSetSingle() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return get_store().count_elements(PROPERTY_QNAME[0]) != 0;
-            }
+            });
         }
 // </IS_SET>
 // <SET>
@@ -219,12 +223,12 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public partials.XmlBeanchen getComplex() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 partials.XmlBeanchen target = null;
                 target = (partials.XmlBeanchen)get_store().find_element_user(PROPERTY_QNAME[1], 0);
                 return (target == null) ? null : target;
-            }
+            });
         }
 // </GET>
 // <IS_SET>
@@ -234,10 +238,10 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public boolean isSetComplex() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return get_store().count_elements(PROPERTY_QNAME[1]) != 0;
-            }
+            });
         }
 // </IS_SET>
 // <SET>
@@ -285,7 +289,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public java.util.List<java.math.BigDecimal> getPrimitiveListList() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return new org.apache.xmlbeans.impl.values.JavaListObject<>(
 // <GET_IDX>
@@ -319,7 +323,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     null
 // </SIZE_OF_ARRAY_ELSE>
                 );
-            }
+            });
         }
 // </GET_LIST>
 // <GET_ARRAY>
@@ -339,7 +343,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public java.math.BigDecimal getPrimitiveListArray(int i) {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 org.apache.xmlbeans.SimpleValue target = null;
                 target = (org.apache.xmlbeans.SimpleValue)get_store().find_element_user(PROPERTY_QNAME[2], i);
@@ -347,7 +351,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     throw new IndexOutOfBoundsException();
                 }
                 return target.getBigDecimalValue();
-            }
+            });
         }
 // </GET_IDX>
 // <XGET_LIST>
@@ -357,7 +361,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public java.util.List<org.apache.xmlbeans.XmlDecimal> xgetPrimitiveListList() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return new org.apache.xmlbeans.impl.values.JavaListXmlObject<>(
 // <XGET_IDX>
@@ -391,7 +395,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     null
 // </SIZE_OF_ARRAY_ELSE>
                 );
-            }
+            });
         }
 // </XGET_LIST>
 // <XGET_ARRAY>
@@ -411,7 +415,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public org.apache.xmlbeans.XmlDecimal xgetPrimitiveListArray(int i) {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 org.apache.xmlbeans.XmlDecimal target = null;
                 target = (org.apache.xmlbeans.XmlDecimal)get_store().find_element_user(PROPERTY_QNAME[2], i);
@@ -419,7 +423,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     throw new IndexOutOfBoundsException();
                 }
                 return target;
-            }
+            });
         }
 // </XGET_IDX>
 // <IS_NIL_IDX>
@@ -429,7 +433,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public boolean isNilPrimitiveListArray(int i) {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 org.apache.xmlbeans.XmlDecimal target = null;
                 target = (org.apache.xmlbeans.XmlDecimal)get_store().find_element_user(PROPERTY_QNAME[2], i);
@@ -437,7 +441,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     throw new IndexOutOfBoundsException();
                 }
                 return target.isNil();
-            }
+            });
         }
 // </IS_NIL_IDX>
 // <SIZE_OF_ARRAY>
@@ -447,10 +451,10 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public int sizeOfPrimitiveListArray() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return get_store().count_elements(PROPERTY_QNAME[2]);
-            }
+            });
         }
 // </SIZE_OF_ARRAY>
 // <SET_ARRAY>
@@ -613,7 +617,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public java.util.List<partials.XmlBeanchen> getComplexListList() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return new org.apache.xmlbeans.impl.values.JavaListXmlObject<>(
 // <GET_IDX>
@@ -647,7 +651,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     null
 // </SIZE_OF_ARRAY_ELSE>
                 );
-            }
+            });
         }
 // </GET_LIST>
 // <GET_ARRAY>
@@ -667,7 +671,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public partials.XmlBeanchen getComplexListArray(int i) {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 partials.XmlBeanchen target = null;
                 target = (partials.XmlBeanchen)get_store().find_element_user(PROPERTY_QNAME[3], i);
@@ -675,7 +679,7 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
                     throw new IndexOutOfBoundsException();
                 }
                 return target;
-            }
+            });
         }
 // </GET_IDX>
 // <SIZE_OF_ARRAY>
@@ -685,10 +689,10 @@ public class RootDocumentImpl extends org.apache.xmlbeans.impl.values.XmlComplex
          */
         @Override
         public int sizeOfComplexListArray() {
-            synchronized (monitor()) {
+            return read(() -> {
                 check_orphaned();
                 return get_store().count_elements(PROPERTY_QNAME[3]);
-            }
+            });
         }
 // </SIZE_OF_ARRAY>
 // <SET_ARRAY>
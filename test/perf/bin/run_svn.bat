@@ -91,3 +91,27 @@ call svn.bat MaxMemUntypedBisLoadSVN memory 64 flavor wide-text
 call svn.bat MaxMemUntypedBisLoadSVN memory 128 flavor wide-text
 call svn.bat MaxMemUntypedBisLoadSVN memory 256 flavor wide-text
 call svn.bat MaxMemUntypedBisLoadSVN memory 512 flavor wide-text
+call svn.bat SmallDocLoadSVN flavor wide-attributes
+call svn.bat SmallDocLoadSVN flavor wide-text
+call svn.bat LoadAllocationSVN memory 1024
+call svn.bat ConcurrentLoadSVN memory 512 flavor wide-attributes
+call svn.bat ConcurrentLoadSVN memory 512 flavor deep-elements
+call svn.bat TypeSystemPreloadSVN memory 512
+call svn.bat PackedTypeSystemLoadSVN memory 512
+call svn.bat TypeSystemFootprintSVN memory 1024
+call svn.bat XPathCacheSVN memory 512
+call svn.bat StreamingXPathSVN memory 1024
+call svn.bat LargeArraySVN memory 512
+call svn.bat PatternFacetSVN memory 512
+call svn.bat RegexContentionSVN memory 512
+call svn.bat POValidateCorpusSVN memory 512
+call svn.bat ValidatingRecordsSVN memory 512
+call svn.bat ParallelValidateSVN memory 512
+call svn.bat FrozenReadSVN memory 512
+call svn.bat CompactHeapSVN memory 8192
+call svn.bat MappedOpenSVN memory 1024
+call svn.bat Utf8SaveSVN memory 512
+call svn.bat SaxonSelectPathSVN memory 512
+call svn.bat SaxonTreeSVN memory 1024
+call svn.bat MaterializeSVN memory 512
+call svn.bat ScompBuildSVN memory 1024
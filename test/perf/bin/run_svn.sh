@@ -91,3 +91,27 @@ sh svn.sh MaxMemUntypedBisLoadSVN memory 64 flavor wide-text
 sh svn.sh MaxMemUntypedBisLoadSVN memory 128 flavor wide-text
 sh svn.sh MaxMemUntypedBisLoadSVN memory 256 flavor wide-text
 sh svn.sh MaxMemUntypedBisLoadSVN memory 512 flavor wide-text
+sh svn.sh SmallDocLoadSVN flavor wide-attributes
+sh svn.sh SmallDocLoadSVN flavor wide-text
+sh svn.sh LoadAllocationSVN memory 1024
+sh svn.sh ConcurrentLoadSVN memory 512 flavor wide-attributes
+sh svn.sh ConcurrentLoadSVN memory 512 flavor deep-elements
+sh svn.sh TypeSystemPreloadSVN memory 512
+sh svn.sh PackedTypeSystemLoadSVN memory 512
+sh svn.sh TypeSystemFootprintSVN memory 1024
+sh svn.sh XPathCacheSVN memory 512
+sh svn.sh StreamingXPathSVN memory 1024
+sh svn.sh LargeArraySVN memory 512
+sh svn.sh PatternFacetSVN memory 512
+sh svn.sh RegexContentionSVN memory 512
+sh svn.sh POValidateCorpusSVN memory 512
+sh svn.sh ValidatingRecordsSVN memory 512
+sh svn.sh ParallelValidateSVN memory 512
+sh svn.sh FrozenReadSVN memory 512
+sh svn.sh CompactHeapSVN memory 8192
+sh svn.sh MappedOpenSVN memory 1024
+sh svn.sh Utf8SaveSVN memory 512
+sh svn.sh SaxonSelectPathSVN memory 512
+sh svn.sh SaxonTreeSVN memory 1024
+sh svn.sh MaterializeSVN memory 512
+sh svn.sh ScompBuildSVN memory 1024
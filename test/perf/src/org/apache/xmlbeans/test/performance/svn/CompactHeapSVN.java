@@ -0,0 +1,79 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.store.CompactDocument;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Reports the retained heap per node of a large document, once loaded into the store
+ * and once into a compact document.
+ * The default of 5000000 records is a document of about 500 MB, which needs a large heap.
+ */
+public class CompactHeapSVN
+{
+  public static void main(String[] args) throws Exception
+  {
+    // about 100 bytes per record
+    int records = (args.length == 0) ? 5000000 : Integer.parseInt(args[0]);
+
+    CompactHeapSVN test = new CompactHeapSVN();
+    byte[] bytes = test.createDocument(records);
+    // each record consists of 2 elements, one attribute and one text
+    long nodes = records * 4L;
+
+    long base = usedHeap();
+    XmlObject xobj = XmlObject.Factory.parse(new ByteArrayInputStream(bytes));
+    long store = usedHeap() - base;
+    int hash = xobj.getDomNode().getFirstChild().getLocalName().length();
+    xobj = null;
+
+    base = usedHeap();
+    CompactDocument doc = CompactDocument.parse(XmlBeans.getContextTypeLoader(), new ByteArrayInputStream(bytes), null);
+    long compact = usedHeap() - base;
+    hash += doc.size();
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" records="+records+" size="+bytes.length+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("store-bytes/node "+(store/nodes)+" compact-bytes/node "+(compact/nodes)+"\n");
+  }
+
+  private static long usedHeap() throws InterruptedException
+  {
+    Runtime rt = Runtime.getRuntime();
+    for(int i=0; i<3; i++){
+      System.gc();
+      Thread.sleep(100);
+    }
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  private byte[] createDocument(int records)
+  {
+    StringBuilder buff = new StringBuilder(records * 100);
+    buff.append("<po:orders xmlns:po=\"http://openuri.org/easypo\">");
+    for(int i=0; i<records; i++){
+      buff.append("<po:line-item po:id=\"").append(i).append("\"><po:description>item ").append(i).append("</po:description></po:line-item>");
+    }
+    buff.append("</po:orders>");
+    return buff.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
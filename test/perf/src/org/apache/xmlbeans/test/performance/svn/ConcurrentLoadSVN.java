@@ -0,0 +1,95 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xmlbeans.QNameCache;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+
+/**
+ * Loads documents concurrently on 1 to 32 threads, to measure the scaling of
+ * the shared load infrastructure (e.g. the QName cache).
+ */
+public class ConcurrentLoadSVN
+{
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = Constants.CURSOR_ITERATIONS;
+    String flavor;
+
+    if(args.length == 0)
+      flavor = "wide-attributes";
+    else
+      flavor = args[0];
+
+    ConcurrentLoadSVN test = new ConcurrentLoadSVN();
+    PerfUtil util = new PerfUtil();
+    final byte[] bytes = util.createXmlDataBytes(flavor, Constants.XML_SIZE);
+
+    // warm up the vm
+    test.run(bytes, 4, iterations);
+
+    for (int threads : THREADS) {
+      long cputime = System.currentTimeMillis();
+      int hash = test.run(bytes, threads, iterations);
+      cputime = System.currentTimeMillis() - cputime;
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" flavor="+flavor+" threads="+threads+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+cputime+" docs/s "+(threads*iterations*1000L/Math.max(cputime, 1))+"\n");
+    }
+
+    QNameCache cache = XmlBeans.getQNameCache();
+    System.out.println("QNameCache hits="+cache.getHits()+" misses="+cache.getMisses()+" size="+cache.size());
+  }
+
+  private int run(final byte[] bytes, int threads, final int iterations) throws Exception
+  {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t=0; t<threads; t++) {
+        results.add(pool.submit(() -> {
+          int hash = 0;
+          for (int i=0; i<iterations; i++) {
+            XmlObject xobj = XmlObject.Factory.parse(new ByteArrayInputStream(bytes));
+            hash += xobj.getDomNode().getFirstChild().getLocalName().length();
+          }
+          return hash;
+        }));
+      }
+
+      int hash = 0;
+      for (Future<Integer> f : results) {
+        hash += f.get();
+      }
+      return hash;
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+import org.openuri.easypo.LineItem;
+import org.openuri.easypo.PurchaseOrderDocument;
+
+/**
+ * Reads a shared purchase order on 1, 2, 4, ... threads, first as a regular document,
+ * which serializes the readers on its lock, and then frozen, and prints the throughput
+ * per thread count.
+ */
+public class FrozenReadSVN
+{
+  private static final int ITERATIONS = 2000;
+
+  public static void main(String[] args) throws Exception
+  {
+    int maxThreads = (args.length == 0) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[0]);
+
+    FrozenReadSVN test = new FrozenReadSVN();
+    PerfUtil util = new PerfUtil();
+    char[] chars = util.fileToChars(Constants.PO_INSTANCE_1);
+    PurchaseOrderDocument poDoc = PurchaseOrderDocument.Factory.parse(new String(chars));
+
+    // warm up the vm
+    test.run(maxThreads, poDoc);
+
+    for (int frozen=0; frozen<2; frozen++) {
+      if (frozen == 1) {
+        poDoc.freeze();
+      }
+
+      for (int threads=1; ; threads=Math.min(2*threads, maxThreads)) {
+        long cputime = System.currentTimeMillis();
+        int hash = test.run(threads, poDoc);
+        cputime = Math.max(1, System.currentTimeMillis() - cputime);
+
+        // print the results
+        System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" frozen="+poDoc.isFrozen()+" threads="+threads+" ");
+        System.out.print("hash "+hash+" ");
+        System.out.print("time "+cputime+" reads/ms "+((long) threads*ITERATIONS/cputime)+"\n");
+
+        if (threads == maxThreads) {
+          break;
+        }
+      }
+    }
+  }
+
+  private int run(int threads, PurchaseOrderDocument poDoc) throws Exception
+  {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t=0; t<threads; t++) {
+        results.add(pool.submit(() -> {
+          int hash = 0;
+          for (int i=0; i<ITERATIONS; i++) {
+            PurchaseOrderDocument.PurchaseOrder po = poDoc.getPurchaseOrder();
+            hash += po.getCustomer().getName().length();
+            for (LineItem item : po.getLineItemArray()) {
+              hash += item.getDescription().length();
+              hash += item.getQuantity();
+            }
+          }
+          return hash;
+        }));
+      }
+      int hash = 0;
+      for (Future<Integer> f : results) {
+        hash += f.get();
+      }
+      return hash;
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
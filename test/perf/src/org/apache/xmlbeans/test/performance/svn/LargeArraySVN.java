@@ -0,0 +1,100 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.util.Random;
+
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.openuri.easypo.LineItem;
+import org.openuri.easypo.PurchaseOrderDocument;
+
+/**
+ * Reads a purchase order with a large number of line items by index, through the
+ * list view and in random order.
+ */
+public class LargeArraySVN
+{
+  public static void main(String[] args) throws Exception
+  {
+    int items = (args.length == 0) ? 50000 : Integer.parseInt(args[0]);
+
+    LargeArraySVN test = new LargeArraySVN();
+    PurchaseOrderDocument.PurchaseOrder po = test.createOrder(items);
+
+    // warm up the vm
+    test.runIndexed(po);
+    test.runList(po);
+    test.runRandom(po);
+
+    int hash = 0;
+    long cputime = System.currentTimeMillis();
+    hash += test.runIndexed(po);
+    long indexed = System.currentTimeMillis() - cputime;
+
+    cputime = System.currentTimeMillis();
+    hash += test.runList(po);
+    long list = System.currentTimeMillis() - cputime;
+
+    cputime = System.currentTimeMillis();
+    hash += test.runRandom(po);
+    long random = System.currentTimeMillis() - cputime;
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" items="+items+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+(indexed+list+random)+" indexed "+indexed+" list "+list+" random "+random+"\n");
+  }
+
+  private int runIndexed(PurchaseOrderDocument.PurchaseOrder po)
+  {
+    int hash = 0;
+    for (int i=0; i<po.sizeOfLineItemArray(); i++) {
+      hash += po.getLineItemArray(i).getQuantity();
+    }
+    return hash;
+  }
+
+  private int runList(PurchaseOrderDocument.PurchaseOrder po)
+  {
+    int hash = 0;
+    for (LineItem item : po.getLineItemList()) {
+      hash += item.getQuantity();
+    }
+    return hash;
+  }
+
+  private int runRandom(PurchaseOrderDocument.PurchaseOrder po)
+  {
+    Random rnd = new Random(42);
+    int size = po.sizeOfLineItemArray();
+    int hash = 0;
+    for (int i=0; i<size; i++) {
+      hash += po.getLineItemArray(rnd.nextInt(size)).getQuantity();
+    }
+    return hash;
+  }
+
+  private PurchaseOrderDocument.PurchaseOrder createOrder(int items)
+  {
+    PurchaseOrderDocument doc = PurchaseOrderDocument.Factory.newInstance();
+    PurchaseOrderDocument.PurchaseOrder po = doc.addNewPurchaseOrder();
+    for (int i=0; i<items; i++) {
+      LineItem item = po.addNewLineItem();
+      item.setDescription("item "+i);
+      item.setQuantity(i % 10);
+    }
+    return po;
+  }
+}
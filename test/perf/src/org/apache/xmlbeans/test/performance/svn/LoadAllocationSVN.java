@@ -0,0 +1,91 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Reports the bytes allocated per element while loading a document with
+ * prefixed element and attribute names, through the SAX and the StAX loader.
+ */
+public class LoadAllocationSVN
+{
+  public static void main(String[] args) throws Exception
+  {
+    // about 100 bytes per record
+    int records = (args.length == 0) ? 1000000 : Integer.parseInt(args[0]);
+
+    LoadAllocationSVN test = new LoadAllocationSVN();
+    byte[] bytes = test.createDocument(records);
+    // each record consists of 2 elements and one attribute
+    long nodes = records * 3L;
+
+    // warm up the vm
+    test.loadSax(bytes);
+    test.loadStax(bytes);
+
+    long sax = allocatedBytes();
+    int hash = test.loadSax(bytes);
+    sax = allocatedBytes() - sax;
+
+    long stax = allocatedBytes();
+    hash += test.loadStax(bytes);
+    stax = allocatedBytes() - stax;
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" records="+records+" size="+bytes.length+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("sax-bytes/node "+(sax/nodes)+" stax-bytes/node "+(stax/nodes)+"\n");
+  }
+
+  private static long allocatedBytes()
+  {
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private byte[] createDocument(int records)
+  {
+    StringBuilder buff = new StringBuilder(records * 100);
+    buff.append("<po:orders xmlns:po=\"http://openuri.org/easypo\">");
+    for(int i=0; i<records; i++){
+      buff.append("<po:line-item po:id=\"").append(i).append("\"><po:description>d</po:description></po:line-item>");
+    }
+    buff.append("</po:orders>");
+    return buff.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private int loadSax(byte[] bytes) throws Exception
+  {
+    XmlObject xobj = XmlObject.Factory.parse(new ByteArrayInputStream(bytes));
+    return xobj.getDomNode().getFirstChild().getLocalName().length();
+  }
+
+  private int loadStax(byte[] bytes) throws Exception
+  {
+    XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(bytes));
+    XmlObject xobj = XmlObject.Factory.parse(xsr);
+    xsr.close();
+    return xobj.getDomNode().getFirstChild().getLocalName().length();
+  }
+}
@@ -0,0 +1,99 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.store.MappedDocument;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Opens a large file, reads 10 of its records and closes it again, once loaded into
+ * the store and once memory-mapped, and prints the time of each.
+ */
+public class MappedOpenSVN
+{
+  private static final int TOUCHED = 10;
+
+  public static void main(String[] args) throws Exception
+  {
+    // about 100 bytes per record
+    int records = (args.length == 0) ? 1000000 : Integer.parseInt(args[0]);
+
+    MappedOpenSVN test = new MappedOpenSVN();
+    File file = test.createDocument(records);
+    try {
+      // warm up the vm
+      test.runMapped(file);
+
+      long cputime = System.currentTimeMillis();
+      int hash = test.runStore(file);
+      long store = System.currentTimeMillis() - cputime;
+
+      cputime = System.currentTimeMillis();
+      hash += test.runMapped(file);
+      long mapped = System.currentTimeMillis() - cputime;
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" records="+records+" size="+file.length()+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("store-time "+store+" mapped-time "+mapped+"\n");
+    } finally {
+      file.delete();
+    }
+  }
+
+  private File createDocument(int records) throws Exception
+  {
+    File file = File.createTempFile("mapped", ".xml");
+    try (BufferedWriter w = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      w.write("<po:orders xmlns:po=\"http://openuri.org/easypo\">");
+      for(int i=0; i<records; i++){
+        w.write("<po:line-item po:id=\""+i+"\"><po:description>item "+i+"</po:description></po:line-item>");
+      }
+      w.write("</po:orders>");
+    }
+    return file;
+  }
+
+  private int runStore(File file) throws Exception
+  {
+    XmlObject doc = XmlObject.Factory.parse(file);
+    XmlObject[] items = doc.selectPath("declare namespace po='http://openuri.org/easypo' po:orders/po:line-item");
+    int hash = 0;
+    for(int i=0; i<TOUCHED; i++){
+      hash += items[i * (items.length / TOUCHED)].xmlText().length();
+    }
+    return hash;
+  }
+
+  private int runMapped(File file) throws Exception
+  {
+    int hash = 0;
+    try (MappedDocument doc = MappedDocument.open(file, XmlBeans.getContextTypeLoader(), 1, null)) {
+      int step = (doc.size() - 1) / TOUCHED;
+      int item = doc.getFirstChild(0);
+      for(int i=0; i<TOUCHED; i++){
+        hash += doc.getObject(item + i * step).xmlText().length();
+      }
+    }
+    return hash;
+  }
+}
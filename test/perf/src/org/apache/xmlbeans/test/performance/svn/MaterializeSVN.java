@@ -0,0 +1,72 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+import org.openuri.easypo.PurchaseOrderDocument;
+
+/**
+ * Materializes the typed objects of all elements and attributes of a purchase order,
+ * which the schema types create with the factories of the generated impl classes,
+ * and prints the objects per ms.
+ */
+public class MaterializeSVN
+{
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = Constants.ITERATIONS;
+    String filename = (args.length == 0) ? Constants.PO_INSTANCE_7 : Constants.XSD_DIR+Constants.P+args[0];
+
+    MaterializeSVN test = new MaterializeSVN();
+    PerfUtil util = new PerfUtil();
+    String xml = new String(util.fileToChars(filename));
+
+    // warm up the vm
+    for(int i=0; i<iterations; i++){
+      test.run(xml);
+    }
+
+    long cputime = System.currentTimeMillis();
+    long hash = 0;
+    for(int i=0; i<iterations; i++){
+      hash += test.run(xml);
+    }
+    cputime = Math.max(1, System.currentTimeMillis() - cputime);
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" filesize="+xml.length()+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+cputime+" objects/ms "+(hash/cputime)+"\n");
+  }
+
+  private int run(String xml) throws Exception
+  {
+    PurchaseOrderDocument doc = PurchaseOrderDocument.Factory.parse(xml);
+    int count = 0;
+    // the objects of a fresh document are created on the first access
+    try (XmlCursor c = doc.newCursor()) {
+      while (!c.toNextToken().isNone()) {
+        if (c.isStart() || c.isAttr()) {
+          XmlObject o = c.getObject();
+          count += (o == null) ? 0 : 1;
+        }
+      }
+    }
+    return count;
+  }
+}
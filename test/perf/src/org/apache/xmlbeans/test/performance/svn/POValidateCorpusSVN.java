@@ -0,0 +1,93 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.CharArrayReader;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+import org.openuri.easypo.PurchaseOrderDocument;
+
+/**
+ * Validates all purchase order instances of the test corpus and reports the
+ * validation throughput in elements per millisecond.
+ */
+public class POValidateCorpusSVN
+{
+  private static final String[] INSTANCES = {
+    Constants.PO_INSTANCE_1, Constants.PO_INSTANCE_2, Constants.PO_INSTANCE_3, Constants.PO_INSTANCE_4,
+    Constants.PO_INSTANCE_5, Constants.PO_INSTANCE_6, Constants.PO_INSTANCE_7
+  };
+
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = Constants.ITERATIONS;
+
+    POValidateCorpusSVN test = new POValidateCorpusSVN();
+    PerfUtil util = new PerfUtil();
+
+    PurchaseOrderDocument[] docs = new PurchaseOrderDocument[INSTANCES.length];
+    long elements = 0;
+    for (int i=0; i<INSTANCES.length; i++) {
+      char[] chars = util.fileToChars(INSTANCES[i]);
+      docs[i] = PurchaseOrderDocument.Factory.parse(new CharArrayReader(chars));
+      elements += test.countElements(docs[i]);
+    }
+
+    // warm up the vm
+    int hash = 0;
+    for (int i=0; i<iterations; i++) {
+      hash += test.run(docs);
+    }
+
+    // run it again for the real measurement
+    hash = 0;
+    long cputime = System.currentTimeMillis();
+    for (int i=0; i<iterations; i++) {
+      hash += test.run(docs);
+    }
+    cputime = Math.max(1, System.currentTimeMillis() - cputime);
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" docs="+docs.length+" elements="+elements+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+cputime+" elements/ms "+(elements*iterations/cputime)+"\n");
+  }
+
+  private int run(PurchaseOrderDocument[] docs)
+  {
+    int hash = 0;
+    for (PurchaseOrderDocument doc : docs) {
+      if (doc.validate()) {
+        hash++;
+      }
+    }
+    return hash;
+  }
+
+  private long countElements(PurchaseOrderDocument doc)
+  {
+    long n = 0;
+    try (XmlCursor c = doc.newCursor()) {
+      while (!c.toNextToken().isNone()) {
+        if (c.isStart()) {
+          n++;
+        }
+      }
+    }
+    return n;
+  }
+}
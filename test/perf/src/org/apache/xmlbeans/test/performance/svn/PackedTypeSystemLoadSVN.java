@@ -0,0 +1,123 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Compares the startup time of a large type system, which is loaded from a jar
+ * and fully resolved, saved with one .xsb resource per component and packed
+ * into a single .xsb resource.
+ */
+public class PackedTypeSystemLoadSVN
+{
+  private static final String NAMESPACE = "http://openuri.org/packed";
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception
+  {
+    int types = (args.length == 0) ? 2000 : Integer.parseInt(args[0]);
+
+    PackedTypeSystemLoadSVN test = new PackedTypeSystemLoadSVN();
+    File perFile = test.createJar(types, false);
+    File packed = test.createJar(types, true);
+
+    // warm up the vm
+    test.run(perFile);
+    test.run(packed);
+
+    long perFileTime = 0;
+    long packedTime = 0;
+    int hash = 0;
+    for (int i=0; i<ROUNDS; i++) {
+      long cputime = System.currentTimeMillis();
+      hash += test.run(perFile);
+      perFileTime += System.currentTimeMillis() - cputime;
+
+      cputime = System.currentTimeMillis();
+      hash += test.run(packed);
+      packedTime += System.currentTimeMillis() - cputime;
+    }
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" types="+types+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+(packedTime/ROUNDS)+" per-file "+(perFileTime/ROUNDS)+"\n");
+  }
+
+  private int run(File jar)
+  {
+    // a new loader starts with an unresolved type system
+    SchemaTypeLoader loader = XmlBeans.typeLoaderForResource(XmlBeans.resourceLoaderForPath(new File[]{jar}));
+    SchemaTypeSystem sts = loader.findType(new QName(NAMESPACE, "T0")).getTypeSystem();
+    sts.resolve();
+    return sts.globalTypes().length;
+  }
+
+  private File createJar(int types, boolean packed) throws Exception
+  {
+    StringBuilder buff = new StringBuilder(types * 300);
+    buff.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:p=\"").append(NAMESPACE)
+        .append("\" targetNamespace=\"").append(NAMESPACE).append("\" elementFormDefault=\"qualified\">");
+    for (int i=0; i<types; i++) {
+      buff.append("<xs:element name=\"e").append(i).append("\" type=\"p:T").append(i).append("\"/>");
+      buff.append("<xs:complexType name=\"T").append(i).append("\"><xs:sequence>");
+      buff.append("<xs:element name=\"name\" type=\"xs:string\"/>");
+      buff.append("<xs:element name=\"description\" type=\"xs:string\" minOccurs=\"0\"/>");
+      buff.append("</xs:sequence><xs:attribute name=\"id\" type=\"xs:int\"/></xs:complexType>");
+    }
+    buff.append("</xs:schema>");
+
+    XmlOptions options = new XmlOptions().setCompilePackedTypesystem(packed);
+    XmlObject schema = XmlObject.Factory.parse(buff.toString());
+    SchemaTypeSystem sts = XmlBeans.compileXmlBeans(null, null, new XmlObject[]{schema}, null,
+        XmlBeans.getBuiltinTypeSystem(), null, options);
+
+    Path dir = Files.createTempDirectory("xsb");
+    sts.saveToDirectory(dir.toFile());
+
+    File jar = File.createTempFile(packed ? "packed" : "per-file", ".jar");
+    jar.deleteOnExit();
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(dir)) {
+      files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+    try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+      for (Path file : files) {
+        zos.putNextEntry(new ZipEntry(dir.relativize(file).toString().replace(File.separatorChar, '/')));
+        Files.copy(file, (OutputStream) zos);
+        zos.closeEntry();
+      }
+    }
+    return jar;
+  }
+}
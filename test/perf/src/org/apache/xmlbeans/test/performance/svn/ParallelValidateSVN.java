@@ -0,0 +1,82 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.CharArrayReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+import org.openuri.easypo.PurchaseOrderDocument;
+
+/**
+ * Validates a large purchase order with and without an executor for its line items,
+ * and reports both times.
+ */
+public class ParallelValidateSVN
+{
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = Constants.ITERATIONS;
+
+    String filename = args.length == 0 ? Constants.PO_INSTANCE_7 : Constants.XSD_DIR+Constants.P+args[0];
+
+    ParallelValidateSVN test = new ParallelValidateSVN();
+    PerfUtil util = new PerfUtil();
+    char[] chars = util.fileToChars(filename);
+    PurchaseOrderDocument podoc = PurchaseOrderDocument.Factory.parse(new CharArrayReader(chars));
+
+    ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    XmlOptions sequential = new XmlOptions();
+    XmlOptions parallel = new XmlOptions().setValidateExecutor(executor);
+
+    try {
+      // warm up the vm
+      int hash = 0;
+      for (int i=0; i<iterations; i++) {
+        hash += test.run(podoc, sequential);
+        hash += test.run(podoc, parallel);
+      }
+
+      // run it again for the real measurement
+      hash = 0;
+      long seqtime = System.currentTimeMillis();
+      for (int i=0; i<iterations; i++) {
+        hash += test.run(podoc, sequential);
+      }
+      seqtime = System.currentTimeMillis() - seqtime;
+
+      long partime = System.currentTimeMillis();
+      for (int i=0; i<iterations; i++) {
+        hash += test.run(podoc, parallel);
+      }
+      partime = System.currentTimeMillis() - partime;
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" filesize="+chars.length+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+partime+" sequential "+seqtime+"\n");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private int run(PurchaseOrderDocument p_podoc, XmlOptions options) throws Exception
+  {
+    return p_podoc.validate(options) ? 17 : 0;
+  }
+}
@@ -0,0 +1,99 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xmlbeans.impl.regex.RegularExpression;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Checks values against shared pattern facets on many threads, like the validation
+ * of several documents in parallel does. Run with -Dxmlbean.regex.automaton=false
+ * to compare with the backtracking interpreter.
+ */
+public class PatternFacetSVN
+{
+  private static final String[][] FACETS = {
+    // pattern, valid value, invalid value
+    {"[0-9]{5}(-[0-9]{4})?", "94107-1234", "9410"},
+    {"[A-Z]{2}", "DE", "De"},
+    {"[A-Z]{3}", "EUR", "EURO"},
+    {"[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}",
+      "123e4567-e89b-12d3-a456-426614174000", "123e4567-e89b-12d3-a456-42661417400"},
+    {"[A-Z]{2}[0-9]{2}[A-Z0-9]{11,30}", "DE89370400440532013000", "DE8937040044"},
+    {"\\d{4}-\\d{2}-\\d{2}(T\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?)?", "2004-01-31T12:00:00.5", "2004-1-31"}
+  };
+  private static final int ITERATIONS = 200000;
+
+  public static void main(String[] args) throws Exception
+  {
+    int threads = (args.length == 0) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[0]);
+
+    PatternFacetSVN test = new PatternFacetSVN();
+    // the expressions are shared by all threads, like the facets of a type system
+    RegularExpression[] regexes = new RegularExpression[FACETS.length];
+    for (int i=0; i<FACETS.length; i++) {
+      regexes[i] = new RegularExpression(FACETS[i][0], "X");
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      // warm up the vm
+      test.run(pool, threads, regexes);
+
+      long cputime = System.currentTimeMillis();
+      int hash = test.run(pool, threads, regexes);
+      cputime = System.currentTimeMillis() - cputime;
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" threads="+threads+
+        " automaton="+System.getProperty("xmlbean.regex.automaton", "true")+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+cputime+"\n");
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private int run(ExecutorService pool, int threads, RegularExpression[] regexes) throws Exception
+  {
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t=0; t<threads; t++) {
+      results.add(pool.submit(() -> {
+        int hash = 0;
+        for (int i=0; i<ITERATIONS; i++) {
+          int f = i % FACETS.length;
+          if (regexes[f].matches(FACETS[f][1])) {
+            hash++;
+          }
+          if (regexes[f].matches(FACETS[f][2])) {
+            hash--;
+          }
+        }
+        return hash;
+      }));
+    }
+    int hash = 0;
+    for (Future<Integer> f : results) {
+      hash += f.get();
+    }
+    return hash;
+  }
+}
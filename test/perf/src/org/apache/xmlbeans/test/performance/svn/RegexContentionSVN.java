@@ -0,0 +1,100 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xmlbeans.impl.regex.RegularExpression;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Matches shared regular expressions with the interpreter on 1, 2, 4, ... threads and
+ * prints the throughput per thread count. Without contention on the match contexts,
+ * the throughput grows with the number of threads up to the number of cores.
+ */
+public class RegexContentionSVN
+{
+  private static final String[][] PATTERNS = {
+    // pattern, options, value
+    {"[0-9]{5}(-[0-9]{4})?", "X", "94107-1234"},
+    {"[A-Z]{2}[0-9]{2}[A-Z0-9]{11,30}", "X", "DE89370400440532013000"},
+    {"[a-z]+@[a-z]+\\.(com|org)", "", "mail to gladys@example.org"},
+    {"(\\d+)-(\\d+)", "", "order 1234-5678"}
+  };
+  private static final int ITERATIONS = 100000;
+
+  public static void main(String[] args) throws Exception
+  {
+    int maxThreads = (args.length == 0) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[0]);
+
+    RegexContentionSVN test = new RegexContentionSVN();
+    RegularExpression[] regexes = new RegularExpression[PATTERNS.length];
+    char[][] values = new char[PATTERNS.length][];
+    for (int i=0; i<PATTERNS.length; i++) {
+      regexes[i] = new RegularExpression(PATTERNS[i][0], PATTERNS[i][1]);
+      values[i] = PATTERNS[i][2].toCharArray();
+    }
+
+    // warm up the vm
+    test.run(maxThreads, regexes, values);
+
+    for (int threads=1; ; threads=Math.min(2*threads, maxThreads)) {
+      long cputime = System.currentTimeMillis();
+      int hash = test.run(threads, regexes, values);
+      cputime = Math.max(1, System.currentTimeMillis() - cputime);
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" threads="+threads+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+cputime+" matches/ms "+((long) threads*ITERATIONS/cputime)+"\n");
+
+      if (threads == maxThreads) {
+        break;
+      }
+    }
+  }
+
+  private int run(int threads, RegularExpression[] regexes, char[][] values) throws Exception
+  {
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t=0; t<threads; t++) {
+        results.add(pool.submit(() -> {
+          int hash = 0;
+          for (int i=0; i<ITERATIONS; i++) {
+            int p = i % regexes.length;
+            // the char[] variant always uses the interpreter
+            if (regexes[p].matches(values[p], 0, values[p].length)) {
+              hash++;
+            }
+          }
+          return hash;
+        }));
+      }
+      int hash = 0;
+      for (Future<Integer> f : results) {
+        hash += f.get();
+      }
+      return hash;
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Runs the same few XPath expressions over and over with the Saxon path engine,
+ * and prints the time per select.
+ */
+public class SaxonSelectPathSVN
+{
+  private static final String[] PATHS = {
+    "//line-item[price > 10]", "$this/purchase-order/customer/name", "count(//line-item)",
+    "//line-item[last()]/description"
+  };
+
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = (args.length == 0) ? Constants.ITERATIONS : Integer.parseInt(args[0]);
+
+    SaxonSelectPathSVN test = new SaxonSelectPathSVN();
+    XmlObject doc = XmlObject.Factory.parse(test.createDoc(20));
+    XmlOptions options = new XmlOptions().setXPathUseSaxon();
+
+    // warm up the vm
+    test.run(doc, options, iterations);
+
+    long cputime = System.currentTimeMillis();
+    int hash = test.run(doc, options, iterations);
+    cputime = System.currentTimeMillis() - cputime;
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" iterations="+iterations+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+cputime+" us/select "+(cputime*1000/iterations)+"\n");
+  }
+
+  private int run(XmlObject doc, XmlOptions options, int iterations)
+  {
+    int hash = 0;
+    for (int i=0; i<iterations; i++) {
+      hash += doc.selectPath(PATHS[i % PATHS.length], options).length;
+    }
+    return hash;
+  }
+
+  private String createDoc(int items)
+  {
+    StringBuilder buff = new StringBuilder();
+    buff.append("<purchase-order><customer><name>Gladys Kravitz</name><address>Anytown, PA</address></customer>");
+    for (int i=0; i<items; i++) {
+      buff.append("<line-item><description>item ").append(i).append("</description>");
+      buff.append("<price>").append(i).append(".99</price><quantity>1</quantity></line-item>");
+    }
+    buff.append("</purchase-order>");
+    return buff.toString();
+  }
+}
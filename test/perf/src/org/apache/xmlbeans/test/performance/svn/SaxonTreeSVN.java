@@ -0,0 +1,114 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.util.List;
+
+import net.sf.saxon.Configuration;
+import net.sf.saxon.dom.DocumentWrapper;
+import net.sf.saxon.om.Item;
+import net.sf.saxon.sxpath.XPathEvaluator;
+import net.sf.saxon.sxpath.XPathExpression;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.w3c.dom.Document;
+
+/**
+ * Runs an XPath and an XQuery with the Saxon engine on a large document, which navigates
+ * the store natively, and the same XPath with Saxon over the DOM of the store, and prints
+ * the time of each.
+ */
+public class SaxonTreeSVN
+{
+  private static final String PATH = "//line-item[price > 500]/description";
+  private static final String QUERY = "for $i in //line-item where $i/quantity = 3 return $i/price";
+  private static final int ITERATIONS = 20;
+
+  public static void main(String[] args) throws Exception
+  {
+    int items = (args.length == 0) ? 100000 : Integer.parseInt(args[0]);
+
+    SaxonTreeSVN test = new SaxonTreeSVN();
+    XmlObject doc = XmlObject.Factory.parse(test.createDoc(items));
+    XmlOptions options = new XmlOptions().setXPathUseSaxon();
+
+    Configuration config = new Configuration();
+    XPathExpression expr = new XPathEvaluator(config).createExpression(PATH);
+
+    // warm up the vm
+    test.runPath(doc, options);
+    test.runQuery(doc);
+    test.runDom(doc, config, expr);
+
+    long cputime = System.currentTimeMillis();
+    int hash = test.runPath(doc, options);
+    long path = System.currentTimeMillis() - cputime;
+
+    cputime = System.currentTimeMillis();
+    hash += test.runQuery(doc);
+    long query = System.currentTimeMillis() - cputime;
+
+    cputime = System.currentTimeMillis();
+    hash += test.runDom(doc, config, expr);
+    long dom = System.currentTimeMillis() - cputime;
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" items="+items+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("path-time "+path+" query-time "+query+" dom-path-time "+dom+"\n");
+  }
+
+  private int runPath(XmlObject doc, XmlOptions options)
+  {
+    int hash = 0;
+    for (int i=0; i<ITERATIONS; i++) {
+      hash += doc.selectPath(PATH, options).length;
+    }
+    return hash;
+  }
+
+  private int runQuery(XmlObject doc)
+  {
+    int hash = 0;
+    for (int i=0; i<ITERATIONS; i++) {
+      hash += doc.execQuery(QUERY).length;
+    }
+    return hash;
+  }
+
+  private int runDom(XmlObject doc, Configuration config, XPathExpression expr) throws Exception
+  {
+    int hash = 0;
+    for (int i=0; i<ITERATIONS; i++) {
+      DocumentWrapper wrapper = new DocumentWrapper((Document) doc.getDomNode(), null, config);
+      List<Item> items = expr.evaluate(expr.createDynamicContext(wrapper.getRootNode()));
+      hash += items.size();
+    }
+    return hash;
+  }
+
+  private String createDoc(int items)
+  {
+    StringBuilder buff = new StringBuilder();
+    buff.append("<purchase-order><customer><name>Gladys Kravitz</name><address>Anytown, PA</address></customer>");
+    for (int i=0; i<items; i++) {
+      buff.append("<line-item id=\"").append(i).append("\"><description>item ").append(i).append("</description>");
+      buff.append("<price>").append(i % 1000).append(".99</price><quantity>").append(i % 5).append("</quantity></line-item>");
+    }
+    buff.append("</purchase-order>");
+    return buff.toString();
+  }
+}
@@ -0,0 +1,169 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.impl.schema.SchemaTypeSystemCompiler;
+import org.apache.xmlbeans.impl.tool.Parameters;
+import org.apache.xmlbeans.impl.tool.SchemaCompiler;
+import org.apache.xmlbeans.impl.util.FilerImpl;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Measures the wall-clock time of building a large schema, which is the build of scomp
+ * and of the maven plugin. The source generation runs sequentially and in parallel,
+ * the whole build compiles with a forked javac and with the in-process compiler.
+ * With the build cache, the build runs without a change and with a change of one type.
+ */
+public class ScompBuildSVN
+{
+  private static final String NAMESPACE = "http://openuri.org/scomp";
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args) throws Exception
+  {
+    int types = (args.length == 0) ? 1000 : Integer.parseInt(args[0]);
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    ScompBuildSVN test = new ScompBuildSVN();
+    File dir = Files.createTempDirectory("scomp").toFile();
+    File xsd = new File(dir, "large.xsd");
+    String schema = test.createSchema(types);
+    Files.write(xsd.toPath(), schema.getBytes(StandardCharsets.UTF_8));
+    SchemaTypeSystem sts = XmlBeans.compileXsd(new XmlObject[]{XmlObject.Factory.parse(schema)}, XmlBeans.getBuiltinTypeSystem(), null);
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      // warm up the vm
+      test.generate(sts, new File(dir, "warmup"), null);
+      test.generate(sts, new File(dir, "warmup"), pool);
+
+      long sequential = 0;
+      long parallel = 0;
+      long hash = 0;
+      for (int i=0; i<ROUNDS; i++) {
+        long cputime = System.currentTimeMillis();
+        hash += test.generate(sts, new File(dir, "seq"+i), null);
+        sequential += System.currentTimeMillis() - cputime;
+
+        cputime = System.currentTimeMillis();
+        hash += test.generate(sts, new File(dir, "par"+i), pool);
+        parallel += System.currentTimeMillis() - cputime;
+      }
+
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" generate types="+types+" threads="+threads+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+(parallel/ROUNDS)+" sequential "+(sequential/ROUNDS)+"\n");
+    } finally {
+      pool.shutdown();
+    }
+
+    long forked = 0;
+    long inProcess = 0;
+    long hash = 0;
+    for (int i=0; i<ROUNDS; i++) {
+      long cputime = System.currentTimeMillis();
+      hash += test.build(xsd, new File(dir, "fork"+i), "javac", null);
+      forked += System.currentTimeMillis() - cputime;
+
+      cputime = System.currentTimeMillis();
+      hash += test.build(xsd, new File(dir, "build"+i), null, null);
+      inProcess += System.currentTimeMillis() - cputime;
+    }
+
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" build types="+types+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+(inProcess/ROUNDS)+" forked "+(forked/ROUNDS)+"\n");
+
+    // the first build fills the cache
+    File cache = new File(dir, "cache");
+    test.build(xsd, new File(dir, "cached"), null, cache);
+
+    long unchanged = 0;
+    long changed = 0;
+    hash = 0;
+    for (int i=0; i<ROUNDS; i++) {
+      long cputime = System.currentTimeMillis();
+      hash += test.build(xsd, new File(dir, "unchanged"+i), null, cache);
+      unchanged += System.currentTimeMillis() - cputime;
+
+      // a different type of the name element of one type
+      Files.write(xsd.toPath(), schema.replace("<xs:complexType name=\"T"+i+"\"><xs:sequence><xs:element name=\"name\" type=\"xs:string\"/>",
+          "<xs:complexType name=\"T"+i+"\"><xs:sequence><xs:element name=\"name\" type=\"xs:int\"/>").getBytes(StandardCharsets.UTF_8));
+      cputime = System.currentTimeMillis();
+      hash += test.build(xsd, new File(dir, "changed"+i), null, cache);
+      changed += System.currentTimeMillis() - cputime;
+      Files.write(xsd.toPath(), schema.getBytes(StandardCharsets.UTF_8));
+    }
+
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" cache types="+types+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+(unchanged/ROUNDS)+" changed "+(changed/ROUNDS)+"\n");
+  }
+
+  private int generate(SchemaTypeSystem sts, File dir, ExecutorService pool)
+  {
+    FilerImpl filer = new FilerImpl(new File(dir, "classes"), new File(dir, "src"), null, false, false);
+    XmlOptions options = new XmlOptions().setCompileExecutor(pool);
+    if (!SchemaTypeSystemCompiler.generateTypes(sts, filer, options)) {
+      throw new IllegalStateException("code generation failed");
+    }
+    return filer.getSourceFiles().size();
+  }
+
+  private long build(File xsd, File dir, String compiler, File cache)
+  {
+    File jar = new File(dir, "large.jar");
+    Parameters params = new Parameters();
+    params.setXsdFiles(xsd);
+    params.setSrcDir(new File(dir, "src"));
+    params.setClassesDir(new File(dir, "classes"));
+    params.setOutputJar(jar);
+    params.setCompiler(compiler);
+    params.setCacheDir(cache);
+    params.setQuiet(true);
+    if (!SchemaCompiler.compile(params)) {
+      throw new IllegalStateException("build failed");
+    }
+    return jar.length();
+  }
+
+  private String createSchema(int types)
+  {
+    StringBuilder buff = new StringBuilder(types * 300);
+    buff.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:p=\"").append(NAMESPACE)
+        .append("\" targetNamespace=\"").append(NAMESPACE).append("\" elementFormDefault=\"qualified\">");
+    for (int i=0; i<types; i++) {
+      buff.append("<xs:element name=\"e").append(i).append("\" type=\"p:T").append(i).append("\"/>");
+      buff.append("<xs:complexType name=\"T").append(i).append("\"><xs:sequence>");
+      buff.append("<xs:element name=\"name\" type=\"xs:string\"/>");
+      if (i > 0) {
+        buff.append("<xs:element name=\"child\" type=\"p:T").append(i - 1).append("\" minOccurs=\"0\"/>");
+      }
+      buff.append("</xs:sequence><xs:attribute name=\"id\" type=\"xs:int\"/></xs:complexType>");
+    }
+    buff.append("</xs:schema>");
+    return buff.toString();
+  }
+}
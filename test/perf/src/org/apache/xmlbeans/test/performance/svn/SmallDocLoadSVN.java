@@ -0,0 +1,97 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.common.SystemCache;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+
+/**
+ * Measures the parse throughput of small documents with the per-thread
+ * SaxLoader pool enabled (the default) and disabled.
+ */
+public class SmallDocLoadSVN
+{
+  private static final int DOC_SIZE = 200;
+
+  public static void main(String[] args) throws Exception
+  {
+
+    final int iterations = Constants.ITERATIONS * 10;
+    String flavor;
+
+    if(args.length == 0)
+      flavor = "wide-attributes";
+    else
+      flavor = args[0];
+
+    SmallDocLoadSVN test = new SmallDocLoadSVN();
+    PerfUtil util = new PerfUtil();
+    int hash = 0;
+
+    byte[] bytes = util.createXmlDataBytes(flavor, DOC_SIZE);
+
+    // warm up the vm
+    for(int i=0; i<iterations; i++){
+      hash += test.run(bytes);
+    }
+
+    // pooled SaxLoaders
+    long pooled = System.currentTimeMillis();
+    for(int i=0; i<iterations; i++){
+      hash += test.run(bytes);
+    }
+    pooled = System.currentTimeMillis() - pooled;
+
+    // a SystemCache without a sax loader slot disables the pooling
+    SystemCache defaultCache = SystemCache.get();
+    SystemCache.set(new SystemCache(){
+      public Object getSaxLoader() {
+        return null;
+      }
+
+      public void setSaxLoader(Object saxLoader) {
+      }
+    });
+
+    long unpooled = System.currentTimeMillis();
+    for(int i=0; i<iterations; i++){
+      hash += test.run(bytes);
+    }
+    unpooled = System.currentTimeMillis() - unpooled;
+
+    SystemCache.set(defaultCache);
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" flavor="+flavor+" size="+bytes.length+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+pooled+" unpooled "+unpooled+"\n");
+  }
+
+  private int run(byte[] bytes) throws Exception
+  {
+    XmlObject xobj = XmlObject.Factory.parse(new ByteArrayInputStream(bytes));
+
+    XmlCursor cursor = xobj.newCursor();
+    cursor.toFirstContentToken();
+    int hash = cursor.getName().toString().length() * 17;
+    cursor.dispose();
+    return hash;
+  }
+}
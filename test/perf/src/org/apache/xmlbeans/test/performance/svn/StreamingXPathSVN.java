@@ -0,0 +1,93 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.xpath.XPath;
+import org.apache.xmlbeans.impl.xpath.xmlbeans.XPathStreamEvaluator;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Compares pulling a few fields out of a large document by evaluating a path on
+ * a stream with loading the document and calling selectPath.
+ */
+public class StreamingXPathSVN
+{
+  private static final String PATH = "$this/purchase-order/customer/name";
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception
+  {
+    int items = (args.length == 0) ? 200000 : Integer.parseInt(args[0]);
+
+    StreamingXPathSVN test = new StreamingXPathSVN();
+    String doc = test.createDoc(items);
+    XPath xpath = XPath.compileXPath(PATH, "this");
+
+    // warm up the vm
+    test.runStream(xpath, doc);
+    test.runLoad(doc);
+
+    long stream = 0;
+    long load = 0;
+    int hash = 0;
+    for (int i=0; i<ROUNDS; i++) {
+      long cputime = System.currentTimeMillis();
+      hash += test.runStream(xpath, doc);
+      stream += System.currentTimeMillis() - cputime;
+
+      cputime = System.currentTimeMillis();
+      hash += test.runLoad(doc);
+      load += System.currentTimeMillis() - cputime;
+    }
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" items="+items+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+(stream/ROUNDS)+" load-selectPath "+(load/ROUNDS)+"\n");
+  }
+
+  private int runStream(XPath xpath, String doc) throws Exception
+  {
+    XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(doc));
+    List<XmlObject> found = new XPathStreamEvaluator(xpath).evaluate(xsr);
+    xsr.close();
+    return found.get(0).xmlText().length();
+  }
+
+  private int runLoad(String doc) throws Exception
+  {
+    XmlObject[] found = XmlObject.Factory.parse(doc).selectPath(PATH);
+    return found[0].xmlText().length();
+  }
+
+  private String createDoc(int items)
+  {
+    StringBuilder buff = new StringBuilder(items * 120);
+    buff.append("<purchase-order><customer><name>Gladys Kravitz</name><address>Anytown, PA</address></customer>");
+    for (int i=0; i<items; i++) {
+      buff.append("<line-item><description>item ").append(i).append("</description>");
+      buff.append("<price>").append(i).append(".99</price><quantity>1</quantity></line-item>");
+    }
+    buff.append("</purchase-order>");
+    return buff.toString();
+  }
+}
@@ -0,0 +1,96 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Reports the heap retained by a large, fully resolved type system, which is
+ * loaded from its saved .xsb resources.
+ */
+public class TypeSystemFootprintSVN
+{
+  private static final String NAMESPACE = "http://openuri.org/footprint";
+
+  public static void main(String[] args) throws Exception
+  {
+    int types = (args.length == 0) ? 6000 : Integer.parseInt(args[0]);
+
+    TypeSystemFootprintSVN test = new TypeSystemFootprintSVN();
+    File dir = Files.createTempDirectory("footprint").toFile();
+    test.createTypeSystem(types).saveToDirectory(dir);
+
+    // warm up the vm
+    test.loadTypeSystem(dir);
+
+    long before = usedHeap();
+    SchemaTypeSystem sts = test.loadTypeSystem(dir);
+    long after = usedHeap();
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" types="+types+" ");
+    System.out.print("hash "+sts.globalTypes().length+" ");
+    System.out.print("retained-before "+before+" retained-after "+after+" bytes/type "+((after-before)/types)+"\n");
+  }
+
+  private static long usedHeap()
+  {
+    MemoryMXBean bean = ManagementFactory.getMemoryMXBean();
+    for (int i=0; i<3; i++) {
+      System.gc();
+    }
+    return bean.getHeapMemoryUsage().getUsed();
+  }
+
+  private SchemaTypeSystem loadTypeSystem(File dir)
+  {
+    // a new loader starts with an unresolved type system
+    SchemaTypeLoader loader = XmlBeans.typeLoaderForResource(XmlBeans.resourceLoaderForPath(new File[]{dir}));
+    SchemaTypeSystem sts = loader.findType(new QName(NAMESPACE, "T0")).getTypeSystem();
+    sts.resolve();
+    return sts;
+  }
+
+  private SchemaTypeSystem createTypeSystem(int types) throws Exception
+  {
+    StringBuilder buff = new StringBuilder(types * 400);
+    buff.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:p=\"").append(NAMESPACE)
+        .append("\" targetNamespace=\"").append(NAMESPACE).append("\" elementFormDefault=\"qualified\">");
+    for (int i=0; i<types; i++) {
+      // the local names are shared by all types, like in typical schemas
+      buff.append("<xs:element name=\"e").append(i).append("\" type=\"p:T").append(i).append("\"/>");
+      buff.append("<xs:complexType name=\"T").append(i).append("\"><xs:sequence>");
+      buff.append("<xs:element name=\"name\" type=\"xs:string\"/>");
+      buff.append("<xs:element name=\"description\" type=\"xs:string\" minOccurs=\"0\"/>");
+      buff.append("<xs:element name=\"amount\" type=\"xs:decimal\" minOccurs=\"0\"/>");
+      buff.append("</xs:sequence><xs:attribute name=\"id\" type=\"xs:int\"/></xs:complexType>");
+    }
+    buff.append("</xs:schema>");
+
+    XmlObject schema = XmlObject.Factory.parse(buff.toString());
+    return XmlBeans.compileXsd(new XmlObject[]{schema}, XmlBeans.getBuiltinTypeSystem(), null);
+  }
+}
@@ -0,0 +1,106 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.SchemaType;
+import org.apache.xmlbeans.SchemaTypeLoader;
+import org.apache.xmlbeans.SchemaTypeSystem;
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Measures the startup cost of a large saved type system, by resolving all of its
+ * components sequentially and by preloading them on a thread pool.
+ */
+public class TypeSystemPreloadSVN
+{
+  private static final String NAMESPACE = "http://openuri.org/preload";
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception
+  {
+    int types = (args.length == 0) ? 2000 : Integer.parseInt(args[0]);
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    TypeSystemPreloadSVN test = new TypeSystemPreloadSVN();
+    File dir = Files.createTempDirectory("preload").toFile();
+    test.createTypeSystem(types).saveToDirectory(dir);
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      // warm up the vm
+      test.loadTypeSystem(dir).resolve();
+      test.loadTypeSystem(dir).preload(pool);
+
+      long sequential = 0;
+      long preload = 0;
+      int hash = 0;
+      for (int i=0; i<ROUNDS; i++) {
+        // each round starts with a fresh, unresolved type system
+        SchemaTypeSystem sts = test.loadTypeSystem(dir);
+        long cputime = System.currentTimeMillis();
+        sts.resolve();
+        sequential += System.currentTimeMillis() - cputime;
+
+        sts = test.loadTypeSystem(dir);
+        SchemaTypeSystem.PreloadResult result = sts.preload(pool);
+        preload += result.getMillis();
+        hash += result.getComponentCount();
+      }
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" types="+types+" threads="+threads+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+(preload/ROUNDS)+" sequential "+(sequential/ROUNDS)+"\n");
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private SchemaTypeSystem createTypeSystem(int types) throws Exception
+  {
+    StringBuilder buff = new StringBuilder(types * 300);
+    buff.append("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" xmlns:p=\"").append(NAMESPACE)
+        .append("\" targetNamespace=\"").append(NAMESPACE).append("\" elementFormDefault=\"qualified\">");
+    for (int i=0; i<types; i++) {
+      buff.append("<xs:element name=\"e").append(i).append("\" type=\"p:T").append(i).append("\"/>");
+      buff.append("<xs:complexType name=\"T").append(i).append("\"><xs:sequence>");
+      buff.append("<xs:element name=\"name\" type=\"xs:string\"/>");
+      if (i > 0) {
+        buff.append("<xs:element name=\"child\" type=\"p:T").append(i - 1).append("\" minOccurs=\"0\"/>");
+      }
+      buff.append("</xs:sequence><xs:attribute name=\"id\" type=\"xs:int\"/></xs:complexType>");
+    }
+    buff.append("</xs:schema>");
+
+    XmlObject schema = XmlObject.Factory.parse(buff.toString());
+    return XmlBeans.compileXsd(new XmlObject[]{schema}, XmlBeans.getBuiltinTypeSystem(), null);
+  }
+
+  private SchemaTypeSystem loadTypeSystem(File dir)
+  {
+    SchemaTypeLoader loader = XmlBeans.typeLoaderForResource(XmlBeans.resourceLoaderForPath(new File[]{dir}));
+    SchemaType type = loader.findType(new QName(NAMESPACE, "T0"));
+    return type.getTypeSystem();
+  }
+}
@@ -0,0 +1,95 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+
+/**
+ * Saves a document to an OutputStream with the default saver and with the UTF-8 saver,
+ * which is used for the option SaveOptimizeForSpeed, and prints the throughput and the
+ * allocated bytes per save.
+ */
+public class Utf8SaveSVN
+{
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = Constants.ITERATIONS;
+    String filename = (args.length == 0) ? Constants.PO_INSTANCE_7 : Constants.XSD_DIR+Constants.P+args[0];
+
+    Utf8SaveSVN test = new Utf8SaveSVN();
+    PerfUtil util = new PerfUtil();
+    char[] chars = util.fileToChars(filename);
+    XmlObject doc = XmlObject.Factory.parse(new String(chars));
+
+    XmlOptions plain = new XmlOptions().setSaveNoXmlDecl();
+    XmlOptions fast = new XmlOptions().setSaveOptimizeForSpeed(true);
+
+    // warm up the vm
+    for(int i=0; i<iterations; i++){
+      test.run(doc, plain);
+      test.run(doc, fast);
+    }
+
+    for (XmlOptions options : new XmlOptions[] {plain, fast}) {
+      long bytes = allocatedBytes();
+      long cputime = System.currentTimeMillis();
+      long hash = 0;
+      for(int i=0; i<iterations; i++){
+        hash += test.run(doc, options);
+      }
+      cputime = Math.max(1, System.currentTimeMillis() - cputime);
+      bytes = allocatedBytes() - bytes;
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" utf8="+options.isSaveOptimizeForSpeed()+" filesize="+chars.length+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+cputime+" MB/s "+(hash/1000/cputime)+" alloc-bytes/save "+(bytes/iterations)+"\n");
+    }
+  }
+
+  private static long allocatedBytes()
+  {
+    com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private long run(XmlObject doc, XmlOptions options) throws Exception
+  {
+    CountingOutputStream os = new CountingOutputStream();
+    doc.save(os, options);
+    return os._count;
+  }
+
+  private static final class CountingOutputStream extends OutputStream
+  {
+    long _count;
+
+    public void write(int b)
+    {
+      _count++;
+    }
+
+    public void write(byte[] b, int off, int len)
+    {
+      _count += len;
+    }
+  }
+}
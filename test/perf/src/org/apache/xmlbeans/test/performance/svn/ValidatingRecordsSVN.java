@@ -0,0 +1,84 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.io.CharArrayReader;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.xmlbeans.XmlBeans;
+import org.apache.xmlbeans.impl.validator.ValidatingRecordReader;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+import org.apache.xmlbeans.test.performance.utils.PerfUtil;
+import org.openuri.easypo.LineItem;
+
+/**
+ * Validates a purchase order and loads its line items as typed records
+ * in one pass, and reports the records per millisecond.
+ */
+public class ValidatingRecordsSVN
+{
+  private static final QName LINE_ITEM = new QName(Constants.PO_NS, Constants.sLineItem);
+
+  public static void main(String[] args) throws Exception
+  {
+    final int iterations = Constants.ITERATIONS;
+
+    String filename = args.length == 0 ? Constants.PO_INSTANCE_7 : Constants.XSD_DIR+Constants.P+args[0];
+
+    ValidatingRecordsSVN test = new ValidatingRecordsSVN();
+    PerfUtil util = new PerfUtil();
+    char[] chars = util.fileToChars(filename);
+
+    // warm up the vm
+    int hash = 0;
+    for (int i=0; i<iterations; i++) {
+      hash += test.run(chars);
+    }
+
+    // run it again for the real measurement
+    hash = 0;
+    long records = 0;
+    long cputime = System.currentTimeMillis();
+    for (int i=0; i<iterations; i++) {
+      int n = test.run(chars);
+      hash += n;
+      records += n;
+    }
+    cputime = Math.max(1, System.currentTimeMillis() - cputime);
+
+    // print the results
+    System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" chars="+chars.length+" ");
+    System.out.print("hash "+hash+" ");
+    System.out.print("time "+cputime+" records/ms "+(records/cputime)+"\n");
+  }
+
+  private int run(char[] chars) throws Exception
+  {
+    XMLStreamReader xsr = XMLInputFactory.newInstance().createXMLStreamReader(new CharArrayReader(chars));
+    int n = 0;
+    try (ValidatingRecordReader records = new ValidatingRecordReader(
+      XmlBeans.getContextTypeLoader(), xsr, LINE_ITEM, LineItem.type, null)) {
+      while (records.hasNext()) {
+        LineItem item = (LineItem) records.next();
+        if (records.isValid() && item.getQuantity() > 0) {
+          n++;
+        }
+      }
+    }
+    return n;
+  }
+}
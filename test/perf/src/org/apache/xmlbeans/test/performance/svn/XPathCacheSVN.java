@@ -0,0 +1,98 @@
+/*   Copyright 2004 The Apache Software Foundation
+*
+*   Licensed under the Apache License, Version 2.0 (the "License");
+*   you may not use this file except in compliance with the License.
+*   You may obtain a copy of the License at
+*
+*       http://www.apache.org/licenses/LICENSE-2.0
+*
+*   Unless required by applicable law or agreed to in writing, software
+*   distributed under the License is distributed on an "AS IS" BASIS,
+*   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*   See the License for the specific language governing permissions and
+*  limitations under the License.
+*/
+package org.apache.xmlbeans.test.performance.svn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.impl.xpath.XPathFactory;
+import org.apache.xmlbeans.test.performance.utils.Constants;
+
+/**
+ * Runs a few hot XPath expressions on many threads, to measure the contention
+ * on the compiled expression cache.
+ */
+public class XPathCacheSVN
+{
+  private static final String[] PATHS = {
+    "//line-item", "$this/purchase-order/customer/name", "//price", "$this//quantity",
+    "purchase-order/line-item[1]/description", "//customer/address"
+  };
+  private static final int ITERATIONS = 20000;
+
+  public static void main(String[] args) throws Exception
+  {
+    int threads = (args.length == 0) ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[0]);
+
+    XPathCacheSVN test = new XPathCacheSVN();
+    // each thread has its own document, so only the expression cache is shared
+    XmlObject[] docs = new XmlObject[threads];
+    for (int t=0; t<threads; t++) {
+      docs[t] = XmlObject.Factory.parse(test.createDoc(20));
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      // warm up the vm
+      test.run(pool, docs);
+
+      long cputime = System.currentTimeMillis();
+      int hash = test.run(pool, docs);
+      cputime = System.currentTimeMillis() - cputime;
+
+      // print the results
+      System.out.print(Constants.DELIM+test.getClass().getSimpleName()+" threads="+threads+" ");
+      System.out.print("hash "+hash+" ");
+      System.out.print("time "+cputime+" cache "+XPathFactory.getPathCache()+"\n");
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private int run(ExecutorService pool, XmlObject[] docs) throws Exception
+  {
+    List<Future<Integer>> results = new ArrayList<>();
+    for (XmlObject doc : docs) {
+      results.add(pool.submit(() -> {
+        int hash = 0;
+        for (int i=0; i<ITERATIONS; i++) {
+          hash += doc.selectPath(PATHS[i % PATHS.length]).length;
+        }
+        return hash;
+      }));
+    }
+    int hash = 0;
+    for (Future<Integer> f : results) {
+      hash += f.get();
+    }
+    return hash;
+  }
+
+  private String createDoc(int items)
+  {
+    StringBuilder buff = new StringBuilder();
+    buff.append("<purchase-order><customer><name>Gladys Kravitz</name><address>Anytown, PA</address></customer>");
+    for (int i=0; i<items; i++) {
+      buff.append("<line-item><description>item ").append(i).append("</description>");
+      buff.append("<price>").append(i).append(".99</price><quantity>1</quantity></line-item>");
+    }
+    buff.append("</purchase-order>");
+    return buff.toString();
+  }
+}